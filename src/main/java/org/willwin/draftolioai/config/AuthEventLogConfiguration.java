@@ -0,0 +1,17 @@
+package org.willwin.draftolioai.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for structured auth event logging.
+ * <p>
+ * This class enables the properties consumed by
+ * {@link org.willwin.draftolioai.service.AuthEventLogger}.
+ */
+@Configuration
+@EnableConfigurationProperties(AuthEventLogProperties.class)
+public class AuthEventLogConfiguration
+{
+
+}
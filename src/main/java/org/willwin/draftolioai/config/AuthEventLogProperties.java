@@ -0,0 +1,47 @@
+package org.willwin.draftolioai.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for structured auth event logging.
+ * <p>
+ * Events are written by a background thread from a fixed-size ring buffer, so the
+ * request thread never formats or writes log lines itself.
+ */
+@ConfigurationProperties(prefix = "auth.events")
+@Validated
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthEventLogProperties
+{
+
+    /**
+     * Whether auth events are logged at all
+     */
+    @NotNull
+    private Boolean enabled = true;
+
+    /**
+     * Ring buffer capacity, rounded up to a power of two; events are dropped when it is full
+     */
+    @NotNull
+    @Min(16)
+    private Integer bufferSize = 8192;
+
+    /**
+     * Log one in N events of a type, keyed by event name (e.g. status-checked: 100); unlisted types are not sampled
+     */
+    @NotNull
+    private Map<String, Integer> sampleEvery = new LinkedHashMap<>();
+
+}
@@ -0,0 +1,85 @@
+package org.willwin.draftolioai.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.session.web.http.CookieSerializer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+import org.willwin.draftolioai.service.AuthRateLimiter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects requests to rate limited authentication endpoints with 429 Too Many Requests
+ * and a {@code Retry-After} header once the client has used up its tokens.
+ * <p>
+ * Runs before the security context and session are loaded, so rejected requests cost
+ * no session work. The session key is the raw session cookie value, read through the
+ * {@link CookieSerializer} only once the client IP has a token; the session itself is
+ * never resolved here.
+ * <p>
+ * Endpoints are matched on the decoded path within the application with path parameters
+ * removed, the same path the handler mapping sees, so {@code /auth/%6Cogin} or
+ * {@code /auth/login;x} are limited like {@code /auth/login}.
+ */
+public class AuthRateLimitFilter extends OncePerRequestFilter
+{
+
+    private static final String RATE_LIMITED_BODY = "{\"error\":\"too_many_requests\"}";
+
+    private final AuthRateLimiter authRateLimiter;
+
+    private final CookieSerializer cookieSerializer;
+
+    public AuthRateLimitFilter(final AuthRateLimiter authRateLimiter, final CookieSerializer cookieSerializer)
+    {
+        this.authRateLimiter = authRateLimiter;
+        this.cookieSerializer = cookieSerializer;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request)
+    {
+        return !authRateLimiter.isLimited(path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain)
+            throws ServletException, IOException
+    {
+        final long waitNanos = authRateLimiter.tryAcquire(
+                path(request), request.getRemoteAddr(), () -> sessionCookie(request));
+        if (waitNanos == 0)
+        {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(RATE_LIMITED_BODY);
+    }
+
+    private String sessionCookie(final HttpServletRequest request)
+    {
+        final List<String> values = cookieSerializer.readCookieValues(request);
+        return values.isEmpty() ? null : values.getFirst();
+    }
+
+    private static String path(final HttpServletRequest request)
+    {
+        // The default instance decodes the URI and strips ";" path parameters
+        return UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+    }
+
+}
@@ -0,0 +1,239 @@
+package org.willwin.draftolioai.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for authenticated HTTP session storage.
+ */
+@ConfigurationProperties(prefix = "auth.session")
+@Validated
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthSessionProperties
+{
+
+    /**
+     * Where sessions are kept
+     */
+    @NotNull
+    private Store store = Store.MEMORY;
+
+    /**
+     * Session inactivity timeout
+     */
+    @NotNull
+    private Duration timeout = Duration.ofMinutes(30);
+
+    /**
+     * Name of the session cookie
+     */
+    @NotNull
+    private String cookieName = "JSESSIONID";
+
+    /**
+     * Interval between expired session sweeps
+     */
+    @NotNull
+    private Duration cleanupInterval = Duration.ofMinutes(1);
+
+    /**
+     * JDBC store configuration
+     */
+    @NotNull
+    private Jdbc jdbc = new Jdbc();
+
+    /**
+     * Stateless cookie store configuration
+     */
+    @NotNull
+    private Cookie cookie = new Cookie();
+
+    /**
+     * Concurrent session registry configuration
+     */
+    @NotNull
+    private Registry registry = new Registry();
+
+    /**
+     * Cache of the serialized {@code /auth/status} and {@code /auth/me} payloads
+     */
+    @NotNull
+    private ResponseCache responseCache = new ResponseCache();
+
+    /**
+     * Session storage backends
+     */
+    public enum Store
+    {
+
+        /**
+         * Sessions live only in the memory of the node that created them
+         */
+        MEMORY,
+
+        /**
+         * Sessions are kept in memory and written behind to the application datasource
+         */
+        JDBC,
+
+        /**
+         * Sessions are sealed into the session cookie itself; nodes keep no session state
+         */
+        COOKIE
+
+    }
+
+    /**
+     * Write-behind JDBC session store configuration
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Jdbc
+    {
+
+        /**
+         * Table holding the serialized session records
+         */
+        @NotNull
+        private String tableName = "AUTH_SESSION";
+
+        /**
+         * Whether to create the session table on startup if it does not exist
+         */
+        @NotNull
+        private Boolean initializeSchema = true;
+
+        /**
+         * Maximum time a session change waits in the write-behind buffer
+         */
+        @NotNull
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Number of buffered changes that triggers an early flush, also the JDBC batch size
+         */
+        @NotNull
+        private Integer flushBatchSize = 500;
+
+        /**
+         * Minimum change in last access time before a session that was only read is written again
+         */
+        @NotNull
+        private Duration touchInterval = Duration.ofMinutes(1);
+
+        /**
+         * Failed writes of a session before the write is logged and dropped
+         */
+        @NotNull
+        @Min(1)
+        private Integer maxAttempts = 5;
+
+        /**
+         * Buffered writes, and separately deletes, at most; further changes are logged and dropped
+         */
+        @NotNull
+        @Min(1)
+        private Integer maxPending = 100_000;
+
+    }
+
+    /**
+     * Concurrent session registry configuration
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Registry
+    {
+
+        /**
+         * Maximum number of concurrent sessions per user; older sessions are expired on login
+         */
+        @NotNull
+        private Integer maximumSessions = 1;
+
+        /**
+         * Whether to share the registry through the application datasource so the limit holds across nodes
+         */
+        @NotNull
+        private Boolean jdbc = false;
+
+        /**
+         * Table holding the registered sessions
+         */
+        @NotNull
+        private String tableName = "AUTH_SESSION_REGISTRY";
+
+        /**
+         * Whether to create the registry table on startup if it does not exist
+         */
+        @NotNull
+        private Boolean initializeSchema = true;
+
+        /**
+         * Interval at which expirations from other nodes are picked up and last request times written
+         */
+        @NotNull
+        private Duration syncInterval = Duration.ofSeconds(5);
+
+    }
+
+    /**
+     * Auth response cache configuration
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResponseCache
+    {
+
+        /**
+         * Users with cached payloads at most; the least recently used are dropped beyond it
+         */
+        @NotNull
+        @Min(1)
+        private Integer maxSize = 10_000;
+
+    }
+
+    /**
+     * Stateless encrypted cookie session configuration
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cookie
+    {
+
+        /**
+         * Sealing keys by key ID, each a base64-encoded 128, 192 or 256-bit AES key
+         */
+        @NotNull
+        private Map<String, String> keys = new LinkedHashMap<>();
+
+        /**
+         * ID of the key used to seal cookies; the other keys are only accepted when reading
+         */
+        private String activeKeyId;
+
+        /**
+         * Minimum change in last access time before a cookie that was only read is reissued
+         */
+        @NotNull
+        private Duration touchInterval = Duration.ofMinutes(1);
+
+    }
+
+}
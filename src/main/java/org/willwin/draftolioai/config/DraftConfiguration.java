@@ -0,0 +1,95 @@
+package org.willwin.draftolioai.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.willwin.draftolioai.repository.BrokerDraftEventBus;
+import org.willwin.draftolioai.repository.DraftEventBroker;
+import org.willwin.draftolioai.repository.DraftHistoryWriter;
+import org.willwin.draftolioai.repository.DraftJournal;
+import org.willwin.draftolioai.service.DraftEventBus;
+import org.willwin.draftolioai.service.InProcessDraftEventBus;
+
+/**
+ * Configuration class for the drafting engine.
+ * <p>
+ * This class enables the properties consumed by
+ * {@link org.willwin.draftolioai.service.DraftEngine} and provides the draft event journal,
+ * the write-behind draft history and the {@link DraftEventBus} connecting the nodes, along
+ * with the embedded broker with {@code draft.event-bus.embedded-broker=true}.
+ */
+@Configuration
+@EnableConfigurationProperties(DraftProperties.class)
+public class DraftConfiguration
+{
+
+    private static final String EMBEDDED_BROKER = "${draft.event-bus.embedded-broker:false}";
+
+    /**
+     * Append-only journal the drafts are recovered from after a restart.
+     *
+     * @param properties Draft properties
+     * @return The draft journal; a no-op when disabled
+     */
+    @Bean
+    public DraftJournal draftJournal(final DraftProperties properties)
+    {
+        return new DraftJournal(properties.getJournal(), properties.getChampionCapacity());
+    }
+
+    /**
+     * Write-behind persistence of completed picks and bans to the application datasource.
+     *
+     * @param properties   Draft properties
+     * @param jdbcTemplate JDBC template, required only when the history is enabled
+     * @return The draft history writer; a no-op when disabled
+     */
+    @Bean
+    public DraftHistoryWriter draftHistoryWriter(
+            final DraftProperties properties, final ObjectProvider<JdbcTemplate> jdbcTemplate)
+    {
+        return new DraftHistoryWriter(
+                properties.getHistory(), properties.getHistory().getEnabled() ? jdbcTemplate.getObject() : null);
+    }
+
+    /**
+     * Broker relaying draft events between the nodes, run within this node.
+     *
+     * @param properties Draft properties
+     * @return The draft event broker
+     */
+    @Bean
+    @ConditionalOnExpression(EMBEDDED_BROKER)
+    public DraftEventBroker draftEventBroker(final DraftProperties properties)
+    {
+        final DraftProperties.EventBus eventBus = properties.getEventBus();
+        return new DraftEventBroker(
+                eventBus.getBrokerBindAddress(), eventBus.getBrokerPort(), eventBus.getBrokerSecret(),
+                eventBus.getOutboundQueueCapacity()
+        );
+    }
+
+    /**
+     * Distribution of draft events to the other nodes.
+     *
+     * @param properties Draft properties
+     * @param broker     The embedded broker, if any, started before the bus connects to it
+     * @return The draft event bus
+     */
+    @Bean
+    public DraftEventBus draftEventBus(
+            final DraftProperties properties, final ObjectProvider<DraftEventBroker> broker)
+    {
+        if (properties.getEventBus().getType() == DraftProperties.EventBusType.IN_PROCESS)
+        {
+            return new InProcessDraftEventBus();
+        }
+        // Listening before the bus first connects
+        broker.getIfAvailable();
+        return new BrokerDraftEventBus(properties.getEventBus());
+    }
+
+}
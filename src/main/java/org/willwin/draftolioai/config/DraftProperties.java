@@ -0,0 +1,376 @@
+package org.willwin.draftolioai.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the drafting engine.
+ */
+@ConfigurationProperties(prefix = "draft")
+@Validated
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DraftProperties
+{
+
+    /**
+     * Upper bound of the dense champion catalog IDs; sizes the availability bitset of every draft
+     */
+    @NotNull
+    @Min(64)
+    @Max(Short.MAX_VALUE)
+    private Integer championCapacity = 256;
+
+    /**
+     * Sharded command executor configuration
+     */
+    @NotNull
+    private Executor executor = new Executor();
+
+    /**
+     * Event journal configuration
+     */
+    @NotNull
+    private Journal journal = new Journal();
+
+    /**
+     * WebSocket broadcast configuration
+     */
+    @NotNull
+    private Broadcast broadcast = new Broadcast();
+
+    /**
+     * Turn timer configuration
+     */
+    @NotNull
+    private Timer timer = new Timer();
+
+    /**
+     * Cross-node draft event distribution configuration
+     */
+    @NotNull
+    private EventBus eventBus = new EventBus();
+
+    /**
+     * Write-behind persistence of the draft history
+     */
+    @NotNull
+    private History history = new History();
+
+    /**
+     * Sharded command executor configuration
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Executor
+    {
+
+        /**
+         * Number of single-threaded shards drafts are hashed onto; 0 uses one per available processor
+         */
+        @NotNull
+        @Min(0)
+        private Integer shards = 0;
+
+        /**
+         * Maximum number of queued commands per shard; further commands are rejected
+         */
+        @NotNull
+        @Min(1)
+        private Integer queueCapacity = 10_000;
+
+    }
+
+    /**
+     * Event journal configuration
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Journal
+    {
+
+        /**
+         * Whether draft events are journaled and drafts recovered on startup
+         */
+        @NotNull
+        private Boolean enabled = false;
+
+        /**
+         * Directory holding the journal segments and the snapshot, required when enabled;
+         * it should be on a persistent volume
+         */
+        private String directory;
+
+        /**
+         * When appended events are forced to disk
+         */
+        @NotNull
+        private Durability durability = Durability.BATCH;
+
+        /**
+         * Size of each memory-mapped segment file in bytes
+         */
+        @NotNull
+        @Min(4096)
+        private Integer segmentSize = 64 * 1024 * 1024;
+
+        /**
+         * Number of unforced events that triggers a force in batch mode
+         */
+        @NotNull
+        @Min(1)
+        private Integer batchSize = 64;
+
+        /**
+         * Maximum time an event stays unforced in batch mode
+         */
+        @NotNull
+        private Duration flushInterval = Duration.ofMillis(10);
+
+        /**
+         * Interval at which sealed segments are compacted into the snapshot
+         */
+        @NotNull
+        private Duration snapshotInterval = Duration.ofMinutes(1);
+
+    }
+
+    /**
+     * WebSocket broadcast configuration
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Broadcast
+    {
+
+        /**
+         * Frames queued per connection; a connection that falls further behind is resynced with a snapshot
+         */
+        @NotNull
+        @Min(2)
+        private Integer outboundQueueCapacity = 64;
+
+    }
+
+    /**
+     * Turn timer configuration
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Timer
+    {
+
+        /**
+         * Time a side has for a ban; the ban is skipped when it runs out
+         */
+        @NotNull
+        private Duration banDuration = Duration.ofSeconds(30);
+
+        /**
+         * Time a side has for a pick; a champion is picked for the side when it runs out
+         */
+        @NotNull
+        private Duration pickDuration = Duration.ofSeconds(60);
+
+        /**
+         * Resolution of the timing wheel; deadlines are rounded up to a whole tick
+         */
+        @NotNull
+        private Duration tickDuration = Duration.ofMillis(10);
+
+        /**
+         * Slots per level of the timing wheel, rounded up to a power of two
+         */
+        @NotNull
+        @Min(16)
+        @Max(4096)
+        private Integer wheelSize = 512;
+
+    }
+
+    /**
+     * Cross-node draft event distribution configuration
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EventBus
+    {
+
+        /**
+         * How draft events reach the other nodes
+         */
+        @NotNull
+        private EventBusType type = EventBusType.IN_PROCESS;
+
+        /**
+         * Host of the draft event broker
+         */
+        @NotNull
+        private String brokerHost = "localhost";
+
+        /**
+         * Port of the draft event broker
+         */
+        @NotNull
+        @Min(1)
+        @Max(65535)
+        private Integer brokerPort = 7480;
+
+        /**
+         * Address the embedded broker listens on
+         */
+        @NotNull
+        private String brokerBindAddress = "127.0.0.1";
+
+        /**
+         * Secret the nodes present to the broker; required unless the broker listens on loopback
+         */
+        private String brokerSecret;
+
+        /**
+         * Whether this node runs the draft event broker on broker-port
+         */
+        @NotNull
+        private Boolean embeddedBroker = false;
+
+        /**
+         * Number of events of a draft sent to the broker together
+         */
+        @NotNull
+        @Min(1)
+        private Integer batchSize = 64;
+
+        /**
+         * Maximum time an event waits for its batch to fill up
+         */
+        @NotNull
+        private Duration flushInterval = Duration.ofMillis(5);
+
+        /**
+         * Time a node waits for the snapshot of a draft it has no events for before closing its connections
+         */
+        @NotNull
+        private Duration snapshotTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Event batches queued per broker connection; further batches are dropped and resynced with a snapshot
+         */
+        @NotNull
+        @Min(1)
+        private Integer outboundQueueCapacity = 10_000;
+
+    }
+
+    /**
+     * Write-behind draft history configuration
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class History
+    {
+
+        /**
+         * Whether completed actions are written to the DRAFT_HISTORY, DRAFT_PICK and DRAFT_BAN tables
+         */
+        @NotNull
+        private Boolean enabled = true;
+
+        /**
+         * Whether to create the history tables on startup if they do not exist
+         */
+        @NotNull
+        private Boolean initializeSchema = true;
+
+        /**
+         * Number of queued actions that triggers an early flush, also the JDBC batch size
+         */
+        @NotNull
+        @Min(1)
+        private Integer batchSize = 500;
+
+        /**
+         * Maximum time an action waits in the queue
+         */
+        @NotNull
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Actions queued at most; further actions overflow while the database falls behind
+         */
+        @NotNull
+        @Min(1)
+        private Integer queueCapacity = 100_000;
+
+        /**
+         * Actions held per draft in turn order while the queue is full; further actions are dropped
+         */
+        @NotNull
+        @Min(1)
+        private Integer overflowCapacity = 100_000;
+
+        /**
+         * Failed writes of a batch before its actions are written one by one and those failing are dropped
+         */
+        @NotNull
+        @Min(1)
+        private Integer maxAttempts = 10;
+
+    }
+
+    /**
+     * Draft event bus implementations
+     */
+    public enum EventBusType
+    {
+
+        /**
+         * Events stay within this node; for a single node
+         */
+        IN_PROCESS,
+
+        /**
+         * Events are relayed between nodes by the draft event broker
+         */
+        BROKER
+
+    }
+
+    /**
+     * Journal durability modes
+     */
+    public enum Durability
+    {
+
+        /**
+         * Force every event to disk before the action is acknowledged
+         */
+        SYNC,
+
+        /**
+         * Force events in groups of batch-size, or after flush-interval at the latest
+         */
+        BATCH,
+
+        /**
+         * Leave write-back to the operating system; survives a process crash but not a host crash
+         */
+        ASYNC
+
+    }
+
+}
@@ -0,0 +1,17 @@
+package org.willwin.draftolioai.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the shared outbound HTTP clients.
+ * <p>
+ * This class enables the client profile properties consumed by
+ * {@link org.willwin.draftolioai.service.OutboundHttpClients}.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class HttpClientConfiguration
+{
+
+}
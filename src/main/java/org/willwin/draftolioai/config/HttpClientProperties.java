@@ -0,0 +1,113 @@
+package org.willwin.draftolioai.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the shared outbound HTTP clients.
+ * <p>
+ * Each profile gets its own connection pool so that a slow upstream cannot exhaust
+ * the connections of another.
+ */
+@ConfigurationProperties(prefix = "http.clients")
+@Validated
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HttpClientProperties
+{
+
+    /**
+     * Client profile for Riot Sign-On
+     */
+    @Valid
+    @NotNull
+    private Profile rso = new Profile();
+
+    /**
+     * Client profile for the Data Dragon static data CDN
+     */
+    @Valid
+    @NotNull
+    private Profile dataDragon = new Profile();
+
+    /**
+     * Client profile for the Riot Games API
+     */
+    @Valid
+    @NotNull
+    private Profile riotApi = new Profile();
+
+    /**
+     * Connection pool and timeout settings of one outbound client
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Profile
+    {
+
+        /**
+         * Maximum time to establish a TCP connection
+         */
+        @NotNull
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Maximum time to wait for the response and between reads of its body
+         */
+        @NotNull
+        private Duration responseTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Maximum number of pooled connections
+         */
+        @NotNull
+        private Integer maxConnections = 50;
+
+        /**
+         * Maximum number of requests waiting for a connection before new ones are rejected
+         */
+        @NotNull
+        private Integer pendingAcquireMaxCount = 200;
+
+        /**
+         * Maximum time a request waits for a pooled connection
+         */
+        @NotNull
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Idle time after which a pooled connection is closed
+         */
+        @NotNull
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        /**
+         * Age after which a pooled connection is closed, bounding stale DNS
+         */
+        @NotNull
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        /**
+         * Whether to enable TCP keep-alive probes on pooled connections
+         */
+        @NotNull
+        private Boolean keepAlive = true;
+
+        /**
+         * Whether to negotiate HTTP/2 over TLS, falling back to HTTP/1.1
+         */
+        @NotNull
+        private Boolean http2 = true;
+
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.willwin.draftolioai.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for simulating RSO behaviour in the mock RSO service.
+ * <p>
+ * Lets environments running with {@code rso.mock-enabled=true} see realistic latency,
+ * slow tails and failures on each RSO operation instead of instant answers.
+ */
+@ConfigurationProperties(prefix = "rso.mock-simulation")
+@Validated
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MockRsoSimulationProperties
+{
+
+    /**
+     * Whether the simulation profile is applied; when false the mock answers instantly
+     */
+    @NotNull
+    private Boolean enabled = false;
+
+    /**
+     * Lifetime of issued access tokens; when unset the mock default of 10 minutes is used
+     */
+    private Duration tokenExpiresIn;
+
+    /**
+     * Simulation of the authorization code exchange, also used for the direct mock login
+     */
+    @Valid
+    @NotNull
+    private Operation tokenExchange = new Operation();
+
+    /**
+     * Simulation of the token refresh
+     */
+    @Valid
+    @NotNull
+    private Operation tokenRefresh = new Operation();
+
+    /**
+     * Simulation of the userinfo lookup
+     */
+    @Valid
+    @NotNull
+    private Operation userInfo = new Operation();
+
+    /**
+     * Latency and failure settings of one simulated operation
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Operation
+    {
+
+        /**
+         * Minimum latency of every call
+         */
+        @NotNull
+        private Duration latency = Duration.ZERO;
+
+        /**
+         * Uniformly distributed extra latency on top of the minimum
+         */
+        @NotNull
+        private Duration jitter = Duration.ZERO;
+
+        /**
+         * Fraction of calls, between 0 and 1, that take the slow tail latency instead
+         */
+        @NotNull
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private Double slowTailRate = 0.0;
+
+        /**
+         * Latency of calls in the slow tail
+         */
+        @NotNull
+        private Duration slowTailLatency = Duration.ofSeconds(2);
+
+        /**
+         * Fraction of calls, between 0 and 1, that fail after their latency
+         */
+        @NotNull
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private Double errorRate = 0.0;
+
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.willwin.draftolioai.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for rate limiting of the public authentication endpoints.
+ */
+@ConfigurationProperties(prefix = "auth.rate-limit")
+@Validated
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitProperties
+{
+
+    /**
+     * Whether requests to the configured endpoints are rate limited
+     */
+    @NotNull
+    private Boolean enabled = true;
+
+    /**
+     * Number of independent bucket maps per limit, rounded up to a power of two
+     */
+    @NotNull
+    @Min(1)
+    private Integer stripes = 16;
+
+    /**
+     * Time after which a full, unused bucket is dropped
+     */
+    @NotNull
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Interval between idle bucket sweeps
+     */
+    @NotNull
+    private Duration evictionInterval = Duration.ofMinutes(1);
+
+    /**
+     * Limited endpoints by name
+     */
+    @Valid
+    @NotNull
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    /**
+     * Limits of one endpoint
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Endpoint
+    {
+
+        /**
+         * Exact request path
+         */
+        @NotBlank
+        private String path;
+
+        /**
+         * Limit per client IP address; unset for none
+         */
+        @Valid
+        private Limit perIp;
+
+        /**
+         * Limit per session, for requests carrying a session cookie; unset for none
+         */
+        @Valid
+        private Limit perSession;
+
+    }
+
+    /**
+     * Token bucket settings
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit
+    {
+
+        /**
+         * Bucket size, the number of requests allowed in a burst
+         */
+        @NotNull
+        @Min(1)
+        private Integer capacity;
+
+        /**
+         * Tokens added per second
+         */
+        @NotNull
+        @DecimalMin(
+                value = "0.0",
+                inclusive = false
+        )
+        private Double refillPerSecond;
+
+    }
+
+}
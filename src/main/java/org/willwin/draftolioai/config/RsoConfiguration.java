@@ -3,7 +3,9 @@ package org.willwin.draftolioai.config;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.willwin.draftolioai.service.OutboundHttpClients;
 
 /**
  * Configuration class for Riot Sign-On (RSO) integration.
@@ -12,19 +14,22 @@ import org.springframework.web.reactive.function.client.WebClient;
  * beans for RSO authentication.
  */
 @Configuration
-@EnableConfigurationProperties(RsoProperties.class)
+@EnableConfigurationProperties({ RsoProperties.class, MockRsoSimulationProperties.class })
 public class RsoConfiguration
 {
 
     /**
-     * Provides a WebClient.Builder bean for RSO HTTP communication.
+     * Provides a WebClient.Builder bean for RSO HTTP communication. Each injection point
+     * gets its own builder, all sharing the pooled RSO connection.
      *
+     * @param outboundHttpClients Shared outbound HTTP clients
      * @return Configured WebClient.Builder
      */
     @Bean
-    WebClient.Builder webClientBuilder()
+    @Scope("prototype")
+    WebClient.Builder webClientBuilder(final OutboundHttpClients outboundHttpClients)
     {
-        return WebClient.builder();
+        return outboundHttpClients.webClientBuilder(OutboundHttpClients.Profile.RSO);
     }
 
 }
@@ -49,6 +49,12 @@ public class RsoProperties
     @NotNull
     private Tokens tokens;
 
+    /**
+     * User info cache configuration
+     */
+    @NotNull
+    private UserInfoCache userInfoCache = new UserInfoCache();
+
     /**
      * RSO client registration details
      */
@@ -153,6 +159,161 @@ public class RsoProperties
         @NotNull
         private Duration requestTimeout;
 
+        /**
+         * Interval between background sweeps looking for tokens due for refresh
+         */
+        @NotNull
+        private Duration refreshSweepInterval = Duration.ofSeconds(5);
+
+        /**
+         * Maximum number of sessions refreshed in a single background sweep
+         */
+        @NotNull
+        private Integer refreshBatchSize = 50;
+
+        /**
+         * Upper bound of the random jitter subtracted from each scheduled refresh time
+         * so that sessions created together do not refresh together
+         */
+        @NotNull
+        private Duration refreshJitter = Duration.ofSeconds(30);
+
+        /**
+         * Base delay between failed refresh attempts, doubled on each retry
+         */
+        @NotNull
+        private Duration refreshRetryBackoff = Duration.ofSeconds(2);
+
+        /**
+         * How long a fetched JWKS is used before it is fetched again
+         */
+        @NotNull
+        private Duration jwksCacheTtl = Duration.ofHours(1);
+
+        /**
+         * Minimum time between JWKS fetches triggered by an unknown key ID
+         */
+        @NotNull
+        private Duration jwksRefreshRateLimit = Duration.ofSeconds(30);
+
+        /**
+         * Allowed clock skew when checking ID token expiry
+         */
+        @NotNull
+        private Duration idTokenClockSkew = Duration.ofSeconds(60);
+
+        /**
+         * Circuit breaker, hedging and bulkhead settings for calls to RSO
+         */
+        @NotNull
+        private Resilience resilience = new Resilience();
+
+    }
+
+    /**
+     * Resilience settings for outbound RSO calls
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Resilience
+    {
+
+        /**
+         * Percentage of failed calls in the sliding window that opens the circuit
+         */
+        @NotNull
+        private Integer failureRateThreshold = 50;
+
+        /**
+         * Number of most recent calls the failure rate is computed over
+         */
+        @NotNull
+        private Integer slidingWindowSize = 20;
+
+        /**
+         * Minimum number of calls in the window before the circuit can open
+         */
+        @NotNull
+        private Integer minimumCalls = 10;
+
+        /**
+         * How long an open circuit fails calls fast before letting probes through
+         */
+        @NotNull
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * Number of probe calls let through while half-open; all must succeed to close the circuit
+         */
+        @NotNull
+        private Integer halfOpenProbes = 2;
+
+        /**
+         * Whether to hedge idempotent calls that exceed the latency percentile
+         */
+        @NotNull
+        private Boolean hedgeEnabled = true;
+
+        /**
+         * Latency percentile after which a hedged duplicate is sent
+         */
+        @NotNull
+        private Double hedgePercentile = 0.95;
+
+        /**
+         * Lower bound of the hedge delay
+         */
+        @NotNull
+        private Duration hedgeMinDelay = Duration.ofMillis(50);
+
+        /**
+         * Number of latency samples required before hedging starts
+         */
+        @NotNull
+        private Integer hedgeMinSamples = 20;
+
+        /**
+         * Maximum number of concurrent calls to RSO
+         */
+        @NotNull
+        private Integer maxConcurrentCalls = 32;
+
+        /**
+         * Maximum time a call waits for a free slot before failing fast
+         */
+        @NotNull
+        private Duration maxWait = Duration.ofMillis(50);
+
+    }
+
+    /**
+     * Cache for RSO user info lookups
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserInfoCache
+    {
+
+        /**
+         * Maximum number of cached user info entries
+         */
+        @NotNull
+        private Integer maxSize = 10_000;
+
+        /**
+         * How long a successful user info lookup is served from the cache
+         */
+        @NotNull
+        private Duration ttl = Duration.ofMinutes(5);
+
+        /**
+         * How long a rejected access token is remembered as invalid
+         */
+        @NotNull
+        private Duration negativeTtl = Duration.ofSeconds(30);
+
     }
 
 }
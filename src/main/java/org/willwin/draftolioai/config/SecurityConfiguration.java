@@ -1,35 +1,103 @@
 package org.willwin.draftolioai.config;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
+import org.springframework.security.web.savedrequest.NullRequestCache;
+import org.springframework.session.web.http.CookieSerializer;
+import org.willwin.draftolioai.repository.ClusterSessionRegistry;
+import org.willwin.draftolioai.service.AuthRateLimiter;
 
 /**
  * Security configuration for RSO authentication.
  * <p>
  * This configuration sets up security rules for RSO OAuth2 authentication,
  * allowing public access to authentication endpoints while protecting other resources.
+ * <p>
+ * Public, stateless routes such as health checks and static assets are matched first by a
+ * separate lightweight chain that never looks up or creates an HTTP session, leaving the
+ * session-aware chain to the authentication and application endpoints.
+ * {@link #PUBLIC_STATELESS_PATHS} is the only place these routes are opened up.
  */
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfiguration
 {
 
     /**
-     * Configure HTTP security for RSO authentication.
+     * Public routes served without a session: health and info checks and static resources.
+     */
+    static final String[] PUBLIC_STATELESS_PATHS = {
+            "/actuator/health", "/actuator/info", "/css/**", "/js/**", "/images/**", "/favicon.ico"
+    };
+
+    /**
+     * Configure the fast path for public, stateless routes.
+     * <p>
+     * The security context is kept in a request attribute instead of the session and no
+     * session management, request cache, CSRF or logout filters are installed, so requests
+     * matched here never reach the session repository or the concurrent session registry.
      *
      * @param http HttpSecurity configuration
      * @return SecurityFilterChain
      * @throws Exception if configuration fails
      */
     @Bean
-    SecurityFilterChain securityFilterChain(final HttpSecurity http) throws Exception
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    SecurityFilterChain publicResourcesFilterChain(final HttpSecurity http) throws Exception
+    {
+        return http
+                .securityMatcher(PUBLIC_STATELESS_PATHS)
+                .authorizeHttpRequests(authorize -> authorize.anyRequest().permitAll())
+                .securityContext(context -> context.securityContextRepository(
+                        new RequestAttributeSecurityContextRepository()))
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+                .csrf(AbstractHttpConfigurer::disable)
+                .logout(AbstractHttpConfigurer::disable)
+                .headers(SecurityConfiguration::securityHeaders)
+                .build();
+    }
+
+    /**
+     * Configure HTTP security for RSO authentication.
+     *
+     * @param http                  HttpSecurity configuration
+     * @param authSessionProperties Session storage configuration
+     * @param authRateLimiter       Rate limits of the public authentication endpoints
+     * @param cookieSerializer      Session cookie serializer, for the rate limit session key
+     * @param sessionRegistry       Registry of server-side sessions, absent with cookie sessions
+     * @return SecurityFilterChain
+     * @throws Exception if configuration fails
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    SecurityFilterChain securityFilterChain(
+            final HttpSecurity http, final AuthSessionProperties authSessionProperties,
+            final AuthRateLimiter authRateLimiter, final CookieSerializer cookieSerializer,
+            final ObjectProvider<ClusterSessionRegistry> sessionRegistry)
+            throws Exception
     {
+        final boolean statelessSessions = authSessionProperties.getStore() == AuthSessionProperties.Store.COOKIE;
+
         return http
+                // Throttle the public login endpoints before any session or security work is done
+                .addFilterBefore(
+                        new AuthRateLimitFilter(authRateLimiter, cookieSerializer), SecurityContextHolderFilter.class)
+
                 // Configure authorization rules
                 .authorizeHttpRequests(authorize -> authorize
                         // Allow public access to authentication endpoints
@@ -46,14 +114,6 @@ public class SecurityConfiguration
                         .requestMatchers("/api/auth/me", "/api/auth/status", "/api/auth/refresh")
                         .authenticated()
 
-                        // Allow public access to actuator health endpoint
-                        .requestMatchers("/actuator/health", "/actuator/info")
-                        .permitAll()
-
-                        // Allow public access to static resources
-                        .requestMatchers("/css/**", "/js/**", "/images/**", "/favicon.ico")
-                        .permitAll()
-
                         // Allow public access to error pages
                         .requestMatchers("/error")
                         .permitAll()
@@ -62,8 +122,17 @@ public class SecurityConfiguration
                         .anyRequest()
                         .authenticated())
 
-                // Configure session management
-                .sessionManagement(session -> session.maximumSessions(1).maxSessionsPreventsLogin(false))
+                // Configure session management; cookie sessions have no server-side state to register
+                .sessionManagement(session ->
+                {
+                    if (!statelessSessions)
+                    {
+                        session
+                                .maximumSessions(authSessionProperties.getRegistry().getMaximumSessions())
+                                .maxSessionsPreventsLogin(false)
+                                .sessionRegistry(sessionRegistry.getObject());
+                    }
+                })
 
                 // Configure logout
                 .logout(logout -> logout
@@ -85,14 +154,7 @@ public class SecurityConfiguration
                         }))
 
                 // Configure security headers
-                .headers(headers -> headers
-                        .frameOptions(frameOptions -> frameOptions.deny())
-                        .contentTypeOptions(contentTypeOptions ->
-                        { })
-                        .httpStrictTransportSecurity(
-                                hstsConfig -> hstsConfig.maxAgeInSeconds(31536000).includeSubDomains(true))
-                        .referrerPolicy(referrerPolicy -> referrerPolicy.policy(
-                                ReferrerPolicyHeaderWriter.ReferrerPolicy.STRICT_ORIGIN_WHEN_CROSS_ORIGIN)))
+                .headers(SecurityConfiguration::securityHeaders)
 
                 // Disable CSRF for API endpoints (can be enabled later with proper token handling)
                 .csrf(AbstractHttpConfigurer::disable)
@@ -100,4 +162,21 @@ public class SecurityConfiguration
                 .build();
     }
 
+    /**
+     * Security headers shared by all filter chains.
+     *
+     * @param headers Headers configuration
+     */
+    private static void securityHeaders(final HeadersConfigurer<HttpSecurity> headers)
+    {
+        headers
+                .frameOptions(frameOptions -> frameOptions.deny())
+                .contentTypeOptions(contentTypeOptions ->
+                { })
+                .httpStrictTransportSecurity(
+                        hstsConfig -> hstsConfig.maxAgeInSeconds(31536000).includeSubDomains(true))
+                .referrerPolicy(referrerPolicy -> referrerPolicy.policy(
+                        ReferrerPolicyHeaderWriter.ReferrerPolicy.STRICT_ORIGIN_WHEN_CROSS_ORIGIN));
+    }
+
 }
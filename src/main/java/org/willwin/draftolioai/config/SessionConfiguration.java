@@ -0,0 +1,136 @@
+package org.willwin.draftolioai.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.web.authentication.session.CompositeSessionAuthenticationStrategy;
+import org.springframework.security.web.authentication.session.ConcurrentSessionControlAuthenticationStrategy;
+import org.springframework.security.web.authentication.session.RegisterSessionAuthenticationStrategy;
+import org.springframework.security.web.authentication.session.SessionAuthenticationStrategy;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.web.http.CookieSerializer;
+import org.springframework.session.web.http.DefaultCookieSerializer;
+import org.willwin.draftolioai.repository.AuthSessionRepository;
+import org.willwin.draftolioai.repository.ClusterSessionRegistry;
+import org.willwin.draftolioai.repository.CookieSessionRepository;
+
+import java.util.List;
+
+/**
+ * Configuration class for HTTP session storage.
+ * <p>
+ * Replaces the servlet container sessions with {@link AuthSessionRepository}, which
+ * keeps sessions in memory and, with {@code auth.session.store=jdbc}, writes them behind
+ * to the application datasource so that logins survive restarts. With
+ * {@code auth.session.store=cookie} sessions are instead sealed into the cookie by
+ * {@link CookieSessionRepository} and nodes keep no session state at all. Session listeners
+ * such as the token refresh scheduler keep receiving destroy notifications through Spring Session.
+ * <p>
+ * Server-side sessions are also tracked in a {@link ClusterSessionRegistry} to limit the
+ * number of concurrent sessions per user, shared across nodes with
+ * {@code auth.session.registry.jdbc=true}.
+ */
+@Configuration
+@EnableSpringHttpSession
+@EnableConfigurationProperties(AuthSessionProperties.class)
+public class SessionConfiguration
+{
+
+    private static final String COOKIE_STORE = "'${auth.session.store:memory}'.equalsIgnoreCase('cookie')";
+
+    private static final String NOT_COOKIE_STORE = "!" + COOKIE_STORE;
+
+    /**
+     * Provides the session repository backing HTTP sessions.
+     *
+     * @param properties     Session configuration
+     * @param jdbcTemplate   JDBC template, required only for the JDBC store
+     * @param eventPublisher Publisher for session events
+     * @return Session repository
+     */
+    @Bean
+    @ConditionalOnExpression(NOT_COOKIE_STORE)
+    AuthSessionRepository sessionRepository(
+            final AuthSessionProperties properties, final ObjectProvider<JdbcTemplate> jdbcTemplate,
+            final ApplicationEventPublisher eventPublisher)
+    {
+        return new AuthSessionRepository(
+                properties,
+                properties.getStore() == AuthSessionProperties.Store.JDBC ? jdbcTemplate.getObject() : null,
+                eventPublisher
+        );
+    }
+
+    /**
+     * Provides the registry of server-side sessions per user.
+     *
+     * @param properties   Session configuration
+     * @param jdbcTemplate JDBC template, required only for a shared registry
+     * @return Session registry
+     */
+    @Bean
+    @ConditionalOnExpression(NOT_COOKIE_STORE)
+    ClusterSessionRegistry sessionRegistry(
+            final AuthSessionProperties properties, final ObjectProvider<JdbcTemplate> jdbcTemplate)
+    {
+        return new ClusterSessionRegistry(
+                properties, properties.getRegistry().getJdbc() ? jdbcTemplate.getObject() : null);
+    }
+
+    /**
+     * Provides the strategy applied when a user logs in: registers the new session and
+     * expires the user's oldest sessions beyond the limit.
+     *
+     * @param properties      Session configuration
+     * @param sessionRegistry Session registry
+     * @return Session authentication strategy
+     */
+    @Bean
+    @ConditionalOnExpression(NOT_COOKIE_STORE)
+    SessionAuthenticationStrategy sessionAuthenticationStrategy(
+            final AuthSessionProperties properties, final ClusterSessionRegistry sessionRegistry)
+    {
+        final ConcurrentSessionControlAuthenticationStrategy concurrentSessionControl =
+                new ConcurrentSessionControlAuthenticationStrategy(sessionRegistry);
+        concurrentSessionControl.setMaximumSessions(properties.getRegistry().getMaximumSessions());
+        concurrentSessionControl.setExceptionIfMaximumExceeded(false);
+        return new CompositeSessionAuthenticationStrategy(List.of(
+                concurrentSessionControl, new RegisterSessionAuthenticationStrategy(sessionRegistry)));
+    }
+
+    /**
+     * Provides the stateless cookie session repository.
+     *
+     * @param properties Session configuration
+     * @return Session repository
+     */
+    @Bean
+    @ConditionalOnExpression(COOKIE_STORE)
+    CookieSessionRepository cookieSessionRepository(final AuthSessionProperties properties)
+    {
+        return new CookieSessionRepository(properties);
+    }
+
+    /**
+     * Provides the session cookie serializer, keeping the cookie name used by logout.
+     *
+     * @param properties Session configuration
+     * @return Cookie serializer
+     */
+    @Bean
+    CookieSerializer cookieSerializer(final AuthSessionProperties properties)
+    {
+        final DefaultCookieSerializer serializer = new DefaultCookieSerializer();
+        serializer.setCookieName(properties.getCookieName());
+        serializer.setUseHttpOnlyCookie(true);
+        serializer.setSameSite("Lax");
+        // Sealed cookie sessions are already base64url
+        serializer.setUseBase64Encoding(properties.getStore() != AuthSessionProperties.Store.COOKIE);
+        return serializer;
+    }
+
+}
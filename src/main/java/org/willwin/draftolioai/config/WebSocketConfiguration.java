@@ -0,0 +1,33 @@
+package org.willwin.draftolioai.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.willwin.draftolioai.controller.DraftWebSocketHandler;
+
+/**
+ * Configuration class for the WebSocket endpoints.
+ * <p>
+ * The handshake goes through the main security filter chain, so only authenticated users
+ * can subscribe, and only from the application's own origin.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfiguration implements WebSocketConfigurer
+{
+
+    private final DraftWebSocketHandler draftWebSocketHandler;
+
+    public WebSocketConfiguration(final DraftWebSocketHandler draftWebSocketHandler)
+    {
+        this.draftWebSocketHandler = draftWebSocketHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(final WebSocketHandlerRegistry registry)
+    {
+        registry.addHandler(draftWebSocketHandler, DraftWebSocketHandler.PATH);
+    }
+
+}
@@ -7,22 +7,32 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.session.SessionAuthenticationStrategy;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.view.RedirectView;
+import org.willwin.draftolioai.config.RsoProperties;
+import org.willwin.draftolioai.dto.AuthSession;
 import org.willwin.draftolioai.dto.AuthenticationState;
 import org.willwin.draftolioai.dto.RsoTokenResponse;
 import org.willwin.draftolioai.dto.RsoUserInfo;
-import org.willwin.draftolioai.dto.UserResponse;
+import org.willwin.draftolioai.repository.AuthSessionRepository;
+import org.willwin.draftolioai.service.AuthEventLogger;
+import org.willwin.draftolioai.service.AuthResponseCache;
 import org.willwin.draftolioai.service.RsoService;
+import org.willwin.draftolioai.service.RsoUserInfoCache;
 import org.willwin.draftolioai.service.MockRsoService;
+import org.willwin.draftolioai.service.TokenRefreshScheduler;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -41,16 +51,37 @@ public class AuthController
 
     private final RsoService rsoService;
 
-    // Session attribute keys
-    private static final String ACCESS_TOKEN_KEY = "rso_access_token";
+    private final TokenRefreshScheduler tokenRefreshScheduler;
 
-    private static final String REFRESH_TOKEN_KEY = "rso_refresh_token";
+    private final RsoUserInfoCache rsoUserInfoCache;
 
-    private static final String USER_INFO_KEY = "rso_user_info";
+    private final RsoProperties rsoProperties;
 
-    public AuthController(final RsoService rsoService)
+    // Absent with stateless cookie sessions, which are refreshed lazily on request instead
+    private final ObjectProvider<AuthSessionRepository> authSessionRepository;
+
+    private final AuthEventLogger authEventLogger;
+
+    // Absent with stateless cookie sessions, which have no concurrent session limit
+    private final ObjectProvider<SessionAuthenticationStrategy> sessionAuthenticationStrategy;
+
+    private final AuthResponseCache authResponseCache;
+
+    public AuthController(
+            final RsoService rsoService, final TokenRefreshScheduler tokenRefreshScheduler,
+            final RsoUserInfoCache rsoUserInfoCache, final RsoProperties rsoProperties,
+            final ObjectProvider<AuthSessionRepository> authSessionRepository, final AuthEventLogger authEventLogger,
+            final ObjectProvider<SessionAuthenticationStrategy> sessionAuthenticationStrategy,
+            final AuthResponseCache authResponseCache)
     {
         this.rsoService = rsoService;
+        this.tokenRefreshScheduler = tokenRefreshScheduler;
+        this.rsoUserInfoCache = rsoUserInfoCache;
+        this.rsoProperties = rsoProperties;
+        this.authSessionRepository = authSessionRepository;
+        this.authEventLogger = authEventLogger;
+        this.sessionAuthenticationStrategy = sessionAuthenticationStrategy;
+        this.authResponseCache = authResponseCache;
     }
 
     /**
@@ -64,55 +95,57 @@ public class AuthController
                     value = "redirect",
                     defaultValue = "/"
             )
-            final String redirectUrl, final HttpServletRequest request, final HttpSession session)
+            final String redirectUrl, final HttpServletRequest request,
+            final HttpServletResponse response, final HttpSession session)
     {
-        log.info("[DEBUG_LOG] Initiating RSO login - redirect URL: {}", redirectUrl);
+        final long startNanos = System.nanoTime();
+        log.debug("[DEBUG_LOG] Initiating RSO login - redirect URL: {}", redirectUrl);
 
         try
         {
             // Check if using MockRsoService - if so, bypass OAuth2 flow and login directly
-            if (rsoService instanceof MockRsoService)
+            if (rsoService instanceof MockRsoService mockRsoService)
             {
-                log.info("[DEBUG_LOG] Using MockRsoService - performing direct mock login");
+                log.debug("[DEBUG_LOG] Using MockRsoService - performing direct mock login");
 
                 // Generate mock tokens directly
-                final String timestamp = String.valueOf(System.currentTimeMillis());
-                final RsoTokenResponse mockTokens = new RsoTokenResponse(
-                        "openid cpid offline_access", 600, // 10 minutes
-                        "Bearer", "mock_refresh_token_" + timestamp, "mock_id_token_" + timestamp,
-                        "mock_sub_sid_" + timestamp, "mock_access_token_" + timestamp
-                );
+                final RsoTokenResponse mockTokens = mockRsoService.createDirectLoginTokens();
 
                 // Create mock user info
                 final RsoUserInfo mockUserInfo = new RsoUserInfo("mock_user_12345", "NA1");
 
                 // Store tokens and user info in session
-                session.setAttribute(ACCESS_TOKEN_KEY, mockTokens.getAccessToken());
-                session.setAttribute(REFRESH_TOKEN_KEY, mockTokens.getRefreshToken());
-                session.setAttribute(USER_INFO_KEY, mockUserInfo);
+                session.setAttribute(AuthSession.SESSION_ATTRIBUTE, AuthSession.from(mockTokens, mockUserInfo));
 
                 // Authenticate user with Spring Security
-                authenticateUser(mockUserInfo, session);
+                authenticateUser(mockUserInfo, request, response, session);
+
+                // Keep the tokens fresh in the background
+                trackTokenRefresh(session, mockTokens);
 
-                log.info("[DEBUG_LOG] Mock login successful - redirecting to home page");
+                log.debug("[DEBUG_LOG] Mock login successful - redirecting to home page");
+                authEventLogger.success(
+                        AuthEventLogger.Type.LOGIN_SUCCEEDED, mockUserInfo.getSub(), session.getId(), startNanos);
 
                 // Return redirect to home page instead of RSO authorization URL
-                final LoginResponse response = new LoginResponse("http://localhost:4200/");
-                return ResponseEntity.ok(response);
+                final LoginResponse loginResponse = new LoginResponse("http://localhost:4200/");
+                return ResponseEntity.ok(loginResponse);
             }
 
             // For real RSO service, generate authorization URL with state parameter
             final String authorizationUrl = rsoService.generateAuthorizationUrl(redirectUrl);
 
             log.debug("[DEBUG_LOG] Generated RSO authorization URL: {}", authorizationUrl);
+            authEventLogger.success(AuthEventLogger.Type.LOGIN_STARTED, null, session.getId(), startNanos);
 
-            final LoginResponse response = new LoginResponse(authorizationUrl);
-            return ResponseEntity.ok(response);
+            final LoginResponse loginResponse = new LoginResponse(authorizationUrl);
+            return ResponseEntity.ok(loginResponse);
 
         }
         catch (Exception e)
         {
             log.error("[DEBUG_LOG] Failed to initiate RSO login", e);
+            authEventLogger.failure(AuthEventLogger.Type.LOGIN_FAILED, session.getId(), e, startNanos);
             return ResponseEntity
                     .status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new LoginResponse(null, "Failed to initiate login: " + e.getMessage()));
@@ -127,19 +160,26 @@ public class AuthController
     @PostMapping("/logout")
     public ResponseEntity<Void> logout(final HttpSession session)
     {
-        log.info("[DEBUG_LOG] Logging out user");
+        log.debug("[DEBUG_LOG] Logging out user");
 
         try
         {
+            final String sessionId = session.getId();
+            final AuthSession authSession = (AuthSession) session.getAttribute(AuthSession.SESSION_ATTRIBUTE);
+
+            // Stop background token refresh and drop cached user info
+            tokenRefreshScheduler.untrack(session.getId());
+            evictCachedUserInfo(session);
+
             // Clear session attributes
-            session.removeAttribute(ACCESS_TOKEN_KEY);
-            session.removeAttribute(REFRESH_TOKEN_KEY);
-            session.removeAttribute(USER_INFO_KEY);
+            session.removeAttribute(AuthSession.SESSION_ATTRIBUTE);
 
             // Invalidate session
             session.invalidate();
 
-            log.info("[DEBUG_LOG] Successfully logged out user");
+            log.debug("[DEBUG_LOG] Successfully logged out user");
+            authEventLogger.success(
+                    AuthEventLogger.Type.LOGOUT, authSession != null ? authSession.getSubject() : null, sessionId, 0);
             return ResponseEntity.ok().build();
 
         }
@@ -158,10 +198,11 @@ public class AuthController
     @PostMapping("/refresh")
     public ResponseEntity<Void> refreshToken(final HttpSession session)
     {
+        final long startNanos = System.nanoTime();
         log.debug("[DEBUG_LOG] Refreshing access token");
 
-        final String refreshToken = (String) session.getAttribute(REFRESH_TOKEN_KEY);
-        if (refreshToken == null)
+        final AuthSession authSession = (AuthSession) session.getAttribute(AuthSession.SESSION_ATTRIBUTE);
+        if (authSession == null || authSession.getRefreshToken() == null)
         {
             log.warn("[DEBUG_LOG] No refresh token found in session");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -170,27 +211,27 @@ public class AuthController
         try
         {
             // Refresh access token
-            final RsoTokenResponse tokenResponse = rsoService.refreshAccessToken(refreshToken);
+            final RsoTokenResponse tokenResponse = rsoService.refreshAccessToken(authSession.getRefreshToken());
 
             // Update session with new tokens
-            session.setAttribute(ACCESS_TOKEN_KEY, tokenResponse.getAccessToken());
-            if (tokenResponse.getRefreshToken() != null)
-            {
-                session.setAttribute(REFRESH_TOKEN_KEY, tokenResponse.getRefreshToken());
-            }
+            session.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession.withTokens(tokenResponse));
+            trackTokenRefresh(session, tokenResponse);
 
-            log.info("[DEBUG_LOG] Successfully refreshed access token");
+            log.debug("[DEBUG_LOG] Successfully refreshed access token");
+            authEventLogger.success(
+                    AuthEventLogger.Type.TOKEN_REFRESHED, authSession.getSubject(), session.getId(), startNanos);
             return ResponseEntity.ok().build();
 
         }
         catch (Exception e)
         {
             log.error("[DEBUG_LOG] Failed to refresh access token", e);
+            authEventLogger.failure(AuthEventLogger.Type.TOKEN_REFRESH_FAILED, session.getId(), e, startNanos);
 
             // Clear invalid tokens from session
-            session.removeAttribute(ACCESS_TOKEN_KEY);
-            session.removeAttribute(REFRESH_TOKEN_KEY);
-            session.removeAttribute(USER_INFO_KEY);
+            tokenRefreshScheduler.untrack(session.getId());
+            evictCachedUserInfo(session);
+            session.removeAttribute(AuthSession.SESSION_ATTRIBUTE);
 
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -200,62 +241,170 @@ public class AuthController
      * Get current authentication status.
      * <p>
      * GET /auth/status
+     * <p>
+     * The body is served pre-serialized from {@link AuthResponseCache} with an ETag, so a
+     * request carrying a matching {@code If-None-Match} is answered with 304.
      */
-    @GetMapping("/status")
-    public ResponseEntity<AuthStatusResponse> getAuthStatus(final HttpSession session)
+    @GetMapping(
+            value = "/status",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<byte[]> getAuthStatus(final HttpServletRequest request)
     {
         log.debug("[DEBUG_LOG] Checking authentication status");
 
-        final String accessToken = (String) session.getAttribute(ACCESS_TOKEN_KEY);
-        final RsoUserInfo userInfo = (RsoUserInfo) session.getAttribute(USER_INFO_KEY);
-
-        final boolean isAuthenticated = accessToken != null && userInfo != null;
+        // Anonymous visitors are answered without creating a session for them
+        final HttpSession session = request.getSession(false);
+        final AuthSession authSession = session == null ? null : refreshIfExpiring(
+                session, (AuthSession) session.getAttribute(AuthSession.SESSION_ATTRIBUTE));
 
-        final AuthStatusResponse response = new AuthStatusResponse(isAuthenticated, userInfo);
+        final boolean isAuthenticated = authSession != null && authSession.getAccessToken() != null;
+        final AuthResponseCache.Payload payload = authResponseCache.getStatus(authSession);
 
         log.debug("[DEBUG_LOG] Authentication status: authenticated={}", isAuthenticated);
-        return ResponseEntity.ok(response);
+        authEventLogger.success(
+                AuthEventLogger.Type.STATUS_CHECKED, authSession != null ? authSession.getSubject() : null,
+                session != null ? session.getId() : null, 0
+        );
+        return cachedResponse(payload);
     }
 
     /**
      * Get current user information for frontend.
      * <p>
      * GET /auth/me
+     * <p>
+     * Served like {@code /auth/status}: pre-serialized, with an ETag for conditional requests.
      */
-    @GetMapping("/me")
-    public ResponseEntity<UserResponse> getCurrentUser(final HttpSession session)
+    @GetMapping(
+            value = "/me",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<byte[]> getCurrentUser(final HttpSession session)
     {
         log.debug("[DEBUG_LOG] Getting current user information");
 
-        final String accessToken = (String) session.getAttribute(ACCESS_TOKEN_KEY);
-        final RsoUserInfo userInfo = (RsoUserInfo) session.getAttribute(USER_INFO_KEY);
+        final AuthSession authSession = refreshIfExpiring(
+                session, (AuthSession) session.getAttribute(AuthSession.SESSION_ATTRIBUTE));
 
-        if (accessToken == null || userInfo == null)
+        final AuthResponseCache.Payload payload = authResponseCache.getUser(authSession);
+        if (payload == null)
         {
             log.debug("[DEBUG_LOG] User not authenticated");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        // Map RSO user info to frontend User format
-        final UserResponse user = new UserResponse(
-                userInfo.getSub(), userInfo.getSub() + "#" + userInfo.getCpid(), // Create riot tag from sub and cpid
-                userInfo.getSub(), // Use sub as game name for now
-                userInfo.getCpid(), // Use cpid as tag line
-                null, // Profile icon ID not available from RSO
-                null  // Summoner level not available from RSO
-        );
+        log.debug("[DEBUG_LOG] Retrieved user info: id={}", authSession.getSubject());
+        authEventLogger.success(AuthEventLogger.Type.USER_INFO_READ, authSession.getSubject(), session.getId(), 0);
+        return cachedResponse(payload);
+    }
 
-        log.debug("[DEBUG_LOG] Retrieved user info: id={}, riotTag={}", user.getId(), user.getRiotTag());
-        return ResponseEntity.ok(user);
+    /**
+     * Build the response for a cached payload. The ETag is matched against
+     * {@code If-None-Match} by Spring MVC, which then sends 304 without the body; the
+     * browser must revalidate every time since the payload follows the login state.
+     *
+     * @param payload The cached payload
+     * @return Response with body, ETag and cache headers
+     */
+    private static ResponseEntity<byte[]> cachedResponse(final AuthResponseCache.Payload payload)
+    {
+        return ResponseEntity
+                .ok()
+                .eTag(payload.eTag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(payload.body());
+    }
+
+    /**
+     * Schedule background refresh of the session tokens. Stateless cookie sessions cannot
+     * be updated outside a request, so they are refreshed by {@link #refreshIfExpiring} instead.
+     *
+     * @param session The HTTP session
+     * @param tokens  The tokens just stored in the session
+     */
+    private void trackTokenRefresh(final HttpSession session, final RsoTokenResponse tokens)
+    {
+        final AuthSessionRepository repository = authSessionRepository.getIfAvailable();
+        if (repository != null)
+        {
+            tokenRefreshScheduler.track(
+                    session.getId(), tokens, new SessionTokenRefreshListener(repository, session.getId()));
+        }
+    }
+
+    /**
+     * Refresh the tokens of a stateless cookie session on request once they are inside the
+     * refresh buffer. Sessions refreshed in the background are returned unchanged.
+     *
+     * @param session     The HTTP session
+     * @param authSession The auth session record, may be null
+     * @return The current record, or null if the refresh failed and the session was cleared
+     */
+    private AuthSession refreshIfExpiring(final HttpSession session, final AuthSession authSession)
+    {
+        if (authSession == null
+                || authSession.getRefreshToken() == null
+                || authSession.getAccessTokenExpiresAt() == 0
+                || authSessionRepository.getIfAvailable() != null)
+        {
+            return authSession;
+        }
+
+        final long refreshAt = authSession.getAccessTokenExpiresAt()
+                - rsoProperties.getTokens().getRefreshBuffer().toMillis();
+        if (System.currentTimeMillis() < refreshAt)
+        {
+            return authSession;
+        }
+
+        final long startNanos = System.nanoTime();
+        try
+        {
+            final AuthSession refreshed = authSession.withTokens(
+                    rsoService.refreshAccessToken(authSession.getRefreshToken()));
+            session.setAttribute(AuthSession.SESSION_ATTRIBUTE, refreshed);
+            log.debug("[DEBUG_LOG] Refreshed expiring tokens of stateless session");
+            authEventLogger.success(
+                    AuthEventLogger.Type.TOKEN_REFRESHED, authSession.getSubject(), session.getId(), startNanos);
+            return refreshed;
+        }
+        catch (Exception e)
+        {
+            log.debug("[DEBUG_LOG] Failed to refresh expiring tokens of stateless session", e);
+            authEventLogger.failure(AuthEventLogger.Type.TOKEN_REFRESH_FAILED, session.getId(), e, startNanos);
+            evictCachedUserInfo(session);
+            session.removeAttribute(AuthSession.SESSION_ATTRIBUTE);
+            return null;
+        }
+    }
+
+    /**
+     * Drop cached RSO user info for the tokens and user held by the session.
+     *
+     * @param session The HTTP session
+     */
+    private void evictCachedUserInfo(final HttpSession session)
+    {
+        final AuthSession authSession = (AuthSession) session.getAttribute(AuthSession.SESSION_ATTRIBUTE);
+        if (authSession != null)
+        {
+            rsoUserInfoCache.evict(authSession.getAccessToken(), authSession.getSubject());
+        }
     }
 
     /**
      * Authenticate user with Spring Security by creating and setting Authentication object.
      *
      * @param userInfo The RSO user information
+     * @param request  The HTTP request
+     * @param response The HTTP response
      * @param session  The HTTP session
      */
-    private void authenticateUser(final RsoUserInfo userInfo, final HttpSession session)
+    private void authenticateUser(
+            final RsoUserInfo userInfo, final HttpServletRequest request, final HttpServletResponse response,
+            final HttpSession session)
     {
         log.debug("[DEBUG_LOG] Authenticating user with Spring Security: {}", userInfo.getSub());
 
@@ -274,7 +423,11 @@ public class AuthController
         // Store security context in session for persistence across requests
         session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, securityContext);
 
-        log.info("[DEBUG_LOG] Successfully authenticated user with Spring Security: {}", userInfo.getSub());
+        // Register the session and expire the user's sessions beyond the concurrent session limit
+        sessionAuthenticationStrategy.ifAvailable(
+                strategy -> strategy.onAuthentication(authentication, request, response));
+
+        log.debug("[DEBUG_LOG] Successfully authenticated user with Spring Security: {}", userInfo.getSub());
     }
 
     /**
@@ -298,19 +451,4 @@ public class AuthController
 
     }
 
-    /**
-     * Response DTO for authentication status.
-     */
-    @Data
-    @NoArgsConstructor
-    @AllArgsConstructor
-    public static class AuthStatusResponse
-    {
-
-        private boolean authenticated;
-
-        private RsoUserInfo userInfo;
-
-    }
-
 }
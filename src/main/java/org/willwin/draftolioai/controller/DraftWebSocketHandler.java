@@ -0,0 +1,154 @@
+package org.willwin.draftolioai.controller;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.willwin.draftolioai.dto.DraftWireFormat;
+import org.willwin.draftolioai.service.DraftBroadcaster;
+import org.willwin.draftolioai.service.DraftFrames;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * WebSocket endpoint streaming the events of one draft, at {@code /ws/drafts/{draftId}}.
+ * <p>
+ * A connection receives a {@code draft_state_update} snapshot of the draft, then a
+ * {@code draft_state_update} delta for every change and {@code draft_completed} at the end.
+ * <p>
+ * Events are JSON text frames unless the client requests the
+ * {@code draftolio.binary} subprotocol in the handshake, which switches the connection
+ * to the compact binary frames of {@link org.willwin.draftolioai.service.DraftBinaryFrames}.
+ * <p>
+ * Turn clocks are sent as absolute deadlines on the server's clock. To translate them, a
+ * client sends a few {@code {"type":"clock_sync","clientTime":<epoch millis>}} text
+ * messages after connecting, in either format, and keeps the offset of the reply with the
+ * shortest round trip; see {@link DraftFrames#clockSync(long, long, long)}.
+ */
+@Slf4j
+@Component
+public class DraftWebSocketHandler extends TextWebSocketHandler implements SubProtocolCapable
+{
+
+    /**
+     * Path the handler is mapped to, ending in the draft ID
+     */
+    public static final String PATH = "/ws/drafts/*";
+
+    private static final List<String> SUB_PROTOCOLS = Arrays
+            .stream(DraftWireFormat.values())
+            .map(DraftWireFormat::getSubProtocol)
+            .toList();
+
+    private final DraftBroadcaster broadcaster;
+
+    private final ObjectMapper objectMapper;
+
+    public DraftWebSocketHandler(final DraftBroadcaster broadcaster, final ObjectMapper objectMapper)
+    {
+        this.broadcaster = broadcaster;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<String> getSubProtocols()
+    {
+        return SUB_PROTOCOLS;
+    }
+
+    @Override
+    public void afterConnectionEstablished(final WebSocketSession session) throws IOException
+    {
+        final String draftId = draftIdOf(session);
+        if (draftId == null)
+        {
+            session.close(CloseStatus.BAD_DATA.withReason("Missing draft ID"));
+            return;
+        }
+        try
+        {
+            broadcaster.subscribe(draftId, session, DraftWireFormat.fromSubProtocol(session.getAcceptedProtocol()));
+        }
+        catch (RejectedExecutionException e)
+        {
+            log.warn("Rejecting subscription of session {} to draft {}: {}", session.getId(), draftId, e.getMessage());
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(final WebSocketSession session, final TextMessage message)
+    {
+        final long receiveTime = System.currentTimeMillis();
+        final ClientMessage request;
+        try
+        {
+            request = objectMapper.readValue(message.getPayload(), ClientMessage.class);
+        }
+        catch (JacksonException e)
+        {
+            log.debug("[DEBUG_LOG] Ignoring malformed message from session {}: {}", session.getId(), e.getMessage());
+            return;
+        }
+        if (!DraftFrames.CLOCK_SYNC.equals(request.type()) || request.clientTime() == null)
+        {
+            log.debug("[DEBUG_LOG] Ignoring unknown message from session {}", session.getId());
+            return;
+        }
+        if (!broadcaster.clockSync(session, request.clientTime(), receiveTime))
+        {
+            log.debug("[DEBUG_LOG] Dropped clock sync request of session {}", session.getId());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(final WebSocketSession session, final CloseStatus status)
+    {
+        final String draftId = draftIdOf(session);
+        if (draftId != null)
+        {
+            broadcaster.unsubscribe(draftId, session);
+        }
+    }
+
+    @Override
+    public void handleTransportError(final WebSocketSession session, final Throwable exception)
+    {
+        log.debug("[DEBUG_LOG] Transport error on session {}: {}", session.getId(), exception.getMessage());
+    }
+
+    private static String draftIdOf(final WebSocketSession session)
+    {
+        final URI uri = session.getUri();
+        if (uri == null || uri.getPath() == null)
+        {
+            return null;
+        }
+        final String path = uri.getPath();
+        final String draftId = path.substring(path.lastIndexOf('/') + 1);
+        return draftId.isEmpty() ? null : draftId;
+    }
+
+    /**
+     * A text message sent by the client; only {@code clock_sync} is understood.
+     *
+     * @param type       Message type
+     * @param clientTime Client clock at sending, in epoch millis
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ClientMessage(String type, Long clientTime)
+    {
+
+    }
+
+}
@@ -1,24 +1,34 @@
 package org.willwin.draftolioai.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.session.SessionAuthenticationStrategy;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.view.RedirectView;
+import org.willwin.draftolioai.dto.AuthSession;
 import org.willwin.draftolioai.dto.AuthenticationState;
 import org.willwin.draftolioai.dto.RsoTokenResponse;
 import org.willwin.draftolioai.dto.RsoUserInfo;
+import org.willwin.draftolioai.repository.AuthSessionRepository;
+import org.willwin.draftolioai.service.AuthEventLogger;
+import org.willwin.draftolioai.service.IdTokenVerifier;
 import org.willwin.draftolioai.service.RsoService;
+import org.willwin.draftolioai.service.RsoUserInfoCache;
+import org.willwin.draftolioai.service.TokenRefreshScheduler;
 
 import java.util.Collections;
+import java.util.Optional;
 
 /**
  * Controller handling the OAuth2 callback endpoint.
@@ -33,16 +43,33 @@ public class OAuth2CallbackController
 
     private final RsoService rsoService;
 
-    // Session attribute keys
-    private static final String ACCESS_TOKEN_KEY = "rso_access_token";
+    private final IdTokenVerifier idTokenVerifier;
 
-    private static final String REFRESH_TOKEN_KEY = "rso_refresh_token";
+    private final RsoUserInfoCache rsoUserInfoCache;
 
-    private static final String USER_INFO_KEY = "rso_user_info";
+    private final TokenRefreshScheduler tokenRefreshScheduler;
 
-    public OAuth2CallbackController(final RsoService rsoService)
+    // Absent with stateless cookie sessions, which are refreshed lazily on request instead
+    private final ObjectProvider<AuthSessionRepository> authSessionRepository;
+
+    private final AuthEventLogger authEventLogger;
+
+    // Absent with stateless cookie sessions, which have no concurrent session limit
+    private final ObjectProvider<SessionAuthenticationStrategy> sessionAuthenticationStrategy;
+
+    public OAuth2CallbackController(
+            final RsoService rsoService, final IdTokenVerifier idTokenVerifier,
+            final RsoUserInfoCache rsoUserInfoCache, final TokenRefreshScheduler tokenRefreshScheduler,
+            final ObjectProvider<AuthSessionRepository> authSessionRepository, final AuthEventLogger authEventLogger,
+            final ObjectProvider<SessionAuthenticationStrategy> sessionAuthenticationStrategy)
     {
         this.rsoService = rsoService;
+        this.idTokenVerifier = idTokenVerifier;
+        this.rsoUserInfoCache = rsoUserInfoCache;
+        this.tokenRefreshScheduler = tokenRefreshScheduler;
+        this.authSessionRepository = authSessionRepository;
+        this.authEventLogger = authEventLogger;
+        this.sessionAuthenticationStrategy = sessionAuthenticationStrategy;
     }
 
     /**
@@ -60,14 +87,17 @@ public class OAuth2CallbackController
                     value = "error",
                     required = false
             )
-            final String error, final HttpServletRequest request, final HttpSession session)
+            final String error, final HttpServletRequest request,
+            final HttpServletResponse response, final HttpSession session)
     {
-        log.info("[DEBUG_LOG] Handling OAuth2 callback - code: {}, state: {}, error: {}", code, state, error);
+        final long startNanos = System.nanoTime();
+        log.debug("[DEBUG_LOG] Handling OAuth2 callback - error: {}", error);
 
         // Handle authorization errors
         if (error != null)
         {
-            log.warn("[DEBUG_LOG] OAuth authorization error: {}", error);
+            log.debug("[DEBUG_LOG] OAuth authorization error: {}", error);
+            authEventLogger.failure(AuthEventLogger.Type.LOGIN_FAILED, session.getId(), null, startNanos);
             return new RedirectView("/login?error=" + error);
         }
 
@@ -76,25 +106,32 @@ public class OAuth2CallbackController
             // Exchange authorization code for tokens
             final RsoTokenResponse tokenResponse = rsoService.exchangeCodeForTokens(code, state);
 
-            // Get user information
-            final RsoUserInfo userInfo = rsoService.getUserInfo(tokenResponse.getAccessToken());
+            // Take user identity from the verified ID token, falling back to the (cached) userinfo endpoint
+            final Optional<RsoUserInfo> verifiedUserInfo = idTokenVerifier.verify(tokenResponse.getIdToken());
+            verifiedUserInfo.ifPresent(info -> rsoUserInfoCache.put(tokenResponse.getAccessToken(), info));
+            final RsoUserInfo userInfo = verifiedUserInfo.orElseGet(
+                    () -> rsoUserInfoCache.getUserInfo(tokenResponse.getAccessToken()));
 
             // Store tokens and user info in session
-            session.setAttribute(ACCESS_TOKEN_KEY, tokenResponse.getAccessToken());
-            session.setAttribute(REFRESH_TOKEN_KEY, tokenResponse.getRefreshToken());
-            session.setAttribute(USER_INFO_KEY, userInfo);
+            session.setAttribute(AuthSession.SESSION_ATTRIBUTE, AuthSession.from(tokenResponse, userInfo));
 
             // Authenticate user with Spring Security
-            authenticateUser(userInfo, session);
+            authenticateUser(userInfo, request, response, session);
+
+            // Keep the tokens fresh in the background
+            authSessionRepository.ifAvailable(repository -> tokenRefreshScheduler.track(
+                    session.getId(), tokenResponse, new SessionTokenRefreshListener(repository, session.getId())));
 
             // Get original redirect URL from authentication state
             final AuthenticationState authState = rsoService.getAuthenticationState(state);
             final String redirectUrl = (authState != null) ? authState.getRedirectUrl() : "/";
 
-            log.info(
+            log.debug(
                     "[DEBUG_LOG] Successfully authenticated user: {} - redirecting to: {}", userInfo.getSub(),
                     redirectUrl
             );
+            authEventLogger.success(
+                    AuthEventLogger.Type.LOGIN_SUCCEEDED, userInfo.getSub(), session.getId(), startNanos);
 
             return new RedirectView(redirectUrl);
 
@@ -102,6 +139,7 @@ public class OAuth2CallbackController
         catch (Exception e)
         {
             log.error("[DEBUG_LOG] Failed to process OAuth2 callback", e);
+            authEventLogger.failure(AuthEventLogger.Type.LOGIN_FAILED, session.getId(), e, startNanos);
             return new RedirectView("/login?error=callback_failed");
         }
     }
@@ -110,9 +148,13 @@ public class OAuth2CallbackController
      * Authenticate user with Spring Security by creating and setting Authentication object.
      *
      * @param userInfo The RSO user information
+     * @param request  The HTTP request
+     * @param response The HTTP response
      * @param session  The HTTP session
      */
-    private void authenticateUser(final RsoUserInfo userInfo, final HttpSession session)
+    private void authenticateUser(
+            final RsoUserInfo userInfo, final HttpServletRequest request, final HttpServletResponse response,
+            final HttpSession session)
     {
         log.debug("[DEBUG_LOG] Authenticating user with Spring Security: {}", userInfo.getSub());
 
@@ -131,7 +173,11 @@ public class OAuth2CallbackController
         // Store security context in session for persistence across requests
         session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, securityContext);
 
-        log.info("[DEBUG_LOG] Successfully authenticated user with Spring Security: {}", userInfo.getSub());
+        // Register the session and expire the user's sessions beyond the concurrent session limit
+        sessionAuthenticationStrategy.ifAvailable(
+                strategy -> strategy.onAuthentication(authentication, request, response));
+
+        log.debug("[DEBUG_LOG] Successfully authenticated user with Spring Security: {}", userInfo.getSub());
     }
 
 }
@@ -0,0 +1,56 @@
+package org.willwin.draftolioai.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.willwin.draftolioai.dto.AuthSession;
+import org.willwin.draftolioai.dto.RsoTokenResponse;
+import org.willwin.draftolioai.repository.AuthSessionRepository;
+import org.willwin.draftolioai.service.TokenRefreshScheduler;
+
+/**
+ * Writes tokens refreshed in the background back into the owning HTTP session.
+ * <p>
+ * The update goes through {@link AuthSessionRepository} rather than a captured
+ * {@code HttpSession}, which is only valid for the request that created it. On final
+ * refresh failure the auth session record is removed, matching the behaviour of a
+ * failed {@code /auth/refresh} call. Either outcome is only applied while the session
+ * still holds the refresh token it stems from; the refresh token acts as the version of
+ * the record, so tokens stored by a login or {@code /auth/refresh} in the meantime win.
+ */
+@Slf4j
+class SessionTokenRefreshListener implements TokenRefreshScheduler.Listener
+{
+
+    private final AuthSessionRepository authSessionRepository;
+
+    private final String sessionId;
+
+    SessionTokenRefreshListener(final AuthSessionRepository authSessionRepository, final String sessionId)
+    {
+        this.authSessionRepository = authSessionRepository;
+        this.sessionId = sessionId;
+    }
+
+    @Override
+    public void onRefreshed(final String refreshedFrom, final RsoTokenResponse tokens)
+    {
+        final boolean updated = authSessionRepository.updateAuthSession(
+                sessionId,
+                authSession -> holds(authSession, refreshedFrom) ? authSession.withTokens(tokens) : authSession
+        );
+        log.debug("[DEBUG_LOG] Background token refresh stored for session: {} (found: {})", sessionId, updated);
+    }
+
+    @Override
+    public void onRefreshFailed(final String refreshToken)
+    {
+        authSessionRepository.updateAuthSession(
+                sessionId, authSession -> holds(authSession, refreshToken) ? null : authSession);
+        log.warn("[DEBUG_LOG] Background token refresh failed, cleared tokens for session: {}", sessionId);
+    }
+
+    private static boolean holds(final AuthSession authSession, final String refreshToken)
+    {
+        return authSession != null && refreshToken.equals(authSession.getRefreshToken());
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.willwin.draftolioai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Authenticated RSO session record.
+ * <p>
+ * Replaces the separate access token, refresh token and user info session attributes
+ * with a single compact record stored under {@link #SESSION_ATTRIBUTE}. The Spring
+ * Security context is derived from it rather than stored alongside.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthSession implements Serializable
+{
+
+    /**
+     * Session attribute key under which the record is stored
+     */
+    public static final String SESSION_ATTRIBUTE = "rso_auth_session";
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Subject identifier (unique user ID)
+     */
+    private String subject;
+
+    /**
+     * Game region for League of Legends (Client Platform ID)
+     */
+    private String cpid;
+
+    /**
+     * Current RSO access token
+     */
+    private String accessToken;
+
+    /**
+     * Current RSO refresh token
+     */
+    private String refreshToken;
+
+    /**
+     * Epoch milliseconds at which the access token expires, 0 if unknown
+     */
+    private long accessTokenExpiresAt;
+
+    /**
+     * Create a session record from a token response and the user it belongs to.
+     *
+     * @param tokens   The token response
+     * @param userInfo The authenticated user
+     * @return New session record
+     */
+    public static AuthSession from(final RsoTokenResponse tokens, final RsoUserInfo userInfo)
+    {
+        return new AuthSession(
+                userInfo.getSub(), userInfo.getCpid(), tokens.getAccessToken(), tokens.getRefreshToken(),
+                expiresAt(tokens)
+        );
+    }
+
+    /**
+     * Copy of this record carrying refreshed tokens. The refresh token is kept when
+     * the response does not rotate it.
+     *
+     * @param tokens The refreshed token response
+     * @return Updated session record
+     */
+    public AuthSession withTokens(final RsoTokenResponse tokens)
+    {
+        return new AuthSession(
+                subject, cpid, tokens.getAccessToken(),
+                tokens.getRefreshToken() != null ? tokens.getRefreshToken() : refreshToken, expiresAt(tokens)
+        );
+    }
+
+    /**
+     * @return The user identity held by this session
+     */
+    public RsoUserInfo toUserInfo()
+    {
+        return new RsoUserInfo(subject, cpid);
+    }
+
+    private static long expiresAt(final RsoTokenResponse tokens)
+    {
+        return tokens.getExpiresIn() != null ? System.currentTimeMillis() + tokens.getExpiresIn() * 1000L : 0;
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.willwin.draftolioai.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO representing the authentication status for the frontend.
+ * <p>
+ * {@code /auth/status} serves it pre-serialized from {@code AuthResponseCache}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthStatusResponse
+{
+
+    /**
+     * Whether the session holds valid RSO tokens
+     */
+    @JsonProperty("authenticated")
+    private boolean authenticated;
+
+    /**
+     * The signed in user, null when not authenticated
+     */
+    @JsonProperty("userInfo")
+    private RsoUserInfo userInfo;
+
+}
@@ -0,0 +1,13 @@
+package org.willwin.draftolioai.dto;
+
+/**
+ * Kind of action taken on a draft turn.
+ */
+public enum DraftActionType
+{
+
+    PICK,
+
+    BAN
+
+}
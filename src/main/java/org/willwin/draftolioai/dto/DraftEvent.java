@@ -0,0 +1,13 @@
+package org.willwin.draftolioai.dto;
+
+/**
+ * A draft event as distributed between nodes.
+ *
+ * @param draftId  The draft ID
+ * @param sequence Position of the event among the draft's events, increasing by one per event
+ * @param frame    The event as a {@link DraftWireFormat#BINARY} frame: a snapshot, a delta or a timer update
+ */
+public record DraftEvent(String draftId, long sequence, byte[] frame)
+{
+
+}
@@ -0,0 +1,24 @@
+package org.willwin.draftolioai.dto;
+
+/**
+ * Draft modes from the drafting simulation spec.
+ */
+public enum DraftMode
+{
+
+    /**
+     * Single game with the standard competitive pick and ban order
+     */
+    TOURNAMENT,
+
+    /**
+     * Series in which champions picked in earlier games are unavailable
+     */
+    FEARLESS,
+
+    /**
+     * Series in which champions picked or banned in earlier games are unavailable
+     */
+    FULL_FEARLESS
+
+}
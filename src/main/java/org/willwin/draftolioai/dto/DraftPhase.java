@@ -0,0 +1,17 @@
+package org.willwin.draftolioai.dto;
+
+/**
+ * Phases of the standard competitive draft.
+ */
+public enum DraftPhase
+{
+
+    BAN_PHASE_1,
+
+    PICK_PHASE_1,
+
+    BAN_PHASE_2,
+
+    PICK_PHASE_2
+
+}
@@ -0,0 +1,13 @@
+package org.willwin.draftolioai.dto;
+
+/**
+ * Side of the draft a captain drafts for.
+ */
+public enum DraftSide
+{
+
+    BLUE,
+
+    RED
+
+}
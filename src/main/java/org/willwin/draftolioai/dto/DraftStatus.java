@@ -0,0 +1,15 @@
+package org.willwin.draftolioai.dto;
+
+/**
+ * Lifecycle status of a draft.
+ */
+public enum DraftStatus
+{
+
+    CREATED,
+
+    IN_PROGRESS,
+
+    COMPLETED
+
+}
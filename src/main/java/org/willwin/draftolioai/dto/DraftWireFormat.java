@@ -0,0 +1,40 @@
+package org.willwin.draftolioai.dto;
+
+/**
+ * Encodings of the draft WebSocket events, negotiated per connection as a WebSocket subprotocol.
+ */
+public enum DraftWireFormat
+{
+
+    /**
+     * Binary frames of varint fields; opted into by requesting the subprotocol
+     */
+    BINARY("draftolio.binary"),
+
+    /**
+     * JSON text frames; the default, readable in browser tools
+     */
+    JSON("draftolio.json");
+
+    private final String subProtocol;
+
+    DraftWireFormat(final String subProtocol)
+    {
+        this.subProtocol = subProtocol;
+    }
+
+    /**
+     * @param subProtocol The subprotocol accepted in the handshake, may be null
+     * @return The matching format, JSON if none was negotiated
+     */
+    public static DraftWireFormat fromSubProtocol(final String subProtocol)
+    {
+        return BINARY.subProtocol.equals(subProtocol) ? BINARY : JSON;
+    }
+
+    public String getSubProtocol()
+    {
+        return subProtocol;
+    }
+
+}
@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
  * DTO representing user information for the frontend.
  * <p>
  * This matches the User interface structure expected by the Angular frontend.
+ * {@code /auth/me} serves it pre-serialized from {@code AuthResponseCache}.
  */
 @Data
 @NoArgsConstructor
@@ -0,0 +1,365 @@
+package org.willwin.draftolioai.repository;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.Session;
+import org.willwin.draftolioai.dto.AuthSession;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Spring Session {@link Session} specialised for RSO authentication.
+ * <p>
+ * The {@link AuthSession} record is held as a typed field and the Spring Security
+ * context is derived from it instead of being stored, so a logged-in session
+ * serializes to a handful of strings. Any other attribute is kept in a generic map.
+ * Changes to the record and to the generic attributes are tracked separately so that
+ * {@link AuthSessionRepository} can merge a saved request copy with tokens refreshed
+ * in the background meanwhile.
+ */
+public final class AuthHttpSession implements Session
+{
+
+    private static final String SECURITY_CONTEXT_KEY =
+            HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
+
+    private static final String ROLE_USER = "ROLE_USER";
+
+    private String id;
+
+    private String originalId;
+
+    private final Instant creationTime;
+
+    private Instant lastAccessedTime;
+
+    private Instant savedLastAccessedTime;
+
+    private Instant persistedLastAccessedTime;
+
+    private Duration maxInactiveInterval;
+
+    private AuthSession authSession;
+
+    private Map<String, Object> attributes;
+
+    private boolean authSessionChanged;
+
+    private boolean attributesChanged;
+
+    private SecurityContext derivedContext;
+
+    /**
+     * Create a new session with a random identifier.
+     *
+     * @param maxInactiveInterval Inactivity timeout
+     */
+    public AuthHttpSession(final Duration maxInactiveInterval)
+    {
+        this(UUID.randomUUID().toString(), Instant.now(), Instant.now(), maxInactiveInterval, null, Map.of());
+        this.originalId = null;
+    }
+
+    AuthHttpSession(
+            final String id, final Instant creationTime, final Instant lastAccessedTime,
+            final Duration maxInactiveInterval, final AuthSession authSession, final Map<String, Object> attributes)
+    {
+        this.id = id;
+        this.originalId = id;
+        this.creationTime = creationTime;
+        this.lastAccessedTime = lastAccessedTime;
+        this.savedLastAccessedTime = lastAccessedTime;
+        this.persistedLastAccessedTime = lastAccessedTime;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.authSession = authSession;
+        this.attributes = attributes.isEmpty() ? Map.of() : new HashMap<>(attributes);
+    }
+
+    /**
+     * Copy constructor; the copy starts with no pending changes.
+     *
+     * @param source Session to copy
+     */
+    AuthHttpSession(final AuthHttpSession source)
+    {
+        this(
+                source.id, source.creationTime, source.lastAccessedTime, source.maxInactiveInterval,
+                source.authSession, source.attributes
+        );
+        this.originalId = source.originalId;
+        this.savedLastAccessedTime = source.savedLastAccessedTime;
+        this.persistedLastAccessedTime = source.persistedLastAccessedTime;
+    }
+
+    @Override
+    public String getId()
+    {
+        return id;
+    }
+
+    @Override
+    public String changeSessionId()
+    {
+        this.id = UUID.randomUUID().toString();
+        return id;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(final String attributeName)
+    {
+        if (AuthSession.SESSION_ATTRIBUTE.equals(attributeName))
+        {
+            return (T) authSession;
+        }
+        if (SECURITY_CONTEXT_KEY.equals(attributeName) && authSession != null)
+        {
+            return (T) securityContext();
+        }
+        return (T) attributes.get(attributeName);
+    }
+
+    @Override
+    public Set<String> getAttributeNames()
+    {
+        final Set<String> names = new HashSet<>(attributes.keySet());
+        if (authSession != null)
+        {
+            names.add(AuthSession.SESSION_ATTRIBUTE);
+            names.add(SECURITY_CONTEXT_KEY);
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    @Override
+    public void setAttribute(final String attributeName, final Object attributeValue)
+    {
+        if (attributeValue == null)
+        {
+            removeAttribute(attributeName);
+            return;
+        }
+        if (AuthSession.SESSION_ATTRIBUTE.equals(attributeName))
+        {
+            this.authSession = (AuthSession) attributeValue;
+            this.authSessionChanged = true;
+            this.derivedContext = null;
+            return;
+        }
+        if (SECURITY_CONTEXT_KEY.equals(attributeName) && isDerivable((SecurityContext) attributeValue))
+        {
+            // Equivalent to the context derived from the auth session, nothing to store
+            this.derivedContext = (SecurityContext) attributeValue;
+            return;
+        }
+        mutableAttributes().put(attributeName, attributeValue);
+        this.attributesChanged = true;
+    }
+
+    @Override
+    public void removeAttribute(final String attributeName)
+    {
+        if (AuthSession.SESSION_ATTRIBUTE.equals(attributeName))
+        {
+            this.authSession = null;
+            this.authSessionChanged = true;
+            this.derivedContext = null;
+            return;
+        }
+        if (attributes.containsKey(attributeName))
+        {
+            mutableAttributes().remove(attributeName);
+            this.attributesChanged = true;
+        }
+    }
+
+    @Override
+    public Instant getCreationTime()
+    {
+        return creationTime;
+    }
+
+    @Override
+    public void setLastAccessedTime(final Instant lastAccessedTime)
+    {
+        this.lastAccessedTime = lastAccessedTime;
+    }
+
+    @Override
+    public Instant getLastAccessedTime()
+    {
+        return lastAccessedTime;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(final Duration interval)
+    {
+        this.maxInactiveInterval = interval;
+    }
+
+    @Override
+    public Duration getMaxInactiveInterval()
+    {
+        return maxInactiveInterval;
+    }
+
+    @Override
+    public boolean isExpired()
+    {
+        return isExpired(Instant.now());
+    }
+
+    /**
+     * @param now Reference time
+     * @return true if the session has been inactive longer than its timeout at the given time
+     */
+    boolean isExpired(final Instant now)
+    {
+        return !maxInactiveInterval.isNegative() && now.minus(maxInactiveInterval).isAfter(lastAccessedTime);
+    }
+
+    /**
+     * @return Epoch milliseconds at which the session expires if not accessed again
+     */
+    long getExpiryMillis()
+    {
+        return lastAccessedTime.plus(maxInactiveInterval).toEpochMilli();
+    }
+
+    AuthSession getAuthSession()
+    {
+        return authSession;
+    }
+
+    Map<String, Object> getAttributes()
+    {
+        return attributes;
+    }
+
+    String getOriginalId()
+    {
+        return originalId;
+    }
+
+    /**
+     * @return Last access time as of the last save
+     */
+    Instant getSavedLastAccessedTime()
+    {
+        return savedLastAccessedTime;
+    }
+
+    /**
+     * @return Last access time as of the last write handed to the session store
+     */
+    Instant getPersistedLastAccessedTime()
+    {
+        return persistedLastAccessedTime;
+    }
+
+    /**
+     * Record that the session is handed to the session store as it is now.
+     */
+    void markPersisted()
+    {
+        this.persistedLastAccessedTime = lastAccessedTime;
+    }
+
+    /**
+     * Take over the last persisted access time of another copy, e.g. the stored one when
+     * this copy is not written.
+     */
+    void mergePersisted(final AuthHttpSession other)
+    {
+        this.persistedLastAccessedTime = other.persistedLastAccessedTime;
+    }
+
+    /**
+     * Replace the identifier, e.g. with a freshly sealed cookie value.
+     *
+     * @param id The new identifier
+     */
+    void assignId(final String id)
+    {
+        this.id = id;
+    }
+
+    boolean isAuthSessionChanged()
+    {
+        return authSessionChanged;
+    }
+
+    boolean isAttributesChanged()
+    {
+        return attributesChanged;
+    }
+
+    /**
+     * Take over the auth session record of another copy, e.g. one refreshed in the background.
+     */
+    void mergeAuthSession(final AuthHttpSession other)
+    {
+        this.authSession = other.authSession;
+        this.derivedContext = null;
+    }
+
+    /**
+     * Take over the generic attributes of another copy.
+     */
+    void mergeAttributes(final AuthHttpSession other)
+    {
+        this.attributes = other.attributes;
+    }
+
+    /**
+     * Mark the session as saved under its current identifier with no pending changes.
+     */
+    void markSaved()
+    {
+        this.originalId = id;
+        this.savedLastAccessedTime = lastAccessedTime;
+        this.authSessionChanged = false;
+        this.attributesChanged = false;
+    }
+
+    private Map<String, Object> mutableAttributes()
+    {
+        if (!(attributes instanceof HashMap))
+        {
+            attributes = new HashMap<>(attributes);
+        }
+        return attributes;
+    }
+
+    private boolean isDerivable(final SecurityContext context)
+    {
+        final Authentication authentication = context.getAuthentication();
+        return authSession != null
+                && authentication instanceof UsernamePasswordAuthenticationToken
+                && authSession.getSubject().equals(authentication.getPrincipal())
+                && authentication.getAuthorities().size() == 1
+                && ROLE_USER.equals(authentication.getAuthorities().iterator().next().getAuthority());
+    }
+
+    private SecurityContext securityContext()
+    {
+        if (derivedContext == null)
+        {
+            derivedContext = new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(
+                    authSession.getSubject(), null, Collections.singletonList(new SimpleGrantedAuthority(ROLE_USER))));
+        }
+        return derivedContext;
+    }
+
+}
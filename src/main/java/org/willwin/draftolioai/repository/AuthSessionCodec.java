@@ -0,0 +1,191 @@
+package org.willwin.draftolioai.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.willwin.draftolioai.dto.AuthSession;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link AuthHttpSession}.
+ * <p>
+ * Layout: format version, creation and last access time in epoch milliseconds, timeout
+ * in seconds, then the {@link AuthSession} record as nullable length-prefixed UTF-8
+ * strings, then any generic attributes as name and Java-serialized value. A typical
+ * logged-in session has no generic attributes and encodes to a few hundred bytes, most
+ * of them the tokens themselves. The derived Spring Security context is never written.
+ */
+@Slf4j
+final class AuthSessionCodec
+{
+
+    private static final byte VERSION = 1;
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+
+    private AuthSessionCodec()
+    {
+    }
+
+    /**
+     * Encode a session.
+     *
+     * @param session The session
+     * @return Encoded bytes
+     */
+    static byte[] encode(final AuthHttpSession session)
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeByte(VERSION);
+            out.writeLong(session.getCreationTime().toEpochMilli());
+            out.writeLong(session.getLastAccessedTime().toEpochMilli());
+            out.writeInt((int) session.getMaxInactiveInterval().toSeconds());
+
+            final AuthSession authSession = session.getAuthSession();
+            out.writeBoolean(authSession != null);
+            if (authSession != null)
+            {
+                writeString(out, authSession.getSubject());
+                writeString(out, authSession.getCpid());
+                writeString(out, authSession.getAccessToken());
+                writeString(out, authSession.getRefreshToken());
+                out.writeLong(authSession.getAccessTokenExpiresAt());
+            }
+
+            final Map<String, byte[]> attributes = serializeAttributes(session.getAttributes());
+            out.writeShort(attributes.size());
+            for (Map.Entry<String, byte[]> attribute : attributes.entrySet())
+            {
+                out.writeUTF(attribute.getKey());
+                out.writeInt(attribute.getValue().length);
+                out.write(attribute.getValue());
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Failed to encode session " + session.getId(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a session.
+     *
+     * @param id   The session identifier
+     * @param data Encoded bytes
+     * @return The decoded session, with no pending changes
+     * @throws IllegalArgumentException if the data is not a supported encoding
+     */
+    static AuthHttpSession decode(final String id, final byte[] data)
+    {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data)))
+        {
+            final byte version = in.readByte();
+            if (version != VERSION)
+            {
+                throw new IllegalArgumentException("Unsupported session encoding version: " + version);
+            }
+
+            final Instant creationTime = Instant.ofEpochMilli(in.readLong());
+            final Instant lastAccessedTime = Instant.ofEpochMilli(in.readLong());
+            final Duration maxInactiveInterval = Duration.ofSeconds(in.readInt());
+
+            AuthSession authSession = null;
+            if (in.readBoolean())
+            {
+                authSession = new AuthSession(
+                        readString(in), readString(in), readString(in), readString(in), in.readLong());
+            }
+
+            final int attributeCount = in.readUnsignedShort();
+            final Map<String, Object> attributes = new HashMap<>(attributeCount * 2);
+            for (int i = 0; i < attributeCount; i++)
+            {
+                final String name = in.readUTF();
+                final byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                attributes.put(name, deserialize(value));
+            }
+
+            return new AuthHttpSession(
+                    id, creationTime, lastAccessedTime, maxInactiveInterval, authSession, attributes);
+        }
+        catch (IOException | ClassNotFoundException e)
+        {
+            throw new IllegalArgumentException("Failed to decode session " + id, e);
+        }
+    }
+
+    private static Map<String, byte[]> serializeAttributes(final Map<String, Object> attributes) throws IOException
+    {
+        if (attributes.isEmpty())
+        {
+            return Map.of();
+        }
+
+        final Map<String, byte[]> serialized = new HashMap<>(attributes.size() * 2);
+        for (Map.Entry<String, Object> attribute : attributes.entrySet())
+        {
+            if (!(attribute.getValue() instanceof Serializable))
+            {
+                log.debug("Skipping non-serializable session attribute: {}", attribute.getKey());
+                continue;
+            }
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+            {
+                out.writeObject(attribute.getValue());
+            }
+            serialized.put(attribute.getKey(), bytes.toByteArray());
+        }
+        return serialized;
+    }
+
+    private static Object deserialize(final byte[] value) throws IOException, ClassNotFoundException
+    {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(value)))
+        {
+            return in.readObject();
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException
+    {
+        // Tokens can exceed the 64 KB limit of writeUTF in theory, so use an int length prefix
+        if (value == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException
+    {
+        final int length = in.readInt();
+        if (length < 0)
+        {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
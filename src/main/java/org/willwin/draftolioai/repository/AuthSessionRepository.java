@@ -0,0 +1,302 @@
+package org.willwin.draftolioai.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.SessionRepository;
+import org.springframework.session.events.SessionDeletedEvent;
+import org.springframework.session.events.SessionExpiredEvent;
+import org.willwin.draftolioai.config.AuthSessionProperties;
+import org.willwin.draftolioai.dto.AuthSession;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Spring Session repository for {@link AuthHttpSession}.
+ * <p>
+ * Sessions are served from memory. With the JDBC store enabled every change is also
+ * handed to a {@link JdbcSessionStore} write-behind buffer, and sessions missing from
+ * memory, e.g. after a restart, are loaded from the database on first access. Requests
+ * that only read a session are written again at most once per
+ * {@link AuthSessionProperties.Jdbc#getTouchInterval()}.
+ * <p>
+ * Each request works on its own copy. On save, the parts the request did not change are
+ * taken from the stored copy, so tokens refreshed in the background through
+ * {@link #updateAuthSession(String, UnaryOperator)} are not overwritten by a concurrent
+ * request that only read them.
+ */
+@Slf4j
+public class AuthSessionRepository implements SessionRepository<AuthHttpSession>
+{
+
+    private final AuthSessionProperties properties;
+
+    private final JdbcSessionStore store;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentMap<String, AuthHttpSession> sessions;
+
+    private final ScheduledExecutorService cleanupExecutor;
+
+    /**
+     * @param properties     Session configuration
+     * @param jdbcTemplate   Template for the JDBC store, only used with {@link AuthSessionProperties.Store#JDBC}
+     * @param eventPublisher Publisher for session deleted and expired events
+     */
+    public AuthSessionRepository(
+            final AuthSessionProperties properties, final JdbcTemplate jdbcTemplate,
+            final ApplicationEventPublisher eventPublisher)
+    {
+        this(
+                properties, properties.getStore() == AuthSessionProperties.Store.JDBC
+                        ? new JdbcSessionStore(jdbcTemplate, properties.getJdbc())
+                        : null, eventPublisher
+        );
+    }
+
+    /**
+     * @param properties     Session configuration
+     * @param store          Write-behind JDBC store, or null to keep sessions in memory only
+     * @param eventPublisher Publisher for session deleted and expired events
+     */
+    AuthSessionRepository(
+            final AuthSessionProperties properties, final JdbcSessionStore store,
+            final ApplicationEventPublisher eventPublisher)
+    {
+        this.properties = properties;
+        this.store = store;
+        this.eventPublisher = eventPublisher;
+        this.sessions = new ConcurrentHashMap<>();
+        this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("session-cleanup").daemon().factory());
+    }
+
+    /**
+     * Start the expired session sweep and, if configured, the JDBC store.
+     */
+    @PostConstruct
+    public void start()
+    {
+        if (store != null)
+        {
+            store.start();
+        }
+        final long intervalMillis = properties.getCleanupInterval().toMillis();
+        cleanupExecutor.scheduleWithFixedDelay(
+                this::cleanupExpiredSessionsSafely, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS
+        );
+        log.info("Auth session repository started - store: {}", properties.getStore());
+    }
+
+    /**
+     * Stop the sweep and flush buffered session changes.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        cleanupExecutor.shutdownNow();
+        if (store != null)
+        {
+            store.stop();
+        }
+    }
+
+    @Override
+    public AuthHttpSession createSession()
+    {
+        return new AuthHttpSession(properties.getTimeout());
+    }
+
+    @Override
+    public void save(final AuthHttpSession session)
+    {
+        final String id = session.getId();
+        final String originalId = session.getOriginalId();
+
+        // Session ID changed during the request, e.g. for session fixation protection
+        final AuthHttpSession renamed;
+        if (originalId != null && !originalId.equals(id))
+        {
+            renamed = sessions.remove(originalId);
+            if (store != null)
+            {
+                store.delete(originalId);
+            }
+        }
+        else
+        {
+            renamed = null;
+        }
+
+        final boolean[] dirty = new boolean[1];
+        final AuthHttpSession saved = sessions.compute(
+                id, (key, current) ->
+                {
+                    final AuthHttpSession stored = current != null ? current : renamed;
+                    dirty[0] = stored == null || isDirty(session, stored);
+                    if (stored != null)
+                    {
+                        if (!session.isAuthSessionChanged())
+                        {
+                            session.mergeAuthSession(stored);
+                        }
+                        if (!session.isAttributesChanged())
+                        {
+                            session.mergeAttributes(stored);
+                        }
+                    }
+                    if (dirty[0] || renamed != null)
+                    {
+                        session.markPersisted();
+                    }
+                    else
+                    {
+                        session.mergePersisted(stored);
+                    }
+                    session.markSaved();
+                    return new AuthHttpSession(session);
+                }
+        );
+
+        if (store != null && (dirty[0] || renamed != null))
+        {
+            store.write(saved);
+        }
+    }
+
+    @Override
+    public AuthHttpSession findById(final String id)
+    {
+        AuthHttpSession stored = sessions.get(id);
+        if (stored == null && store != null)
+        {
+            stored = store.load(id);
+            if (stored != null)
+            {
+                final AuthHttpSession existing = sessions.putIfAbsent(id, stored);
+                stored = existing != null ? existing : stored;
+            }
+        }
+        if (stored == null)
+        {
+            return null;
+        }
+
+        if (stored.isExpired())
+        {
+            expire(stored);
+            return null;
+        }
+        return new AuthHttpSession(stored);
+    }
+
+    @Override
+    public void deleteById(final String id)
+    {
+        final AuthHttpSession removed = sessions.remove(id);
+        if (store != null)
+        {
+            store.delete(id);
+        }
+        if (removed != null)
+        {
+            eventPublisher.publishEvent(new SessionDeletedEvent(this, removed));
+        }
+    }
+
+    /**
+     * Update the auth session record of a stored session outside of a request, e.g. after
+     * a background token refresh. A null result removes the record.
+     *
+     * @param id      The session identifier
+     * @param updater Function from the current record to the new one
+     * @return true if the session exists and was updated
+     */
+    public boolean updateAuthSession(final String id, final UnaryOperator<AuthSession> updater)
+    {
+        final AuthHttpSession updated = sessions.computeIfPresent(
+                id, (key, stored) ->
+                {
+                    final AuthHttpSession copy = new AuthHttpSession(stored);
+                    copy.setAttribute(AuthSession.SESSION_ATTRIBUTE, updater.apply(stored.getAuthSession()));
+                    copy.markSaved();
+                    return copy;
+                }
+        );
+
+        if (updated != null && store != null)
+        {
+            store.write(updated);
+        }
+        return updated != null;
+    }
+
+    /**
+     * @return Number of sessions held in memory
+     */
+    public int getSessionCount()
+    {
+        return sessions.size();
+    }
+
+    /**
+     * Remove expired sessions from memory and the database.
+     */
+    void cleanupExpiredSessions()
+    {
+        final Instant now = Instant.now();
+        sessions.values().stream().filter(session -> session.isExpired(now)).forEach(this::expire);
+
+        if (store != null)
+        {
+            // Read-only requests write at most once per touch interval, so rows lag by up to that much
+            final int deleted = store.deleteExpired(
+                    now.minus(properties.getJdbc().getTouchInterval()).toEpochMilli());
+            log.debug("Removed {} expired sessions from the database", deleted);
+        }
+    }
+
+    private boolean isDirty(final AuthHttpSession session, final AuthHttpSession stored)
+    {
+        return session.isAuthSessionChanged()
+                || session.isAttributesChanged()
+                || !session.getMaxInactiveInterval().equals(stored.getMaxInactiveInterval())
+                || !session.getLastAccessedTime()
+                .isBefore(stored.getPersistedLastAccessedTime().plus(properties.getJdbc().getTouchInterval()));
+    }
+
+    private void expire(final AuthHttpSession session)
+    {
+        if (sessions.remove(session.getId(), session))
+        {
+            if (store != null)
+            {
+                store.delete(session.getId());
+            }
+            eventPublisher.publishEvent(new SessionExpiredEvent(this, session));
+        }
+    }
+
+    private void cleanupExpiredSessionsSafely()
+    {
+        try
+        {
+            cleanupExpiredSessions();
+        }
+        catch (RuntimeException e)
+        {
+            log.error("Expired session cleanup failed", e);
+        }
+    }
+
+}
@@ -0,0 +1,410 @@
+package org.willwin.draftolioai.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftEvent;
+import org.willwin.draftolioai.service.DraftEventBus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * {@link DraftEventBus} relaying events between nodes through a {@link DraftEventBroker}.
+ * <p>
+ * Published events are collected per draft and sent to the broker as one batch once
+ * batch-size events are pending, or after flush-interval at the latest. Since a draft is
+ * only published from its shard, each batch holds consecutive events of the draft in
+ * sequence order. The broker connection is written from a bounded queue by its own
+ * thread, so publishing never blocks the shard; a full queue drops the batch, which
+ * subscribers resync from a snapshot. Subscriptions and snapshot requests go through a
+ * separate unbounded queue written ahead of the batches: they are few and small, and
+ * losing one would leave a node without the events of a draft until it reconnects.
+ * <p>
+ * A connection opens with the handshake carrying the broker secret. Messages that cannot
+ * be decoded, and failing listeners, are logged and skipped without dropping the
+ * connection. The node tells the broker which drafts it subscribes to, so it only receives the
+ * events of drafts its local connections are watching. After a reconnect the
+ * subscriptions are renewed along with a snapshot request for each, as events may have
+ * been lost in between.
+ */
+@Slf4j
+public class BrokerDraftEventBus implements DraftEventBus
+{
+
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    // Bounds how long a control message waits while the writer is idle on the batch queue
+    private static final long WRITER_POLL_MILLIS = 10;
+
+    private final DraftProperties.EventBus properties;
+
+    private final ConcurrentMap<String, List<Consumer<List<DraftEvent>>>> listeners;
+
+    private final List<Consumer<String>> snapshotHandlers;
+
+    private final ConcurrentMap<String, List<DraftEvent>> pending;
+
+    private final BlockingQueue<byte[]> outbound;
+
+    private final BlockingQueue<byte[]> control;
+
+    private final LongAdder droppedBatches;
+
+    private volatile boolean dropping;
+
+    private final ScheduledExecutorService flusher;
+
+    private final ExecutorService connectionThreads;
+
+    private volatile boolean running;
+
+    private volatile Socket socket;
+
+    public BrokerDraftEventBus(final DraftProperties.EventBus properties)
+    {
+        this.properties = properties;
+        this.listeners = new ConcurrentHashMap<>();
+        this.snapshotHandlers = new CopyOnWriteArrayList<>();
+        this.pending = new ConcurrentHashMap<>();
+        this.outbound = new ArrayBlockingQueue<>(properties.getOutboundQueueCapacity());
+        this.control = new LinkedBlockingQueue<>();
+        this.droppedBatches = new LongAdder();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("draft-event-flusher").daemon().factory());
+        this.connectionThreads = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("draft-event-bus-", 0).factory());
+    }
+
+    /**
+     * Connect to the broker and start flushing batches.
+     */
+    @PostConstruct
+    public void start()
+    {
+        running = true;
+        connectionThreads.execute(this::connect);
+        final long interval = properties.getFlushInterval().toNanos();
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.NANOSECONDS);
+        log.info(
+                "Draft event bus relaying through broker {}:{}", properties.getBrokerHost(),
+                properties.getBrokerPort()
+        );
+    }
+
+    /**
+     * Flush pending batches and disconnect from the broker.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        flusher.shutdown();
+        flush();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (socket != null && !(outbound.isEmpty() && control.isEmpty()) && System.nanoTime() < deadline)
+        {
+            Thread.onSpinWait();
+        }
+        running = false;
+        DraftEventBroker.closeQuietly(socket);
+        connectionThreads.shutdownNow();
+    }
+
+    /**
+     * @return Whether the bus is connected to the broker
+     */
+    public boolean isConnected()
+    {
+        return socket != null;
+    }
+
+    /**
+     * @return Event batches dropped so far because the broker connection queue was full
+     */
+    public long getDroppedBatchCount()
+    {
+        return droppedBatches.sum();
+    }
+
+    @Override
+    public void publish(final DraftEvent event)
+    {
+        pending.compute(
+                event.draftId(), (draftId, batch) ->
+                {
+                    final List<DraftEvent> events = batch == null ? new ArrayList<>() : batch;
+                    events.add(event);
+                    if (events.size() < properties.getBatchSize())
+                    {
+                        return events;
+                    }
+                    send(DraftEventBroker.encodeBatch(draftId, events));
+                    return null;
+                }
+        );
+    }
+
+    @Override
+    public void subscribe(final String draftId, final Consumer<List<DraftEvent>> listener)
+    {
+        listeners.compute(
+                draftId, (id, targets) ->
+                {
+                    final List<Consumer<List<DraftEvent>>> list = targets == null
+                            ? new CopyOnWriteArrayList<>()
+                            : targets;
+                    if (targets == null)
+                    {
+                        sendControl(DraftEventBroker.encode(DraftEventBroker.SUBSCRIBE, id));
+                    }
+                    list.add(listener);
+                    return list;
+                }
+        );
+    }
+
+    @Override
+    public void unsubscribe(final String draftId, final Consumer<List<DraftEvent>> listener)
+    {
+        listeners.computeIfPresent(
+                draftId, (id, targets) ->
+                {
+                    targets.remove(listener);
+                    if (!targets.isEmpty())
+                    {
+                        return targets;
+                    }
+                    sendControl(DraftEventBroker.encode(DraftEventBroker.UNSUBSCRIBE, id));
+                    return null;
+                }
+        );
+    }
+
+    @Override
+    public void requestSnapshot(final String draftId)
+    {
+        sendControl(DraftEventBroker.encode(DraftEventBroker.SNAPSHOT_REQUEST, draftId));
+    }
+
+    @Override
+    public void onSnapshotRequest(final Consumer<String> handler)
+    {
+        snapshotHandlers.add(handler);
+    }
+
+    /**
+     * Send the pending batch of every draft.
+     */
+    public void flush()
+    {
+        for (final String draftId : pending.keySet())
+        {
+            pending.computeIfPresent(
+                    draftId, (id, batch) ->
+                    {
+                        send(DraftEventBroker.encodeBatch(id, batch));
+                        return null;
+                    }
+            );
+        }
+    }
+
+    private void send(final byte[] batch)
+    {
+        if (outbound.offer(batch))
+        {
+            if (dropping)
+            {
+                dropping = false;
+                log.warn("Draft event broker connection caught up, {} batches dropped so far", droppedBatches.sum());
+            }
+            return;
+        }
+        droppedBatches.increment();
+        // Once per run of drops; the summary follows when the queue accepts batches again
+        if (!dropping)
+        {
+            dropping = true;
+            log.warn("Dropping draft event batches, the broker connection queue is full");
+        }
+    }
+
+    private void sendControl(final byte[] message)
+    {
+        control.add(message);
+    }
+
+    private void connect()
+    {
+        while (running)
+        {
+            try (Socket connection = new Socket(properties.getBrokerHost(), properties.getBrokerPort()))
+            {
+                connection.setTcpNoDelay(true);
+                // Messages queued while disconnected are stale; subscribers resync from snapshots
+                outbound.clear();
+                control.clear();
+                for (final String draftId : listeners.keySet())
+                {
+                    sendControl(DraftEventBroker.encode(DraftEventBroker.SUBSCRIBE, draftId));
+                    requestSnapshot(draftId);
+                }
+                socket = connection;
+                log.info("Connected to draft event broker {}", connection.getRemoteSocketAddress());
+                final Future<?> writer = connectionThreads.submit(() -> write(connection));
+                try
+                {
+                    read(connection);
+                }
+                finally
+                {
+                    writer.cancel(true);
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                if (running)
+                {
+                    log.warn("Draft event broker connection failed: {}", e.getMessage());
+                }
+            }
+            socket = null;
+            if (running)
+            {
+                try
+                {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void read(final Socket connection) throws IOException
+    {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+        while (true)
+        {
+            final byte[] message = DraftEventBroker.readMessage(in);
+            // Messages are length-prefixed, so a bad one does not affect the ones after it
+            try
+            {
+                dispatch(message);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                log.warn(
+                        "Skipped draft event message of kind {}: {}", DraftEventBroker.kindOf(message),
+                        e.getMessage()
+                );
+            }
+        }
+    }
+
+    private void dispatch(final byte[] message) throws IOException
+    {
+        switch (DraftEventBroker.kindOf(message))
+        {
+            case DraftEventBroker.BATCH ->
+            {
+                final List<DraftEvent> events = DraftEventBroker.decodeBatch(message);
+                final List<Consumer<List<DraftEvent>>> targets = listeners.get(events.getFirst().draftId());
+                if (targets != null)
+                {
+                    for (final Consumer<List<DraftEvent>> listener : targets)
+                    {
+                        deliver(listener, events);
+                    }
+                }
+            }
+            case DraftEventBroker.SNAPSHOT_REQUEST ->
+            {
+                final String draftId = DraftEventBroker.draftIdOf(message);
+                for (final Consumer<String> handler : snapshotHandlers)
+                {
+                    deliver(handler, draftId);
+                }
+            }
+            default -> log.debug(
+                    "[DEBUG_LOG] Ignored draft event message of kind {}", DraftEventBroker.kindOf(message));
+        }
+    }
+
+    // One failing listener must not keep the message from the others
+    private static <T> void deliver(final Consumer<T> listener, final T value)
+    {
+        try
+        {
+            listener.accept(value);
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Draft event listener failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void write(final Socket connection)
+    {
+        try
+        {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            DraftEventBroker.writeMessage(out, DraftEventBroker.encodeHello(properties.getBrokerSecret()));
+            out.flush();
+            while (!connection.isClosed())
+            {
+                byte[] message = control.poll();
+                if (message == null)
+                {
+                    message = outbound.poll(WRITER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (message == null)
+                {
+                    continue;
+                }
+                DraftEventBroker.writeMessage(out, message);
+                if (control.isEmpty() && outbound.isEmpty())
+                {
+                    out.flush();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            log.debug("[DEBUG_LOG] Failed to write to the draft event broker: {}", e.getMessage());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            // Unblocks the reader, which reconnects
+            DraftEventBroker.closeQuietly(connection);
+        }
+    }
+
+}
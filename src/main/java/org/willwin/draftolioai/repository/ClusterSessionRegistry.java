@@ -0,0 +1,465 @@
+package org.willwin.draftolioai.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.session.events.SessionDestroyedEvent;
+import org.willwin.draftolioai.config.AuthSessionProperties;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SessionRegistry} for the concurrent session limit, optionally shared across nodes.
+ * <p>
+ * Sessions are indexed by ID and by principal in {@link ConcurrentHashMap}s, whose
+ * per-bin locking keeps registration and the per-request lookup of
+ * {@code ConcurrentSessionFilter} independent of the number of sessions; no registry-wide
+ * lock or copy is involved.
+ * <p>
+ * With {@link AuthSessionProperties.Registry#getJdbc()} the registry is also kept in the
+ * application datasource. Logins and expirations are written through, since they decide
+ * the limit, and {@link #getAllSessions(Object, boolean)} reads the principal's sessions
+ * from all nodes, so a login on one node expires the user's session on another. Each node
+ * picks up expirations made elsewhere and writes its last request times every
+ * {@link AuthSessionProperties.Registry#getSyncInterval()}. Lookups of sessions registered
+ * on another node are loaded once and then served locally; unknown IDs are remembered
+ * for one sync interval so anonymous sessions do not query the database on every request.
+ * Each sync drops the sessions whose last request known here is older than the session
+ * timeout, the same rule that deletes stale rows, so the sessions loaded from other nodes
+ * do not accumulate; one still alive elsewhere is simply loaded again on its next lookup.
+ */
+@Slf4j
+public class ClusterSessionRegistry implements SessionRegistry, ApplicationListener<SessionDestroyedEvent>
+{
+
+    private final AuthSessionProperties properties;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentMap<String, RegisteredSession> sessionsById;
+
+    private final ConcurrentMap<String, Set<String>> sessionIdsByPrincipal;
+
+    private final Set<String> touchedSessionIds;
+
+    private final ConcurrentMap<String, Long> unknownSessionIds;
+
+    private final ScheduledExecutorService syncExecutor;
+
+    private final String table;
+
+    private long lastExpirySyncMillis;
+
+    /**
+     * @param properties   Session configuration
+     * @param jdbcTemplate JDBC template, or null for a node-local registry
+     */
+    public ClusterSessionRegistry(final AuthSessionProperties properties, final JdbcTemplate jdbcTemplate)
+    {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionsById = new ConcurrentHashMap<>();
+        this.sessionIdsByPrincipal = new ConcurrentHashMap<>();
+        this.touchedSessionIds = ConcurrentHashMap.newKeySet();
+        this.unknownSessionIds = new ConcurrentHashMap<>();
+        this.syncExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("session-registry-sync").daemon().factory());
+        this.table = properties.getRegistry().getTableName();
+        this.lastExpirySyncMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Create the registry table if configured and start the periodic sync.
+     */
+    @PostConstruct
+    public void start()
+    {
+        if (jdbcTemplate == null)
+        {
+            return;
+        }
+        final AuthSessionProperties.Registry registry = properties.getRegistry();
+        if (registry.getInitializeSchema())
+        {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                    + "SESSION_ID VARCHAR(64) NOT NULL PRIMARY KEY, "
+                    + "PRINCIPAL VARCHAR(255) NOT NULL, "
+                    + "LAST_REQUEST BIGINT NOT NULL, "
+                    + "EXPIRED_AT BIGINT)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + table + "_PRINCIPAL ON " + table + " (PRINCIPAL)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + table + "_EXPIRED_AT ON " + table + " (EXPIRED_AT)");
+        }
+
+        final long intervalMillis = registry.getSyncInterval().toMillis();
+        syncExecutor.scheduleWithFixedDelay(this::syncSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Session registry shared through table {} - sync interval: {} ms", table, intervalMillis);
+    }
+
+    /**
+     * Stop the periodic sync and write the last request times still pending.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        syncExecutor.shutdownNow();
+        if (jdbcTemplate != null)
+        {
+            syncSafely();
+        }
+    }
+
+    @Override
+    public List<Object> getAllPrincipals()
+    {
+        if (jdbcTemplate != null)
+        {
+            return new ArrayList<>(jdbcTemplate.queryForList(
+                    "SELECT DISTINCT PRINCIPAL FROM " + table + " WHERE EXPIRED_AT IS NULL", String.class));
+        }
+        return new ArrayList<>(sessionIdsByPrincipal.keySet());
+    }
+
+    @Override
+    public List<SessionInformation> getAllSessions(final Object principal, final boolean includeExpiredSessions)
+    {
+        final String principalKey = principal.toString();
+        final List<SessionInformation> sessions = new ArrayList<>();
+        if (jdbcTemplate != null)
+        {
+            // Only the shared table knows about sessions on other nodes
+            jdbcTemplate.query(
+                    "SELECT SESSION_ID, LAST_REQUEST, EXPIRED_AT FROM " + table + " WHERE PRINCIPAL = ?", row ->
+                    {
+                        final RegisteredSession session = cacheLoaded(
+                                row.getString(1), principalKey, row.getLong(2), row.getObject(3) != null);
+                        if (includeExpiredSessions || !session.isExpired())
+                        {
+                            sessions.add(session);
+                        }
+                    }, principalKey
+            );
+            return sessions;
+        }
+
+        final Set<String> sessionIds = sessionIdsByPrincipal.get(principalKey);
+        if (sessionIds != null)
+        {
+            for (final String sessionId : sessionIds)
+            {
+                final RegisteredSession session = sessionsById.get(sessionId);
+                if (session != null && (includeExpiredSessions || !session.isExpired()))
+                {
+                    sessions.add(session);
+                }
+            }
+        }
+        return sessions;
+    }
+
+    @Override
+    public SessionInformation getSessionInformation(final String sessionId)
+    {
+        final RegisteredSession session = sessionsById.get(sessionId);
+        if (session != null || jdbcTemplate == null)
+        {
+            return session;
+        }
+
+        final Long unknownUntil = unknownSessionIds.get(sessionId);
+        if (unknownUntil != null && unknownUntil > System.currentTimeMillis())
+        {
+            return null;
+        }
+        try
+        {
+            final List<RegisteredSession> rows = jdbcTemplate.query(
+                    "SELECT PRINCIPAL, LAST_REQUEST, EXPIRED_AT FROM " + table + " WHERE SESSION_ID = ?",
+                    (row, rowNum) -> cacheLoaded(sessionId, row.getString(1), row.getLong(2), row.getObject(3) != null),
+                    sessionId
+            );
+            if (rows.isEmpty())
+            {
+                unknownSessionIds.put(
+                        sessionId,
+                        System.currentTimeMillis() + properties.getRegistry().getSyncInterval().toMillis()
+                );
+                return null;
+            }
+            return rows.getFirst();
+        }
+        catch (DataAccessException e)
+        {
+            log.warn("Failed to load session registration {}: {}", sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void refreshLastRequest(final String sessionId)
+    {
+        final RegisteredSession session = sessionsById.get(sessionId);
+        if (session != null)
+        {
+            session.refreshLastRequest();
+            if (jdbcTemplate != null)
+            {
+                touchedSessionIds.add(sessionId);
+            }
+        }
+    }
+
+    @Override
+    public void registerNewSession(final String sessionId, final Object principal)
+    {
+        final String principalKey = principal.toString();
+        removeLocal(sessionId);
+        final RegisteredSession session = new RegisteredSession(this, principalKey, sessionId, new Date());
+        sessionsById.put(sessionId, session);
+        index(principalKey, sessionId);
+        unknownSessionIds.remove(sessionId);
+
+        if (jdbcTemplate != null)
+        {
+            final long now = session.getLastRequest().getTime();
+            final int updated = jdbcTemplate.update(
+                    "UPDATE " + table + " SET PRINCIPAL = ?, LAST_REQUEST = ?, EXPIRED_AT = NULL WHERE SESSION_ID = ?",
+                    principalKey, now, sessionId
+            );
+            if (updated == 0)
+            {
+                jdbcTemplate.update(
+                        "INSERT INTO " + table + " (PRINCIPAL, LAST_REQUEST, SESSION_ID) VALUES (?, ?, ?)",
+                        principalKey, now, sessionId
+                );
+            }
+        }
+        log.debug("Registered session {} for principal {}", sessionId, principalKey);
+    }
+
+    @Override
+    public void removeSessionInformation(final String sessionId)
+    {
+        removeLocal(sessionId);
+        touchedSessionIds.remove(sessionId);
+        if (jdbcTemplate != null)
+        {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE SESSION_ID = ?", sessionId);
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(final SessionDestroyedEvent event)
+    {
+        try
+        {
+            removeSessionInformation(event.getSessionId());
+        }
+        catch (DataAccessException e)
+        {
+            // The row is dropped by the stale sweep of the next sync
+            log.warn("Failed to remove registration of destroyed session: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return Number of sessions known to this node
+     */
+    public int getLocalSessionCount()
+    {
+        return sessionsById.size();
+    }
+
+    /**
+     * Write touched last request times, pick up expirations made on other nodes and drop
+     * registrations and cached sessions that can no longer be alive.
+     */
+    void sync()
+    {
+        final long now = System.currentTimeMillis();
+        writeLastRequests();
+
+        // Overlap the previous window so an expiry committed during the last query is not missed
+        final long since = lastExpirySyncMillis - properties.getRegistry().getSyncInterval().toMillis();
+        lastExpirySyncMillis = now;
+        jdbcTemplate.query(
+                "SELECT SESSION_ID FROM " + table + " WHERE EXPIRED_AT >= ?", row ->
+                {
+                    final RegisteredSession session = sessionsById.get(row.getString(1));
+                    if (session != null)
+                    {
+                        session.markExpired();
+                    }
+                }, since
+        );
+
+        unknownSessionIds.values().removeIf(until -> until <= now);
+        final long staleBefore = now - properties.getTimeout().toMillis();
+        evictCached(staleBefore);
+        jdbcTemplate.update("DELETE FROM " + table + " WHERE LAST_REQUEST < ?", staleBefore);
+    }
+
+    /**
+     * Write an expiry made on this node through to the shared table.
+     *
+     * @param sessionId The expired session
+     */
+    private void expired(final String sessionId)
+    {
+        if (jdbcTemplate != null)
+        {
+            jdbcTemplate.update(
+                    "UPDATE " + table + " SET EXPIRED_AT = ? WHERE SESSION_ID = ?", System.currentTimeMillis(),
+                    sessionId
+            );
+        }
+    }
+
+    private void syncSafely()
+    {
+        try
+        {
+            sync();
+        }
+        catch (DataAccessException e)
+        {
+            log.warn("Session registry sync failed: {}", e.getMessage());
+        }
+    }
+
+    private void writeLastRequests()
+    {
+        final List<Object[]> batch = new ArrayList<>();
+        for (final String sessionId : touchedSessionIds)
+        {
+            // Removed before the last request is read, so a later touch marks the session again
+            if (!touchedSessionIds.remove(sessionId))
+            {
+                continue;
+            }
+            final RegisteredSession session = sessionsById.get(sessionId);
+            if (session != null)
+            {
+                batch.add(new Object[] { session.getLastRequest().getTime(), sessionId });
+            }
+        }
+        if (!batch.isEmpty())
+        {
+            jdbcTemplate.batchUpdate("UPDATE " + table + " SET LAST_REQUEST = ? WHERE SESSION_ID = ?", batch);
+        }
+    }
+
+    private void evictCached(final long staleBefore)
+    {
+        int evicted = 0;
+        for (final RegisteredSession session : sessionsById.values())
+        {
+            // Conditional, so a session registered again meanwhile is kept
+            if (session.getLastRequest().getTime() < staleBefore
+                    && sessionsById.remove(session.getSessionId(), session))
+            {
+                unindex(session);
+                evicted++;
+            }
+        }
+        if (evicted > 0)
+        {
+            log.debug("Evicted {} stale cached sessions", evicted);
+        }
+    }
+
+    private RegisteredSession cacheLoaded(
+            final String sessionId, final String principalKey, final long lastRequest, final boolean expired)
+    {
+        final RegisteredSession loaded = new RegisteredSession(this, principalKey, sessionId, new Date(lastRequest));
+        final RegisteredSession session = sessionsById.merge(
+                sessionId, loaded, (current, fresh) -> current.getLastRequest().getTime() >= lastRequest
+                        ? current
+                        : fresh
+        );
+        if (session == loaded)
+        {
+            index(principalKey, sessionId);
+        }
+        if (expired)
+        {
+            session.markExpired();
+        }
+        return session;
+    }
+
+    private void index(final String principalKey, final String sessionId)
+    {
+        sessionIdsByPrincipal.computeIfAbsent(principalKey, key -> ConcurrentHashMap.newKeySet()).add(sessionId);
+    }
+
+    private void removeLocal(final String sessionId)
+    {
+        final RegisteredSession removed = sessionsById.remove(sessionId);
+        if (removed != null)
+        {
+            unindex(removed);
+        }
+    }
+
+    private void unindex(final RegisteredSession removed)
+    {
+        sessionIdsByPrincipal.computeIfPresent(
+                removed.getPrincipal().toString(), (key, sessionIds) ->
+                {
+                    sessionIds.remove(removed.getSessionId());
+                    return sessionIds.isEmpty() ? null : sessionIds;
+                }
+        );
+    }
+
+    /**
+     * Session information that writes expiries through to the registry.
+     */
+    static final class RegisteredSession extends SessionInformation
+    {
+
+        private final transient ClusterSessionRegistry registry;
+
+        RegisteredSession(
+                final ClusterSessionRegistry registry, final String principal, final String sessionId,
+                final Date lastRequest)
+        {
+            super(principal, sessionId, lastRequest);
+            this.registry = registry;
+        }
+
+        @Override
+        public void expireNow()
+        {
+            if (!isExpired())
+            {
+                super.expireNow();
+                registry.expired(getSessionId());
+            }
+        }
+
+        /**
+         * Mark expired by another node, without writing back.
+         */
+        void markExpired()
+        {
+            super.expireNow();
+        }
+
+    }
+
+}
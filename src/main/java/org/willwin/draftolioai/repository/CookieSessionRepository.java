@@ -0,0 +1,224 @@
+package org.willwin.draftolioai.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.session.SessionRepository;
+import org.willwin.draftolioai.config.AuthSessionProperties;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stateless Spring Session repository that seals the whole session into its identifier.
+ * <p>
+ * The session identifier, and therefore the session cookie, is the
+ * {@link AuthSessionCodec} encoding of the session encrypted and authenticated with
+ * AES-GCM. Any node holding the keys can read a session without shared state or a
+ * storage lookup. Saving a changed session seals it again under a new identifier, which
+ * Spring Session then writes back as the cookie; sessions that were only read are
+ * resealed at most once per {@link AuthSessionProperties.Cookie#getTouchInterval()}.
+ * <p>
+ * Cookie layout, base64url-encoded: format version, key ID length and key ID, 12-byte
+ * IV, then ciphertext with the GCM tag. The version and key ID are authenticated as
+ * associated data. Cookies are sealed with the active key and accepted under any
+ * configured key, so keys can be rotated by adding a new key, making it active, and
+ * removing the old one after the session timeout has passed.
+ * <p>
+ * Stateless sessions cannot be revoked server-side before their inactivity timeout;
+ * logout only clears the cookie.
+ */
+@Slf4j
+public class CookieSessionRepository implements SessionRepository<AuthHttpSession>
+{
+
+    private static final byte VERSION = 1;
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int TAG_BITS = 128;
+
+    /**
+     * Browsers reject cookies larger than about 4 KB
+     */
+    private static final int COOKIE_SIZE_WARNING = 3800;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final AuthSessionProperties properties;
+
+    private final Map<String, SecretKey> keys;
+
+    private final String activeKeyId;
+
+    private final byte[] activeKeyIdBytes;
+
+    private final SecureRandom secureRandom;
+
+    public CookieSessionRepository(final AuthSessionProperties properties)
+    {
+        this.properties = properties;
+        this.keys = loadKeys(properties.getCookie().getKeys());
+        this.activeKeyId = properties.getCookie().getActiveKeyId() != null
+                ? properties.getCookie().getActiveKeyId()
+                : properties.getCookie().getKeys().keySet().stream().findFirst().orElse(null);
+        if (activeKeyId == null || !keys.containsKey(activeKeyId))
+        {
+            throw new IllegalStateException("Cookie session store requires auth.session.cookie.keys "
+                    + "containing the active key ID");
+        }
+        this.activeKeyIdBytes = activeKeyId.getBytes(StandardCharsets.UTF_8);
+        if (activeKeyIdBytes.length > Byte.MAX_VALUE)
+        {
+            throw new IllegalStateException("Cookie session key ID is too long: " + activeKeyId);
+        }
+        this.secureRandom = new SecureRandom();
+    }
+
+    @Override
+    public AuthHttpSession createSession()
+    {
+        return new AuthHttpSession(properties.getTimeout());
+    }
+
+    @Override
+    public void save(final AuthHttpSession session)
+    {
+        // A changed id (changeSessionId on login) must be resealed, or the cookie would carry the bare id
+        final boolean unchanged = session.getOriginalId() != null
+                && session.getId().equals(session.getOriginalId())
+                && !session.isAuthSessionChanged()
+                && !session.isAttributesChanged()
+                && session.getLastAccessedTime().isBefore(
+                session.getSavedLastAccessedTime().plus(properties.getCookie().getTouchInterval()));
+        if (unchanged)
+        {
+            return;
+        }
+
+        final String sealed = seal(AuthSessionCodec.encode(session));
+        if (sealed.length() > COOKIE_SIZE_WARNING)
+        {
+            log.warn("Sealed session cookie is {} bytes and may be rejected by browsers", sealed.length());
+        }
+        session.assignId(sealed);
+        session.markSaved();
+    }
+
+    @Override
+    public AuthHttpSession findById(final String id)
+    {
+        final byte[] data = unseal(id);
+        if (data == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            final AuthHttpSession session = AuthSessionCodec.decode(id, data);
+            return session.isExpired() ? null : session;
+        }
+        catch (IllegalArgumentException e)
+        {
+            log.debug("Discarding undecodable session cookie: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void deleteById(final String id)
+    {
+        // Nothing is stored; Spring Session expires the cookie of an invalidated session
+    }
+
+    private String seal(final byte[] plaintext)
+    {
+        final byte[] iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+
+        final ByteBuffer header = ByteBuffer.allocate(2 + activeKeyIdBytes.length);
+        header.put(VERSION).put((byte) activeKeyIdBytes.length).put(activeKeyIdBytes);
+
+        try
+        {
+            final Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, keys.get(activeKeyId), new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(header.array());
+            final byte[] ciphertext = cipher.doFinal(plaintext);
+
+            return ENCODER.encodeToString(ByteBuffer
+                    .allocate(header.capacity() + IV_LENGTH + ciphertext.length)
+                    .put(header.array())
+                    .put(iv)
+                    .put(ciphertext)
+                    .array());
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new IllegalStateException("Failed to seal session cookie", e);
+        }
+    }
+
+    private byte[] unseal(final String id)
+    {
+        try
+        {
+            final ByteBuffer buffer = ByteBuffer.wrap(DECODER.decode(id));
+            if (buffer.get() != VERSION)
+            {
+                return null;
+            }
+            final byte[] keyId = new byte[buffer.get()];
+            buffer.get(keyId);
+            final SecretKey key = keys.get(new String(keyId, StandardCharsets.UTF_8));
+            if (key == null)
+            {
+                log.debug("Discarding session cookie sealed with an unknown key");
+                return null;
+            }
+
+            final int headerLength = buffer.position();
+            final byte[] iv = new byte[IV_LENGTH];
+            buffer.get(iv);
+
+            final Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(buffer.array(), 0, headerLength);
+            return cipher.doFinal(buffer.array(), buffer.position(), buffer.remaining());
+        }
+        catch (GeneralSecurityException | RuntimeException e)
+        {
+            // Tampered, truncated or foreign cookie
+            log.debug("Discarding unreadable session cookie: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<String, SecretKey> loadKeys(final Map<String, String> encodedKeys)
+    {
+        final Map<String, SecretKey> keys = new HashMap<>();
+        encodedKeys.forEach((keyId, encoded) ->
+        {
+            final byte[] key = Base64.getDecoder().decode(encoded);
+            if (key.length != 16 && key.length != 24 && key.length != 32)
+            {
+                throw new IllegalStateException("Cookie session key " + keyId + " must be 128, 192 or 256 bits");
+            }
+            keys.put(keyId, new SecretKeySpec(key, "AES"));
+        });
+        return keys;
+    }
+
+}
@@ -0,0 +1,462 @@
+package org.willwin.draftolioai.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.willwin.draftolioai.dto.DraftEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broker relaying draft events between the nodes of a {@link BrokerDraftEventBus}.
+ * <p>
+ * Nodes connect over TCP and exchange length-prefixed messages. The first message of a
+ * node is a handshake carrying the shared secret; nodes that do not present it within
+ * a few seconds are disconnected before they receive anything. After that, nodes send
+ * subscriptions to a draft,
+ * snapshot requests, relayed to every other node, and batches of a draft's events,
+ * relayed to the other nodes subscribed to the draft. Messages are forwarded as received
+ * without decoding the events, so the relay preserves the order in which each node sent
+ * them. Each node connection is written by its own virtual thread from a bounded queue;
+ * a node that falls behind loses batches, which its subscriptions detect and resync.
+ * <p>
+ * The broker keeps no state besides the subscriptions. It runs embedded in one node,
+ * standing in for a shared pub/sub service in local multi-node setups and tests, and
+ * listens on loopback unless configured otherwise; listening on any other address
+ * requires a secret.
+ */
+@Slf4j
+public class DraftEventBroker
+{
+
+    static final int HELLO = 0;
+
+    static final int SUBSCRIBE = 1;
+
+    static final int UNSUBSCRIBE = 2;
+
+    static final int SNAPSHOT_REQUEST = 3;
+
+    static final int BATCH = 4;
+
+    private static final int MAX_MESSAGE_LENGTH = 16 * 1024 * 1024;
+
+    // Kind, length of the secret and the secret itself
+    private static final int MAX_HELLO_LENGTH = 3 + 65535;
+
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5000;
+
+    private final String bindAddress;
+
+    private final int port;
+
+    private final byte[] secret;
+
+    private final int queueCapacity;
+
+    private final Set<Connection> connections;
+
+    private final ConcurrentMap<String, Set<Connection>> subscriptions;
+
+    private final ExecutorService threads;
+
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * @param bindAddress   Address to listen on
+     * @param port          Port to listen on, 0 for any free port
+     * @param secret        Secret the nodes present in their handshake, null or empty for none
+     * @param queueCapacity Messages queued per node connection
+     */
+    public DraftEventBroker(
+            final String bindAddress, final int port, final String secret, final int queueCapacity)
+    {
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.secret = secretBytes(secret);
+        this.queueCapacity = queueCapacity;
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.subscriptions = new ConcurrentHashMap<>();
+        this.threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("draft-event-broker-", 0).factory());
+    }
+
+    /**
+     * Start listening for nodes.
+     *
+     * @throws IOException           if the port cannot be bound
+     * @throws IllegalStateException if the address is not loopback and no secret is configured
+     */
+    @PostConstruct
+    public void start() throws IOException
+    {
+        final InetAddress address = InetAddress.getByName(bindAddress);
+        if (!address.isLoopbackAddress() && secret.length == 0)
+        {
+            throw new IllegalStateException(
+                    "draft.event-bus.broker-secret is required for a broker listening on " + bindAddress);
+        }
+        serverSocket = new ServerSocket(port, 0, address);
+        threads.execute(this::accept);
+        log.info("Draft event broker listening on {}:{}", address.getHostAddress(), getPort());
+    }
+
+    /**
+     * Disconnect all nodes and stop listening.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        closeQuietly(serverSocket);
+        for (final Connection connection : connections)
+        {
+            connection.close();
+        }
+        threads.shutdownNow();
+    }
+
+    /**
+     * @return The port the broker listens on
+     */
+    public int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return Number of connected nodes
+     */
+    public int getConnectionCount()
+    {
+        return connections.size();
+    }
+
+    static byte[] readMessage(final DataInputStream in) throws IOException
+    {
+        return readMessage(in, MAX_MESSAGE_LENGTH);
+    }
+
+    private static byte[] readMessage(final DataInputStream in, final int maxLength) throws IOException
+    {
+        final int length = in.readInt();
+        if (length <= 0 || length > maxLength)
+        {
+            throw new IOException("Invalid draft event message length " + length);
+        }
+        final byte[] message = new byte[length];
+        in.readFully(message);
+        return message;
+    }
+
+    static void writeMessage(final DataOutputStream out, final byte[] message) throws IOException
+    {
+        out.writeInt(message.length);
+        out.write(message);
+    }
+
+    static byte[] encodeHello(final String secret)
+    {
+        return encode(HELLO, secret == null ? "" : secret);
+    }
+
+    static byte[] encode(final int kind, final String draftId)
+    {
+        return encode(kind, draftId, List.of());
+    }
+
+    static byte[] encodeBatch(final String draftId, final List<DraftEvent> events)
+    {
+        return encode(BATCH, draftId, events);
+    }
+
+    static int kindOf(final byte[] message)
+    {
+        return message[0];
+    }
+
+    static String draftIdOf(final byte[] message) throws IOException
+    {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(message, 1, message.length - 1));
+        return in.readUTF();
+    }
+
+    static List<DraftEvent> decodeBatch(final byte[] message) throws IOException
+    {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(message, 1, message.length - 1));
+        final String draftId = in.readUTF();
+        final int count = in.readInt();
+        // Every event takes at least its sequence and frame length
+        if (count <= 0 || count > in.available() / (Long.BYTES + Integer.BYTES))
+        {
+            throw new IOException("Invalid draft event batch size " + count);
+        }
+        final List<DraftEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            final long sequence = in.readLong();
+            final byte[] frame = new byte[in.readInt()];
+            in.readFully(frame);
+            events.add(new DraftEvent(draftId, sequence, frame));
+        }
+        return events;
+    }
+
+    private static byte[] encode(final int kind, final String draftId, final List<DraftEvent> events)
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 32 * events.size());
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeByte(kind);
+            out.writeUTF(draftId);
+            if (kind == BATCH)
+            {
+                out.writeInt(events.size());
+                for (final DraftEvent event : events)
+                {
+                    out.writeLong(event.sequence());
+                    out.writeInt(event.frame().length);
+                    out.write(event.frame());
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] secretBytes(final String secret)
+    {
+        return secret == null ? new byte[0] : secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void closeQuietly(final AutoCloseable closeable)
+    {
+        if (closeable == null)
+        {
+            return;
+        }
+        try
+        {
+            closeable.close();
+        }
+        catch (Exception e)
+        {
+            log.debug("[DEBUG_LOG] Failed to close {}: {}", closeable, e.getMessage());
+        }
+    }
+
+    private void accept()
+    {
+        while (!serverSocket.isClosed())
+        {
+            try
+            {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                threads.execute(new Connection(socket)::read);
+            }
+            catch (IOException e)
+            {
+                if (!serverSocket.isClosed())
+                {
+                    log.warn("Failed to accept a node connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * A connected node with its subscriptions and outbound queue.
+     */
+    private final class Connection
+    {
+
+        private final Socket socket;
+
+        private final BlockingQueue<byte[]> outbound;
+
+        private final Set<String> drafts;
+
+        private volatile boolean closed;
+
+        private Connection(final Socket socket)
+        {
+            this.socket = socket;
+            this.outbound = new ArrayBlockingQueue<>(queueCapacity);
+            this.drafts = ConcurrentHashMap.newKeySet();
+        }
+
+        private void read()
+        {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream())))
+            {
+                if (!authenticate(in))
+                {
+                    log.warn("Rejected node {}, invalid draft event broker handshake", socket.getRemoteSocketAddress());
+                    return;
+                }
+                connections.add(this);
+                threads.execute(this::write);
+                log.debug("[DEBUG_LOG] Node {} connected to the draft event broker", socket.getRemoteSocketAddress());
+                while (!closed)
+                {
+                    route(readMessage(in));
+                }
+            }
+            catch (IOException e)
+            {
+                log.debug("[DEBUG_LOG] Node {} disconnected: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+            finally
+            {
+                close();
+            }
+        }
+
+        private boolean authenticate(final DataInputStream in) throws IOException
+        {
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            final byte[] message = readMessage(in, MAX_HELLO_LENGTH);
+            socket.setSoTimeout(0);
+            return kindOf(message) == HELLO
+                    && MessageDigest.isEqual(secret, draftIdOf(message).getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void route(final byte[] message) throws IOException
+        {
+            final String draftId = draftIdOf(message);
+            switch (kindOf(message))
+            {
+                case SUBSCRIBE ->
+                {
+                    drafts.add(draftId);
+                    subscriptions.computeIfAbsent(draftId, id -> ConcurrentHashMap.newKeySet()).add(this);
+                }
+                case UNSUBSCRIBE ->
+                {
+                    drafts.remove(draftId);
+                    unsubscribe(draftId);
+                }
+                case SNAPSHOT_REQUEST ->
+                {
+                    for (final Connection connection : connections)
+                    {
+                        if (connection != this)
+                        {
+                            connection.send(message);
+                        }
+                    }
+                }
+                case BATCH ->
+                {
+                    final Set<Connection> targets = subscriptions.get(draftId);
+                    if (targets != null)
+                    {
+                        for (final Connection connection : targets)
+                        {
+                            if (connection != this)
+                            {
+                                connection.send(message);
+                            }
+                        }
+                    }
+                }
+                default -> throw new IOException("Unknown draft event message kind " + kindOf(message));
+            }
+        }
+
+        private void send(final byte[] message)
+        {
+            if (!outbound.offer(message))
+            {
+                log.debug("[DEBUG_LOG] Dropped a message for slow node {}", socket.getRemoteSocketAddress());
+            }
+        }
+
+        private void write()
+        {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())))
+            {
+                while (!closed)
+                {
+                    final byte[] message = outbound.poll(100, TimeUnit.MILLISECONDS);
+                    if (message == null)
+                    {
+                        continue;
+                    }
+                    writeMessage(out, message);
+                    if (outbound.isEmpty())
+                    {
+                        out.flush();
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                log.debug(
+                        "[DEBUG_LOG] Failed to write to node {}: {}", socket.getRemoteSocketAddress(),
+                        e.getMessage()
+                );
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                close();
+            }
+        }
+
+        private void unsubscribe(final String draftId)
+        {
+            subscriptions.computeIfPresent(
+                    draftId, (id, targets) ->
+                    {
+                        targets.remove(this);
+                        return targets.isEmpty() ? null : targets;
+                    }
+            );
+        }
+
+        private void close()
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            connections.remove(this);
+            for (final String draftId : drafts)
+            {
+                unsubscribe(draftId);
+            }
+            closeQuietly(socket);
+        }
+
+    }
+
+}
@@ -0,0 +1,462 @@
+package org.willwin.draftolioai.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftSide;
+import org.willwin.draftolioai.service.DraftState;
+import org.willwin.draftolioai.service.DraftTurnOrder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind JDBC persistence of the draft history.
+ * <p>
+ * Every completed pick or ban is one row in {@code DRAFT_HISTORY} and one in
+ * {@code DRAFT_PICK} or {@code DRAFT_BAN}. {@link #record(DraftState, int)} is called on the
+ * draft's shard and only queues the action; a single background thread drains the queue in
+ * JDBC batches of {@link DraftProperties.History#getBatchSize()} every
+ * {@link DraftProperties.History#getFlushInterval()}, or earlier once a batch is pending.
+ * <p>
+ * The queue is first in, first out and each batch is written in one transaction, so the
+ * rows of a draft are committed in turn order. A batch that fails stays at the head of the
+ * queue and is retried by the next flush before anything queued after it. Once it failed
+ * {@link DraftProperties.History#getMaxAttempts()} times, its actions are written one by one
+ * and those that still fail are logged and dropped as dead letters, so one bad row does not
+ * hold up the history for good.
+ * <p>
+ * {@link #record(DraftState, int)} never blocks the shard. While the queue is full, actions
+ * go to a per-draft overflow instead, and so do all later actions of a draft that has some
+ * there; the flush moves them into the queue in order as room frees up, so a draft's rows
+ * stay in turn order. Only once {@link DraftProperties.History#getOverflowCapacity()}
+ * actions overflow are further ones dropped. Shutdown writes out the queue and overflow.
+ * Actions still queued when the process dies are lost here; the draft journal remains the
+ * record of drafts in progress.
+ */
+@Slf4j
+public class DraftHistoryWriter implements MeterBinder
+{
+
+    private static final String HISTORY_SQL = "INSERT INTO DRAFT_HISTORY "
+            + "(DRAFT_ID, TURN, ACTION, CHAMPION_ID, TEAM, ACTED_AT) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String PICK_SQL = "INSERT INTO DRAFT_PICK "
+            + "(DRAFT_ID, TEAM, PICK_ORDER, CHAMPION_ID) VALUES (?, ?, ?, ?)";
+
+    private static final String BAN_SQL = "INSERT INTO DRAFT_BAN "
+            + "(DRAFT_ID, TEAM, BAN_ORDER, CHAMPION_ID) VALUES (?, ?, ?, ?)";
+
+    private final DraftProperties.History properties;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final BlockingQueue<Action> queue;
+
+    // Actions of each draft waiting for room in the queue, in turn order; only touched within compute
+    private final ConcurrentMap<String, ArrayDeque<Action>> overflow;
+
+    private final AtomicInteger overflowCount;
+
+    private final ScheduledExecutorService flushExecutor;
+
+    private final AtomicBoolean earlyFlushScheduled;
+
+    private final LongAdder written;
+
+    private final LongAdder dropped;
+
+    private final LongAdder deadLettered;
+
+    // Guarded by this; the batch being written, kept for the retry when it fails
+    private final List<Action> inFlight;
+
+    // Guarded by this; failed attempts at writing the batch in flight
+    private int inFlightAttempts;
+
+    private volatile int inFlightCount;
+
+    // Queue time of the first action in flight, read while inFlightCount is not 0
+    private volatile long inFlightSince;
+
+    /**
+     * @param properties   History configuration
+     * @param jdbcTemplate Template for the application datasource, only used when enabled
+     */
+    public DraftHistoryWriter(final DraftProperties.History properties, final JdbcTemplate jdbcTemplate)
+    {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = properties.getEnabled();
+        this.transactionTemplate = enabled
+                ? new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()))
+                : null;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.overflow = new ConcurrentHashMap<>();
+        this.overflowCount = new AtomicInteger();
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("draft-history-write-behind").daemon().factory());
+        this.earlyFlushScheduled = new AtomicBoolean();
+        this.written = new LongAdder();
+        this.dropped = new LongAdder();
+        this.deadLettered = new LongAdder();
+        this.inFlight = new ArrayList<>(properties.getBatchSize());
+    }
+
+    /**
+     * Create the history tables if configured and start the periodic flush.
+     */
+    @PostConstruct
+    public void start()
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        if (properties.getInitializeSchema())
+        {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS DRAFT_HISTORY ("
+                    + "DRAFT_ID VARCHAR(64) NOT NULL, "
+                    + "TURN SMALLINT NOT NULL, "
+                    + "ACTION VARCHAR(8) NOT NULL, "
+                    + "CHAMPION_ID SMALLINT, "
+                    + "TEAM VARCHAR(8) NOT NULL, "
+                    + "ACTED_AT BIGINT NOT NULL, "
+                    + "PRIMARY KEY (DRAFT_ID, TURN))");
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS DRAFT_PICK ("
+                    + "DRAFT_ID VARCHAR(64) NOT NULL, "
+                    + "TEAM VARCHAR(8) NOT NULL, "
+                    + "PICK_ORDER SMALLINT NOT NULL, "
+                    + "CHAMPION_ID SMALLINT, "
+                    + "PRIMARY KEY (DRAFT_ID, TEAM, PICK_ORDER))");
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS DRAFT_BAN ("
+                    + "DRAFT_ID VARCHAR(64) NOT NULL, "
+                    + "TEAM VARCHAR(8) NOT NULL, "
+                    + "BAN_ORDER SMALLINT NOT NULL, "
+                    + "CHAMPION_ID SMALLINT, "
+                    + "PRIMARY KEY (DRAFT_ID, TEAM, BAN_ORDER))");
+        }
+
+        final long intervalMillis = Math.max(1, properties.getFlushInterval().toMillis());
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info(
+                "Draft history writer started - batch size: {}, flush interval: {} ms", properties.getBatchSize(),
+                intervalMillis
+        );
+    }
+
+    /**
+     * Stop the periodic flush and write out everything still queued or overflowing.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        flushExecutor.shutdown();
+        try
+        {
+            flushExecutor.awaitTermination(properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        try
+        {
+            flush();
+        }
+        catch (DataAccessException e)
+        {
+            log.error("Lost {} draft history actions on shutdown: {}", getPendingCount(), e.getMessage());
+        }
+    }
+
+    /**
+     * Queue a completed action for writing. Called on the draft's shard right after the
+     * action was applied, so the actions of a draft are queued in turn order. Never waits;
+     * while the queue is full the action overflows, and is dropped only if the overflow is
+     * full too.
+     *
+     * @param state The draft
+     * @param turn  The turn the action completed
+     */
+    public void record(final DraftState state, final int turn)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        final DraftTurnOrder order = state.getOrder();
+        final Action action = new Action(
+                state.getDraftId(), turn, order.side(turn), order.type(turn), order.slot(turn),
+                state.getChampionAt(turn), System.currentTimeMillis(), System.nanoTime()
+        );
+        // Only this shard adds actions of the draft, so no overflow entry means none is left behind
+        if (!overflow.containsKey(action.draftId()) && queue.offer(action))
+        {
+            requestEarlyFlushIfFull();
+            return;
+        }
+        if (overflowCount.incrementAndGet() > properties.getOverflowCapacity())
+        {
+            overflowCount.decrementAndGet();
+            dropped.increment();
+            log.warn("Dropped draft history of {} turn {}, the queue and overflow are full", action.draftId(), turn);
+            return;
+        }
+        overflow.compute(
+                action.draftId(), (draftId, actions) ->
+                {
+                    final ArrayDeque<Action> pending = actions == null ? new ArrayDeque<>() : actions;
+                    pending.addLast(action);
+                    return pending;
+                }
+        );
+        requestEarlyFlush();
+    }
+
+    /**
+     * @return Number of actions queued, overflowing or in flight, not yet committed
+     */
+    public int getPendingCount()
+    {
+        return queue.size() + overflowCount.get() + inFlightCount;
+    }
+
+    /**
+     * @return Nanoseconds the oldest action not yet committed has been waiting, 0 if none is
+     */
+    public long getLagNanos()
+    {
+        final long since;
+        if (inFlightCount != 0)
+        {
+            since = inFlightSince;
+        }
+        else
+        {
+            final Action head = queue.peek();
+            if (head == null)
+            {
+                return 0;
+            }
+            since = head.queuedNanos();
+        }
+        return Math.max(0, System.nanoTime() - since);
+    }
+
+    /**
+     * Write all queued and overflowing actions to the database, each draft in turn order.
+     *
+     * @throws DataAccessException if a batch cannot be written; it is retried first by the next flush, up to
+     *                             max-attempts times before its actions are written one by one
+     */
+    public synchronized void flush()
+    {
+        while (true)
+        {
+            if (inFlight.isEmpty())
+            {
+                moveOverflow();
+                queue.drainTo(inFlight, properties.getBatchSize());
+                if (inFlight.isEmpty())
+                {
+                    return;
+                }
+                inFlightSince = inFlight.getFirst().queuedNanos();
+                inFlightCount = inFlight.size();
+            }
+            try
+            {
+                transactionTemplate.executeWithoutResult(status -> write(inFlight));
+                written.add(inFlight.size());
+            }
+            catch (RuntimeException e)
+            {
+                if (++inFlightAttempts < properties.getMaxAttempts())
+                {
+                    throw e;
+                }
+                log.warn("Draft history batch failed {} times, writing its actions one by one", inFlightAttempts);
+                writeEachOrDeadLetter();
+            }
+            clearInFlight();
+        }
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry)
+    {
+        Gauge
+                .builder("draft.history.lag", this, writer -> writer.getLagNanos() / 1e9)
+                .description("Age of the oldest completed action not yet written to the database")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge
+                .builder("draft.history.pending", this, DraftHistoryWriter::getPendingCount)
+                .description("Completed actions queued, overflowing or in flight to the database")
+                .register(registry);
+        FunctionCounter
+                .builder("draft.history.actions.written", written, LongAdder::sum)
+                .description("Completed actions written to the database")
+                .register(registry);
+        FunctionCounter
+                .builder("draft.history.actions.dropped", dropped, LongAdder::sum)
+                .description("Completed actions dropped because the queue and overflow were full")
+                .register(registry);
+        FunctionCounter
+                .builder("draft.history.actions.dead-lettered", deadLettered, LongAdder::sum)
+                .description("Completed actions dropped because they failed to be written max-attempts times")
+                .register(registry);
+    }
+
+    // Called with the lock held; isolates the actions that cannot be written from the rest of the batch
+    private void writeEachOrDeadLetter()
+    {
+        for (final Action action : inFlight)
+        {
+            try
+            {
+                transactionTemplate.executeWithoutResult(status -> write(List.of(action)));
+                written.increment();
+            }
+            catch (RuntimeException e)
+            {
+                deadLettered.increment();
+                log.error("Dead-lettered draft history action {}: {}", action, e.getMessage());
+            }
+        }
+    }
+
+    private void clearInFlight()
+    {
+        inFlight.clear();
+        inFlightCount = 0;
+        inFlightAttempts = 0;
+    }
+
+    private void write(final List<Action> actions)
+    {
+        final List<Object[]> history = new ArrayList<>(actions.size());
+        final List<Object[]> picks = new ArrayList<>(actions.size());
+        final List<Object[]> bans = new ArrayList<>(actions.size());
+        for (final Action action : actions)
+        {
+            final Integer championId = action.championId() == DraftState.NONE ? null : action.championId();
+            history.add(new Object[] {
+                    action.draftId(), action.turn(), action.type().name(), championId, action.side().name(),
+                    action.actedAt()
+            });
+            final Object[] row = { action.draftId(), action.side().name(), action.slot(), championId };
+            (action.type() == DraftActionType.PICK ? picks : bans).add(row);
+        }
+        jdbcTemplate.batchUpdate(HISTORY_SQL, history);
+        if (!picks.isEmpty())
+        {
+            jdbcTemplate.batchUpdate(PICK_SQL, picks);
+        }
+        if (!bans.isEmpty())
+        {
+            jdbcTemplate.batchUpdate(BAN_SQL, bans);
+        }
+    }
+
+    // Called with the lock held; a draft leaves the overflow only once all its actions are in the queue
+    private void moveOverflow()
+    {
+        for (final String draftId : overflow.keySet())
+        {
+            overflow.computeIfPresent(
+                    draftId, (id, actions) ->
+                    {
+                        while (!actions.isEmpty() && queue.offer(actions.peekFirst()))
+                        {
+                            actions.removeFirst();
+                            overflowCount.decrementAndGet();
+                        }
+                        return actions.isEmpty() ? null : actions;
+                    }
+            );
+        }
+    }
+
+    private void requestEarlyFlushIfFull()
+    {
+        if (queue.size() >= properties.getBatchSize())
+        {
+            requestEarlyFlush();
+        }
+    }
+
+    // A batch in flight is being written, or failed and waits for the next periodic flush
+    private void requestEarlyFlush()
+    {
+        if (inFlightCount == 0 && earlyFlushScheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                flushExecutor.execute(() ->
+                {
+                    earlyFlushScheduled.set(false);
+                    flushSafely();
+                });
+            }
+            catch (RuntimeException e)
+            {
+                // Executor already shut down; stop() flushes what is left
+                earlyFlushScheduled.set(false);
+            }
+        }
+    }
+
+    private void flushSafely()
+    {
+        try
+        {
+            flush();
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Failed to flush the draft history, retrying with the next flush: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * A completed pick or ban waiting to be written.
+     */
+    private record Action(
+            String draftId, int turn, DraftSide side, DraftActionType type, int slot, int championId,
+            long actedAt, long queuedNanos)
+    {
+
+    }
+
+}
@@ -0,0 +1,944 @@
+package org.willwin.draftolioai.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftStatus;
+import org.willwin.draftolioai.service.DraftSeries;
+import org.willwin.draftolioai.service.DraftState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only journal of draft events on memory-mapped segment files.
+ * <p>
+ * Every change of a draft (creation, start, each pick or ban, removal) is appended as a
+ * small binary record to the active segment: a copy into the mapping under a short lock,
+ * with no syscall unless the durability mode asks for one. Records carry a global sequence
+ * and a CRC32C, so a record torn by a crash ends replay of its segment cleanly.
+ * <p>
+ * Full segments are sealed and a new one started. Periodically, sealed segments are folded
+ * into a compact snapshot of the drafts that are still open and then deleted, which bounds
+ * both disk usage and recovery time. On startup the snapshot is loaded and the remaining
+ * segments are replayed on top of it; completed drafts are not recovered.
+ * <p>
+ * Fearless series are journaled along with their drafts: their creation, each game, and
+ * their removal. The snapshot holds each open series with the bitset of the champions
+ * its completed games locked, which replay keeps up to date as games complete, so a
+ * recovered series never goes back over the games that are already gone.
+ * <p>
+ * How often the mapping is forced to disk is set by {@link DraftProperties.Durability}.
+ */
+@Slf4j
+public class DraftJournal
+{
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+
+    private static final String SNAPSHOT_TEMP_FILE = "snapshot.tmp";
+
+    private static final int SNAPSHOT_MAGIC = 0x44524654;
+
+    private static final int SNAPSHOT_VERSION = 2;
+
+    // Payload length, CRC32C of sequence and payload, sequence
+    private static final int HEADER_BYTES = 16;
+
+    private static final int MAX_ID_BYTES = 256;
+
+    private static final byte CREATED = 1;
+
+    private static final byte STARTED = 2;
+
+    private static final byte ACTION = 3;
+
+    private static final byte REMOVED = 4;
+
+    private static final byte SERIES_CREATED = 5;
+
+    private static final byte SERIES_GAME = 6;
+
+    private static final byte SERIES_REMOVED = 7;
+
+    private static final DraftMode[] MODES = DraftMode.values();
+
+    private static final DraftStatus[] STATUSES = DraftStatus.values();
+
+    private final DraftProperties.Journal properties;
+
+    private final int championCapacity;
+
+    private final boolean enabled;
+
+    private final DraftProperties.Durability durability;
+
+    private final Path directory;
+
+    private final ReentrantLock appendLock;
+
+    private final ReentrantLock snapshotLock;
+
+    private final ScheduledExecutorService scheduler;
+
+    // Sequence followed by payload of the record being appended, guarded by appendLock
+    private final ByteBuffer record;
+
+    // Guarded by appendLock
+    private final CRC32C appendCrc;
+
+    // Guarded by appendLock
+    private Segment active;
+
+    // Guarded by appendLock
+    private long nextSequence;
+
+    // Guarded by appendLock
+    private int unflushed;
+
+    private Map<String, DraftState> recovered;
+
+    private Map<String, DraftSeries> recoveredSeries;
+
+    public DraftJournal(final DraftProperties.Journal properties, final int championCapacity)
+    {
+        this.properties = properties;
+        this.championCapacity = championCapacity;
+        this.enabled = properties.getEnabled();
+        this.durability = properties.getDurability();
+        if (enabled && properties.getDirectory() == null)
+        {
+            throw new IllegalStateException("draft.journal.directory must be set when the journal is enabled");
+        }
+        this.directory = enabled ? Path.of(properties.getDirectory()) : null;
+        this.appendLock = new ReentrantLock();
+        this.snapshotLock = new ReentrantLock();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("draft-journal").daemon().factory());
+        this.record = ByteBuffer.allocate(Long.BYTES + 1 + 2 * (Short.BYTES + MAX_ID_BYTES) + 2 * Short.BYTES);
+        this.appendCrc = new CRC32C();
+        this.recovered = Map.of();
+        this.recoveredSeries = Map.of();
+    }
+
+    /**
+     * Recover the journaled drafts, open a new segment and schedule flushes and snapshots.
+     */
+    @PostConstruct
+    public void start()
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        try
+        {
+            Files.createDirectories(directory);
+            final Snapshot snapshot = readSnapshot();
+            long lastSequence = snapshot.lastSequence();
+            for (final Path segment : listSegments())
+            {
+                lastSequence = replaySegment(segment, lastSequence, snapshot);
+            }
+            snapshot.dropClosed();
+            recovered = snapshot.drafts();
+            recoveredSeries = snapshot.series();
+
+            appendLock.lock();
+            try
+            {
+                nextSequence = lastSequence + 1;
+                active = Segment.create(segmentPath(nextSequence), nextSequence, properties.getSegmentSize());
+            }
+            finally
+            {
+                appendLock.unlock();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Cannot open draft journal in " + directory, e);
+        }
+
+        if (durability == DraftProperties.Durability.BATCH)
+        {
+            final long flushMillis = Math.max(1, properties.getFlushInterval().toMillis());
+            scheduler.scheduleWithFixedDelay(this::flushSafely, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        }
+        final long snapshotMillis = properties.getSnapshotInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::snapshotSafely, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+        log.info(
+                "Draft journal opened in {} - durability: {}, recovered drafts: {}, recovered series: {}, "
+                        + "next sequence: {}", directory.toAbsolutePath(), durability, recovered.size(),
+                recoveredSeries.size(), nextSequence
+        );
+    }
+
+    /**
+     * Write a final snapshot and close the journal.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        scheduler.shutdown();
+        snapshotSafely();
+        close();
+    }
+
+    /**
+     * Hand over the drafts recovered on startup; later calls return nothing.
+     *
+     * @return Drafts that were created or in progress when the journal was last written
+     */
+    public Collection<DraftState> takeRecoveredDrafts()
+    {
+        final Collection<DraftState> drafts = recovered.values();
+        recovered = Map.of();
+        return drafts;
+    }
+
+    /**
+     * Hand over the series recovered on startup; later calls return nothing.
+     *
+     * @return Series that were open when the journal was last written, with their locked champions
+     */
+    public Collection<DraftSeries> takeRecoveredSeries()
+    {
+        final Collection<DraftSeries> series = recoveredSeries.values();
+        recoveredSeries = Map.of();
+        return series;
+    }
+
+    /**
+     * @param draftId The draft ID
+     * @param mode    The draft mode
+     */
+    public void appendCreated(final String draftId, final DraftMode mode)
+    {
+        append(CREATED, draftId, mode.ordinal(), 0);
+    }
+
+    /**
+     * @param draftId The draft ID
+     */
+    public void appendStarted(final String draftId)
+    {
+        append(STARTED, draftId, 0, 0);
+    }
+
+    /**
+     * @param draftId    The draft ID
+     * @param turn       The turn the action resolved
+     * @param championId The champion picked or banned, or {@link DraftState#NONE} for a skipped turn
+     */
+    public void appendAction(final String draftId, final int turn, final int championId)
+    {
+        append(ACTION, draftId, turn, championId);
+    }
+
+    /**
+     * @param draftId The draft ID
+     */
+    public void appendRemoved(final String draftId)
+    {
+        append(REMOVED, draftId, 0, 0);
+    }
+
+    /**
+     * @param seriesId The series ID
+     * @param mode     The series mode
+     * @param bestOf   Number of games the series is played over at most
+     */
+    public void appendSeriesCreated(final String seriesId, final DraftMode mode, final int bestOf)
+    {
+        append(SERIES_CREATED, seriesId, mode.ordinal(), bestOf);
+    }
+
+    /**
+     * Record that a draft is the next game of a series; appended after the draft's creation.
+     *
+     * @param seriesId The series ID
+     * @param draftId  The draft ID of the game
+     */
+    public void appendSeriesGame(final String seriesId, final String draftId)
+    {
+        append(SERIES_GAME, seriesId, 0, 0, draftId);
+    }
+
+    /**
+     * @param seriesId The series ID
+     */
+    public void appendSeriesRemoved(final String seriesId)
+    {
+        append(SERIES_REMOVED, seriesId, 0, 0);
+    }
+
+    /**
+     * Force all appended events to disk.
+     */
+    public void flush()
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        appendLock.lock();
+        try
+        {
+            forceActive();
+        }
+        finally
+        {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Seal the active segment and fold all sealed segments into the snapshot.
+     */
+    public void snapshot()
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        snapshotLock.lock();
+        try
+        {
+            final long activeFirst;
+            final long upTo;
+            appendLock.lock();
+            try
+            {
+                if (active.position() > 0)
+                {
+                    roll();
+                }
+                activeFirst = firstSequenceOf(active.path);
+                upTo = nextSequence - 1;
+            }
+            finally
+            {
+                appendLock.unlock();
+            }
+
+            // Appends may roll further segments meanwhile; only those before the active one are sealed
+            final List<Path> sealed = listSegments();
+            sealed.removeIf(segment -> firstSequenceOf(segment) >= activeFirst || firstSequenceOf(segment) > upTo);
+            if (sealed.isEmpty())
+            {
+                return;
+            }
+
+            final long startNanos = System.nanoTime();
+            final Snapshot snapshot = readSnapshot();
+            for (final Path segment : sealed)
+            {
+                replaySegment(segment, snapshot.lastSequence(), snapshot);
+            }
+            snapshot.dropClosed();
+            writeSnapshot(new Snapshot(upTo, snapshot.drafts(), snapshot.series()));
+            for (final Path segment : sealed)
+            {
+                Files.delete(segment);
+            }
+            log.debug(
+                    "[DEBUG_LOG] Draft journal snapshot at sequence {} - open drafts: {}, open series: {}, "
+                            + "segments compacted: {}, took {} ms", upTo, snapshot.drafts().size(),
+                    snapshot.series().size(), sealed.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+            );
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Cannot write draft journal snapshot", e);
+        }
+        finally
+        {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * @return Sequence of the last appended event
+     */
+    public long getLastSequence()
+    {
+        appendLock.lock();
+        try
+        {
+            return nextSequence - 1;
+        }
+        finally
+        {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Stop background work and close the active segment without a final snapshot.
+     */
+    void close()
+    {
+        scheduler.shutdownNow();
+        appendLock.lock();
+        try
+        {
+            if (active != null)
+            {
+                active.close(durability != DraftProperties.Durability.ASYNC);
+                active = null;
+            }
+        }
+        catch (IOException e)
+        {
+            log.warn("Failed to close draft journal segment", e);
+        }
+        finally
+        {
+            appendLock.unlock();
+        }
+    }
+
+    private void append(final byte type, final String draftId, final int first, final int second)
+    {
+        append(type, draftId, first, second, null);
+    }
+
+    private void append(
+            final byte type, final String draftId, final int first, final int second, final String otherId)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        final byte[] id = idBytes(draftId);
+        final byte[] other = otherId == null ? null : idBytes(otherId);
+
+        appendLock.lock();
+        try
+        {
+            if (active == null)
+            {
+                throw new IllegalStateException("Draft journal is not open");
+            }
+            record.clear();
+            record.putLong(nextSequence).put(type).putShort((short) id.length).put(id);
+            if (type == CREATED)
+            {
+                record.put((byte) first);
+            }
+            else if (type == ACTION)
+            {
+                record.putShort((short) first).putShort((short) second);
+            }
+            else if (type == SERIES_CREATED)
+            {
+                record.put((byte) first).put((byte) second);
+            }
+            else if (type == SERIES_GAME)
+            {
+                record.putShort((short) other.length).put(other);
+            }
+            if (!active.hasRoom(HEADER_BYTES - Long.BYTES + record.position()))
+            {
+                roll();
+            }
+            appendCrc.reset();
+            appendCrc.update(record.array(), 0, record.position());
+            active.write(record, (int) appendCrc.getValue());
+            nextSequence++;
+
+            if (durability == DraftProperties.Durability.SYNC
+                    || (durability == DraftProperties.Durability.BATCH && ++unflushed >= properties.getBatchSize()))
+            {
+                forceActive();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Cannot append to draft journal", e);
+        }
+        finally
+        {
+            appendLock.unlock();
+        }
+    }
+
+    private static byte[] idBytes(final String id)
+    {
+        final byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_ID_BYTES)
+        {
+            throw new IllegalArgumentException("ID too long to journal: " + id);
+        }
+        return bytes;
+    }
+
+    // Called with appendLock held
+    private void roll() throws IOException
+    {
+        active.close(durability != DraftProperties.Durability.ASYNC);
+        active = Segment.create(segmentPath(nextSequence), nextSequence, properties.getSegmentSize());
+        unflushed = 0;
+    }
+
+    // Called with appendLock held
+    private void forceActive()
+    {
+        if (active != null)
+        {
+            active.force();
+        }
+        unflushed = 0;
+    }
+
+    private void flushSafely()
+    {
+        try
+        {
+            flush();
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Failed to flush draft journal", e);
+        }
+    }
+
+    private void snapshotSafely()
+    {
+        try
+        {
+            snapshot();
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Failed to snapshot draft journal", e);
+        }
+    }
+
+    private Path segmentPath(final long firstSequence)
+    {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static long firstSequenceOf(final Path segment)
+    {
+        final String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * @return Segment files ordered by their first sequence
+     */
+    private List<Path> listSegments() throws IOException
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    /**
+     * Apply the valid records of a segment with a sequence above {@code afterSequence}.
+     *
+     * @return The last sequence applied
+     */
+    private long replaySegment(final Path path, final long afterSequence, final Snapshot snapshot)
+            throws IOException
+    {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        final CRC32C crc = new CRC32C();
+        long lastSequence = afterSequence;
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.capacity())
+        {
+            final int length = buffer.getInt(position);
+            if (length <= 0)
+            {
+                break;
+            }
+            if (length > buffer.capacity() - position - HEADER_BYTES)
+            {
+                log.warn("Draft journal segment {} ends in a truncated record at {}", path.getFileName(), position);
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(position + Integer.BYTES * 2, Long.BYTES + length));
+            if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES))
+            {
+                log.warn("Draft journal segment {} ends in a torn record at {}", path.getFileName(), position);
+                break;
+            }
+
+            final long sequence = buffer.getLong(position + Integer.BYTES * 2);
+            if (sequence > lastSequence)
+            {
+                replay(buffer.slice(position + HEADER_BYTES, length), snapshot.drafts(), snapshot.series());
+                lastSequence = sequence;
+            }
+            position += HEADER_BYTES + length;
+        }
+        return lastSequence;
+    }
+
+    private void replay(
+            final ByteBuffer payload, final Map<String, DraftState> drafts, final Map<String, DraftSeries> series)
+    {
+        final byte type = payload.get();
+        final String draftId = readId(payload);
+
+        switch (type)
+        {
+            case CREATED -> drafts.put(draftId, new DraftState(draftId, MODES[payload.get()], championCapacity));
+            case STARTED ->
+            {
+                final DraftState state = drafts.get(draftId);
+                if (state != null)
+                {
+                    state.start();
+                }
+            }
+            case ACTION ->
+            {
+                final int turn = payload.getShort();
+                final int championId = payload.getShort();
+                final DraftState state = drafts.get(draftId);
+                if (state != null && state.getTurn() == turn && state.getStatus() == DraftStatus.IN_PROGRESS)
+                {
+                    state.replay(championId);
+                    completeSeriesGame(state, series);
+                }
+                else
+                {
+                    log.warn("Skipping journaled action of draft {} for unexpected turn {}", draftId, turn);
+                }
+            }
+            case REMOVED -> drafts.remove(draftId);
+            case SERIES_CREATED -> series.put(
+                    draftId, new DraftSeries(draftId, MODES[payload.get()], payload.get(), championCapacity));
+            case SERIES_GAME ->
+            {
+                final String gameId = readId(payload);
+                final DraftSeries draftSeries = series.get(draftId);
+                final DraftState state = drafts.get(gameId);
+                if (draftSeries != null && state != null && state.getStatus() == DraftStatus.CREATED
+                        && !draftSeries.hasGameInProgress() && !draftSeries.isFinished())
+                {
+                    // The game as created by the series, with its locked champions
+                    drafts.put(gameId, draftSeries.newGame(gameId));
+                }
+                else
+                {
+                    log.warn("Skipping journaled game {} of series {}", gameId, draftId);
+                }
+            }
+            case SERIES_REMOVED -> series.remove(draftId);
+            default -> log.warn("Skipping draft journal record of unknown type {}", type);
+        }
+    }
+
+    private static String readId(final ByteBuffer payload)
+    {
+        final byte[] id = new byte[payload.getShort()];
+        payload.get(id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    // A game completed by a replayed action adds its champions to the series' locked ones
+    private static void completeSeriesGame(final DraftState state, final Map<String, DraftSeries> series)
+    {
+        if (state.getStatus() != DraftStatus.COMPLETED || state.getSeriesId() == null)
+        {
+            return;
+        }
+        final DraftSeries draftSeries = series.get(state.getSeriesId());
+        if (draftSeries != null)
+        {
+            draftSeries.completeGame(state);
+        }
+    }
+
+    private Snapshot readSnapshot() throws IOException
+    {
+        final Path path = directory.resolve(SNAPSHOT_FILE);
+        final Map<String, DraftState> drafts = new LinkedHashMap<>();
+        final Map<String, DraftSeries> series = new LinkedHashMap<>();
+        if (!Files.exists(path))
+        {
+            return new Snapshot(0, drafts, series);
+        }
+
+        final CRC32C crc = new CRC32C();
+        try (DataInputStream in = new DataInputStream(
+                new CheckedInputStream(new BufferedInputStream(Files.newInputStream(path)), crc)))
+        {
+            final int magic = in.readInt();
+            final int version = in.readInt();
+            if (magic != SNAPSHOT_MAGIC || version != SNAPSHOT_VERSION)
+            {
+                throw new IOException("Unrecognized draft journal snapshot " + path);
+            }
+            final long lastSequence = in.readLong();
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                final byte[] id = new byte[in.readUnsignedShort()];
+                in.readFully(id);
+                final String draftId = new String(id, StandardCharsets.UTF_8);
+                final DraftState state = new DraftState(draftId, MODES[in.readByte()], championCapacity);
+                if (STATUSES[in.readByte()] != DraftStatus.CREATED)
+                {
+                    state.start();
+                }
+                final int turns = in.readUnsignedByte();
+                for (int turn = 0; turn < turns; turn++)
+                {
+                    state.replay(in.readShort());
+                }
+                drafts.put(draftId, state);
+            }
+            readSeries(in, drafts, series);
+            final int expected = (int) crc.getValue();
+            if (in.readInt() != expected)
+            {
+                throw new IOException("Corrupt draft journal snapshot " + path);
+            }
+            return new Snapshot(lastSequence, drafts, series);
+        }
+    }
+
+    private void readSeries(
+            final DataInputStream in, final Map<String, DraftState> drafts, final Map<String, DraftSeries> series)
+            throws IOException
+    {
+        final int count = in.readInt();
+        for (int i = 0; i < count; i++)
+        {
+            final String seriesId = in.readUTF();
+            final DraftMode mode = MODES[in.readByte()];
+            final int bestOf = in.readUnsignedByte();
+            final int completedGames = in.readUnsignedByte();
+            final int gameCount = in.readUnsignedByte();
+            final List<String> games = new ArrayList<>(gameCount);
+            for (int game = 0; game < gameCount; game++)
+            {
+                games.add(in.readUTF());
+            }
+            final long[] locked = new long[in.readUnsignedShort()];
+            for (int word = 0; word < locked.length; word++)
+            {
+                locked[word] = in.readLong();
+            }
+            final DraftSeries draftSeries = DraftSeries.restore(
+                    seriesId, mode, bestOf, championCapacity, games, completedGames, locked);
+            if (draftSeries.hasGameInProgress() && drafts.containsKey(games.getLast()))
+            {
+                draftSeries.resume(drafts.get(games.getLast()));
+            }
+            series.put(seriesId, draftSeries);
+        }
+    }
+
+    /**
+     * Write the snapshot next to the current one and atomically replace it.
+     */
+    private void writeSnapshot(final Snapshot snapshot) throws IOException
+    {
+        final Path temp = directory.resolve(SNAPSHOT_TEMP_FILE);
+        final CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(
+                temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            final DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)), crc));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(snapshot.lastSequence());
+            out.writeInt(snapshot.drafts().size());
+            for (final DraftState state : snapshot.drafts().values())
+            {
+                final byte[] id = state.getDraftId().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(id.length);
+                out.write(id);
+                out.writeByte(state.getMode().ordinal());
+                out.writeByte(state.getStatus().ordinal());
+                out.writeByte(state.getTurn());
+                for (int turn = 0; turn < state.getTurn(); turn++)
+                {
+                    out.writeShort(state.getChampionAt(turn));
+                }
+            }
+            out.writeInt(snapshot.series().size());
+            for (final DraftSeries draftSeries : snapshot.series().values())
+            {
+                out.writeUTF(draftSeries.getSeriesId());
+                out.writeByte(draftSeries.getMode().ordinal());
+                out.writeByte(draftSeries.getBestOf());
+                out.writeByte(draftSeries.getCompletedGames());
+                out.writeByte(draftSeries.getGames().size());
+                for (final String game : draftSeries.getGames())
+                {
+                    out.writeUTF(game);
+                }
+                final long[] locked = draftSeries.getLocked();
+                out.writeShort(locked.length);
+                for (final long word : locked)
+                {
+                    out.writeLong(word);
+                }
+            }
+            out.flush();
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private record Snapshot(long lastSequence, Map<String, DraftState> drafts, Map<String, DraftSeries> series)
+    {
+
+        // Completed drafts and series with all games played are not recovered
+        private void dropClosed()
+        {
+            drafts.values().removeIf(state -> state.getStatus() == DraftStatus.COMPLETED);
+            series.values().removeIf(DraftSeries::isFinished);
+        }
+
+    }
+
+    /**
+     * A segment file mapped for appending.
+     */
+    private static final class Segment
+    {
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        private int forcedPosition;
+
+        private Segment(final Path path, final FileChannel channel, final MappedByteBuffer buffer)
+        {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Create or overwrite a segment; an existing file can only hold records that recovery
+         * already rejected, since its first sequence is the next one to be written.
+         */
+        private static Segment create(final Path path, final long firstSequence, final int size) throws IOException
+        {
+            final FileChannel channel = FileChannel.open(
+                    path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE
+            );
+            try
+            {
+                return new Segment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+            catch (IOException e)
+            {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private int position()
+        {
+            return buffer.position();
+        }
+
+        private boolean hasRoom(final int recordBytes)
+        {
+            return buffer.remaining() >= recordBytes;
+        }
+
+        /**
+         * @param record Sequence followed by the payload, from index 0 to its position
+         * @param crc    CRC32C of the record
+         */
+        private void write(final ByteBuffer record, final int crc)
+        {
+            final int start = buffer.position();
+            final int payloadLength = record.position() - Long.BYTES;
+            buffer.put(start + Integer.BYTES * 2, record, 0, record.position());
+            buffer.putInt(start + Integer.BYTES, crc);
+            // The length goes last: a zero length marks the end of the segment
+            buffer.putInt(start, payloadLength);
+            buffer.position(start + HEADER_BYTES + payloadLength);
+        }
+
+        private void force()
+        {
+            final int position = buffer.position();
+            if (position > forcedPosition)
+            {
+                buffer.force(forcedPosition, position - forcedPosition);
+                forcedPosition = position;
+            }
+        }
+
+        private void close(final boolean force) throws IOException
+        {
+            if (force)
+            {
+                force();
+            }
+            channel.close();
+        }
+
+    }
+
+}
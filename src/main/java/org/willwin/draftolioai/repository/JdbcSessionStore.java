@@ -0,0 +1,428 @@
+package org.willwin.draftolioai.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.willwin.draftolioai.config.AuthSessionProperties;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind JDBC store for {@link AuthHttpSession} records.
+ * <p>
+ * {@link #write(AuthHttpSession)} and {@link #delete(String)} only buffer the change; a
+ * single background thread flushes the buffer as JDBC batches every
+ * {@link AuthSessionProperties.Jdbc#getFlushInterval()}, or earlier once
+ * {@link AuthSessionProperties.Jdbc#getFlushBatchSize()} changes are pending. Repeated
+ * writes of the same session between flushes collapse into one row update. Request
+ * threads never wait on the database except when loading a session not held in memory.
+ * <p>
+ * Each session is encoded on its own, and a session that cannot be encoded or exceeds
+ * the data column is logged and dropped. A batch the database rejects is retried row by
+ * row, so only the failing sessions are buffered again; a session that failed
+ * {@link AuthSessionProperties.Jdbc#getMaxAttempts()} flushes is logged and dropped.
+ * Changes beyond {@link AuthSessionProperties.Jdbc#getMaxPending()} are dropped as well,
+ * leaving their rows to expire.
+ */
+@Slf4j
+class JdbcSessionStore
+{
+
+    private static final int MAX_SESSION_DATA_BYTES = 16384;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AuthSessionProperties.Jdbc jdbcProperties;
+
+    private final ConcurrentMap<String, AuthHttpSession> pendingWrites;
+
+    private final Set<String> pendingDeletes;
+
+    // Guarded by this; failed flushes per session still buffered for a retry
+    private final Map<String, Integer> failedAttempts;
+
+    private final ScheduledExecutorService flushExecutor;
+
+    private final AtomicBoolean earlyFlushScheduled;
+
+    private final String selectSql;
+
+    private final String updateSql;
+
+    private final String insertSql;
+
+    private final String deleteSql;
+
+    private final String deleteExpiredSql;
+
+    JdbcSessionStore(final JdbcTemplate jdbcTemplate, final AuthSessionProperties.Jdbc jdbcProperties)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcProperties = jdbcProperties;
+        this.pendingWrites = new ConcurrentHashMap<>();
+        this.pendingDeletes = ConcurrentHashMap.newKeySet();
+        this.failedAttempts = new HashMap<>();
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("session-write-behind").daemon().factory());
+        this.earlyFlushScheduled = new AtomicBoolean();
+
+        final String table = jdbcProperties.getTableName();
+        this.selectSql = "SELECT SESSION_DATA FROM " + table + " WHERE SESSION_ID = ? AND EXPIRY_TIME >= ?";
+        this.updateSql = "UPDATE " + table + " SET EXPIRY_TIME = ?, SESSION_DATA = ? WHERE SESSION_ID = ?";
+        this.insertSql = "INSERT INTO " + table + " (EXPIRY_TIME, SESSION_DATA, SESSION_ID) VALUES (?, ?, ?)";
+        this.deleteSql = "DELETE FROM " + table + " WHERE SESSION_ID = ?";
+        this.deleteExpiredSql = "DELETE FROM " + table + " WHERE EXPIRY_TIME < ?";
+    }
+
+    /**
+     * Create the session table if configured and start the periodic flush.
+     */
+    void start()
+    {
+        if (jdbcProperties.getInitializeSchema())
+        {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + jdbcProperties.getTableName() + " ("
+                    + "SESSION_ID VARCHAR(64) NOT NULL PRIMARY KEY, "
+                    + "EXPIRY_TIME BIGINT NOT NULL, "
+                    + "SESSION_DATA VARBINARY(" + MAX_SESSION_DATA_BYTES + ") NOT NULL)");
+        }
+
+        final long intervalMillis = jdbcProperties.getFlushInterval().toMillis();
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info(
+                "JDBC session store started - table: {}, flush interval: {} ms", jdbcProperties.getTableName(),
+                intervalMillis
+        );
+    }
+
+    /**
+     * Stop the periodic flush and write out everything still buffered.
+     */
+    void stop()
+    {
+        flushExecutor.shutdown();
+        try
+        {
+            flushExecutor.awaitTermination(jdbcProperties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Buffer a session for writing. The session must not be modified afterwards.
+     *
+     * @param session Snapshot of the session to persist
+     */
+    void write(final AuthHttpSession session)
+    {
+        if (pendingWrites.size() >= jdbcProperties.getMaxPending() && !pendingWrites.containsKey(session.getId()))
+        {
+            log.warn("Dropped write of session {}, {} writes are pending", session.getId(), pendingWrites.size());
+            return;
+        }
+        pendingDeletes.remove(session.getId());
+        pendingWrites.put(session.getId(), session);
+        requestEarlyFlushIfFull();
+    }
+
+    /**
+     * Buffer a session deletion.
+     *
+     * @param id The session identifier
+     */
+    void delete(final String id)
+    {
+        pendingWrites.remove(id);
+        if (!queueDelete(id))
+        {
+            log.warn("Dropped delete of session {}, {} deletes are pending", id, pendingDeletes.size());
+            return;
+        }
+        requestEarlyFlushIfFull();
+    }
+
+    /**
+     * Load a session synchronously, honouring buffered changes not yet flushed.
+     *
+     * @param id The session identifier
+     * @return The stored session, or null if absent, expired, deleted or unreadable
+     */
+    AuthHttpSession load(final String id)
+    {
+        final AuthHttpSession pending = pendingWrites.get(id);
+        if (pending != null)
+        {
+            return new AuthHttpSession(pending);
+        }
+        if (pendingDeletes.contains(id))
+        {
+            return null;
+        }
+
+        try
+        {
+            final List<byte[]> rows = jdbcTemplate.query(
+                    selectSql, (resultSet, rowNum) -> resultSet.getBytes(1), id, System.currentTimeMillis());
+            return rows.isEmpty() ? null : AuthSessionCodec.decode(id, rows.getFirst());
+        }
+        catch (DataAccessException | IllegalArgumentException e)
+        {
+            log.warn("Failed to load session {} from the database: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Delete stored sessions that expired before the given time.
+     *
+     * @param cutoffMillis Epoch milliseconds
+     * @return Number of rows deleted
+     */
+    int deleteExpired(final long cutoffMillis)
+    {
+        return jdbcTemplate.update(deleteExpiredSql, cutoffMillis);
+    }
+
+    /**
+     * @return Number of buffered writes and deletes not yet flushed
+     */
+    int getPendingCount()
+    {
+        return pendingWrites.size() + pendingDeletes.size();
+    }
+
+    /**
+     * Flush all buffered changes to the database.
+     */
+    synchronized void flush()
+    {
+        final List<Row> writes = encode(drainWrites());
+        for (int offset = 0; offset < writes.size(); offset += jdbcProperties.getFlushBatchSize())
+        {
+            final List<Row> batch = writes.subList(
+                    offset, Math.min(writes.size(), offset + jdbcProperties.getFlushBatchSize()));
+            try
+            {
+                upsert(batch);
+                batch.forEach(row -> failedAttempts.remove(row.session().getId()));
+            }
+            catch (DataAccessException e)
+            {
+                log.warn("Failed to flush {} session writes, retrying row by row: {}", batch.size(), e.getMessage());
+                batch.forEach(this::upsertOrRetry);
+            }
+        }
+
+        final List<Object[]> deletes = drainDeletes();
+        if (!deletes.isEmpty())
+        {
+            try
+            {
+                jdbcTemplate.batchUpdate(deleteSql, deletes);
+            }
+            catch (DataAccessException e)
+            {
+                log.warn("Failed to flush {} session deletes: {}", deletes.size(), e.getMessage());
+                deletes.forEach(args -> queueDelete((String) args[0]));
+            }
+        }
+    }
+
+    // Rows of the sessions that can be stored; the others are logged and dropped
+    private List<Row> encode(final List<AuthHttpSession> sessions)
+    {
+        final List<Row> rows = new ArrayList<>(sessions.size());
+        for (final AuthHttpSession session : sessions)
+        {
+            final byte[] data;
+            try
+            {
+                data = AuthSessionCodec.encode(session);
+            }
+            catch (RuntimeException e)
+            {
+                failedAttempts.remove(session.getId());
+                log.error("Dropped write of session {}, it cannot be encoded: {}", session.getId(), e.getMessage());
+                continue;
+            }
+            if (data.length > MAX_SESSION_DATA_BYTES)
+            {
+                failedAttempts.remove(session.getId());
+                log.error(
+                        "Dropped write of session {}, its {} bytes exceed the {} byte limit", session.getId(),
+                        data.length, MAX_SESSION_DATA_BYTES
+                );
+                continue;
+            }
+            rows.add(new Row(session, new Object[] { session.getExpiryMillis(), data, session.getId() }));
+        }
+        return rows;
+    }
+
+    private void upsert(final List<Row> batch)
+    {
+        final List<Object[]> rows = batch.stream().map(Row::args).toList();
+        final int[] updated = jdbcTemplate.batchUpdate(updateSql, rows);
+
+        final List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++)
+        {
+            if (updated[i] == 0)
+            {
+                inserts.add(rows.get(i));
+            }
+            else if (updated[i] == Statement.SUCCESS_NO_INFO)
+            {
+                // Driver cannot tell which rows exist; fall back to row by row for this batch
+                inserts.clear();
+                rows.forEach(this::upsertRow);
+                break;
+            }
+        }
+        insert(inserts);
+    }
+
+    private void upsertOrRetry(final Row row)
+    {
+        final String id = row.session().getId();
+        try
+        {
+            upsertRow(row.args());
+            failedAttempts.remove(id);
+        }
+        catch (DataAccessException e)
+        {
+            final int attempts = failedAttempts.merge(id, 1, Integer::sum);
+            if (attempts >= jdbcProperties.getMaxAttempts())
+            {
+                failedAttempts.remove(id);
+                log.error("Dropped write of session {} after {} failed attempts: {}", id, attempts, e.getMessage());
+            }
+            else if (pendingDeletes.contains(id) || pendingWrites.putIfAbsent(id, row.session()) != null)
+            {
+                // Superseded meanwhile; the newer change is flushed instead
+                failedAttempts.remove(id);
+            }
+        }
+    }
+
+    private void insert(final List<Object[]> rows)
+    {
+        if (rows.isEmpty())
+        {
+            return;
+        }
+        try
+        {
+            jdbcTemplate.batchUpdate(insertSql, rows);
+        }
+        catch (DuplicateKeyException e)
+        {
+            // Another node inserted one of the sessions in between; retry row by row
+            rows.forEach(this::upsertRow);
+        }
+    }
+
+    private void upsertRow(final Object[] row)
+    {
+        if (jdbcTemplate.update(updateSql, row) == 0)
+        {
+            jdbcTemplate.update(insertSql, row);
+        }
+    }
+
+    private List<AuthHttpSession> drainWrites()
+    {
+        final List<AuthHttpSession> writes = new ArrayList<>(pendingWrites.size());
+        for (final Map.Entry<String, AuthHttpSession> entry : pendingWrites.entrySet())
+        {
+            // A newer write of the same session stays pending for the next flush
+            if (pendingWrites.remove(entry.getKey(), entry.getValue()))
+            {
+                writes.add(entry.getValue());
+            }
+        }
+        return writes;
+    }
+
+    private List<Object[]> drainDeletes()
+    {
+        final List<Object[]> deletes = new ArrayList<>(pendingDeletes.size());
+        for (final String id : pendingDeletes)
+        {
+            // Not collected if a write superseded the delete meanwhile
+            if (pendingDeletes.remove(id))
+            {
+                deletes.add(new Object[] { id });
+            }
+        }
+        return deletes;
+    }
+
+    private boolean queueDelete(final String id)
+    {
+        if (pendingDeletes.size() >= jdbcProperties.getMaxPending() && !pendingDeletes.contains(id))
+        {
+            return false;
+        }
+        pendingDeletes.add(id);
+        return true;
+    }
+
+    private void requestEarlyFlushIfFull()
+    {
+        if (getPendingCount() >= jdbcProperties.getFlushBatchSize() && earlyFlushScheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                flushExecutor.execute(() ->
+                {
+                    earlyFlushScheduled.set(false);
+                    flushSafely();
+                });
+            }
+            catch (RuntimeException e)
+            {
+                // Executor already shut down; stop() flushes what is left
+                earlyFlushScheduled.set(false);
+            }
+        }
+    }
+
+    private void flushSafely()
+    {
+        try
+        {
+            flush();
+        }
+        catch (RuntimeException e)
+        {
+            log.error("Session write-behind flush failed", e);
+        }
+    }
+
+    /**
+     * A session with the arguments of its update and insert statements.
+     */
+    private record Row(AuthHttpSession session, Object[] args)
+    {
+
+    }
+
+}
@@ -0,0 +1,382 @@
+package org.willwin.draftolioai.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.stereotype.Service;
+import org.willwin.draftolioai.config.AuthEventLogProperties;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured, asynchronous logging of auth events.
+ * <p>
+ * Request threads only claim a slot in a preallocated ring buffer and copy a few
+ * references and numbers into it; a single background thread formats the events as
+ * {@code key=value} lines and writes them to the {@code org.willwin.draftolioai.auth.events}
+ * logger. Nothing is allocated or formatted on the request thread, and nothing at all is
+ * done when the level of the event is disabled or the event is not sampled. When the
+ * buffer is full, events are dropped and counted rather than blocking the request.
+ * <p>
+ * Session ids are written as a hash fingerprint, since with cookie sessions the id is
+ * the sealed session itself.
+ */
+@Service
+public class AuthEventLogger
+{
+
+    private static final Logger EVENT_LOG = LoggerFactory.getLogger("org.willwin.draftolioai.auth.events");
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Logger eventLog;
+
+    private final boolean enabled;
+
+    private final int[] sampleEvery;
+
+    private final Slot[] slots;
+
+    private final int mask;
+
+    // Next sequence to claim, shared by all producers
+    private final AtomicLong claimSequence;
+
+    // Next sequence to write, advanced by the single consumer
+    private final AtomicLong writeSequence;
+
+    private final LongAdder droppedEvents;
+
+    // Owned by the consumer
+    private final StringBuilder line;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    public AuthEventLogger(final AuthEventLogProperties properties)
+    {
+        this(properties, EVENT_LOG);
+    }
+
+    AuthEventLogger(final AuthEventLogProperties properties, final Logger eventLog)
+    {
+        this.eventLog = eventLog;
+        this.enabled = properties.getEnabled();
+        this.sampleEvery = new int[Type.values().length];
+        for (final Type type : Type.values())
+        {
+            sampleEvery[type.ordinal()] = Math.max(1, properties.getSampleEvery().getOrDefault(type.getKey(), 1));
+        }
+
+        final int capacity = Integer.highestOneBit(Math.max(16, properties.getBufferSize()) - 1) << 1;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++)
+        {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.claimSequence = new AtomicLong();
+        this.writeSequence = new AtomicLong();
+        this.droppedEvents = new LongAdder();
+        this.line = new StringBuilder(256);
+    }
+
+    /**
+     * Start the background writer.
+     */
+    @PostConstruct
+    public void start()
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("auth-event-log").daemon().start(this::runWriter);
+    }
+
+    /**
+     * Stop the background writer and write what is still buffered.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        running = false;
+        if (writer != null)
+        {
+            LockSupport.unpark(writer);
+            try
+            {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Record a successful event.
+     *
+     * @param type       The event type
+     * @param subject    The RSO subject, may be null
+     * @param sessionId  The HTTP session id, may be null
+     * @param startNanos {@link System#nanoTime()} at the start of the operation, or 0 for no duration
+     */
+    public void success(final Type type, final String subject, final String sessionId, final long startNanos)
+    {
+        publish(type, true, subject, sessionId, null, startNanos);
+    }
+
+    /**
+     * Record a failed event.
+     *
+     * @param type       The event type
+     * @param sessionId  The HTTP session id, may be null
+     * @param error      The cause of the failure, only its type is logged
+     * @param startNanos {@link System#nanoTime()} at the start of the operation, or 0 for no duration
+     */
+    public void failure(final Type type, final String sessionId, final Throwable error, final long startNanos)
+    {
+        publish(type, false, null, sessionId, error != null ? error.getClass() : null, startNanos);
+    }
+
+    /**
+     * @return Number of events dropped because the buffer was full
+     */
+    public long getDroppedCount()
+    {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * Write all published events on the calling thread. Only one thread may drain at a time.
+     *
+     * @return Number of events written
+     */
+    int drain()
+    {
+        long next = writeSequence.get();
+        int written = 0;
+        while (true)
+        {
+            final Slot slot = slots[(int) next & mask];
+            if (slot.sequence != next)
+            {
+                // Empty, or claimed but not yet published
+                return written;
+            }
+            try
+            {
+                write(slot);
+            }
+            catch (RuntimeException e)
+            {
+                // A broken appender must not stall the buffer
+                EVENT_LOG.warn("Failed to write auth event", e);
+            }
+            slot.clear();
+            writeSequence.set(++next);
+            written++;
+        }
+    }
+
+    private void publish(
+            final Type type, final boolean success, final String subject, final String sessionId,
+            final Class<?> errorType, final long startNanos)
+    {
+        if (!enabled || !isLevelEnabled(type.getLevel()))
+        {
+            return;
+        }
+        final int rate = sampleEvery[type.ordinal()];
+        if (rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0)
+        {
+            return;
+        }
+
+        long sequence;
+        do
+        {
+            sequence = claimSequence.get();
+            if (sequence - writeSequence.get() >= slots.length)
+            {
+                droppedEvents.increment();
+                return;
+            }
+        }
+        while (!claimSequence.compareAndSet(sequence, sequence + 1));
+
+        final Slot slot = slots[(int) sequence & mask];
+        slot.type = type;
+        slot.success = success;
+        slot.subject = subject;
+        slot.sessionId = sessionId;
+        slot.errorType = errorType;
+        slot.timestampMillis = System.currentTimeMillis();
+        slot.durationNanos = startNanos != 0 ? System.nanoTime() - startNanos : -1;
+        // Volatile write publishes the fields above to the writer
+        slot.sequence = sequence;
+    }
+
+    private void runWriter()
+    {
+        while (running)
+        {
+            if (drain() == 0)
+            {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void write(final Slot slot)
+    {
+        final Type type = slot.type;
+        line.setLength(0);
+        line.append("event=").append(type.getKey());
+        line.append(" outcome=").append(slot.success ? "success" : "failure");
+        line.append(" ts=").append(slot.timestampMillis);
+        if (slot.subject != null)
+        {
+            line.append(" subject=").append(slot.subject);
+        }
+        if (slot.sessionId != null)
+        {
+            line.append(" session=").append(Integer.toHexString(slot.sessionId.hashCode()));
+        }
+        if (slot.durationNanos >= 0)
+        {
+            final long micros = slot.durationNanos / 1_000;
+            line.append(" duration_ms=").append(micros / 1_000).append('.');
+            final long fraction = micros % 1_000;
+            if (fraction < 100)
+            {
+                line.append(fraction < 10 ? "00" : "0");
+            }
+            line.append(fraction);
+        }
+        if (slot.errorType != null)
+        {
+            line.append(" error=").append(slot.errorType.getSimpleName());
+        }
+        final int rate = sampleEvery[type.ordinal()];
+        if (rate > 1)
+        {
+            line.append(" sample=").append(rate);
+        }
+
+        final String message = line.toString();
+        switch (type.getLevel())
+        {
+            case ERROR -> eventLog.error(message);
+            case WARN -> eventLog.warn(message);
+            case INFO -> eventLog.info(message);
+            case DEBUG -> eventLog.debug(message);
+            case TRACE -> eventLog.trace(message);
+        }
+    }
+
+    private boolean isLevelEnabled(final Level level)
+    {
+        return switch (level)
+        {
+            case ERROR -> eventLog.isErrorEnabled();
+            case WARN -> eventLog.isWarnEnabled();
+            case INFO -> eventLog.isInfoEnabled();
+            case DEBUG -> eventLog.isDebugEnabled();
+            case TRACE -> eventLog.isTraceEnabled();
+        };
+    }
+
+    /**
+     * Auth event types
+     */
+    public enum Type
+    {
+
+        LOGIN_STARTED("login-started", Level.INFO),
+
+        LOGIN_SUCCEEDED("login-succeeded", Level.INFO),
+
+        LOGIN_FAILED("login-failed", Level.WARN),
+
+        TOKEN_REFRESHED("token-refreshed", Level.INFO),
+
+        TOKEN_REFRESH_FAILED("token-refresh-failed", Level.WARN),
+
+        LOGOUT("logout", Level.INFO),
+
+        STATUS_CHECKED("status-checked", Level.INFO),
+
+        USER_INFO_READ("user-info-read", Level.INFO);
+
+        private final String key;
+
+        private final Level level;
+
+        Type(final String key, final Level level)
+        {
+            this.key = key;
+            this.level = level;
+        }
+
+        /**
+         * @return Event name, as logged and as used in {@code auth.events.sample-every}
+         */
+        public String getKey()
+        {
+            return key;
+        }
+
+        /**
+         * @return Log level of the event
+         */
+        public Level getLevel()
+        {
+            return level;
+        }
+
+    }
+
+    /**
+     * Preallocated ring buffer entry, reused for every event.
+     */
+    private static final class Slot
+    {
+
+        private volatile long sequence = -1;
+
+        private Type type;
+
+        private boolean success;
+
+        private String subject;
+
+        private String sessionId;
+
+        private Class<?> errorType;
+
+        private long timestampMillis;
+
+        private long durationNanos;
+
+        private void clear()
+        {
+            subject = null;
+            sessionId = null;
+            errorType = null;
+        }
+
+    }
+
+}
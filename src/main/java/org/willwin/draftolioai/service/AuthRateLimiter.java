@@ -0,0 +1,177 @@
+package org.willwin.draftolioai.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.willwin.draftolioai.config.RateLimitProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Per-client rate limits for the public authentication endpoints.
+ * <p>
+ * Every configured endpoint gets a {@link TokenBucketRateLimiter} keyed by client IP and
+ * one keyed by session ID. A request is admitted only if all applicable buckets have a
+ * token, and only an admitted request takes them, so a client limited on its session does
+ * not also drain the bucket of its IP. Buckets that have been full for {@link RateLimitProperties#getIdleTimeout()}
+ * are swept periodically so that the maps stay bounded by the set of active clients.
+ */
+@Slf4j
+@Service
+public class AuthRateLimiter
+{
+
+    private final RateLimitProperties properties;
+
+    private final Map<String, EndpointLimits> limitsByPath;
+
+    private final ScheduledExecutorService evictionExecutor;
+
+    public AuthRateLimiter(final RateLimitProperties properties)
+    {
+        this(properties, System::nanoTime);
+    }
+
+    AuthRateLimiter(final RateLimitProperties properties, final LongSupplier nanoClock)
+    {
+        this.properties = properties;
+        final Map<String, EndpointLimits> limits = new HashMap<>();
+        properties.getEndpoints().forEach((name, endpoint) -> limits.put(
+                endpoint.getPath(), new EndpointLimits(
+                        name, limiter(endpoint.getPerIp(), nanoClock), limiter(endpoint.getPerSession(), nanoClock))));
+        this.limitsByPath = Map.copyOf(limits);
+        this.evictionExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("rate-limit-eviction").daemon().factory());
+    }
+
+    /**
+     * Start the periodic idle bucket sweep.
+     */
+    @PostConstruct
+    public void start()
+    {
+        final long intervalMillis = properties.getEvictionInterval().toMillis();
+        evictionExecutor.scheduleWithFixedDelay(this::evictIdle, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info(
+                "Auth rate limiter started - enabled: {}, endpoints: {}", properties.getEnabled(),
+                limitsByPath.keySet()
+        );
+    }
+
+    /**
+     * Stop the idle bucket sweep.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        evictionExecutor.shutdownNow();
+    }
+
+    /**
+     * @param path The request path
+     * @return Whether requests to the path are rate limited
+     */
+    public boolean isLimited(final String path)
+    {
+        return properties.getEnabled() && limitsByPath.containsKey(path);
+    }
+
+    /**
+     * Take a token for a request from every applicable bucket, if all of them have one.
+     * <p>
+     * The client IP bucket is checked first and the session ID is only resolved once that
+     * bucket admits the request. A request racing another one for the last token of a
+     * bucket can still lose it after the other buckets were checked.
+     *
+     * @param path      The request path
+     * @param clientIp  The client IP address
+     * @param sessionId Supplier of the requested session ID, which may be null
+     * @return 0 if the request is admitted, otherwise the nanoseconds until it would be
+     */
+    public long tryAcquire(final String path, final String clientIp, final Supplier<String> sessionId)
+    {
+        final EndpointLimits limits = limitsByPath.get(path);
+        if (limits == null || !properties.getEnabled())
+        {
+            return 0;
+        }
+
+        final TokenBucketRateLimiter perIp = limits.perIp();
+        if (perIp != null)
+        {
+            final long wait = perIp.check(clientIp);
+            if (wait > 0)
+            {
+                log.debug("[DEBUG_LOG] Rate limited {} for client IP", limits.name());
+                return wait;
+            }
+        }
+        final TokenBucketRateLimiter perSession = limits.perSession();
+        final String session = perSession != null ? sessionId.get() : null;
+        if (session != null)
+        {
+            final long wait = perSession.check(session);
+            if (wait > 0)
+            {
+                log.debug("[DEBUG_LOG] Rate limited {} for session", limits.name());
+                return wait;
+            }
+        }
+
+        if (perIp != null)
+        {
+            final long wait = perIp.tryAcquire(clientIp);
+            if (wait > 0)
+            {
+                return wait;
+            }
+        }
+        return session != null ? perSession.tryAcquire(session) : 0;
+    }
+
+    /**
+     * Drop buckets that have been full for the idle timeout.
+     *
+     * @return Number of buckets removed
+     */
+    int evictIdle()
+    {
+        final long idleNanos = properties.getIdleTimeout().toNanos();
+        int removed = 0;
+        for (final EndpointLimits limits : limitsByPath.values())
+        {
+            if (limits.perIp() != null)
+            {
+                removed += limits.perIp().evictIdle(idleNanos);
+            }
+            if (limits.perSession() != null)
+            {
+                removed += limits.perSession().evictIdle(idleNanos);
+            }
+        }
+        if (removed > 0)
+        {
+            log.debug("[DEBUG_LOG] Evicted {} idle rate limit buckets", removed);
+        }
+        return removed;
+    }
+
+    private TokenBucketRateLimiter limiter(final RateLimitProperties.Limit limit, final LongSupplier nanoClock)
+    {
+        return limit == null ? null : new TokenBucketRateLimiter(
+                limit.getCapacity(), limit.getRefillPerSecond(), properties.getStripes(), nanoClock);
+    }
+
+    private record EndpointLimits(String name, TokenBucketRateLimiter perIp, TokenBucketRateLimiter perSession)
+    {
+
+    }
+
+}
@@ -0,0 +1,174 @@
+package org.willwin.draftolioai.service;
+
+import org.springframework.stereotype.Service;
+import org.willwin.draftolioai.config.AuthSessionProperties;
+import org.willwin.draftolioai.dto.AuthSession;
+import org.willwin.draftolioai.dto.AuthStatusResponse;
+import org.willwin.draftolioai.dto.RsoUserInfo;
+import org.willwin.draftolioai.dto.UserResponse;
+import tools.jackson.databind.ObjectMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-user cache of the serialized {@code /auth/status} and {@code /auth/me} payloads.
+ * <p>
+ * The frontend checks the user on every app load, while the payloads only change on
+ * login, logout or a change of identity. The {@link AuthStatusResponse} and
+ * {@link UserResponse} are serialized with the application {@link ObjectMapper} once per
+ * user, together with a strong ETag derived from the content, so repeat calls write cached
+ * bytes and conditional calls are answered with 304 without touching the body. Being
+ * content-derived, ETags stay valid across nodes and restarts.
+ * <p>
+ * The payloads are built from the subject and region alone, so entries are keyed by them
+ * rather than by session ID: cookie sessions get a new ID on every reseal, and all the
+ * sessions of a user share one entry. An entry can therefore never be stale and needs
+ * no invalidation; at most {@link AuthSessionProperties.ResponseCache#getMaxSize()} users
+ * are kept, dropping the least recently used.
+ */
+@Service
+public class AuthResponseCache
+{
+
+    private final ObjectMapper objectMapper;
+
+    private final Payload unauthenticatedStatus;
+
+    private final Map<Identity, Entry> entries;
+
+    public AuthResponseCache(final ObjectMapper objectMapper, final AuthSessionProperties properties)
+    {
+        this.objectMapper = objectMapper;
+        this.unauthenticatedStatus = Payload.of(objectMapper.writeValueAsBytes(new AuthStatusResponse(false, null)));
+        final int maxSize = properties.getResponseCache().getMaxSize();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Identity, Entry> eldest)
+            {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the {@code /auth/status} payload of a session.
+     *
+     * @param authSession The session's auth record, may be null
+     * @return The serialized status
+     */
+    public Payload getStatus(final AuthSession authSession)
+    {
+        if (!isAuthenticated(authSession))
+        {
+            return unauthenticatedStatus;
+        }
+        return entry(authSession).status;
+    }
+
+    /**
+     * Get the {@code /auth/me} payload of a session.
+     *
+     * @param authSession The session's auth record, may be null
+     * @return The serialized user, or null if the session is not authenticated
+     */
+    public Payload getUser(final AuthSession authSession)
+    {
+        if (!isAuthenticated(authSession))
+        {
+            return null;
+        }
+        return entry(authSession).user;
+    }
+
+    /**
+     * @return Number of users with cached payloads
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    private Entry entry(final AuthSession authSession)
+    {
+        final Identity identity = new Identity(authSession.getSubject(), authSession.getCpid());
+        synchronized (this)
+        {
+            final Entry entry = entries.get(identity);
+            if (entry != null)
+            {
+                return entry;
+            }
+        }
+
+        // Rendered outside the lock; a concurrent miss for the same user renders identical bytes
+        final Entry rendered = Entry.render(identity, objectMapper);
+        synchronized (this)
+        {
+            final Entry raced = entries.putIfAbsent(identity, rendered);
+            return raced != null ? raced : rendered;
+        }
+    }
+
+    private static boolean isAuthenticated(final AuthSession authSession)
+    {
+        return authSession != null && authSession.getAccessToken() != null;
+    }
+
+    /**
+     * Serialized response body with its entity tag.
+     *
+     * @param body JSON body in UTF-8
+     * @param eTag Quoted strong entity tag of the body
+     */
+    public record Payload(byte[] body, String eTag)
+    {
+
+        static Payload of(final byte[] body)
+        {
+            try
+            {
+                final byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+                return new Payload(body, "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"");
+            }
+            catch (NoSuchAlgorithmException e)
+            {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+    }
+
+    private record Identity(String subject, String cpid)
+    {
+
+    }
+
+    private record Entry(Payload status, Payload user)
+    {
+
+        /**
+         * Serialize both payloads.
+         */
+        static Entry render(final Identity identity, final ObjectMapper objectMapper)
+        {
+            final String sub = identity.subject();
+            final String cpid = identity.cpid();
+
+            final AuthStatusResponse status = new AuthStatusResponse(true, new RsoUserInfo(sub, cpid));
+            // The riot tag is built from sub and cpid; game name and tag line reuse them until RSO provides them
+            final UserResponse user = new UserResponse(sub, sub + "#" + cpid, sub, cpid, null, null);
+
+            return new Entry(
+                    Payload.of(objectMapper.writeValueAsBytes(status)),
+                    Payload.of(objectMapper.writeValueAsBytes(user))
+            );
+        }
+
+    }
+
+}
@@ -0,0 +1,208 @@
+package org.willwin.draftolioai.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker.
+ * <p>
+ * While closed, the outcomes of the last {@code slidingWindowSize} calls are kept in a
+ * ring; once at least {@code minimumCalls} are recorded and the failure percentage
+ * reaches the threshold the circuit opens and calls are rejected without being
+ * attempted. After {@code openDuration} the circuit turns half-open and lets up to
+ * {@code halfOpenProbes} calls through: if all of them succeed it closes again,
+ * a single failure opens it for another period.
+ * <p>
+ * State changes happen under the instance lock; they sit next to a network call, so
+ * the lock is never the bottleneck.
+ */
+@Slf4j
+final class CircuitBreaker
+{
+
+    private final String name;
+
+    private final int failureRateThreshold;
+
+    private final int minimumCalls;
+
+    private final long openDurationNanos;
+
+    private final int halfOpenProbes;
+
+    private final LongSupplier nanoClock;
+
+    private final boolean[] outcomes;
+
+    private State state;
+
+    private int recordedCalls;
+
+    private int failedCalls;
+
+    private int nextOutcome;
+
+    private long openedAtNanos;
+
+    private int probesStarted;
+
+    private int probesSucceeded;
+
+    CircuitBreaker(
+            final String name, final int failureRateThreshold, final int slidingWindowSize, final int minimumCalls,
+            final long openDurationNanos, final int halfOpenProbes, final LongSupplier nanoClock)
+    {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.openDurationNanos = openDurationNanos;
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+        this.outcomes = new boolean[slidingWindowSize];
+        this.state = State.CLOSED;
+    }
+
+    /**
+     * Ask for permission to make a call. Every granted permission must be followed by
+     * exactly one of {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     *
+     * @return true if the call may proceed
+     */
+    synchronized boolean tryAcquirePermission()
+    {
+        if (state == State.OPEN)
+        {
+            if (nanoClock.getAsLong() - openedAtNanos < openDurationNanos)
+            {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN)
+        {
+            if (probesStarted >= halfOpenProbes)
+            {
+                return false;
+            }
+            probesStarted++;
+        }
+        return true;
+    }
+
+    /**
+     * Record a successful call.
+     */
+    synchronized void onSuccess()
+    {
+        if (state == State.HALF_OPEN)
+        {
+            if (++probesSucceeded >= halfOpenProbes)
+            {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    /**
+     * Record a failed call.
+     */
+    synchronized void onFailure()
+    {
+        if (state == State.HALF_OPEN)
+        {
+            transitionTo(State.OPEN);
+            return;
+        }
+        if (state == State.OPEN)
+        {
+            // Late result of a call started before the circuit opened
+            return;
+        }
+        record(true);
+        if (recordedCalls >= minimumCalls && failedCalls * 100 >= failureRateThreshold * recordedCalls)
+        {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * Give back a permission whose call was never made.
+     */
+    synchronized void onIgnored()
+    {
+        if (state == State.HALF_OPEN && probesStarted > 0)
+        {
+            probesStarted--;
+        }
+    }
+
+    /**
+     * @return Current state, without triggering the open to half-open transition
+     */
+    synchronized State getState()
+    {
+        return state;
+    }
+
+    private void record(final boolean failed)
+    {
+        if (state != State.CLOSED)
+        {
+            // Late result of a call started before the circuit opened
+            return;
+        }
+        if (recordedCalls == outcomes.length)
+        {
+            if (outcomes[nextOutcome])
+            {
+                failedCalls--;
+            }
+        }
+        else
+        {
+            recordedCalls++;
+        }
+        outcomes[nextOutcome] = failed;
+        if (failed)
+        {
+            failedCalls++;
+        }
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+    }
+
+    private void transitionTo(final State newState)
+    {
+        log.info("Circuit breaker '{}' {} -> {}", name, state, newState);
+        state = newState;
+        probesStarted = 0;
+        probesSucceeded = 0;
+        if (newState == State.OPEN)
+        {
+            openedAtNanos = nanoClock.getAsLong();
+        }
+        else if (newState == State.CLOSED)
+        {
+            recordedCalls = 0;
+            failedCalls = 0;
+            nextOutcome = 0;
+        }
+    }
+
+    /**
+     * Circuit breaker states
+     */
+    enum State
+    {
+
+        CLOSED,
+
+        OPEN,
+
+        HALF_OPEN
+
+    }
+
+}
@@ -0,0 +1,39 @@
+package org.willwin.draftolioai.service;
+
+/**
+ * Outcome of checking or applying a draft action.
+ */
+public enum DraftActionResult
+{
+
+    /**
+     * The action is legal, or was applied
+     */
+    APPLIED,
+
+    /**
+     * The draft has not started or is already completed
+     */
+    NOT_IN_PROGRESS,
+
+    /**
+     * The other side is on turn
+     */
+    NOT_YOUR_TURN,
+
+    /**
+     * The turn calls for the other kind of action, a pick instead of a ban or vice versa
+     */
+    WRONG_ACTION,
+
+    /**
+     * The champion ID is outside the catalog
+     */
+    UNKNOWN_CHAMPION,
+
+    /**
+     * The champion was already picked or banned
+     */
+    UNAVAILABLE
+
+}
@@ -0,0 +1,344 @@
+package org.willwin.draftolioai.service;
+
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of the server to client draft events, the
+ * {@link org.willwin.draftolioai.dto.DraftWireFormat#BINARY} counterpart of {@link DraftFrames}.
+ * <p>
+ * Integers are unsigned LEB128 varints and champions are written as {@code id + 1}, with
+ * {@code 0} for an empty or skipped slot. Picks and bans are sent as the champion of each
+ * turn in turn order; the side, action and phase of a turn follow from the mode's turn
+ * order. The turn clock is the epoch millisecond deadline while running, or the time left
+ * while paused. A frame is:
+ * <pre>
+ * frame     = type:u8 version:varint body
+ * snapshot  = idLength:varint draftId:utf8 mode:u8 status:u8 turn:varint clock champion{turn}
+ * delta     = status:u8 turn:varint champion clock  the champion of turn - 1, 0 when turn is 0
+ * completed = turns:varint champion{turns}
+ * timer     = turn:varint clock
+ * clock     = 0 | 1 deadline:varint | 2 remainingMillis:varint
+ * </pre>
+ * A pick or ban delta is 12 to 14 bytes with the deadline, against roughly 300 bytes of JSON.
+ */
+public final class DraftBinaryFrames
+{
+
+    /**
+     * Frame type of a snapshot
+     */
+    public static final int SNAPSHOT = 1;
+
+    /**
+     * Frame type of a delta
+     */
+    public static final int DELTA = 2;
+
+    /**
+     * Frame type sent once a draft is completed
+     */
+    public static final int COMPLETED = 3;
+
+    /**
+     * Frame type of a turn clock correction, sent when a draft is paused or resumed
+     */
+    public static final int TIMER_UPDATE = 4;
+
+    private static final int CLOCK_STOPPED = 0;
+
+    private static final int CLOCK_RUNNING = 1;
+
+    private static final int CLOCK_PAUSED = 2;
+
+    private static final DraftMode[] MODES = DraftMode.values();
+
+    private static final DraftStatus[] STATUSES = DraftStatus.values();
+
+    private DraftBinaryFrames()
+    {
+    }
+
+    /**
+     * @param state The draft
+     * @return Full snapshot sent on subscription and resync
+     */
+    public static byte[] snapshot(final DraftState state)
+    {
+        final byte[] id = state.getDraftId().getBytes(StandardCharsets.UTF_8);
+        final Writer out = new Writer(16 + id.length + 2 * state.getTurn());
+        out.writeByte(SNAPSHOT);
+        out.writeVarint(state.getVersion());
+        out.writeVarint(id.length);
+        out.writeBytes(id);
+        out.writeByte(state.getMode().ordinal());
+        out.writeByte(state.getStatus().ordinal());
+        out.writeVarint(state.getTurn());
+        out.writeClock(state);
+        for (int turn = 0; turn < state.getTurn(); turn++)
+        {
+            out.writeVarint(state.getChampionAt(turn) + 1);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param state The draft, right after a change
+     * @return Delta with the new turn and the champion of the action that was taken
+     */
+    public static byte[] delta(final DraftState state)
+    {
+        final Writer out = new Writer(16);
+        out.writeByte(DELTA);
+        out.writeVarint(state.getVersion());
+        out.writeByte(state.getStatus().ordinal());
+        out.writeVarint(state.getTurn());
+        out.writeVarint(state.getTurn() == 0 ? 0 : state.getChampionAt(state.getTurn() - 1) + 1);
+        out.writeClock(state);
+        return out.toByteArray();
+    }
+
+    /**
+     * @param state A completed draft
+     * @return Completion frame with the champion of every turn
+     */
+    public static byte[] completed(final DraftState state)
+    {
+        final Writer out = new Writer(16 + 2 * state.getTurn());
+        out.writeByte(COMPLETED);
+        out.writeVarint(state.getVersion());
+        out.writeVarint(state.getTurn());
+        for (int turn = 0; turn < state.getTurn(); turn++)
+        {
+            out.writeVarint(state.getChampionAt(turn) + 1);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param state The draft, right after its clock was paused or resumed
+     * @return Clock correction for the current turn
+     */
+    public static byte[] timerUpdate(final DraftState state)
+    {
+        final Writer out = new Writer(24);
+        out.writeByte(TIMER_UPDATE);
+        out.writeVarint(state.getVersion());
+        out.writeVarint(state.getTurn());
+        out.writeClock(state);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a frame, as a client would; used by tests and benchmarks.
+     *
+     * @param frame The encoded frame
+     * @return The decoded fields
+     * @throws IllegalArgumentException if the frame is malformed
+     */
+    public static Frame decode(final byte[] frame)
+    {
+        final Reader in = new Reader(frame);
+        final int type = in.readByte();
+        final long version = in.readVarint();
+        return switch (type)
+        {
+            case SNAPSHOT ->
+            {
+                final String draftId = new String(in.readBytes((int) in.readVarint()), StandardCharsets.UTF_8);
+                final DraftMode mode = MODES[in.readByte()];
+                final DraftStatus status = STATUSES[in.readByte()];
+                final int turn = (int) in.readVarint();
+                final long[] clock = in.readClock();
+                yield new Frame(type, version, draftId, mode, status, turn, in.readChampions(turn), clock[0], clock[1]);
+            }
+            case DELTA ->
+            {
+                final DraftStatus status = STATUSES[in.readByte()];
+                final int turn = (int) in.readVarint();
+                final int[] champions = in.readChampions(1);
+                final long[] clock = in.readClock();
+                yield new Frame(type, version, null, null, status, turn, champions, clock[0], clock[1]);
+            }
+            case COMPLETED ->
+            {
+                final int turns = (int) in.readVarint();
+                yield new Frame(
+                        type, version, null, null, DraftStatus.COMPLETED, turns, in.readChampions(turns), 0, -1);
+            }
+            case TIMER_UPDATE ->
+            {
+                final int turn = (int) in.readVarint();
+                final long[] clock = in.readClock();
+                yield new Frame(type, version, null, null, null, turn, new int[0], clock[0], clock[1]);
+            }
+            default -> throw new IllegalArgumentException("Unknown draft frame type " + type);
+        };
+    }
+
+    /**
+     * A decoded frame. Fields not carried by the frame type are null.
+     *
+     * @param type            {@link #SNAPSHOT}, {@link #DELTA}, {@link #COMPLETED} or {@link #TIMER_UPDATE}
+     * @param version         Draft version after the event
+     * @param draftId         The draft ID, snapshots only
+     * @param mode            The draft mode, snapshots only
+     * @param status          The draft status, null for a timer update
+     * @param turn            Index of the current turn, the number of turns taken
+     * @param champions       Champion per turn, or the last turn's champion for a delta; {@link DraftState#NONE}
+     *                        if none
+     * @param turnDeadline    Epoch millisecond the current turn runs out at, 0 if its clock is not running
+     * @param pausedRemaining Milliseconds left on the current turn while paused, -1 otherwise
+     */
+    public record Frame(int type, long version, String draftId, DraftMode mode, DraftStatus status, int turn,
+                        int[] champions, long turnDeadline, long pausedRemaining)
+    {
+
+    }
+
+    private static final class Writer
+    {
+
+        private byte[] bytes;
+
+        private int position;
+
+        private Writer(final int capacity)
+        {
+            this.bytes = new byte[capacity];
+        }
+
+        private void writeByte(final int value)
+        {
+            ensure(1);
+            bytes[position++] = (byte) value;
+        }
+
+        private void writeVarint(long value)
+        {
+            ensure(10);
+            while ((value & ~0x7FL) != 0)
+            {
+                bytes[position++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        private void writeClock(final DraftState state)
+        {
+            if (state.getTurnDeadline() > 0)
+            {
+                writeByte(CLOCK_RUNNING);
+                writeVarint(state.getTurnDeadline());
+            }
+            else if (state.getPausedRemaining() >= 0)
+            {
+                writeByte(CLOCK_PAUSED);
+                writeVarint(state.getPausedRemaining());
+            }
+            else
+            {
+                writeByte(CLOCK_STOPPED);
+            }
+        }
+
+        private void writeBytes(final byte[] value)
+        {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, position, value.length);
+            position += value.length;
+        }
+
+        private void ensure(final int length)
+        {
+            if (position + length > bytes.length)
+            {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + length));
+            }
+        }
+
+        private byte[] toByteArray()
+        {
+            return Arrays.copyOf(bytes, position);
+        }
+
+    }
+
+    private static final class Reader
+    {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        private Reader(final byte[] bytes)
+        {
+            this.bytes = bytes;
+        }
+
+        private int readByte()
+        {
+            require(1);
+            return bytes[position++] & 0xFF;
+        }
+
+        private long readVarint()
+        {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7)
+            {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private byte[] readBytes(final int length)
+        {
+            require(length);
+            final byte[] value = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return value;
+        }
+
+        private int[] readChampions(final int count)
+        {
+            final int[] champions = new int[count];
+            for (int i = 0; i < count; i++)
+            {
+                champions[i] = (int) readVarint() - 1;
+            }
+            return champions;
+        }
+
+        // Deadline and paused remaining time, as in Frame
+        private long[] readClock()
+        {
+            return switch (readByte())
+            {
+                case CLOCK_STOPPED -> new long[] { 0, -1 };
+                case CLOCK_RUNNING -> new long[] { readVarint(), -1 };
+                case CLOCK_PAUSED -> new long[] { 0, readVarint() };
+                default -> throw new IllegalArgumentException("Unknown turn clock state");
+            };
+        }
+
+        private void require(final int length)
+        {
+            if (length < 0 || position + length > bytes.length)
+            {
+                throw new IllegalArgumentException("Truncated draft frame");
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,815 @@
+package org.willwin.draftolioai.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftEvent;
+import org.willwin.draftolioai.dto.DraftStatus;
+import org.willwin.draftolioai.dto.DraftWireFormat;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Fans draft events out to the WebSocket subscribers of each draft.
+ * <p>
+ * Subscriptions and publications of a draft run on its shard of the
+ * {@link DraftCommandExecutor}, so a new subscriber receives a snapshot followed by
+ * exactly the deltas after it. Each event is encoded once per {@link DraftWireFormat} in
+ * use, and the encoded frame is shared by all subscribers of the draft with that format.
+ * <p>
+ * Frames are handed to a bounded outbound queue per connection and written by a virtual
+ * thread of that connection, so a slow spectator never holds up the shard or the other
+ * subscribers. When a queue overflows, its pending deltas are dropped and replaced by a
+ * fresh snapshot once the connection catches up.
+ * <p>
+ * Replies to the {@code clock_sync} handshake skip the outbound queue: the connection's
+ * writer sends them ahead of pending frames and stamps their send time right before the
+ * write, so queueing delay does not skew the client's offset estimate.
+ * <p>
+ * Connections may watch drafts run by another node. Every event of a local draft is
+ * also published to the {@link DraftEventBus} as its binary frame with a per-draft
+ * sequence number. A node with connections to a draft it does not run subscribes to the
+ * draft's events, asks its owner for a snapshot and keeps a replica of the draft on the
+ * draft's shard, from which its subscribers are served like those of a local draft.
+ * A gap in the sequence or an event that does not follow from the replica discards the
+ * replica until a new snapshot arrives; connections to a draft no node answers for are
+ * closed after the snapshot timeout.
+ */
+@Slf4j
+@Service
+public class DraftBroadcaster implements MeterBinder
+{
+
+    private static final int CLOCK_SYNC_CAPACITY = 4;
+
+    private final DraftEngine draftEngine;
+
+    private final DraftCommandExecutor executor;
+
+    private final DraftEventBus eventBus;
+
+    private final int queueCapacity;
+
+    private final int championCapacity;
+
+    private final Duration snapshotTimeout;
+
+    // First sequence number of the drafts of this node, after those of a previous run
+    private final long sequenceEpoch;
+
+    // Lists are only read and changed on the draft's shard
+    private final ConcurrentMap<String, List<Subscriber>> subscribers;
+
+    // Last sequence number published per local draft, changed on the draft's shard
+    private final ConcurrentMap<String, Long> sequences;
+
+    // Drafts of other nodes watched by local connections
+    private final ConcurrentMap<String, Replica> replicas;
+
+    private final ConcurrentMap<WebSocketSession, Subscriber> connections;
+
+    private final ExecutorService senders;
+
+    private final AtomicInteger subscriberCount;
+
+    private final LongAdder framesSent;
+
+    private final LongAdder resyncs;
+
+    public DraftBroadcaster(
+            final DraftEngine draftEngine, final DraftCommandExecutor executor, final DraftEventBus eventBus,
+            final DraftProperties properties)
+    {
+        this.draftEngine = draftEngine;
+        this.executor = executor;
+        this.eventBus = eventBus;
+        this.queueCapacity = properties.getBroadcast().getOutboundQueueCapacity();
+        this.championCapacity = properties.getChampionCapacity();
+        this.snapshotTimeout = properties.getEventBus().getSnapshotTimeout();
+        this.sequenceEpoch = System.currentTimeMillis() * 1000;
+        this.subscribers = new ConcurrentHashMap<>();
+        this.sequences = new ConcurrentHashMap<>();
+        this.replicas = new ConcurrentHashMap<>();
+        this.connections = new ConcurrentHashMap<>();
+        this.senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("draft-broadcast-", 0).factory());
+        this.subscriberCount = new AtomicInteger();
+        this.framesSent = new LongAdder();
+        this.resyncs = new LongAdder();
+        eventBus.onSnapshotRequest(this::answerSnapshotRequest);
+    }
+
+    /**
+     * Subscribe a connection to a draft; it first receives a snapshot of the draft.
+     * Connections to drafts that neither this node nor another one runs are closed.
+     *
+     * @param draftId The draft ID
+     * @param session The WebSocket connection
+     * @param format  The encoding negotiated for the connection
+     * @throws RejectedExecutionException if the draft's shard is overloaded
+     */
+    public void subscribe(final String draftId, final WebSocketSession session, final DraftWireFormat format)
+    {
+        final Subscriber subscriber = new Subscriber(draftId, session, format);
+        connections.put(session, subscriber);
+        try
+        {
+            executor.execute(
+                    draftId, () ->
+                    {
+                        subscribers.computeIfAbsent(draftId, id -> new ArrayList<>()).add(subscriber);
+                        subscriberCount.incrementAndGet();
+                        log.debug("[DEBUG_LOG] Session {} subscribed to draft {}", session.getId(), draftId);
+                        final DraftState state = current(draftId);
+                        if (state != null)
+                        {
+                            subscriber.resync(snapshot(state, format));
+                        }
+                        else if (!replicas.containsKey(draftId))
+                        {
+                            // The snapshot resyncs every subscriber of the draft once it arrives
+                            watch(draftId);
+                        }
+                    }
+            );
+        }
+        catch (RejectedExecutionException e)
+        {
+            connections.remove(session);
+            throw e;
+        }
+    }
+
+    /**
+     * Answer a {@code clock_sync} request of a connection. Requests beyond a few
+     * unanswered ones are dropped.
+     *
+     * @param session     The WebSocket connection
+     * @param clientTime  The client's send time, echoed back
+     * @param receiveTime Epoch millisecond the request was received
+     * @return False if the connection is not subscribed or has too many unanswered requests
+     */
+    public boolean clockSync(final WebSocketSession session, final long clientTime, final long receiveTime)
+    {
+        final Subscriber subscriber = connections.get(session);
+        return subscriber != null && subscriber.clockSync(clientTime, receiveTime);
+    }
+
+    /**
+     * Remove a connection from a draft's subscribers.
+     *
+     * @param draftId The draft ID
+     * @param session The WebSocket connection
+     */
+    public void unsubscribe(final String draftId, final WebSocketSession session)
+    {
+        connections.remove(session);
+        try
+        {
+            executor.execute(draftId, () -> remove(draftId, session));
+        }
+        catch (RejectedExecutionException e)
+        {
+            log.debug("[DEBUG_LOG] Could not unsubscribe session {} from draft {}", session.getId(), draftId);
+        }
+    }
+
+    /**
+     * Send the change just applied to a draft to its subscribers, followed by
+     * {@code draft_completed} when the change completed the draft. Must be called on the
+     * draft's shard.
+     * <p>
+     * Never throws: the change is already journaled and applied, so a failure to
+     * broadcast it is logged and must not fail the command that made it.
+     *
+     * @param state The changed draft
+     */
+    public void publish(final DraftState state)
+    {
+        try
+        {
+            final byte[] delta = DraftBinaryFrames.delta(state);
+            announce(state, delta);
+            deliver(state, delta);
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Failed to broadcast the change of draft {}: {}", state.getDraftId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Send a correction of the turn clock after a draft was paused or resumed. Must be
+     * called on the draft's shard. Never throws, like {@link #publish(DraftState)}.
+     *
+     * @param state The draft
+     */
+    public void publishTimer(final DraftState state)
+    {
+        try
+        {
+            final byte[] timerUpdate = DraftBinaryFrames.timerUpdate(state);
+            announce(state, timerUpdate);
+            deliverTimer(state, timerUpdate);
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Failed to broadcast the clock of draft {}: {}", state.getDraftId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Forget the subscribers of a completed draft that is evicted. Their connections
+     * already got {@code draft_completed} and stay open until the clients close them. Must
+     * be called on the draft's shard.
+     *
+     * @param draftId The draft ID
+     */
+    public void release(final String draftId)
+    {
+        sequences.remove(draftId);
+        final List<Subscriber> targets = subscribers.remove(draftId);
+        if (targets != null)
+        {
+            subscriberCount.addAndGet(-targets.size());
+        }
+    }
+
+    /**
+     * @return Number of connections subscribed to a draft
+     */
+    public int getSubscriberCount()
+    {
+        return subscriberCount.get();
+    }
+
+    /**
+     * @return Number of drafts of other nodes watched by connections to this node
+     */
+    public int getReplicaCount()
+    {
+        return replicas.size();
+    }
+
+    /**
+     * Stop the connection writers.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        senders.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry)
+    {
+        Gauge
+                .builder("draft.broadcast.subscribers", subscriberCount, AtomicInteger::get)
+                .description("WebSocket connections subscribed to a draft")
+                .register(registry);
+        FunctionCounter
+                .builder("draft.broadcast.frames.sent", framesSent, LongAdder::sum)
+                .description("Draft frames written to WebSocket connections")
+                .register(registry);
+        FunctionCounter
+                .builder("draft.broadcast.resyncs", resyncs, LongAdder::sum)
+                .description("Outbound queue overflows answered with a fresh snapshot")
+                .register(registry);
+        Gauge
+                .builder("draft.broadcast.replicas", replicas, ConcurrentMap::size)
+                .description("Drafts of other nodes watched by connections to this node")
+                .register(registry);
+    }
+
+    // Called on the draft's shard; encodes each format at most once
+    private static void fanOut(
+            final List<Subscriber> targets, final DraftState state, final Function<DraftState, String> json,
+            final Function<DraftState, byte[]> binary)
+    {
+        TextMessage text = null;
+        byte[] bytes = null;
+        for (final Subscriber subscriber : targets)
+        {
+            if (subscriber.format == DraftWireFormat.BINARY)
+            {
+                if (bytes == null)
+                {
+                    bytes = binary.apply(state);
+                }
+                // A fresh buffer over the shared bytes, since sending consumes the buffer's position
+                subscriber.offer(new BinaryMessage(bytes));
+            }
+            else
+            {
+                if (text == null)
+                {
+                    text = new TextMessage(json.apply(state));
+                }
+                subscriber.offer(text);
+            }
+        }
+    }
+
+    private static WebSocketMessage<?> snapshot(final DraftState state, final DraftWireFormat format)
+    {
+        return format == DraftWireFormat.BINARY
+                ? new BinaryMessage(DraftBinaryFrames.snapshot(state))
+                : new TextMessage(DraftFrames.snapshot(state));
+    }
+
+    // Turn clock carried by a frame
+    private static void setClock(final DraftState state, final DraftBinaryFrames.Frame frame)
+    {
+        if (frame.turnDeadline() > 0)
+        {
+            state.startClock(frame.turnDeadline());
+        }
+        else if (frame.pausedRemaining() >= 0)
+        {
+            state.pauseClock(frame.pausedRemaining());
+        }
+        else
+        {
+            state.stopClock();
+        }
+    }
+
+    // Called on the draft's shard; the draft of this node, or the replica of another node's draft
+    private DraftState current(final String draftId)
+    {
+        final DraftState state = draftEngine.get(draftId);
+        if (state != null)
+        {
+            return state;
+        }
+        final Replica replica = replicas.get(draftId);
+        return replica == null ? null : replica.state;
+    }
+
+    // Called on the draft's shard, for drafts of this node and replicas alike
+    private void deliver(final DraftState state, final byte[] delta)
+    {
+        final List<Subscriber> targets = subscribers.get(state.getDraftId());
+        if (targets == null || targets.isEmpty())
+        {
+            return;
+        }
+        fanOut(targets, state, DraftFrames::delta, changed -> delta);
+        if (state.getStatus() == DraftStatus.COMPLETED)
+        {
+            fanOut(targets, state, DraftFrames::completed, DraftBinaryFrames::completed);
+        }
+    }
+
+    // Called on the draft's shard, for drafts of this node and replicas alike
+    private void deliverTimer(final DraftState state, final byte[] timerUpdate)
+    {
+        final List<Subscriber> targets = subscribers.get(state.getDraftId());
+        if (targets != null && !targets.isEmpty())
+        {
+            fanOut(targets, state, DraftFrames::timerUpdate, changed -> timerUpdate);
+        }
+    }
+
+    // Called on the shard of a draft of this node
+    private void announce(final DraftState state, final byte[] frame)
+    {
+        final String draftId = state.getDraftId();
+        final long sequence;
+        if (state.getStatus() == DraftStatus.COMPLETED)
+        {
+            // Nothing but snapshots follows the last change of a draft
+            final Long last = sequences.remove(draftId);
+            sequence = last == null ? sequenceEpoch : last + 1;
+        }
+        else
+        {
+            sequence = sequences.merge(draftId, sequenceEpoch, (last, epoch) -> last + 1);
+        }
+        eventBus.publish(new DraftEvent(draftId, sequence, frame));
+    }
+
+    private void answerSnapshotRequest(final String draftId)
+    {
+        try
+        {
+            executor.execute(
+                    draftId, () ->
+                    {
+                        final DraftState state = draftEngine.get(draftId);
+                        if (state != null)
+                        {
+                            announce(state, DraftBinaryFrames.snapshot(state));
+                        }
+                    }
+            );
+        }
+        catch (RejectedExecutionException e)
+        {
+            log.debug("[DEBUG_LOG] Could not answer the snapshot request of draft {}", draftId);
+        }
+    }
+
+    // Called on the draft's shard
+    private void watch(final String draftId)
+    {
+        final Replica replica = new Replica(draftId);
+        replicas.put(draftId, replica);
+        eventBus.subscribe(draftId, replica.listener);
+        requestSnapshot(replica);
+        log.debug("[DEBUG_LOG] Watching draft {} of another node", draftId);
+    }
+
+    // Called on the draft's shard; the replica is rebuilt from the snapshot, or dropped if none arrives
+    private void requestSnapshot(final Replica replica)
+    {
+        replica.state = null;
+        eventBus.requestSnapshot(replica.draftId);
+        CompletableFuture.delayedExecutor(snapshotTimeout.toMillis(), TimeUnit.MILLISECONDS).execute(() ->
+        {
+            try
+            {
+                executor.execute(replica.draftId, () -> checkSnapshot(replica));
+            }
+            catch (RejectedExecutionException e)
+            {
+                log.debug("[DEBUG_LOG] Could not check the snapshot of draft {}", replica.draftId);
+            }
+        });
+    }
+
+    // Called on the draft's shard
+    private void checkSnapshot(final Replica replica)
+    {
+        if (replicas.get(replica.draftId) != replica || replica.state != null)
+        {
+            return;
+        }
+        if (replica.synced)
+        {
+            // The owner is known but its snapshot was lost, ask again
+            requestSnapshot(replica);
+            return;
+        }
+        final List<Subscriber> targets = subscribers.remove(replica.draftId);
+        if (targets != null)
+        {
+            subscriberCount.addAndGet(-targets.size());
+            for (final Subscriber subscriber : targets)
+            {
+                connections.remove(subscriber.session);
+                subscriber.close(CloseStatus.POLICY_VIOLATION.withReason("Unknown draft"));
+            }
+        }
+        unwatch(replica.draftId);
+    }
+
+    // Called on the draft's shard
+    private void unwatch(final String draftId)
+    {
+        final Replica replica = replicas.remove(draftId);
+        if (replica != null)
+        {
+            eventBus.unsubscribe(draftId, replica.listener);
+            log.debug("[DEBUG_LOG] Stopped watching draft {} of another node", draftId);
+        }
+    }
+
+    // Called on the draft's shard
+    private void apply(final Replica replica, final List<DraftEvent> events)
+    {
+        if (replicas.get(replica.draftId) != replica)
+        {
+            return;
+        }
+        for (final DraftEvent event : events)
+        {
+            if (replica.state != null && event.sequence() <= replica.sequence)
+            {
+                continue;
+            }
+            final DraftBinaryFrames.Frame frame = DraftBinaryFrames.decode(event.frame());
+            if (frame.type() == DraftBinaryFrames.SNAPSHOT)
+            {
+                replica.restore(frame);
+                replica.sequence = event.sequence();
+                final List<Subscriber> targets = subscribers.get(replica.draftId);
+                if (targets != null)
+                {
+                    for (final Subscriber subscriber : targets)
+                    {
+                        subscriber.resync(snapshot(replica.state, subscriber.format));
+                    }
+                }
+            }
+            else if (replica.state != null)
+            {
+                if (event.sequence() != replica.sequence + 1 || !replica.follow(frame))
+                {
+                    log.debug("[DEBUG_LOG] Lost events of draft {}, requesting a snapshot", replica.draftId);
+                    requestSnapshot(replica);
+                    continue;
+                }
+                replica.sequence = event.sequence();
+                if (frame.type() == DraftBinaryFrames.DELTA)
+                {
+                    deliver(replica.state, event.frame());
+                }
+                else
+                {
+                    deliverTimer(replica.state, event.frame());
+                }
+            }
+        }
+    }
+
+    // Called on the draft's shard
+    private void remove(final String draftId, final WebSocketSession session)
+    {
+        final List<Subscriber> targets = subscribers.get(draftId);
+        if (targets != null && targets.removeIf(subscriber -> subscriber.session == session))
+        {
+            subscriberCount.decrementAndGet();
+            if (targets.isEmpty())
+            {
+                subscribers.remove(draftId);
+                unwatch(draftId);
+            }
+        }
+    }
+
+    /**
+     * A draft of another node, rebuilt from its snapshot and events. Changed on the draft's shard.
+     */
+    private final class Replica
+    {
+
+        private final String draftId;
+
+        private final Consumer<List<DraftEvent>> listener;
+
+        // Null until a snapshot arrives, and again after a gap until the next one
+        private DraftState state;
+
+        private long sequence;
+
+        // Whether a snapshot ever arrived, i.e. another node runs the draft
+        private boolean synced;
+
+        private Replica(final String draftId)
+        {
+            this.draftId = draftId;
+            this.listener = events ->
+            {
+                try
+                {
+                    executor.execute(draftId, () -> apply(this, events));
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // Shows up as a gap in the sequence of the next events
+                    log.debug("[DEBUG_LOG] Dropped events of draft {}, its shard is overloaded", draftId);
+                }
+            };
+        }
+
+        private void restore(final DraftBinaryFrames.Frame snapshot)
+        {
+            final DraftState restored = new DraftState(draftId, snapshot.mode(), championCapacity);
+            if (snapshot.status() != DraftStatus.CREATED)
+            {
+                restored.start();
+            }
+            for (final int championId : snapshot.champions())
+            {
+                restored.replay(championId);
+            }
+            setClock(restored, snapshot);
+            state = restored;
+            synced = true;
+        }
+
+        // Applies a delta or timer update; false if it does not follow from the replica
+        private boolean follow(final DraftBinaryFrames.Frame frame)
+        {
+            if (frame.type() == DraftBinaryFrames.DELTA)
+            {
+                if (state.getStatus() == DraftStatus.CREATED && frame.turn() == 0)
+                {
+                    state.start();
+                }
+                else if (state.getStatus() == DraftStatus.IN_PROGRESS && frame.turn() == state.getTurn() + 1)
+                {
+                    state.replay(frame.champions()[0]);
+                }
+                else
+                {
+                    return false;
+                }
+            }
+            else if (frame.type() != DraftBinaryFrames.TIMER_UPDATE || frame.turn() != state.getTurn())
+            {
+                return false;
+            }
+            setClock(state, frame);
+            return true;
+        }
+
+    }
+
+    /**
+     * A connection with its outbound queue.
+     */
+    private final class Subscriber
+    {
+
+        private final String draftId;
+
+        private final WebSocketSession session;
+
+        private final DraftWireFormat format;
+
+        private final BlockingQueue<WebSocketMessage<?>> queue;
+
+        private final BlockingQueue<long[]> clockSyncs;
+
+        private final AtomicBoolean draining;
+
+        // Set on the shard when deltas were dropped, until the replacing snapshot is queued
+        private boolean resyncPending;
+
+        private Subscriber(final String draftId, final WebSocketSession session, final DraftWireFormat format)
+        {
+            this.draftId = draftId;
+            this.session = session;
+            this.format = format;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.clockSyncs = new ArrayBlockingQueue<>(CLOCK_SYNC_CAPACITY);
+            this.draining = new AtomicBoolean();
+        }
+
+        // Called on the draft's shard
+        private void offer(final WebSocketMessage<?> frame)
+        {
+            if (resyncPending)
+            {
+                return;
+            }
+            if (queue.offer(frame))
+            {
+                scheduleDrain();
+                return;
+            }
+
+            // Too far behind to catch up on deltas; the snapshot is taken when this task runs
+            resyncPending = true;
+            queue.clear();
+            resyncs.increment();
+            log.debug("[DEBUG_LOG] Session {} fell behind on draft {}, resyncing", session.getId(), draftId);
+            try
+            {
+                executor.execute(
+                        draftId, () ->
+                        {
+                            final DraftState state = current(draftId);
+                            if (state != null)
+                            {
+                                resync(snapshot(state, format));
+                            }
+                            else if (!replicas.containsKey(draftId))
+                            {
+                                close(CloseStatus.GOING_AWAY);
+                            }
+                        }
+                );
+            }
+            catch (RejectedExecutionException e)
+            {
+                // Without the snapshot the connection would stay silent; the client reconnects and resubscribes
+                resyncPending = false;
+                log.debug("[DEBUG_LOG] Could not resync session {} on draft {}, closing", session.getId(), draftId);
+                close(CloseStatus.SERVICE_OVERLOAD);
+            }
+        }
+
+        // Called on the draft's shard
+        private void resync(final WebSocketMessage<?> snapshot)
+        {
+            queue.clear();
+            queue.offer(snapshot);
+            resyncPending = false;
+            scheduleDrain();
+        }
+
+        // Client send time and server receive time of a request
+        private boolean clockSync(final long clientTime, final long receiveTime)
+        {
+            if (!clockSyncs.offer(new long[] { clientTime, receiveTime }))
+            {
+                return false;
+            }
+            scheduleDrain();
+            return true;
+        }
+
+        private void scheduleDrain()
+        {
+            if (draining.compareAndSet(false, true))
+            {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain()
+        {
+            do
+            {
+                WebSocketMessage<?> frame;
+                while ((frame = next()) != null)
+                {
+                    if (!send(frame))
+                    {
+                        queue.clear();
+                        return;
+                    }
+                }
+                draining.set(false);
+            }
+            while ((!queue.isEmpty() || !clockSyncs.isEmpty()) && draining.compareAndSet(false, true));
+        }
+
+        // Clock sync replies go first, stamped with the time they are written
+        private WebSocketMessage<?> next()
+        {
+            final long[] request = clockSyncs.poll();
+            if (request != null)
+            {
+                return new TextMessage(DraftFrames.clockSync(request[0], request[1], System.currentTimeMillis()));
+            }
+            return queue.poll();
+        }
+
+        private boolean send(final WebSocketMessage<?> frame)
+        {
+            try
+            {
+                if (!session.isOpen())
+                {
+                    return false;
+                }
+                session.sendMessage(frame);
+                framesSent.increment();
+                return true;
+            }
+            catch (IOException | RuntimeException e)
+            {
+                log.debug("[DEBUG_LOG] Failed to send to session {}: {}", session.getId(), e.getMessage());
+                close(CloseStatus.SERVER_ERROR);
+                return false;
+            }
+        }
+
+        private void close(final CloseStatus status)
+        {
+            senders.execute(() ->
+            {
+                try
+                {
+                    session.close(status);
+                }
+                catch (IOException e)
+                {
+                    log.debug("[DEBUG_LOG] Failed to close session {}: {}", session.getId(), e.getMessage());
+                }
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,258 @@
+package org.willwin.draftolioai.service;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+import org.willwin.draftolioai.config.DraftProperties;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Executes draft commands on single-threaded shards.
+ * <p>
+ * Draft IDs are hashed onto a fixed set of event loops, each a platform thread draining
+ * its own bounded queue. All commands of a draft (submitted actions, timer expiries,
+ * reconnect snapshots) therefore run on one thread in submission order, and
+ * {@link DraftState} needs no locking; drafts on different shards run fully in parallel.
+ * Commands must not block, since they hold up every other draft of their shard.
+ * <p>
+ * Per shard, the queue depth is published as {@code draft.executor.queue.depth} and the
+ * time from submission to completion as {@code draft.executor.latency}, tagged with
+ * {@code shard}.
+ * <p>
+ * The executor is stopped before the draft history writer, so the actions of the commands
+ * drained on shutdown are still written.
+ */
+@Slf4j
+@Service
+@DependsOn("draftHistoryWriter")
+public class DraftCommandExecutor implements MeterBinder
+{
+
+    private final Shard[] shards;
+
+    public DraftCommandExecutor(final DraftProperties properties)
+    {
+        final DraftProperties.Executor executor = properties.getExecutor();
+        final int count = executor.getShards() > 0
+                ? executor.getShards()
+                : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++)
+        {
+            shards[i] = new Shard(i, executor.getQueueCapacity());
+        }
+        log.info("Draft command executor started with {} shards", count);
+    }
+
+    /**
+     * Run a command on the draft's shard.
+     *
+     * @param draftId The draft the command mutates
+     * @param command The command
+     * @param <T>     Result type
+     * @return Future completed on the shard thread with the command's result or failure
+     * @throws RejectedExecutionException if the shard's queue is full or the executor is stopped
+     */
+    public <T> CompletableFuture<T> submit(final String draftId, final Supplier<T> command)
+    {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        execute(draftId, () ->
+        {
+            try
+            {
+                future.complete(command.get());
+            }
+            catch (Throwable e)
+            {
+                // Errors too, so the caller is never left waiting; the shard keeps running
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Run a command on the draft's shard without waiting for it; failures are logged.
+     *
+     * @param draftId The draft the command mutates
+     * @param command The command
+     * @throws RejectedExecutionException if the shard's queue is full or the executor is stopped
+     */
+    public void execute(final String draftId, final Runnable command)
+    {
+        shards[shardOf(draftId)].enqueue(command);
+    }
+
+    /**
+     * @param draftId The draft ID
+     * @return Index of the shard the draft's commands run on
+     */
+    public int shardOf(final String draftId)
+    {
+        // Spread the hash so IDs differing only in high bits still land on different shards
+        final int hash = draftId.hashCode();
+        return Math.floorMod(hash ^ hash >>> 16, shards.length);
+    }
+
+    /**
+     * @param draftId The draft ID
+     * @return Whether the calling thread is the draft's shard thread
+     */
+    public boolean isOnShard(final String draftId)
+    {
+        return Thread.currentThread() == shards[shardOf(draftId)].thread;
+    }
+
+    /**
+     * @return Number of shards
+     */
+    public int getShardCount()
+    {
+        return shards.length;
+    }
+
+    /**
+     * Stop accepting commands, run those already queued and stop the shard threads.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        for (final Shard shard : shards)
+        {
+            shard.running = false;
+        }
+        for (final Shard shard : shards)
+        {
+            try
+            {
+                shard.thread.join(TimeUnit.SECONDS.toMillis(5));
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry)
+    {
+        for (final Shard shard : shards)
+        {
+            final String index = Integer.toString(shard.index);
+            Gauge
+                    .builder("draft.executor.queue.depth", shard.queue, BlockingQueue::size)
+                    .tag("shard", index)
+                    .description("Commands waiting on the draft shard")
+                    .register(registry);
+            FunctionTimer
+                    .builder(
+                            "draft.executor.latency", shard, s -> s.completed.sum(), s -> s.latencyNanos.sum(),
+                            TimeUnit.NANOSECONDS
+                    )
+                    .tag("shard", index)
+                    .description("Time from submission to completion of draft commands")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * One event loop with its queue and statistics.
+     */
+    private static final class Shard
+    {
+
+        private final int index;
+
+        private final BlockingQueue<Task> queue;
+
+        private final Thread thread;
+
+        private final LongAdder completed;
+
+        private final LongAdder latencyNanos;
+
+        private volatile boolean running;
+
+        private Shard(final int index, final int queueCapacity)
+        {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.completed = new LongAdder();
+            this.latencyNanos = new LongAdder();
+            this.running = true;
+            this.thread = Thread.ofPlatform().name("draft-shard-" + index).daemon().start(this::run);
+        }
+
+        private void enqueue(final Runnable command)
+        {
+            if (!running)
+            {
+                throw new RejectedExecutionException("Draft executor is stopped");
+            }
+            final Task task = new Task(command, System.nanoTime());
+            if (!queue.offer(task))
+            {
+                throw new RejectedExecutionException("Draft shard " + index + " is full");
+            }
+            // The shard may have stopped after the check above and never run the task
+            if (!running && queue.remove(task))
+            {
+                throw new RejectedExecutionException("Draft executor is stopped");
+            }
+        }
+
+        private void run()
+        {
+            while (running || !queue.isEmpty())
+            {
+                final Task task;
+                try
+                {
+                    task = queue.poll(100, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (task == null)
+                {
+                    continue;
+                }
+
+                try
+                {
+                    task.command.run();
+                }
+                catch (Throwable e)
+                {
+                    // One failing command must not stop the other drafts of the shard
+                    log.error("Draft command failed on shard {}", index, e);
+                }
+                latencyNanos.add(System.nanoTime() - task.submittedNanos);
+                completed.increment();
+            }
+        }
+
+    }
+
+    private record Task(Runnable command, long submittedNanos)
+    {
+
+    }
+
+}
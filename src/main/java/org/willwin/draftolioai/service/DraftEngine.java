@@ -0,0 +1,195 @@
+package org.willwin.draftolioai.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftMode;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory registry of the drafts running on this node.
+ * <p>
+ * Each draft is held as a compact {@link DraftState}; legality checks and actions run
+ * against it directly without touching the database. Fearless series are held alongside
+ * as {@link DraftSeries}, each game of a series being a draft of its own. The registry
+ * itself is safe for concurrent use, while mutations of a single draft or series must be
+ * serialized by the caller.
+ */
+@Slf4j
+@Service
+public class DraftEngine
+{
+
+    private static final int DRAFT_ID_BYTES = 12;
+
+    private static final int SERIES_ID_BYTES = 12;
+
+    private final DraftProperties properties;
+
+    private final SecureIdGenerator idGenerator;
+
+    private final ConcurrentMap<String, DraftState> drafts;
+
+    private final ConcurrentMap<String, DraftSeries> series;
+
+    public DraftEngine(final DraftProperties properties, final SecureIdGenerator idGenerator)
+    {
+        this.properties = properties;
+        this.idGenerator = idGenerator;
+        this.drafts = new ConcurrentHashMap<>();
+        this.series = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Create a draft with a new unguessable ID.
+     *
+     * @param mode The draft mode
+     * @return The new draft, not yet started
+     */
+    public DraftState create(final DraftMode mode)
+    {
+        return create(idGenerator.generate("draft_", DRAFT_ID_BYTES), mode);
+    }
+
+    /**
+     * Create a draft with a known ID.
+     *
+     * @param draftId The draft ID
+     * @param mode    The draft mode
+     * @return The new draft, not yet started
+     * @throws IllegalArgumentException if a draft with the ID already exists
+     */
+    public DraftState create(final String draftId, final DraftMode mode)
+    {
+        final DraftState state = new DraftState(draftId, mode, properties.getChampionCapacity());
+        if (drafts.putIfAbsent(draftId, state) != null)
+        {
+            throw new IllegalArgumentException("Draft already exists: " + draftId);
+        }
+        log.debug("[DEBUG_LOG] Created {} draft {}", mode, draftId);
+        return state;
+    }
+
+    /**
+     * Register a draft rebuilt elsewhere, e.g. recovered from the journal.
+     *
+     * @param state The draft
+     * @throws IllegalArgumentException if a draft with the ID already exists
+     */
+    public void restore(final DraftState state)
+    {
+        if (drafts.putIfAbsent(state.getDraftId(), state) != null)
+        {
+            throw new IllegalArgumentException("Draft already exists: " + state.getDraftId());
+        }
+    }
+
+    /**
+     * @param draftId The draft ID
+     * @return The draft, or null if it is not held on this node
+     */
+    public DraftState get(final String draftId)
+    {
+        return drafts.get(draftId);
+    }
+
+    /**
+     * Drop a draft from memory, e.g. once it is completed and persisted.
+     *
+     * @param draftId The draft ID
+     * @return The removed draft, or null
+     */
+    public DraftState remove(final String draftId)
+    {
+        return drafts.remove(draftId);
+    }
+
+    /**
+     * @return Number of drafts held on this node
+     */
+    public int size()
+    {
+        return drafts.size();
+    }
+
+    /**
+     * Create a fearless series with a new unguessable ID.
+     *
+     * @param mode   {@link DraftMode#FEARLESS} or {@link DraftMode#FULL_FEARLESS}
+     * @param bestOf Number of games the series is played over at most
+     * @return The new series, without games
+     * @throws IllegalArgumentException if the mode or length is not supported
+     */
+    public DraftSeries createSeries(final DraftMode mode, final int bestOf)
+    {
+        final DraftSeries created = new DraftSeries(
+                idGenerator.generate("series_", SERIES_ID_BYTES), mode, bestOf, properties.getChampionCapacity());
+        series.put(created.getSeriesId(), created);
+        log.debug("[DEBUG_LOG] Created best of {} {} series {}", bestOf, mode, created.getSeriesId());
+        return created;
+    }
+
+    /**
+     * Create the next game of a series with a new unguessable ID. Must be serialized with
+     * the other changes of the series.
+     *
+     * @param draftSeries The series
+     * @return The new game, not yet started
+     * @throws IllegalStateException if a game of the series is in progress or the series is over
+     */
+    public DraftState createGame(final DraftSeries draftSeries)
+    {
+        final DraftState game = draftSeries.newGame(idGenerator.generate("draft_", DRAFT_ID_BYTES));
+        drafts.put(game.getDraftId(), game);
+        log.debug(
+                "[DEBUG_LOG] Created game {} of series {} as draft {}", draftSeries.getGames().size(),
+                draftSeries.getSeriesId(), game.getDraftId()
+        );
+        return game;
+    }
+
+    /**
+     * Register a series rebuilt elsewhere, e.g. recovered from the journal.
+     *
+     * @param draftSeries The series
+     * @throws IllegalArgumentException if a series with the ID already exists
+     */
+    public void restoreSeries(final DraftSeries draftSeries)
+    {
+        if (series.putIfAbsent(draftSeries.getSeriesId(), draftSeries) != null)
+        {
+            throw new IllegalArgumentException("Series already exists: " + draftSeries.getSeriesId());
+        }
+    }
+
+    /**
+     * @param seriesId The series ID
+     * @return The series, or null if it is not held on this node
+     */
+    public DraftSeries getSeries(final String seriesId)
+    {
+        return series.get(seriesId);
+    }
+
+    /**
+     * Drop a series from memory; its games are not affected.
+     *
+     * @param seriesId The series ID
+     * @return The removed series, or null
+     */
+    public DraftSeries removeSeries(final String seriesId)
+    {
+        return series.remove(seriesId);
+    }
+
+    /**
+     * @return Number of series held on this node
+     */
+    public int seriesCount()
+    {
+        return series.size();
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.willwin.draftolioai.service;
+
+import org.willwin.draftolioai.dto.DraftEvent;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Distributes draft events from the node running a draft to the other nodes with
+ * connections watching it.
+ * <p>
+ * The node owning a draft publishes every event; a node subscribes to a draft while it
+ * has local connections to it and not before, and asks for a snapshot to start from.
+ * Events of a draft reach each subscribed node in sequence order, possibly in batches;
+ * implementations may drop events under pressure, which subscribers detect as a gap in
+ * the sequence and repair with a new snapshot.
+ */
+public interface DraftEventBus
+{
+
+    /**
+     * Send an event to the nodes subscribed to its draft. Called on the draft's shard.
+     *
+     * @param event The event
+     */
+    void publish(DraftEvent event);
+
+    /**
+     * Start receiving the events of a draft.
+     *
+     * @param draftId  The draft ID
+     * @param listener Called with batches of the draft's events, in sequence order
+     */
+    void subscribe(String draftId, Consumer<List<DraftEvent>> listener);
+
+    /**
+     * Stop receiving the events of a draft.
+     *
+     * @param draftId  The draft ID
+     * @param listener The listener passed to {@link #subscribe(String, Consumer)}
+     */
+    void unsubscribe(String draftId, Consumer<List<DraftEvent>> listener);
+
+    /**
+     * Ask the node owning a draft to publish a snapshot of it.
+     *
+     * @param draftId The draft ID
+     */
+    void requestSnapshot(String draftId);
+
+    /**
+     * Register the handler answering snapshot requests of other nodes.
+     *
+     * @param handler Called with the ID of the requested draft, whether or not this node owns it
+     */
+    void onSnapshotRequest(Consumer<String> handler);
+
+}
@@ -0,0 +1,251 @@
+package org.willwin.draftolioai.service;
+
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftSide;
+import org.willwin.draftolioai.dto.DraftStatus;
+
+import java.time.Instant;
+
+/**
+ * JSON encoding of the server to client draft events.
+ * <p>
+ * Every frame carries the draft's {@code version}. A delta frame applies to the state
+ * with the version right before it; a client that sees a gap ignores deltas until the
+ * next snapshot, which the server sends after it dropped frames for that client.
+ * Champions are dense catalog IDs, with {@code null} for an empty or skipped slot.
+ * <p>
+ * The turn clock is sent as the absolute {@code timerEndTime} on the server's clock,
+ * which clients translate with the offset measured by the {@code clock_sync} handshake
+ * and count down locally. While a draft is paused, {@code timerEndTime} is null and
+ * {@code remainingMillis} holds the time left. The server only sends
+ * {@code draft_timer_update} when a draft is paused or resumed.
+ *
+ * @see DraftBinaryFrames
+ */
+public final class DraftFrames
+{
+
+    /**
+     * Event type of snapshots and deltas
+     */
+    public static final String STATE_UPDATE = "draft_state_update";
+
+    /**
+     * Event type sent once a draft is completed
+     */
+    public static final String COMPLETED = "draft_completed";
+
+    /**
+     * Event type of a turn clock correction, sent when a draft is paused or resumed
+     */
+    public static final String TIMER_UPDATE = "draft_timer_update";
+
+    /**
+     * Message type of the clock synchronization handshake, in both directions
+     */
+    public static final String CLOCK_SYNC = "clock_sync";
+
+    private static final DraftSide[] SIDES = DraftSide.values();
+
+    private DraftFrames()
+    {
+    }
+
+    /**
+     * @param state The draft
+     * @return Full {@code draft_state_update} sent on subscription and resync
+     */
+    public static String snapshot(final DraftState state)
+    {
+        final StringBuilder json = header(STATE_UPDATE, state).append(",\"snapshot\":true,\"mode\":\"")
+                .append(state.getMode())
+                .append('"');
+        appendProgress(json, state);
+        appendTimer(json, state);
+        appendSlots(json.append(",\"picks\":"), state, DraftActionType.PICK);
+        appendSlots(json.append(",\"bans\":"), state, DraftActionType.BAN);
+        return json.append('}').toString();
+    }
+
+    /**
+     * @param state The draft, right after a change
+     * @return {@code draft_state_update} with the new turn and the action that was taken, if any
+     */
+    public static String delta(final DraftState state)
+    {
+        final StringBuilder json = header(STATE_UPDATE, state);
+        appendProgress(json, state);
+        appendTimer(json, state);
+        json.append(",\"lastAction\":");
+        final int turn = state.getTurn() - 1;
+        if (turn < 0)
+        {
+            json.append("null");
+        }
+        else
+        {
+            final DraftTurnOrder order = state.getOrder();
+            json.append("{\"turn\":")
+                    .append(turn)
+                    .append(",\"type\":\"")
+                    .append(order.type(turn))
+                    .append("\",\"team\":\"")
+                    .append(order.side(turn))
+                    .append("\",\"championId\":");
+            appendChampion(json, state.getChampionAt(turn)).append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * @param state A completed draft
+     * @return {@code draft_completed} with the final picks and bans
+     */
+    public static String completed(final DraftState state)
+    {
+        final StringBuilder json = header(COMPLETED, state);
+        appendSlots(json.append(",\"picks\":"), state, DraftActionType.PICK);
+        appendSlots(json.append(",\"bans\":"), state, DraftActionType.BAN);
+        return json.append('}').toString();
+    }
+
+    /**
+     * @param state The draft, right after its clock was paused or resumed
+     * @return {@code draft_timer_update} with the clock of the current turn
+     */
+    public static String timerUpdate(final DraftState state)
+    {
+        final StringBuilder json = header(TIMER_UPDATE, state).append(",\"turn\":").append(state.getTurn());
+        appendTimer(json, state);
+        return json.append('}').toString();
+    }
+
+    /**
+     * Reply to a client's {@code clock_sync} request. With {@code t0} the client's send
+     * time and {@code t3} its receive time, the client estimates the server clock's offset
+     * as {@code ((serverReceiveTime - t0) + (serverSendTime - t3)) / 2}.
+     *
+     * @param clientTime        The client's send time, echoed back
+     * @param serverReceiveTime Epoch millisecond the request was received
+     * @param serverSendTime    Epoch millisecond the reply is sent
+     * @return {@code clock_sync} reply
+     */
+    public static String clockSync(final long clientTime, final long serverReceiveTime, final long serverSendTime)
+    {
+        return new StringBuilder(112).append("{\"type\":\"")
+                .append(CLOCK_SYNC)
+                .append("\",\"clientTime\":")
+                .append(clientTime)
+                .append(",\"serverReceiveTime\":")
+                .append(serverReceiveTime)
+                .append(",\"serverSendTime\":")
+                .append(serverSendTime)
+                .append('}')
+                .toString();
+    }
+
+    private static StringBuilder header(final String type, final DraftState state)
+    {
+        final StringBuilder json = new StringBuilder(256).append("{\"type\":\"").append(type).append("\",\"draftId\":");
+        appendString(json, state.getDraftId());
+        return json.append(",\"version\":").append(state.getVersion());
+    }
+
+    private static void appendProgress(final StringBuilder json, final DraftState state)
+    {
+        json.append(",\"status\":\"").append(state.getStatus()).append("\",\"turn\":").append(state.getTurn());
+        if (state.getStatus() != DraftStatus.IN_PROGRESS)
+        {
+            json.append(",\"currentPhase\":null,\"currentTurn\":null");
+            return;
+        }
+        final int turn = state.getTurn();
+        json.append(",\"currentPhase\":\"")
+                .append(state.getCurrentPhase())
+                .append("\",\"currentTurn\":{\"team\":\"")
+                .append(state.getCurrentSide())
+                .append("\",\"type\":\"")
+                .append(state.getCurrentType())
+                .append("\",\"order\":")
+                .append(state.getOrder().slot(turn) + 1)
+                .append('}');
+    }
+
+    private static void appendTimer(final StringBuilder json, final DraftState state)
+    {
+        json.append(",\"timerEndTime\":");
+        if (state.getTurnDeadline() > 0)
+        {
+            json.append('"').append(Instant.ofEpochMilli(state.getTurnDeadline())).append('"');
+        }
+        else
+        {
+            json.append("null");
+        }
+        json.append(",\"timerPaused\":").append(state.getPausedRemaining() >= 0).append(",\"remainingMillis\":");
+        if (state.getPausedRemaining() >= 0)
+        {
+            json.append(state.getPausedRemaining());
+        }
+        else
+        {
+            json.append("null");
+        }
+    }
+
+    private static void appendSlots(final StringBuilder json, final DraftState state, final DraftActionType type)
+    {
+        json.append('{');
+        for (final DraftSide side : SIDES)
+        {
+            if (side.ordinal() > 0)
+            {
+                json.append(',');
+            }
+            json.append('"').append(side).append("\":[");
+            for (int slot = 0; slot < DraftTurnOrder.SLOTS_PER_SIDE; slot++)
+            {
+                if (slot > 0)
+                {
+                    json.append(',');
+                }
+                appendChampion(
+                        json, type == DraftActionType.PICK ? state.getPick(side, slot) : state.getBan(side, slot));
+            }
+            json.append(']');
+        }
+        json.append('}');
+    }
+
+    private static StringBuilder appendChampion(final StringBuilder json, final int championId)
+    {
+        return championId == DraftState.NONE ? json.append("null") : json.append(championId);
+    }
+
+    private static void appendString(final StringBuilder json, final String value)
+    {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            final char c = value.charAt(i);
+            switch (c)
+            {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                default ->
+                {
+                    if (c < 0x20)
+                    {
+                        json.append(String.format("\\u%04x", (int) c));
+                    }
+                    else
+                    {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+}
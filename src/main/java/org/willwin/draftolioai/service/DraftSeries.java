@@ -0,0 +1,256 @@
+package org.willwin.draftolioai.service;
+
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * State of a best-of series played in one of the fearless modes.
+ * <p>
+ * The champions locked for the next game are kept as one bitset over dense catalog IDs,
+ * the union of the picks of every completed game, and of the bans too in
+ * {@link DraftMode#FULL_FEARLESS}. Each completed game adds its 10 to 20 champions to
+ * the union, and each new game copies the union into its {@link DraftState}, so neither
+ * starting a game nor checking an action in it goes back over the earlier games. The
+ * union is journaled with the series and recovered as is.
+ * <p>
+ * Games are played one at a time: the next game can only be created once the previous
+ * one is completed. Instances are not thread-safe; changes of a series must be
+ * serialized by the caller, e.g. on the series' shard.
+ */
+public final class DraftSeries
+{
+
+    /**
+     * Longest series supported
+     */
+    public static final int MAX_GAMES = 7;
+
+    private final String seriesId;
+
+    private final DraftMode mode;
+
+    private final int bestOf;
+
+    private final int championCapacity;
+
+    private final long[] locked;
+
+    private final List<String> games;
+
+    private int completedGames;
+
+    /**
+     * @param seriesId         The series ID
+     * @param mode             {@link DraftMode#FEARLESS} or {@link DraftMode#FULL_FEARLESS}
+     * @param bestOf           Number of games the series is played over at most, odd
+     * @param championCapacity Upper bound of the champion IDs
+     * @throws IllegalArgumentException if the mode is not a fearless mode or the length is not supported
+     */
+    public DraftSeries(final String seriesId, final DraftMode mode, final int bestOf, final int championCapacity)
+    {
+        if (mode == DraftMode.TOURNAMENT)
+        {
+            throw new IllegalArgumentException("Series are only played in the fearless modes");
+        }
+        if (bestOf < 1 || bestOf > MAX_GAMES || bestOf % 2 == 0)
+        {
+            throw new IllegalArgumentException("Unsupported series length: best of " + bestOf);
+        }
+        this.seriesId = seriesId;
+        this.mode = mode;
+        this.bestOf = bestOf;
+        this.championCapacity = championCapacity;
+        this.locked = new long[(championCapacity + 63) >>> 6];
+        this.games = new ArrayList<>(bestOf);
+    }
+
+    /**
+     * Rebuild a series from its persisted state.
+     *
+     * @param seriesId         The series ID
+     * @param mode             The series mode
+     * @param bestOf           Number of games the series is played over at most
+     * @param championCapacity Upper bound of the champion IDs
+     * @param games            Draft IDs of the games created so far, in order
+     * @param completedGames   Number of those games that are completed
+     * @param locked           Bitset of the champions locked by the completed games
+     * @return The series
+     */
+    public static DraftSeries restore(
+            final String seriesId, final DraftMode mode, final int bestOf, final int championCapacity,
+            final List<String> games, final int completedGames, final long[] locked)
+    {
+        final DraftSeries series = new DraftSeries(seriesId, mode, bestOf, championCapacity);
+        series.games.addAll(games);
+        series.completedGames = completedGames;
+        System.arraycopy(locked, 0, series.locked, 0, Math.min(locked.length, series.locked.length));
+        return series;
+    }
+
+    /**
+     * Create the next game, with the champions locked by the earlier games unavailable.
+     *
+     * @param draftId The draft ID of the game
+     * @return The new game, not yet started
+     * @throws IllegalStateException if a game is in progress or the series is over
+     */
+    public DraftState newGame(final String draftId)
+    {
+        if (hasGameInProgress())
+        {
+            throw new IllegalStateException("Game " + games.size() + " of series " + seriesId + " is not completed");
+        }
+        if (isFinished())
+        {
+            throw new IllegalStateException("Series " + seriesId + " is over");
+        }
+        final DraftState game = new DraftState(draftId, mode, championCapacity);
+        game.joinSeries(seriesId, locked);
+        games.add(draftId);
+        return game;
+    }
+
+    /**
+     * Forget the game just created, e.g. when it could not be journaled.
+     *
+     * @param draftId The draft ID of the game
+     */
+    void cancelGame(final String draftId)
+    {
+        if (isGameInProgress(draftId))
+        {
+            games.removeLast();
+        }
+    }
+
+    /**
+     * Re-apply the locked champions to the game in progress after both were recovered.
+     *
+     * @param game The game in progress
+     * @throws IllegalArgumentException if the draft is not the series' game in progress
+     */
+    public void resume(final DraftState game)
+    {
+        if (!isGameInProgress(game.getDraftId()))
+        {
+            throw new IllegalArgumentException(
+                    "Draft " + game.getDraftId() + " is not in progress in series " + seriesId);
+        }
+        game.joinSeries(seriesId, locked);
+    }
+
+    /**
+     * Add the champions of the completed game in progress to the locked ones.
+     *
+     * @param game The game in progress, completed
+     * @throws IllegalArgumentException if the draft is not the series' game in progress or not completed
+     */
+    public void completeGame(final DraftState game)
+    {
+        if (!isGameInProgress(game.getDraftId()) || game.getStatus() != DraftStatus.COMPLETED)
+        {
+            throw new IllegalArgumentException(
+                    "Draft " + game.getDraftId() + " is not a completed game of series " + seriesId);
+        }
+        final DraftTurnOrder order = game.getOrder();
+        for (int turn = 0; turn < order.size(); turn++)
+        {
+            final int championId = game.getChampionAt(turn);
+            if (championId != DraftState.NONE
+                    && (order.type(turn) == DraftActionType.PICK || mode == DraftMode.FULL_FEARLESS))
+            {
+                locked[championId >>> 6] |= 1L << championId;
+            }
+        }
+        completedGames++;
+    }
+
+    /**
+     * @param championId Dense catalog ID of the champion
+     * @return Whether earlier games of the series ruled the champion out for the next ones
+     */
+    public boolean isLocked(final int championId)
+    {
+        return (locked[championId >>> 6] & 1L << championId) != 0;
+    }
+
+    /**
+     * @return Number of champions locked by the completed games
+     */
+    public int getLockedCount()
+    {
+        int count = 0;
+        for (final long word : locked)
+        {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return Copy of the bitset of locked champions
+     */
+    public long[] getLocked()
+    {
+        return locked.clone();
+    }
+
+    /**
+     * @param draftId A draft ID
+     * @return Whether the draft is the series' game in progress
+     */
+    public boolean isGameInProgress(final String draftId)
+    {
+        return hasGameInProgress() && games.getLast().equals(draftId);
+    }
+
+    /**
+     * @return Whether the last game created is not completed yet
+     */
+    public boolean hasGameInProgress()
+    {
+        return games.size() > completedGames;
+    }
+
+    /**
+     * @return Whether all games of the series were played
+     */
+    public boolean isFinished()
+    {
+        return completedGames == bestOf;
+    }
+
+    public String getSeriesId()
+    {
+        return seriesId;
+    }
+
+    public DraftMode getMode()
+    {
+        return mode;
+    }
+
+    public int getBestOf()
+    {
+        return bestOf;
+    }
+
+    /**
+     * @return Draft IDs of the games created so far, in order
+     */
+    public List<String> getGames()
+    {
+        return Collections.unmodifiableList(games);
+    }
+
+    public int getCompletedGames()
+    {
+        return completedGames;
+    }
+
+}
@@ -0,0 +1,493 @@
+package org.willwin.draftolioai.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftSide;
+import org.willwin.draftolioai.dto.DraftStatus;
+import org.willwin.draftolioai.repository.DraftHistoryWriter;
+import org.willwin.draftolioai.repository.DraftJournal;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Entry point for draft lifecycle commands.
+ * <p>
+ * Every command that reads or changes a draft runs on the draft's shard of the
+ * {@link DraftCommandExecutor}, so concurrent submissions, timer expiries and reconnects
+ * of one draft are applied one at a time in arrival order without locks.
+ * <p>
+ * Changes are written to the {@link DraftJournal} before they are applied, so a change
+ * that could not be journaled is neither applied nor acknowledged. Applied changes are
+ * published to the draft's WebSocket subscribers through the {@link DraftBroadcaster}
+ * and queued for the {@link DraftHistoryWriter}, which writes them to the database
+ * outside of the shard.
+ * <p>
+ * Each turn of a running draft is on the clock of the {@link DraftTimerWheel}; when it
+ * runs out, a ban is skipped and a pick goes to a random available champion. Clients
+ * get the turn's deadline with every change and count down locally; the clock is only
+ * published on its own when a draft is paused or resumed. Pauses are not journaled: a
+ * draft recovered after a restart gets the full time for its current turn.
+ * <p>
+ * Games of a fearless series are drafts of their own, created one at a time by the
+ * {@link DraftSeries}. Commands that change a series run on the series' shard; a game
+ * completed on its own shard hands itself over to the series' shard, which adds its
+ * champions to those locked for the next games.
+ * <p>
+ * A completed draft is evicted once its last change is published and queued for the
+ * history, a game of a series once the series took over its champions: it is dropped
+ * from the {@link DraftEngine} and the broadcaster, and journaled as removed.
+ */
+@Slf4j
+@Service
+public class DraftService
+{
+
+    private final DraftEngine draftEngine;
+
+    private final DraftCommandExecutor executor;
+
+    private final DraftJournal journal;
+
+    private final DraftHistoryWriter history;
+
+    private final DraftBroadcaster broadcaster;
+
+    private final DraftTimerWheel timerWheel;
+
+    private final DraftProperties.Timer timerProperties;
+
+    public DraftService(
+            final DraftEngine draftEngine, final DraftCommandExecutor executor, final DraftJournal journal,
+            final DraftHistoryWriter history, final DraftBroadcaster broadcaster, final DraftTimerWheel timerWheel,
+            final DraftProperties properties)
+    {
+        this.draftEngine = draftEngine;
+        this.executor = executor;
+        this.journal = journal;
+        this.history = history;
+        this.broadcaster = broadcaster;
+        this.timerWheel = timerWheel;
+        this.timerProperties = properties.getTimer();
+    }
+
+    /**
+     * Put the drafts recovered from the journal back into the engine and restart the
+     * clock of those in progress.
+     */
+    @PostConstruct
+    public void recoverDrafts()
+    {
+        int seriesCount = 0;
+        for (final DraftSeries series : journal.takeRecoveredSeries())
+        {
+            draftEngine.restoreSeries(series);
+            seriesCount++;
+        }
+        if (seriesCount > 0)
+        {
+            log.info("Recovered {} series from the journal", seriesCount);
+        }
+        int count = 0;
+        for (final DraftState state : journal.takeRecoveredDrafts())
+        {
+            draftEngine.restore(state);
+            if (state.getStatus() == DraftStatus.IN_PROGRESS)
+            {
+                executor.execute(state.getDraftId(), () -> startTurnTimer(state));
+            }
+            count++;
+        }
+        if (count > 0)
+        {
+            log.info("Recovered {} drafts from the journal", count);
+        }
+    }
+
+    /**
+     * Create a draft.
+     *
+     * @param mode The draft mode
+     * @return The ID of the new draft
+     */
+    public String createDraft(final DraftMode mode)
+    {
+        final String draftId = draftEngine.create(mode).getDraftId();
+        try
+        {
+            journal.appendCreated(draftId, mode);
+        }
+        catch (RuntimeException e)
+        {
+            draftEngine.remove(draftId);
+            throw e;
+        }
+        return draftId;
+    }
+
+    /**
+     * Create a fearless series; its games are created one at a time with
+     * {@link #createSeriesGame(String)}.
+     *
+     * @param mode   {@link DraftMode#FEARLESS} or {@link DraftMode#FULL_FEARLESS}
+     * @param bestOf Number of games the series is played over at most
+     * @return The ID of the new series
+     * @throws IllegalArgumentException if the mode or length is not supported
+     */
+    public String createSeries(final DraftMode mode, final int bestOf)
+    {
+        final String seriesId = draftEngine.createSeries(mode, bestOf).getSeriesId();
+        try
+        {
+            journal.appendSeriesCreated(seriesId, mode, bestOf);
+        }
+        catch (RuntimeException e)
+        {
+            draftEngine.removeSeries(seriesId);
+            throw e;
+        }
+        return seriesId;
+    }
+
+    /**
+     * Create the next game of a series, with the champions locked by its earlier games
+     * unavailable.
+     *
+     * @param seriesId The series ID
+     * @return Future of the game's draft ID; fails with {@link IllegalStateException} while the previous game is
+     *         not completed or once the series is over
+     */
+    public CompletableFuture<String> createSeriesGame(final String seriesId)
+    {
+        // A previous game whose hand-over was rejected is checked on its own shard first
+        return executor
+                .submit(seriesId, () -> previousGame(series(seriesId)))
+                .thenCompose(previousId -> previousId == null
+                        ? CompletableFuture.<DraftState>completedFuture(null)
+                        : executor.submit(previousId, () -> completedGame(previousId)))
+                .thenCompose(previous -> executor.submit(seriesId, () -> createGame(seriesId, previous)));
+    }
+
+    /**
+     * End a series, e.g. once a side won the majority of its games. Its games are not affected.
+     *
+     * @param seriesId The series ID
+     * @return Future of whether the series was ended, false if it is unknown
+     */
+    public CompletableFuture<Boolean> endSeries(final String seriesId)
+    {
+        return executor.submit(
+                seriesId, () ->
+                {
+                    if (draftEngine.getSeries(seriesId) == null)
+                    {
+                        return false;
+                    }
+                    journal.appendSeriesRemoved(seriesId);
+                    draftEngine.removeSeries(seriesId);
+                    return true;
+                }
+        );
+    }
+
+    /**
+     * Start a draft.
+     *
+     * @param draftId The draft ID
+     * @return Future of whether the draft was started, false if it already was
+     */
+    public CompletableFuture<Boolean> startDraft(final String draftId)
+    {
+        return executor.submit(
+                draftId, () ->
+                {
+                    final DraftState state = draft(draftId);
+                    if (state.getStatus() != DraftStatus.CREATED)
+                    {
+                        return false;
+                    }
+                    journal.appendStarted(draftId);
+                    state.start();
+                    startTurnTimer(state);
+                    broadcaster.publish(state);
+                    return true;
+                }
+        );
+    }
+
+    /**
+     * Submit a pick or ban.
+     *
+     * @param draftId    The draft ID
+     * @param side       The side of the submitting captain
+     * @param type       Pick or ban
+     * @param championId Dense catalog ID of the champion
+     * @return Future of the outcome; fails with {@link IllegalArgumentException} for an unknown draft
+     */
+    public CompletableFuture<DraftActionResult> submitAction(
+            final String draftId, final DraftSide side, final DraftActionType type, final int championId)
+    {
+        return executor.submit(
+                draftId, () ->
+                {
+                    final DraftState state = draft(draftId);
+                    final DraftActionResult result = state.check(side, type, championId);
+                    if (result == DraftActionResult.APPLIED)
+                    {
+                        final int turn = state.getTurn();
+                        journal.appendAction(draftId, turn, championId);
+                        state.replay(championId);
+                        history.record(state, turn);
+                        startTurnTimer(state);
+                        completeSeriesGame(state);
+                        broadcaster.publish(state);
+                        evictIfCompleted(state);
+                    }
+                    return result;
+                }
+        );
+    }
+
+    /**
+     * Resolve a turn whose timer ran out. Expiries that lost the race against an action
+     * on the same turn are ignored.
+     *
+     * @param draftId    The draft ID
+     * @param turn       The turn the timer was started for
+     * @param searchFrom Champion ID to start the automatic pick search at
+     * @return Future of the champion chosen, {@link DraftState#NONE} for a skipped or stale turn
+     */
+    public CompletableFuture<Integer> expireTurn(final String draftId, final int turn, final int searchFrom)
+    {
+        return executor.submit(draftId, () -> timeOut(draft(draftId), turn, searchFrom));
+    }
+
+    /**
+     * Stop the clock of a draft's current turn; it keeps running from where it stopped
+     * once the draft is resumed. Subscribers get a {@code draft_timer_update}.
+     *
+     * @param draftId The draft ID
+     * @return Future of whether the draft was paused, false if it was not on the clock
+     */
+    public CompletableFuture<Boolean> pauseDraft(final String draftId)
+    {
+        return executor.submit(
+                draftId, () ->
+                {
+                    final DraftState state = draft(draftId);
+                    if (!timerWheel.pause(draftId))
+                    {
+                        return false;
+                    }
+                    state.pauseClock(timerWheel.getRemaining(draftId).toMillis());
+                    broadcaster.publishTimer(state);
+                    return true;
+                }
+        );
+    }
+
+    /**
+     * Restart the clock of a paused draft with the time that was left. Subscribers get a
+     * {@code draft_timer_update} with the new deadline.
+     *
+     * @param draftId The draft ID
+     * @return Future of whether the draft was resumed, false if it was not paused
+     */
+    public CompletableFuture<Boolean> resumeDraft(final String draftId)
+    {
+        return executor.submit(
+                draftId, () ->
+                {
+                    final DraftState state = draft(draftId);
+                    if (!timerWheel.resume(draftId))
+                    {
+                        return false;
+                    }
+                    state.startClock(System.currentTimeMillis() + timerWheel.getRemaining(draftId).toMillis());
+                    broadcaster.publishTimer(state);
+                    return true;
+                }
+        );
+    }
+
+    // Called on the draft's shard
+    private int timeOut(final DraftState state, final int turn, final int searchFrom)
+    {
+        final String draftId = state.getDraftId();
+        if (state.getTurn() != turn || state.getCurrentSide() == null)
+        {
+            log.debug("[DEBUG_LOG] Ignoring stale timer of draft {} turn {}", draftId, turn);
+            return DraftState.NONE;
+        }
+        final int championId = state.chooseOnTimeout(searchFrom);
+        journal.appendAction(draftId, turn, championId);
+        state.replay(championId);
+        history.record(state, turn);
+        startTurnTimer(state);
+        completeSeriesGame(state);
+        broadcaster.publish(state);
+        evictIfCompleted(state);
+        return championId;
+    }
+
+    // Called on the draft's shard after every change, before it is published
+    private void startTurnTimer(final DraftState state)
+    {
+        final String draftId = state.getDraftId();
+        if (state.getStatus() != DraftStatus.IN_PROGRESS)
+        {
+            timerWheel.cancel(draftId);
+            state.stopClock();
+            return;
+        }
+        final int turn = state.getTurn();
+        final Duration duration = state.getCurrentType() == DraftActionType.BAN
+                ? timerProperties.getBanDuration()
+                : timerProperties.getPickDuration();
+        timerWheel.schedule(
+                draftId, duration,
+                () -> timeOut(state, turn, ThreadLocalRandom.current().nextInt(state.getChampionCapacity()))
+        );
+        if (timerWheel.isPaused(draftId))
+        {
+            state.pauseClock(duration.toMillis());
+        }
+        else
+        {
+            state.startClock(System.currentTimeMillis() + duration.toMillis());
+        }
+    }
+
+    // Called on the game's shard; a completed game no longer changes, so the series' shard may read it
+    private void completeSeriesGame(final DraftState state)
+    {
+        final String seriesId = state.getSeriesId();
+        if (seriesId == null || state.getStatus() != DraftStatus.COMPLETED)
+        {
+            return;
+        }
+        try
+        {
+            executor.execute(
+                    seriesId, () ->
+                    {
+                        final DraftSeries series = draftEngine.getSeries(seriesId);
+                        if (series != null && series.isGameInProgress(state.getDraftId()))
+                        {
+                            series.completeGame(state);
+                        }
+                        evictLater(state.getDraftId());
+                    }
+            );
+        }
+        catch (RejectedExecutionException e)
+        {
+            log.warn(
+                    "Series {} is overloaded, game {} is completed when the next game is created", seriesId,
+                    state.getDraftId()
+            );
+        }
+    }
+
+    // Called on the series' shard
+    private String createGame(final String seriesId, final DraftState previous)
+    {
+        final DraftSeries series = series(seriesId);
+        if (previous != null && series.isGameInProgress(previous.getDraftId()))
+        {
+            series.completeGame(previous);
+            evictLater(previous.getDraftId());
+        }
+        final DraftState game = draftEngine.createGame(series);
+        try
+        {
+            journal.appendCreated(game.getDraftId(), series.getMode());
+            journal.appendSeriesGame(seriesId, game.getDraftId());
+        }
+        catch (RuntimeException e)
+        {
+            series.cancelGame(game.getDraftId());
+            draftEngine.remove(game.getDraftId());
+            throw e;
+        }
+        return game.getDraftId();
+    }
+
+    // Called on the draft's shard after the change was published; games of a series wait for their hand-over
+    private void evictIfCompleted(final DraftState state)
+    {
+        if (state.getStatus() == DraftStatus.COMPLETED && state.getSeriesId() == null)
+        {
+            evict(state.getDraftId());
+        }
+    }
+
+    // Called on the series' shard once it took over the game's champions
+    private void evictLater(final String draftId)
+    {
+        try
+        {
+            executor.execute(draftId, () -> evict(draftId));
+        }
+        catch (RejectedExecutionException e)
+        {
+            log.debug("[DEBUG_LOG] Could not evict completed game {}, it stays in memory until a restart", draftId);
+        }
+    }
+
+    // Called on the draft's shard
+    private void evict(final String draftId)
+    {
+        broadcaster.release(draftId);
+        draftEngine.remove(draftId);
+        try
+        {
+            journal.appendRemoved(draftId);
+        }
+        catch (RuntimeException e)
+        {
+            // Completed drafts are dropped with the next journal snapshot anyway
+            log.warn("Failed to journal the eviction of draft {}: {}", draftId, e.getMessage());
+        }
+    }
+
+    // Called on the series' shard; the game whose hand-over may have been rejected
+    private static String previousGame(final DraftSeries series)
+    {
+        return series.hasGameInProgress() ? series.getGames().getLast() : null;
+    }
+
+    // Called on the game's shard; once completed, the game no longer changes and may be handed over
+    private DraftState completedGame(final String draftId)
+    {
+        final DraftState game = draftEngine.get(draftId);
+        return game != null && game.getStatus() == DraftStatus.COMPLETED ? game : null;
+    }
+
+    private DraftSeries series(final String seriesId)
+    {
+        final DraftSeries series = draftEngine.getSeries(seriesId);
+        if (series == null)
+        {
+            throw new IllegalArgumentException("Unknown series: " + seriesId);
+        }
+        return series;
+    }
+
+    private DraftState draft(final String draftId)
+    {
+        final DraftState state = draftEngine.get(draftId);
+        if (state == null)
+        {
+            throw new IllegalArgumentException("Unknown draft: " + draftId);
+        }
+        return state;
+    }
+
+}
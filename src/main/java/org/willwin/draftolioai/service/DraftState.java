@@ -0,0 +1,417 @@
+package org.willwin.draftolioai.service;
+
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftPhase;
+import org.willwin.draftolioai.dto.DraftSide;
+import org.willwin.draftolioai.dto.DraftStatus;
+
+import java.util.Arrays;
+
+/**
+ * Compact in-memory state of one draft.
+ * <p>
+ * Unavailable champions are a bitset over dense catalog IDs, picks and bans are
+ * {@code short} arrays indexed by side and slot, and the turn order is the shared
+ * {@link DraftTurnOrder} table of the mode. Checking and applying an action are a
+ * handful of array reads and writes: constant time and allocation-free. A tournament
+ * draft over a 256 champion catalog occupies well under 200 bytes besides its ID.
+ * <p>
+ * The clock of the current turn is kept alongside for the frames sent to clients. It is
+ * set by the caller and reset by every action, and is not part of the journaled state.
+ * <p>
+ * A game of a fearless series starts with the champions locked by the earlier games of
+ * its {@link DraftSeries} already in its bitset, so availability checks stay a single bit
+ * test and never look at the other games.
+ * <p>
+ * Instances are not thread-safe; all mutations of a draft must be serialized by the caller.
+ */
+public final class DraftState
+{
+
+    /**
+     * Champion ID of an empty or skipped slot
+     */
+    public static final short NONE = -1;
+
+    private static final int SLOTS = DraftTurnOrder.SLOTS_PER_SIDE;
+
+    private final String draftId;
+
+    private final DraftMode mode;
+
+    private final DraftTurnOrder order;
+
+    private final int championCapacity;
+
+    private final long[] unavailable;
+
+    private final short[] picks;
+
+    private final short[] bans;
+
+    private DraftStatus status;
+
+    private int turn;
+
+    private long version;
+
+    private long turnDeadline;
+
+    private long pausedRemaining;
+
+    private String seriesId;
+
+    /**
+     * @param draftId          The draft ID
+     * @param mode             The draft mode
+     * @param championCapacity Upper bound of the champion IDs
+     */
+    public DraftState(final String draftId, final DraftMode mode, final int championCapacity)
+    {
+        this.draftId = draftId;
+        this.mode = mode;
+        this.order = DraftTurnOrder.forMode(mode);
+        this.championCapacity = championCapacity;
+        this.unavailable = new long[(championCapacity + 63) >>> 6];
+        this.picks = new short[2 * SLOTS];
+        this.bans = new short[2 * SLOTS];
+        Arrays.fill(picks, NONE);
+        Arrays.fill(bans, NONE);
+        this.status = DraftStatus.CREATED;
+        this.pausedRemaining = -1;
+    }
+
+    /**
+     * Start the draft, putting the first turn on the clock.
+     *
+     * @return False if the draft was already started
+     */
+    public boolean start()
+    {
+        if (status != DraftStatus.CREATED)
+        {
+            return false;
+        }
+        status = DraftStatus.IN_PROGRESS;
+        version++;
+        return true;
+    }
+
+    /**
+     * Check whether an action would be legal, without applying it.
+     *
+     * @param side       The acting side
+     * @param type       Pick or ban
+     * @param championId Dense catalog ID of the champion
+     * @return {@link DraftActionResult#APPLIED} if legal, otherwise the reason it is not
+     */
+    public DraftActionResult check(final DraftSide side, final DraftActionType type, final int championId)
+    {
+        if (status != DraftStatus.IN_PROGRESS)
+        {
+            return DraftActionResult.NOT_IN_PROGRESS;
+        }
+        if (order.side(turn) != side)
+        {
+            return DraftActionResult.NOT_YOUR_TURN;
+        }
+        if (order.type(turn) != type)
+        {
+            return DraftActionResult.WRONG_ACTION;
+        }
+        if (championId < 0 || championId >= championCapacity)
+        {
+            return DraftActionResult.UNKNOWN_CHAMPION;
+        }
+        if (!isAvailable(championId))
+        {
+            return DraftActionResult.UNAVAILABLE;
+        }
+        return DraftActionResult.APPLIED;
+    }
+
+    /**
+     * Apply an action if it is legal and advance to the next turn.
+     *
+     * @param side       The acting side
+     * @param type       Pick or ban
+     * @param championId Dense catalog ID of the champion
+     * @return {@link DraftActionResult#APPLIED}, or the reason the action was rejected
+     */
+    public DraftActionResult apply(final DraftSide side, final DraftActionType type, final int championId)
+    {
+        final DraftActionResult result = check(side, type, championId);
+        if (result == DraftActionResult.APPLIED)
+        {
+            unavailable[championId >>> 6] |= 1L << championId;
+            record((short) championId);
+        }
+        return result;
+    }
+
+    /**
+     * Resolve the current turn after its timer ran out: a ban is skipped, a pick takes the
+     * first available champion at or after {@code searchFrom}, wrapping around the catalog.
+     *
+     * @param searchFrom Champion ID to start the search at, e.g. a random one
+     * @return The champion picked, or {@link #NONE} for a skipped turn
+     * @throws IllegalStateException if the draft is not in progress
+     */
+    public int applyTimeout(final int searchFrom)
+    {
+        final int championId = chooseOnTimeout(searchFrom);
+        replay(championId);
+        return championId;
+    }
+
+    /**
+     * Determine what {@link #applyTimeout(int)} would choose, without applying it.
+     *
+     * @param searchFrom Champion ID to start the search at
+     * @return The champion that would be picked, or {@link #NONE} if the turn would be skipped
+     * @throws IllegalStateException if the draft is not in progress
+     */
+    public int chooseOnTimeout(final int searchFrom)
+    {
+        if (status != DraftStatus.IN_PROGRESS)
+        {
+            throw new IllegalStateException("Draft " + draftId + " is not in progress");
+        }
+        if (order.type(turn) == DraftActionType.BAN)
+        {
+            return NONE;
+        }
+        return nextAvailable(Math.floorMod(searchFrom, championCapacity));
+    }
+
+    /**
+     * Apply an already validated choice to the current turn and advance, e.g. when
+     * rebuilding a draft from its journal.
+     *
+     * @param championId Dense catalog ID of the champion, or {@link #NONE} to skip the turn
+     * @throws IllegalStateException if the draft is not in progress
+     */
+    public void replay(final int championId)
+    {
+        if (status != DraftStatus.IN_PROGRESS)
+        {
+            throw new IllegalStateException("Draft " + draftId + " is not in progress");
+        }
+        if (championId != NONE)
+        {
+            unavailable[championId >>> 6] |= 1L << championId;
+        }
+        record((short) championId);
+    }
+
+    /**
+     * Make the draft a game of a series, with the champions the series has locked so far
+     * unavailable. Called when the game is created, and again when it is recovered.
+     *
+     * @param seriesId The series ID
+     * @param locked   Bitset of the locked champions, as many words as this draft's bitset
+     */
+    void joinSeries(final String seriesId, final long[] locked)
+    {
+        this.seriesId = seriesId;
+        for (int word = 0; word < unavailable.length; word++)
+        {
+            unavailable[word] |= locked[word];
+        }
+    }
+
+    /**
+     * Put the current turn on the clock.
+     *
+     * @param deadline Epoch millisecond at which the turn runs out
+     */
+    public void startClock(final long deadline)
+    {
+        turnDeadline = deadline;
+        pausedRemaining = -1;
+    }
+
+    /**
+     * Stop the clock of the current turn.
+     *
+     * @param remaining Milliseconds left on the turn
+     */
+    public void pauseClock(final long remaining)
+    {
+        turnDeadline = 0;
+        pausedRemaining = remaining;
+    }
+
+    /**
+     * Take the current turn off the clock.
+     */
+    public void stopClock()
+    {
+        turnDeadline = 0;
+        pausedRemaining = -1;
+    }
+
+    /**
+     * @return Epoch millisecond at which the current turn runs out, 0 if its clock is not running
+     */
+    public long getTurnDeadline()
+    {
+        return turnDeadline;
+    }
+
+    /**
+     * @return Milliseconds left on the current turn while its clock is paused, -1 otherwise
+     */
+    public long getPausedRemaining()
+    {
+        return pausedRemaining;
+    }
+
+    /**
+     * @param championId Dense catalog ID of the champion
+     * @return Whether the champion can still be picked or banned
+     */
+    public boolean isAvailable(final int championId)
+    {
+        return (unavailable[championId >>> 6] & 1L << championId) == 0;
+    }
+
+    /**
+     * @param side The side
+     * @param slot Pick index of the side, 0 to 4
+     * @return The champion picked, or {@link #NONE}
+     */
+    public int getPick(final DraftSide side, final int slot)
+    {
+        return picks[side.ordinal() * SLOTS + slot];
+    }
+
+    /**
+     * @param side The side
+     * @param slot Ban index of the side, 0 to 4
+     * @return The champion banned, or {@link #NONE}
+     */
+    public int getBan(final DraftSide side, final int slot)
+    {
+        return bans[side.ordinal() * SLOTS + slot];
+    }
+
+    /**
+     * @param turn A completed turn
+     * @return The champion chosen on the turn, or {@link #NONE} if it was skipped
+     */
+    public int getChampionAt(final int turn)
+    {
+        final short[] actions = order.type(turn) == DraftActionType.PICK ? picks : bans;
+        return actions[order.side(turn).ordinal() * SLOTS + order.slot(turn)];
+    }
+
+    /**
+     * @return The side on turn, or null when the draft is not in progress
+     */
+    public DraftSide getCurrentSide()
+    {
+        return status == DraftStatus.IN_PROGRESS ? order.side(turn) : null;
+    }
+
+    /**
+     * @return The action of the current turn, or null when the draft is not in progress
+     */
+    public DraftActionType getCurrentType()
+    {
+        return status == DraftStatus.IN_PROGRESS ? order.type(turn) : null;
+    }
+
+    /**
+     * @return The current phase, or null when the draft is not in progress
+     */
+    public DraftPhase getCurrentPhase()
+    {
+        return status == DraftStatus.IN_PROGRESS ? order.phase(turn) : null;
+    }
+
+    public String getDraftId()
+    {
+        return draftId;
+    }
+
+    public DraftMode getMode()
+    {
+        return mode;
+    }
+
+    public DraftTurnOrder getOrder()
+    {
+        return order;
+    }
+
+    public DraftStatus getStatus()
+    {
+        return status;
+    }
+
+    /**
+     * @return Index of the current turn, the number of turns taken so far
+     */
+    public int getTurn()
+    {
+        return turn;
+    }
+
+    /**
+     * @return Number of changes applied to the draft, incremented by every start and action
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public int getChampionCapacity()
+    {
+        return championCapacity;
+    }
+
+    /**
+     * @return The series the draft is a game of, or null for a single game
+     */
+    public String getSeriesId()
+    {
+        return seriesId;
+    }
+
+    private void record(final short championId)
+    {
+        final short[] actions = order.type(turn) == DraftActionType.PICK ? picks : bans;
+        actions[order.side(turn).ordinal() * SLOTS + order.slot(turn)] = championId;
+        turn++;
+        version++;
+        stopClock();
+        if (turn == order.size())
+        {
+            status = DraftStatus.COMPLETED;
+        }
+    }
+
+    private int nextAvailable(final int from)
+    {
+        final int words = unavailable.length;
+        int word = from >>> 6;
+        long free = ~unavailable[word] & -1L << from;
+        for (int scanned = 0; scanned <= words; scanned++)
+        {
+            if (free != 0)
+            {
+                final int championId = (word << 6) + Long.numberOfTrailingZeros(free);
+                if (championId < championCapacity)
+                {
+                    return championId;
+                }
+            }
+            word = word + 1 == words ? 0 : word + 1;
+            free = ~unavailable[word];
+        }
+        return NONE;
+    }
+
+}
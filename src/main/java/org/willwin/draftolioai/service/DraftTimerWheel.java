@@ -0,0 +1,503 @@
+package org.willwin.draftolioai.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.willwin.draftolioai.config.DraftProperties;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed hierarchical timing wheel for the turn timers of drafts.
+ * <p>
+ * Deadlines are rounded up to whole ticks and hashed into the slots of a stack of wheels,
+ * each slot of a wheel spanning a full turn of the wheel below: with 512 slots of 10 ms,
+ * the wheels span 5 seconds, 43 minutes, 15 days and 21 years. Slots are intrusive doubly
+ * linked lists, so scheduling and cancelling a timer take constant time however many
+ * drafts are running. A single ticker thread advances the wheels, expires the timers of
+ * the current slot and moves the timers of a higher slot down once its span comes due,
+ * which touches each timer at most once per wheel.
+ * <p>
+ * Only the ticker touches the wheels: new and cancelled timers are handed to it through
+ * lock-free queues and take effect on its next tick. Expired timers run on the draft's
+ * shard of the {@link DraftCommandExecutor}, in order with the draft's other commands.
+ * <p>
+ * A draft has at most one timer, the one of its current turn, and the per-draft methods
+ * must be called on the draft's shard. A timer replaced, cancelled or paused there after
+ * the ticker expired it is dropped when its expiry reaches the shard. A paused draft
+ * keeps the remaining time of its timer until it is resumed.
+ * <p>
+ * Timers running and paused are published as {@code draft.timer.active} and
+ * {@code draft.timer.paused}, expiries as {@code draft.timer.expired}.
+ */
+@Slf4j
+@Service
+public class DraftTimerWheel implements MeterBinder
+{
+
+    private static final int LEVELS = 4;
+
+    private static final int WAITING = 0;
+
+    private static final int CANCELLED = 1;
+
+    private static final int EXPIRED = 2;
+
+    private final DraftCommandExecutor executor;
+
+    private final long tickNanos;
+
+    private final int slotBits;
+
+    private final int mask;
+
+    private final Bucket[][] wheels;
+
+    private final Queue<Timeout> added;
+
+    private final Queue<Timeout> cancelled;
+
+    // Entries of a draft are only changed on the draft's shard
+    private final ConcurrentMap<String, Timeout> timers;
+
+    private final ConcurrentMap<String, Paused> paused;
+
+    private final LongAdder expired;
+
+    private final long startNanos;
+
+    private final Thread ticker;
+
+    // Index of the next tick to process; ticker only
+    private long tick;
+
+    private volatile boolean running;
+
+    public DraftTimerWheel(final DraftCommandExecutor executor, final DraftProperties properties)
+    {
+        final DraftProperties.Timer timer = properties.getTimer();
+        this.executor = executor;
+        this.tickNanos = Math.max(1, timer.getTickDuration().toNanos());
+        this.slotBits = 32 - Integer.numberOfLeadingZeros(timer.getWheelSize() - 1);
+        this.mask = (1 << slotBits) - 1;
+        this.wheels = new Bucket[LEVELS][1 << slotBits];
+        for (final Bucket[] wheel : wheels)
+        {
+            for (int slot = 0; slot < wheel.length; slot++)
+            {
+                wheel[slot] = new Bucket();
+            }
+        }
+        this.added = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.timers = new ConcurrentHashMap<>();
+        this.paused = new ConcurrentHashMap<>();
+        this.expired = new LongAdder();
+        this.running = true;
+        this.startNanos = System.nanoTime();
+        this.ticker = Thread.ofPlatform().name("draft-timer").daemon().start(this::run);
+    }
+
+    /**
+     * Start the draft's timer, replacing its previous one. While the draft is paused, the
+     * timer only starts once it is resumed. Must be called on the draft's shard.
+     *
+     * @param draftId The draft ID
+     * @param delay   Time until the timer expires
+     * @param task    Run on the draft's shard when the timer expires
+     */
+    public void schedule(final String draftId, final Duration delay, final Runnable task)
+    {
+        schedule(draftId, Math.max(0, delay.toNanos()), task);
+    }
+
+    /**
+     * Cancel the draft's timer, running or paused. Must be called on the draft's shard.
+     *
+     * @param draftId The draft ID
+     * @return Whether the draft had a timer
+     */
+    public boolean cancel(final String draftId)
+    {
+        final Timeout timeout = timers.remove(draftId);
+        cancel(timeout);
+        return paused.remove(draftId) != null || timeout != null;
+    }
+
+    /**
+     * Stop the draft's clock, keeping the remaining time of its timer. Must be called on the
+     * draft's shard.
+     *
+     * @param draftId The draft ID
+     * @return False if the draft has no running timer
+     */
+    public boolean pause(final String draftId)
+    {
+        final Timeout timeout = timers.remove(draftId);
+        if (timeout == null)
+        {
+            return false;
+        }
+        cancel(timeout);
+        paused.put(draftId, new Paused(Math.max(0, timeout.deadlineNanos - System.nanoTime()), timeout.task));
+        return true;
+    }
+
+    /**
+     * Restart the draft's clock with the time that was left when it was paused. Must be
+     * called on the draft's shard.
+     *
+     * @param draftId The draft ID
+     * @return False if the draft is not paused
+     */
+    public boolean resume(final String draftId)
+    {
+        final Paused timer = paused.remove(draftId);
+        if (timer == null)
+        {
+            return false;
+        }
+        schedule(draftId, timer.remainingNanos, timer.task);
+        return true;
+    }
+
+    /**
+     * @param draftId The draft ID
+     * @return Whether the draft's clock is paused
+     */
+    public boolean isPaused(final String draftId)
+    {
+        return paused.containsKey(draftId);
+    }
+
+    /**
+     * @param draftId The draft ID
+     * @return Time left on the draft's timer, running or paused, or null if it has none
+     */
+    public Duration getRemaining(final String draftId)
+    {
+        final Timeout timeout = timers.get(draftId);
+        if (timeout != null)
+        {
+            return Duration.ofNanos(Math.max(0, timeout.deadlineNanos - System.nanoTime()));
+        }
+        final Paused timer = paused.get(draftId);
+        return timer == null ? null : Duration.ofNanos(timer.remainingNanos);
+    }
+
+    /**
+     * @return Number of running timers
+     */
+    public int getActiveCount()
+    {
+        return timers.size();
+    }
+
+    /**
+     * Stop the ticker; timers that have not expired yet are dropped.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        running = false;
+        LockSupport.unpark(ticker);
+        try
+        {
+            ticker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry)
+    {
+        Gauge
+                .builder("draft.timer.active", timers, Map::size)
+                .description("Running draft turn timers")
+                .register(registry);
+        Gauge
+                .builder("draft.timer.paused", paused, Map::size)
+                .description("Paused draft turn timers")
+                .register(registry);
+        FunctionCounter
+                .builder("draft.timer.expired", expired, LongAdder::sum)
+                .description("Draft turn timers that ran out")
+                .register(registry);
+    }
+
+    private void schedule(final String draftId, final long delayNanos, final Runnable task)
+    {
+        if (paused.containsKey(draftId))
+        {
+            paused.put(draftId, new Paused(delayNanos, task));
+            return;
+        }
+        final Timeout timeout = new Timeout(draftId, task, System.nanoTime() + delayNanos);
+        cancel(timers.put(draftId, timeout));
+        added.add(timeout);
+    }
+
+    private void cancel(final Timeout timeout)
+    {
+        if (timeout != null && timeout.state.compareAndSet(WAITING, CANCELLED))
+        {
+            cancelled.add(timeout);
+        }
+    }
+
+    // Called on the draft's shard
+    private void fire(final Timeout timeout)
+    {
+        if (timers.remove(timeout.draftId, timeout))
+        {
+            expired.increment();
+            timeout.task.run();
+        }
+    }
+
+    private void run()
+    {
+        while (running)
+        {
+            final long waitNanos = startNanos + tick * tickNanos - System.nanoTime();
+            if (waitNanos > 0)
+            {
+                LockSupport.parkNanos(this, waitNanos);
+                continue;
+            }
+            try
+            {
+                addTimeouts();
+                removeCancelled();
+                advance();
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Draft timer tick {} failed", tick, e);
+            }
+        }
+    }
+
+    private void addTimeouts()
+    {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null)
+        {
+            if (timeout.state.get() == WAITING)
+            {
+                final long delayNanos = timeout.deadlineNanos - startNanos;
+                timeout.deadlineTick = delayNanos <= 0 ? 0 : (delayNanos + tickNanos - 1) / tickNanos;
+                place(timeout);
+            }
+        }
+    }
+
+    private void removeCancelled()
+    {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null)
+        {
+            if (timeout.bucket != null)
+            {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void advance()
+    {
+        // Higher wheels first, so timers moved down into a lower wheel's current slot still expire this tick
+        for (int level = LEVELS - 1; level > 0; level--)
+        {
+            final int shift = slotBits * level;
+            if ((tick & (1L << shift) - 1) == 0)
+            {
+                Timeout timeout = wheels[level][(int) (tick >>> shift) & mask].clear();
+                while (timeout != null)
+                {
+                    final Timeout next = timeout.detach();
+                    if (timeout.state.get() == WAITING)
+                    {
+                        place(timeout);
+                    }
+                    timeout = next;
+                }
+            }
+        }
+
+        Timeout timeout = wheels[0][(int) tick & mask].clear();
+        while (timeout != null)
+        {
+            final Timeout next = timeout.detach();
+            expire(timeout);
+            timeout = next;
+        }
+        tick++;
+    }
+
+    private void place(final Timeout timeout)
+    {
+        long deadlineTick = Math.max(timeout.deadlineTick, tick);
+        if ((deadlineTick - tick) >>> slotBits * LEVELS != 0)
+        {
+            // Beyond the top wheel: park in its farthest slot and place again when that comes due
+            deadlineTick = tick + (1L << slotBits * LEVELS) - 1;
+        }
+        final long delta = deadlineTick - tick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >>> slotBits * (level + 1) != 0)
+        {
+            level++;
+        }
+        wheels[level][(int) (deadlineTick >>> slotBits * level) & mask].add(timeout);
+    }
+
+    private void expire(final Timeout timeout)
+    {
+        if (!timeout.state.compareAndSet(WAITING, EXPIRED))
+        {
+            return;
+        }
+        try
+        {
+            executor.execute(timeout.draftId, () -> fire(timeout));
+        }
+        catch (RejectedExecutionException e)
+        {
+            if (running)
+            {
+                log.debug("[DEBUG_LOG] Shard of draft {} is full, retrying its timer", timeout.draftId);
+                timeout.state.set(WAITING);
+                timeout.deadlineTick = tick + 1;
+                place(timeout);
+            }
+        }
+    }
+
+    /**
+     * A scheduled timer, linked into a slot of one of the wheels.
+     */
+    private static final class Timeout
+    {
+
+        private final String draftId;
+
+        private final Runnable task;
+
+        private final long deadlineNanos;
+
+        private final AtomicInteger state;
+
+        // Fields below are ticker only
+        private long deadlineTick;
+
+        private Bucket bucket;
+
+        private Timeout prev;
+
+        private Timeout next;
+
+        private Timeout(final String draftId, final Runnable task, final long deadlineNanos)
+        {
+            this.draftId = draftId;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+            this.state = new AtomicInteger(WAITING);
+        }
+
+        // Unlink from a bucket that was cleared, returning the following timer
+        private Timeout detach()
+        {
+            final Timeout following = next;
+            prev = null;
+            next = null;
+            bucket = null;
+            return following;
+        }
+
+    }
+
+    /**
+     * One slot of a wheel: a doubly linked list of timers.
+     */
+    private static final class Bucket
+    {
+
+        private Timeout head;
+
+        private Timeout tail;
+
+        private void add(final Timeout timeout)
+        {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null)
+            {
+                head = timeout;
+            }
+            else
+            {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void remove(final Timeout timeout)
+        {
+            if (timeout.prev == null)
+            {
+                head = timeout.next;
+            }
+            else
+            {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null)
+            {
+                tail = timeout.prev;
+            }
+            else
+            {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.detach();
+        }
+
+        // Empty the slot, returning its first timer; the timers stay linked to each other
+        private Timeout clear()
+        {
+            final Timeout first = head;
+            head = null;
+            tail = null;
+            return first;
+        }
+
+    }
+
+    /**
+     * The remaining time and task of a paused draft's timer.
+     */
+    private record Paused(long remainingNanos, Runnable task)
+    {
+
+    }
+
+}
@@ -0,0 +1,168 @@
+package org.willwin.draftolioai.service;
+
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftPhase;
+import org.willwin.draftolioai.dto.DraftSide;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Precompiled turn order of a draft mode.
+ * <p>
+ * Each turn is described by parallel byte arrays: the side to act, whether it picks or
+ * bans, the phase, and the slot the action fills in that side's picks or bans. Lookups
+ * are plain array reads returning cached enum constants. Tables are built once per mode
+ * and shared by every draft of the mode.
+ */
+public final class DraftTurnOrder
+{
+
+    /**
+     * Picks or bans per side
+     */
+    public static final int SLOTS_PER_SIDE = 5;
+
+    private static final DraftSide[] SIDES = DraftSide.values();
+
+    private static final DraftActionType[] TYPES = DraftActionType.values();
+
+    private static final DraftPhase[] PHASES = DraftPhase.values();
+
+    private static final Map<DraftMode, DraftTurnOrder> BY_MODE = new EnumMap<>(DraftMode.class);
+
+    static
+    {
+        // The standard competitive order; fearless modes differ only in champion availability
+        final DraftTurnOrder standard = new Builder()
+                .phase(DraftPhase.BAN_PHASE_1, DraftActionType.BAN, "BRBRBR")
+                .phase(DraftPhase.PICK_PHASE_1, DraftActionType.PICK, "BRRBBR")
+                .phase(DraftPhase.BAN_PHASE_2, DraftActionType.BAN, "RBRB")
+                .phase(DraftPhase.PICK_PHASE_2, DraftActionType.PICK, "RBBR")
+                .build();
+        for (final DraftMode mode : DraftMode.values())
+        {
+            BY_MODE.put(mode, standard);
+        }
+    }
+
+    private final byte[] sides;
+
+    private final byte[] types;
+
+    private final byte[] phases;
+
+    private final byte[] slots;
+
+    private DraftTurnOrder(final byte[] sides, final byte[] types, final byte[] phases, final byte[] slots)
+    {
+        this.sides = sides;
+        this.types = types;
+        this.phases = phases;
+        this.slots = slots;
+    }
+
+    /**
+     * @param mode The draft mode
+     * @return The turn order of the mode
+     */
+    public static DraftTurnOrder forMode(final DraftMode mode)
+    {
+        return BY_MODE.get(mode);
+    }
+
+    /**
+     * @return Number of turns in a draft
+     */
+    public int size()
+    {
+        return sides.length;
+    }
+
+    /**
+     * @param turn Turn index
+     * @return The side acting on the turn
+     */
+    public DraftSide side(final int turn)
+    {
+        return SIDES[sides[turn]];
+    }
+
+    /**
+     * @param turn Turn index
+     * @return Whether the turn is a pick or a ban
+     */
+    public DraftActionType type(final int turn)
+    {
+        return TYPES[types[turn]];
+    }
+
+    /**
+     * @param turn Turn index
+     * @return The phase the turn belongs to
+     */
+    public DraftPhase phase(final int turn)
+    {
+        return PHASES[phases[turn]];
+    }
+
+    /**
+     * @param turn Turn index
+     * @return Index of the turn's action among its side's picks or bans
+     */
+    public int slot(final int turn)
+    {
+        return slots[turn];
+    }
+
+    private static final class Builder
+    {
+
+        private final StringBuilder sides = new StringBuilder();
+
+        private final StringBuilder types = new StringBuilder();
+
+        private final StringBuilder phases = new StringBuilder();
+
+        /**
+         * @param phase Phase of the turns
+         * @param type  Action of every turn in the phase
+         * @param order Acting side per turn, {@code B} or {@code R}
+         */
+        Builder phase(final DraftPhase phase, final DraftActionType type, final String order)
+        {
+            for (int i = 0; i < order.length(); i++)
+            {
+                sides.append((char) (order.charAt(i) == 'B' ? DraftSide.BLUE.ordinal() : DraftSide.RED.ordinal()));
+                types.append((char) type.ordinal());
+                phases.append((char) phase.ordinal());
+            }
+            return this;
+        }
+
+        DraftTurnOrder build()
+        {
+            final int size = sides.length();
+            final byte[] sideTable = new byte[size];
+            final byte[] typeTable = new byte[size];
+            final byte[] phaseTable = new byte[size];
+            final byte[] slotTable = new byte[size];
+            final int[][] used = new int[SIDES.length][TYPES.length];
+            for (int turn = 0; turn < size; turn++)
+            {
+                sideTable[turn] = (byte) sides.charAt(turn);
+                typeTable[turn] = (byte) types.charAt(turn);
+                phaseTable[turn] = (byte) phases.charAt(turn);
+                slotTable[turn] = (byte) used[sideTable[turn]][typeTable[turn]]++;
+                if (slotTable[turn] >= SLOTS_PER_SIDE)
+                {
+                    throw new IllegalStateException("More than " + SLOTS_PER_SIDE + " actions of a kind per side");
+                }
+            }
+            return new DraftTurnOrder(sideTable, typeTable, phaseTable, slotTable);
+        }
+
+    }
+
+}
@@ -0,0 +1,238 @@
+package org.willwin.draftolioai.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.willwin.draftolioai.config.RsoProperties;
+import org.willwin.draftolioai.dto.RsoUserInfo;
+
+import java.security.Key;
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Verifies RSO ID tokens locally against the RSO JWKS.
+ * <p>
+ * The JWKS is fetched lazily and cached for {@link RsoProperties.Tokens#getJwksCacheTtl()}.
+ * When a token is signed with an unknown key ID the JWKS is fetched again, at most once
+ * per {@link RsoProperties.Tokens#getJwksRefreshRateLimit()}, so that key rotation is
+ * picked up without letting forged key IDs hammer the RSO endpoint.
+ * <p>
+ * The time claims are checked with {@link RsoProperties.Tokens#getIdTokenClockSkew()} of
+ * leeway either way: the token must not be expired, not be used before {@code nbf}, and
+ * carry an {@code iat} that is not in the future.
+ */
+@Slf4j
+@Service
+public class IdTokenVerifier
+{
+
+    private static final String CPID_CLAIM = "cpid";
+
+    private final RsoProperties rsoProperties;
+
+    private final Supplier<String> jwksLoader;
+
+    private final DefaultJWSVerifierFactory verifierFactory;
+
+    private final Object refreshLock;
+
+    private volatile JWKSet jwkSet;
+
+    private volatile long lastFetchMillis;
+
+    @Autowired
+    public IdTokenVerifier(final RsoProperties rsoProperties, final WebClient.Builder webClientBuilder)
+    {
+        this(rsoProperties, createJwksLoader(rsoProperties, webClientBuilder));
+    }
+
+    IdTokenVerifier(final RsoProperties rsoProperties, final Supplier<String> jwksLoader)
+    {
+        this.rsoProperties = rsoProperties;
+        this.jwksLoader = jwksLoader;
+        this.verifierFactory = new DefaultJWSVerifierFactory();
+        this.refreshLock = new Object();
+    }
+
+    /**
+     * Verify an ID token and extract the user identity from its claims.
+     *
+     * @param idToken The ID token from the token response
+     * @return User information if the token is valid and carries both {@code sub} and {@code cpid},
+     * otherwise empty
+     */
+    public Optional<RsoUserInfo> verify(final String idToken)
+    {
+        if (idToken == null || idToken.isBlank())
+        {
+            return Optional.empty();
+        }
+
+        try
+        {
+            final SignedJWT jwt = SignedJWT.parse(idToken);
+            final JWK jwk = findKey(jwt.getHeader().getKeyID());
+            if (jwk == null)
+            {
+                log.warn("No JWKS key found for ID token key ID: {}", jwt.getHeader().getKeyID());
+                return Optional.empty();
+            }
+
+            final JWSVerifier verifier = verifierFactory.createJWSVerifier(jwt.getHeader(), toPublicKey(jwk));
+            if (!jwt.verify(verifier))
+            {
+                log.warn("ID token signature verification failed");
+                return Optional.empty();
+            }
+
+            return extractUserInfo(jwt.getJWTClaimsSet());
+        }
+        catch (ParseException | JOSEException e)
+        {
+            log.debug("ID token could not be verified: {}", e.getMessage());
+            return Optional.empty();
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Failed to fetch RSO JWKS", e);
+            return Optional.empty();
+        }
+    }
+
+    private Optional<RsoUserInfo> extractUserInfo(final JWTClaimsSet claims) throws ParseException
+    {
+        final long nowMillis = System.currentTimeMillis();
+        final long skewMillis = rsoProperties.getTokens().getIdTokenClockSkew().toMillis();
+        final Date expiration = claims.getExpirationTime();
+        if (expiration == null || expiration.getTime() + skewMillis < nowMillis)
+        {
+            log.warn("ID token is expired");
+            return Optional.empty();
+        }
+
+        final Date notBefore = claims.getNotBeforeTime();
+        if (notBefore != null && notBefore.getTime() - skewMillis > nowMillis)
+        {
+            log.warn("ID token is not valid yet");
+            return Optional.empty();
+        }
+
+        final Date issuedAt = claims.getIssueTime();
+        if (issuedAt == null || issuedAt.getTime() - skewMillis > nowMillis)
+        {
+            log.warn("ID token has no or a future issue time");
+            return Optional.empty();
+        }
+
+        if (!rsoProperties.getEndpoints().getBaseUrl().equals(claims.getIssuer()))
+        {
+            log.warn("ID token issuer mismatch: {}", claims.getIssuer());
+            return Optional.empty();
+        }
+
+        if (claims.getAudience() == null || !claims.getAudience().contains(rsoProperties.getClient().getClientId()))
+        {
+            log.warn("ID token audience does not contain client ID");
+            return Optional.empty();
+        }
+
+        final String subject = claims.getSubject();
+        final String cpid = claims.getStringClaim(CPID_CLAIM);
+        if (subject == null || cpid == null)
+        {
+            log.debug("ID token is missing sub or cpid claim");
+            return Optional.empty();
+        }
+
+        return Optional.of(new RsoUserInfo(subject, cpid));
+    }
+
+    private JWK findKey(final String keyId) throws ParseException
+    {
+        final RsoProperties.Tokens tokens = rsoProperties.getTokens();
+        final long rateLimitMillis = tokens.getJwksRefreshRateLimit().toMillis();
+        JWKSet current = jwkSet;
+        if (current == null || System.currentTimeMillis() - lastFetchMillis > tokens.getJwksCacheTtl().toMillis())
+        {
+            current = refresh(rateLimitMillis);
+        }
+        if (current == null)
+        {
+            return null;
+        }
+
+        JWK jwk = keyId != null ? current.getKeyByKeyId(keyId) : singleKey(current);
+        if (jwk == null && keyId != null)
+        {
+            // Unknown key ID, RSO may have rotated its signing keys
+            current = refresh(rateLimitMillis);
+            jwk = current != null ? current.getKeyByKeyId(keyId) : null;
+        }
+        return jwk;
+    }
+
+    private JWKSet refresh(final long minIntervalMillis) throws ParseException
+    {
+        synchronized (refreshLock)
+        {
+            final JWKSet current = jwkSet;
+            if (lastFetchMillis != 0 && System.currentTimeMillis() - lastFetchMillis < minIntervalMillis)
+            {
+                return current;
+            }
+
+            // Stamp the attempt first so a failing endpoint is also rate limited
+            lastFetchMillis = System.currentTimeMillis();
+            final JWKSet fetched = JWKSet.parse(jwksLoader.get());
+            jwkSet = fetched;
+            log.debug("Fetched RSO JWKS with {} key(s)", fetched.getKeys().size());
+            return fetched;
+        }
+    }
+
+    private static JWK singleKey(final JWKSet set)
+    {
+        return set.getKeys().size() == 1 ? set.getKeys().getFirst() : null;
+    }
+
+    private static Key toPublicKey(final JWK jwk) throws JOSEException
+    {
+        return switch (jwk)
+        {
+            case RSAKey rsaKey -> rsaKey.toRSAPublicKey();
+            case ECKey ecKey -> ecKey.toECPublicKey();
+            default -> throw new JOSEException("Unsupported JWK type: " + jwk.getKeyType());
+        };
+    }
+
+    private static Supplier<String> createJwksLoader(
+            final RsoProperties rsoProperties,
+            final WebClient.Builder webClientBuilder)
+    {
+        final WebClient webClient = webClientBuilder
+                .clone()
+                .baseUrl(rsoProperties.getEndpoints().getBaseUrl())
+                .build();
+        return () -> webClient
+                .get()
+                .uri(rsoProperties.getEndpoints().getJwksPath())
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(rsoProperties.getTokens().getRequestTimeout())
+                .block();
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.willwin.draftolioai.service;
+
+import org.willwin.draftolioai.dto.DraftEvent;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link DraftEventBus} within one JVM, for a single node or several nodes sharing the
+ * instance in tests.
+ * <p>
+ * Events are handed to the listeners on the publishing thread, one at a time; with no
+ * subscriber for the draft, publishing is a map lookup.
+ */
+public class InProcessDraftEventBus implements DraftEventBus
+{
+
+    private final ConcurrentMap<String, List<Consumer<List<DraftEvent>>>> listeners = new ConcurrentHashMap<>();
+
+    private final List<Consumer<String>> snapshotHandlers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(final DraftEvent event)
+    {
+        final List<Consumer<List<DraftEvent>>> targets = listeners.get(event.draftId());
+        if (targets != null)
+        {
+            final List<DraftEvent> batch = List.of(event);
+            for (final Consumer<List<DraftEvent>> listener : targets)
+            {
+                listener.accept(batch);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(final String draftId, final Consumer<List<DraftEvent>> listener)
+    {
+        listeners.computeIfAbsent(draftId, id -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void unsubscribe(final String draftId, final Consumer<List<DraftEvent>> listener)
+    {
+        listeners.computeIfPresent(
+                draftId, (id, targets) ->
+                {
+                    targets.remove(listener);
+                    return targets.isEmpty() ? null : targets;
+                }
+        );
+    }
+
+    @Override
+    public void requestSnapshot(final String draftId)
+    {
+        for (final Consumer<String> handler : snapshotHandlers)
+        {
+            handler.accept(draftId);
+        }
+    }
+
+    @Override
+    public void onSnapshotRequest(final Consumer<String> handler)
+    {
+        snapshotHandlers.add(handler);
+    }
+
+}
@@ -5,12 +5,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import org.willwin.draftolioai.config.LeagueOfLegendsAssetsProperties;
 
@@ -21,6 +23,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service responsible for managing League of Legends assets.
@@ -39,10 +47,27 @@ public class LeagueOfLegendsAssetsService
     @Getter
     private final Path cacheDirectory;
 
+    /**
+     * Create a service with its own Data Dragon client, for use outside the application context.
+     *
+     * @param properties Assets configuration
+     */
     public LeagueOfLegendsAssetsService(LeagueOfLegendsAssetsProperties properties)
+    {
+        this(properties, new RestTemplate(createStandaloneRequestFactory(properties)));
+    }
+
+    @Autowired
+    public LeagueOfLegendsAssetsService(
+            LeagueOfLegendsAssetsProperties properties, OutboundHttpClients outboundHttpClients)
+    {
+        this(properties, outboundHttpClients.restTemplate(OutboundHttpClients.Profile.DATA_DRAGON));
+    }
+
+    private LeagueOfLegendsAssetsService(LeagueOfLegendsAssetsProperties properties, RestTemplate restTemplate)
     {
         this.properties = properties;
-        this.restTemplate = new RestTemplate();
+        this.restTemplate = restTemplate;
         this.cacheDirectory = Paths.get(properties.getCacheDirectory());
 
         // Create cache directory if it doesn't exist
@@ -146,7 +171,7 @@ public class LeagueOfLegendsAssetsService
         try
         {
             // Download the file as byte array
-            byte[] data = restTemplate.getForObject(downloadUrl, byte[].class);
+            byte[] data = downloadWithDeadline(downloadUrl);
             if (data == null || data.length == 0)
             {
                 throw new IOException("Failed to download assets: empty response");
@@ -172,6 +197,50 @@ public class LeagueOfLegendsAssetsService
         }
     }
 
+    /**
+     * Downloads a file, giving up after the configured download timeout. The Data Dragon
+     * client's response timeout only bounds the gaps between reads, not the whole transfer.
+     */
+    private byte[] downloadWithDeadline(String downloadUrl) throws IOException
+    {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            Future<byte[]> download = executor.submit(() -> restTemplate.getForObject(downloadUrl, byte[].class));
+            try
+            {
+                return download.get(properties.getDownloadTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            catch (TimeoutException e)
+            {
+                download.cancel(true);
+                throw new IOException("Download timed out after " + properties.getDownloadTimeout(), e);
+            }
+            catch (InterruptedException e)
+            {
+                download.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IOException("Download interrupted", e);
+            }
+            catch (ExecutionException e)
+            {
+                if (e.getCause() instanceof RuntimeException runtimeException)
+                {
+                    throw runtimeException;
+                }
+                throw new IOException("Download failed", e.getCause());
+            }
+        }
+    }
+
+    private static SimpleClientHttpRequestFactory createStandaloneRequestFactory(
+            LeagueOfLegendsAssetsProperties properties)
+    {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(properties.getRequestTimeout());
+        requestFactory.setReadTimeout(properties.getRequestTimeout());
+        return requestFactory;
+    }
+
     private void extractTarGzFile(Path tarGzFile, String version) throws IOException
     {
         Path versionDirectory = cacheDirectory.resolve(version);
@@ -1,16 +1,16 @@
 package org.willwin.draftolioai.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.willwin.draftolioai.config.MockRsoSimulationProperties;
 import org.willwin.draftolioai.config.RsoProperties;
 import org.willwin.draftolioai.dto.AuthenticationState;
 import org.willwin.draftolioai.dto.RsoTokenResponse;
 import org.willwin.draftolioai.dto.RsoUserInfo;
 
-import java.security.SecureRandom;
 import java.time.Instant;
-import java.util.Base64;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -19,6 +19,9 @@ import java.util.concurrent.ConcurrentMap;
  * <p>
  * This service always authenticates successfully without contacting real RSO endpoints.
  * It generates mock tokens and user information for testing and development.
+ * <p>
+ * With {@code rso.mock-simulation.enabled} the RSO operations take a configurable latency
+ * and may fail or time out, see {@link MockRsoSimulationProperties}.
  */
 @Slf4j
 @Service
@@ -31,10 +34,14 @@ public class MockRsoService implements RsoService
 
     private final RsoProperties rsoProperties;
 
-    private final SecureRandom secureRandom;
+    private final SecureIdGenerator idGenerator;
 
     private final ConcurrentMap<String, AuthenticationState> authenticationStates;
 
+    private final MockRsoSimulationProperties simulationProperties;
+
+    private final RsoSimulator simulator;
+
     // Mock data constants
     private static final String MOCK_ACCESS_TOKEN = "mock_access_token_";
 
@@ -55,12 +62,39 @@ public class MockRsoService implements RsoService
     private static final int MOCK_EXPIRES_IN = 600; // 10 minutes
 
     public MockRsoService(final RsoProperties rsoProperties)
+    {
+        this(rsoProperties, new MockRsoSimulationProperties());
+    }
+
+    public MockRsoService(
+            final RsoProperties rsoProperties, final MockRsoSimulationProperties simulationProperties)
+    {
+        this(rsoProperties, simulationProperties, new SecureIdGenerator());
+    }
+
+    @Autowired
+    public MockRsoService(
+            final RsoProperties rsoProperties, final MockRsoSimulationProperties simulationProperties,
+            final SecureIdGenerator idGenerator)
     {
         this.rsoProperties = rsoProperties;
-        this.secureRandom = new SecureRandom();
+        this.idGenerator = idGenerator;
         this.authenticationStates = new ConcurrentHashMap<>();
+        this.simulationProperties = simulationProperties;
+        this.simulator = new RsoSimulator(simulationProperties, rsoProperties.getTokens().getRequestTimeout());
 
-        log.info("[DEBUG_LOG] MockRsoService initialized - authentication will always succeed");
+        if (simulationProperties.getEnabled())
+        {
+            log.info(
+                    "[DEBUG_LOG] MockRsoService initialized with simulation profile - token exchange: {}, "
+                            + "token refresh: {}, user info: {}", simulationProperties.getTokenExchange(),
+                    simulationProperties.getTokenRefresh(), simulationProperties.getUserInfo()
+            );
+        }
+        else
+        {
+            log.info("[DEBUG_LOG] MockRsoService initialized - authentication will always succeed");
+        }
     }
 
     @Override
@@ -100,11 +134,8 @@ public class MockRsoService implements RsoService
         }
 
         // Generate mock tokens
-        final String timestamp = String.valueOf(System.currentTimeMillis());
-        final RsoTokenResponse tokenResponse = new RsoTokenResponse(
-                MOCK_SCOPE, MOCK_EXPIRES_IN, MOCK_TOKEN_TYPE, MOCK_REFRESH_TOKEN + timestamp, MOCK_ID_TOKEN + timestamp,
-                MOCK_SUB_SID + timestamp, MOCK_ACCESS_TOKEN + timestamp
-        );
+        final RsoTokenResponse tokenResponse = simulator.apply(
+                simulationProperties.getTokenExchange(), "token exchange", this::createTokens);
 
         // Clean up authentication state
         removeAuthenticationState(state);
@@ -125,12 +156,17 @@ public class MockRsoService implements RsoService
         }
 
         // Generate new mock tokens
-        final String timestamp = String.valueOf(System.currentTimeMillis());
-        final RsoTokenResponse tokenResponse = new RsoTokenResponse(
-                MOCK_SCOPE, MOCK_EXPIRES_IN, MOCK_TOKEN_TYPE, MOCK_REFRESH_TOKEN + timestamp, null,
-                // ID token not included in refresh response
-                null, // Sub SID not included in refresh response
-                MOCK_ACCESS_TOKEN + timestamp
+        final RsoTokenResponse tokenResponse = simulator.apply(
+                simulationProperties.getTokenRefresh(), "token refresh", () ->
+                {
+                    final String timestamp = String.valueOf(System.currentTimeMillis());
+                    return new RsoTokenResponse(
+                            MOCK_SCOPE, simulator.tokenExpiresIn(MOCK_EXPIRES_IN), MOCK_TOKEN_TYPE,
+                            MOCK_REFRESH_TOKEN + timestamp, null, // ID token not included in refresh response
+                            null, // Sub SID not included in refresh response
+                            MOCK_ACCESS_TOKEN + timestamp
+                    );
+                }
         );
 
         log.info("[DEBUG_LOG] Successfully refreshed mock access token");
@@ -148,7 +184,8 @@ public class MockRsoService implements RsoService
             throw new IllegalArgumentException("Invalid access token");
         }
 
-        final RsoUserInfo userInfo = new RsoUserInfo(MOCK_USER_SUB, MOCK_CPID);
+        final RsoUserInfo userInfo = simulator.apply(
+                simulationProperties.getUserInfo(), "user info", () -> new RsoUserInfo(MOCK_USER_SUB, MOCK_CPID));
 
         log.info(
                 "[DEBUG_LOG] Successfully retrieved mock user info: sub={}, cpid={}", userInfo.getSub(),
@@ -205,6 +242,31 @@ public class MockRsoService implements RsoService
         authenticationStates.remove(stateParam);
     }
 
+    /**
+     * Issue tokens for the direct mock login, which skips the authorization redirect.
+     * The token exchange simulation profile applies.
+     *
+     * @return Mock tokens
+     */
+    public RsoTokenResponse createDirectLoginTokens()
+    {
+        return simulator.apply(simulationProperties.getTokenExchange(), "direct login", this::createTokens);
+    }
+
+    /**
+     * Create a full set of mock tokens.
+     *
+     * @return Mock tokens
+     */
+    private RsoTokenResponse createTokens()
+    {
+        final String timestamp = String.valueOf(System.currentTimeMillis());
+        return new RsoTokenResponse(
+                MOCK_SCOPE, simulator.tokenExpiresIn(MOCK_EXPIRES_IN), MOCK_TOKEN_TYPE, MOCK_REFRESH_TOKEN + timestamp,
+                MOCK_ID_TOKEN + timestamp, MOCK_SUB_SID + timestamp, MOCK_ACCESS_TOKEN + timestamp
+        );
+    }
+
     /**
      * Generate a cryptographically secure state parameter.
      *
@@ -212,9 +274,7 @@ public class MockRsoService implements RsoService
      */
     private String generateSecureState()
     {
-        final byte[] randomBytes = new byte[32];
-        secureRandom.nextBytes(randomBytes);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+        return idGenerator.generate(32);
     }
 
     /**
@@ -224,9 +284,7 @@ public class MockRsoService implements RsoService
      */
     private String generateSessionId()
     {
-        final byte[] randomBytes = new byte[16];
-        secureRandom.nextBytes(randomBytes);
-        return "mock_session_" + Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+        return idGenerator.generate("mock_session_", 16);
     }
 
 }
@@ -0,0 +1,135 @@
+package org.willwin.draftolioai.service;
+
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.willwin.draftolioai.config.HttpClientProperties;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Shared outbound HTTP clients, one pooled Reactor Netty client per upstream.
+ * <p>
+ * Every {@link WebClient} and {@link RestTemplate} handed out for a profile shares that
+ * profile's connection pool, so connections are kept alive and reused across callers
+ * instead of each caller opening its own. Pool gauges (total, active, idle and pending
+ * connections) are published through Micrometer as
+ * {@code reactor.netty.connection.provider.*} tagged with the pool name.
+ */
+@Slf4j
+@Service
+public class OutboundHttpClients
+{
+
+    private final Map<Profile, ConnectionProvider> connectionProviders;
+
+    private final Map<Profile, HttpClient> httpClients;
+
+    public OutboundHttpClients(final HttpClientProperties properties)
+    {
+        this.connectionProviders = new EnumMap<>(Profile.class);
+        this.httpClients = new EnumMap<>(Profile.class);
+        register(Profile.RSO, properties.getRso());
+        register(Profile.DATA_DRAGON, properties.getDataDragon());
+        register(Profile.RIOT_API, properties.getRiotApi());
+    }
+
+    /**
+     * Release pooled connections on shutdown.
+     */
+    @PreDestroy
+    public void close()
+    {
+        connectionProviders.values().forEach(ConnectionProvider::dispose);
+    }
+
+    /**
+     * @param profile The client profile
+     * @return A new WebClient builder sharing the connection pool of the profile
+     */
+    public WebClient.Builder webClientBuilder(final Profile profile)
+    {
+        return WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClients.get(profile)));
+    }
+
+    /**
+     * @param profile The client profile
+     * @return A new RestTemplate sharing the connection pool of the profile
+     */
+    public RestTemplate restTemplate(final Profile profile)
+    {
+        return new RestTemplate(new ReactorClientHttpRequestFactory(httpClients.get(profile)));
+    }
+
+    private void register(final Profile profile, final HttpClientProperties.Profile settings)
+    {
+        final ConnectionProvider connectionProvider = ConnectionProvider
+                .builder(profile.getPoolName())
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime())
+                .maxLifeTime(settings.getMaxLifeTime())
+                .evictInBackground(settings.getMaxIdleTime())
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient
+                .create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, settings.getKeepAlive())
+                .responseTimeout(settings.getResponseTimeout());
+        if (settings.getHttp2())
+        {
+            // HTTP/2 is negotiated through ALPN on https URLs; plain http stays on HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        connectionProviders.put(profile, connectionProvider);
+        httpClients.put(profile, httpClient);
+        log.info(
+                "Outbound HTTP client '{}' configured - max connections: {}, connect timeout: {}, "
+                        + "response timeout: {}, HTTP/2: {}", profile.getPoolName(), settings.getMaxConnections(),
+                settings.getConnectTimeout(), settings.getResponseTimeout(), settings.getHttp2()
+        );
+    }
+
+    /**
+     * Named outbound client profiles
+     */
+    public enum Profile
+    {
+
+        RSO("rso"),
+
+        DATA_DRAGON("data-dragon"),
+
+        RIOT_API("riot-api");
+
+        private final String poolName;
+
+        Profile(final String poolName)
+        {
+            this.poolName = poolName;
+        }
+
+        /**
+         * @return Connection pool name, used as the metrics tag
+         */
+        public String getPoolName()
+        {
+            return poolName;
+        }
+
+    }
+
+}
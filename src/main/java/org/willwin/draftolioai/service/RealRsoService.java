@@ -16,7 +16,6 @@ import org.willwin.draftolioai.dto.RsoTokenResponse;
 import org.willwin.draftolioai.dto.RsoUserInfo;
 
 import java.nio.charset.StandardCharsets;
-import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.concurrent.ConcurrentHashMap;
@@ -42,16 +41,20 @@ public class RealRsoService implements RsoService
 
     private final WebClient webClient;
 
-    private final SecureRandom secureRandom;
+    private final SecureIdGenerator idGenerator;
 
     private final ConcurrentMap<String, AuthenticationState> authenticationStates;
 
     private final String basicAuthHeader;
 
-    public RealRsoService(final RsoProperties rsoProperties, final WebClient.Builder webClientBuilder)
+    private final RsoCallGuard callGuard;
+
+    public RealRsoService(
+            final RsoProperties rsoProperties, final WebClient.Builder webClientBuilder,
+            final SecureIdGenerator idGenerator)
     {
         this.rsoProperties = rsoProperties;
-        this.secureRandom = new SecureRandom();
+        this.idGenerator = idGenerator;
         this.authenticationStates = new ConcurrentHashMap<>();
 
         // Create WebClient with base configuration
@@ -66,6 +69,9 @@ public class RealRsoService implements RsoService
                 rsoProperties.getClient().getClientSecret()
         );
 
+        // Bulkhead, circuit breaker and hedging around every outbound call
+        this.callGuard = new RsoCallGuard(rsoProperties.getTokens(), System::nanoTime);
+
         log.info("[DEBUG_LOG] RealRsoService initialized - will use actual RSO endpoints");
     }
 
@@ -97,11 +103,11 @@ public class RealRsoService implements RsoService
     @Override
     public RsoTokenResponse exchangeCodeForTokens(final String code, final String state)
     {
-        log.debug("[DEBUG_LOG] Exchanging authorization code for tokens - code: {}, state: {}", code, state);
+        log.debug("[DEBUG_LOG] Exchanging authorization code for tokens");
 
         if (!validateState(state))
         {
-            log.warn("[DEBUG_LOG] Invalid state parameter: {}", state);
+            log.warn("[DEBUG_LOG] Invalid state parameter");
             throw new IllegalArgumentException("Invalid state parameter");
         }
 
@@ -113,20 +119,21 @@ public class RealRsoService implements RsoService
 
         try
         {
-            final RsoTokenResponse tokenResponse = webClient
-                    .post()
-                    .uri(rsoProperties.getEndpoints().getTokenPath())
-                    .header(HttpHeaders.AUTHORIZATION, basicAuthHeader)
-                    .body(BodyInserters.fromFormData(formData))
-                    .retrieve()
-                    .bodyToMono(RsoTokenResponse.class)
-                    .timeout(rsoProperties.getTokens().getRequestTimeout())
-                    .block();
+            // Authorization codes are single-use, so the exchange is never hedged
+            final RsoTokenResponse tokenResponse = callGuard.execute(
+                    "token exchange", () -> webClient
+                            .post()
+                            .uri(rsoProperties.getEndpoints().getTokenPath())
+                            .header(HttpHeaders.AUTHORIZATION, basicAuthHeader)
+                            .body(BodyInserters.fromFormData(formData))
+                            .retrieve()
+                            .bodyToMono(RsoTokenResponse.class), false
+            );
 
             // Clean up authentication state
             removeAuthenticationState(state);
 
-            log.info("[DEBUG_LOG] Successfully exchanged authorization code for tokens");
+            log.debug("[DEBUG_LOG] Successfully exchanged authorization code for tokens");
             return tokenResponse;
 
         }
@@ -164,17 +171,18 @@ public class RealRsoService implements RsoService
 
         try
         {
-            final RsoTokenResponse tokenResponse = webClient
-                    .post()
-                    .uri(rsoProperties.getEndpoints().getTokenPath())
-                    .header(HttpHeaders.AUTHORIZATION, basicAuthHeader)
-                    .body(BodyInserters.fromFormData(formData))
-                    .retrieve()
-                    .bodyToMono(RsoTokenResponse.class)
-                    .timeout(rsoProperties.getTokens().getRequestTimeout())
-                    .block();
-
-            log.info("[DEBUG_LOG] Successfully refreshed access token");
+            // Refresh tokens may rotate on use, so the refresh is never hedged
+            final RsoTokenResponse tokenResponse = callGuard.execute(
+                    "token refresh", () -> webClient
+                            .post()
+                            .uri(rsoProperties.getEndpoints().getTokenPath())
+                            .header(HttpHeaders.AUTHORIZATION, basicAuthHeader)
+                            .body(BodyInserters.fromFormData(formData))
+                            .retrieve()
+                            .bodyToMono(RsoTokenResponse.class), false
+            );
+
+            log.debug("[DEBUG_LOG] Successfully refreshed access token");
             return tokenResponse;
 
         }
@@ -206,16 +214,16 @@ public class RealRsoService implements RsoService
 
         try
         {
-            final RsoUserInfo userInfo = webClient
-                    .get()
-                    .uri(rsoProperties.getEndpoints().getUserInfoPath())
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-                    .retrieve()
-                    .bodyToMono(RsoUserInfo.class)
-                    .timeout(rsoProperties.getTokens().getRequestTimeout())
-                    .block();
-
-            log.info(
+            final RsoUserInfo userInfo = callGuard.execute(
+                    "user info", () -> webClient
+                            .get()
+                            .uri(rsoProperties.getEndpoints().getUserInfoPath())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                            .retrieve()
+                            .bodyToMono(RsoUserInfo.class), true
+            );
+
+            log.debug(
                     "[DEBUG_LOG] Successfully retrieved user info: sub={}, cpid={}", userInfo.getSub(),
                     userInfo.getCpid()
             );
@@ -289,9 +297,7 @@ public class RealRsoService implements RsoService
      */
     private String generateSecureState()
     {
-        final byte[] randomBytes = new byte[32];
-        secureRandom.nextBytes(randomBytes);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+        return idGenerator.generate(32);
     }
 
     /**
@@ -301,9 +307,7 @@ public class RealRsoService implements RsoService
      */
     private String generateSessionId()
     {
-        final byte[] randomBytes = new byte[16];
-        secureRandom.nextBytes(randomBytes);
-        return "session_" + Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+        return idGenerator.generate("session_", 16);
     }
 
     /**
@@ -0,0 +1,236 @@
+package org.willwin.draftolioai.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.willwin.draftolioai.config.RsoProperties;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Resilience layer around outbound RSO calls: bulkhead, circuit breaker and hedging.
+ * <p>
+ * A call first needs permission from the {@link CircuitBreaker} and then one of
+ * {@link RsoProperties.Resilience#getMaxConcurrentCalls()} bulkhead slots, waiting at most
+ * {@link RsoProperties.Resilience#getMaxWait()}. While RSO is failing, calls are therefore
+ * rejected immediately instead of queueing for a slot or holding a thread for the full
+ * request timeout. A permission whose call is rejected by the bulkhead is given back.
+ * Timeouts, connection errors and 5xx responses count as failures; 4xx responses mean
+ * RSO is up and count as successes.
+ * <p>
+ * Idempotent calls can be hedged: if no response has arrived after the configured
+ * latency percentile of recent successful calls of the same operation, a duplicate
+ * request is sent and the first answer wins. Token endpoint calls must not be hedged, since authorization codes
+ * are single-use and a replay may get the tokens already issued for the code revoked.
+ */
+@Slf4j
+class RsoCallGuard
+{
+
+    private static final int LATENCY_WINDOW = 256;
+
+    private static final int PERCENTILE_REFRESH_INTERVAL = 16;
+
+    private final RsoProperties.Tokens tokenProperties;
+
+    private final RsoProperties.Resilience resilience;
+
+    private final Semaphore bulkhead;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final LongSupplier nanoClock;
+
+    private final Map<String, LatencyWindow> latencyWindows;
+
+    RsoCallGuard(final RsoProperties.Tokens tokenProperties, final LongSupplier nanoClock)
+    {
+        this.tokenProperties = tokenProperties;
+        this.resilience = tokenProperties.getResilience();
+        this.bulkhead = new Semaphore(resilience.getMaxConcurrentCalls());
+        this.circuitBreaker = new CircuitBreaker(
+                "rso", resilience.getFailureRateThreshold(), resilience.getSlidingWindowSize(),
+                resilience.getMinimumCalls(), resilience.getOpenDuration().toNanos(), resilience.getHalfOpenProbes(),
+                nanoClock
+        );
+        this.nanoClock = nanoClock;
+        this.latencyWindows = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Run a call through the circuit breaker and bulkhead, blocking for its result.
+     *
+     * @param operation Operation name for logging and the hedge latency window
+     * @param call      Supplier of the request; invoked again for a hedged duplicate
+     * @param hedge     Whether the call is idempotent and may be hedged
+     * @param <T>       Response type
+     * @return The response
+     * @throws RsoUnavailableException if the call was rejected by the open circuit or the bulkhead
+     */
+    <T> T execute(final String operation, final Supplier<Mono<T>> call, final boolean hedge)
+    {
+        if (!circuitBreaker.tryAcquirePermission())
+        {
+            throw new RsoUnavailableException("RSO circuit breaker is open, rejected " + operation);
+        }
+        if (!acquireBulkhead())
+        {
+            // The call is never made, so a half-open probe slot must not be used up
+            circuitBreaker.onIgnored();
+            throw new RsoUnavailableException("Too many concurrent RSO calls, rejected " + operation);
+        }
+        try
+        {
+            final LatencyWindow latencyWindow = hedge ? latencyWindow(operation) : null;
+            final long startNanos = nanoClock.getAsLong();
+            try
+            {
+                final T result = withHedge(operation, call, latencyWindow)
+                        .timeout(tokenProperties.getRequestTimeout())
+                        .block();
+                circuitBreaker.onSuccess();
+                if (latencyWindow != null)
+                {
+                    latencyWindow.record(nanoClock.getAsLong() - startNanos);
+                }
+                return result;
+            }
+            catch (WebClientResponseException e)
+            {
+                if (e.getStatusCode().is4xxClientError())
+                {
+                    circuitBreaker.onSuccess();
+                }
+                else
+                {
+                    circuitBreaker.onFailure();
+                }
+                throw e;
+            }
+            catch (RuntimeException e)
+            {
+                circuitBreaker.onFailure();
+                throw e;
+            }
+            catch (Error e)
+            {
+                // Says nothing about RSO, but the permission must still be given back
+                circuitBreaker.onIgnored();
+                throw e;
+            }
+        }
+        finally
+        {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * @return Current circuit breaker state
+     */
+    CircuitBreaker.State getCircuitState()
+    {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * @param operation Hedged operation name
+     * @return Current hedge delay of the operation, or null while there are too few latency samples
+     */
+    Duration getHedgeDelay(final String operation)
+    {
+        final LatencyWindow latencyWindow = latencyWindows.get(operation);
+        final long delay = latencyWindow == null ? -1 : latencyWindow.hedgeDelayNanos;
+        return delay < 0 ? null : Duration.ofNanos(delay);
+    }
+
+    private LatencyWindow latencyWindow(final String operation)
+    {
+        return latencyWindows.computeIfAbsent(operation, name -> new LatencyWindow());
+    }
+
+    private <T> Mono<T> withHedge(
+            final String operation, final Supplier<Mono<T>> call, final LatencyWindow latencyWindow)
+    {
+        final long delayNanos = latencyWindow == null ? -1 : latencyWindow.hedgeDelayNanos;
+        if (!resilience.getHedgeEnabled() || delayNanos < 0)
+        {
+            return call.get();
+        }
+
+        final Mono<T> hedged = Mono
+                .delay(Duration.ofNanos(delayNanos))
+                .doOnNext(tick -> log.debug("Hedging slow RSO call: {}", operation))
+                .then(Mono.defer(call));
+        return Mono.firstWithSignal(call.get(), hedged);
+    }
+
+    private boolean acquireBulkhead()
+    {
+        try
+        {
+            return bulkhead.tryAcquire(resilience.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Latencies of recent successful calls of one hedged operation; operations with
+     * different latency profiles must not share a hedge delay.
+     */
+    private final class LatencyWindow
+    {
+
+        private final long[] latencies = new long[LATENCY_WINDOW];
+
+        private int latencyCount;
+
+        private int nextLatency;
+
+        private volatile long hedgeDelayNanos = -1;
+
+        private synchronized void record(final long latencyNanos)
+        {
+            latencies[nextLatency] = latencyNanos;
+            nextLatency = (nextLatency + 1) % latencies.length;
+            latencyCount = Math.min(latencyCount + 1, latencies.length);
+
+            // Sorting the window on every call would be wasteful; refresh the percentile periodically
+            if (latencyCount >= resilience.getHedgeMinSamples()
+                    && (hedgeDelayNanos < 0 || nextLatency % PERCENTILE_REFRESH_INTERVAL == 0))
+            {
+                final long[] sorted = Arrays.copyOf(latencies, latencyCount);
+                Arrays.sort(sorted);
+                final int index = Math.min(
+                        sorted.length - 1, (int) Math.ceil(resilience.getHedgePercentile() * sorted.length) - 1);
+                hedgeDelayNanos = Math.max(resilience.getHedgeMinDelay().toNanos(), sorted[Math.max(0, index)]);
+            }
+        }
+
+    }
+
+    /**
+     * Thrown when a call to RSO is rejected without being attempted.
+     */
+    static class RsoUnavailableException extends RuntimeException
+    {
+
+        RsoUnavailableException(final String message)
+        {
+            super(message);
+        }
+
+    }
+
+}
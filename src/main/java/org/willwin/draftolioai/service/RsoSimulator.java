@@ -0,0 +1,91 @@
+package org.willwin.draftolioai.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.willwin.draftolioai.config.MockRsoSimulationProperties;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Applies a simulated RSO latency and failure profile to mock operations.
+ * <p>
+ * The delay is scheduled on the Reactor timer and the caller waits on it exactly as
+ * {@link RealRsoService} waits on its WebClient response, bounded by the same request
+ * timeout. No pooled thread sleeps, so concurrent simulated calls cost no more than real
+ * ones. Failures surface as {@link IllegalArgumentException}, like the errors of the
+ * real service.
+ */
+@Slf4j
+class RsoSimulator
+{
+
+    private final MockRsoSimulationProperties properties;
+
+    private final Duration requestTimeout;
+
+    RsoSimulator(final MockRsoSimulationProperties properties, final Duration requestTimeout)
+    {
+        this.properties = properties;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Produce a result after the simulated latency of an operation, or fail as configured.
+     *
+     * @param operation The operation settings
+     * @param name      Operation name for errors and logging
+     * @param result    Produces the result once the latency has passed
+     * @param <T>       Result type
+     * @return The result
+     * @throws IllegalArgumentException if the call is simulated to fail or exceeds the request timeout
+     */
+    <T> T apply(final MockRsoSimulationProperties.Operation operation, final String name, final Supplier<T> result)
+    {
+        if (!properties.getEnabled())
+        {
+            return result.get();
+        }
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Duration delay = random.nextDouble() < operation.getSlowTailRate()
+                ? operation.getSlowTailLatency()
+                : sampleLatency(operation, random);
+        final boolean fail = random.nextDouble() < operation.getErrorRate();
+
+        final Mono<T> outcome = fail
+                ? Mono.error(() -> new IllegalArgumentException("Simulated RSO failure: " + name))
+                : Mono.fromSupplier(result);
+        return Mono
+                .delay(delay)
+                .then(outcome)
+                .timeout(requestTimeout)
+                .onErrorMap(
+                        TimeoutException.class,
+                        e -> new IllegalArgumentException("Simulated RSO call timed out: " + name, e)
+                )
+                .doOnError(e -> log.debug("[DEBUG_LOG] Simulated RSO {} failed after {}", name, delay))
+                .block();
+    }
+
+    /**
+     * @param defaultSeconds Lifetime used when no override is configured
+     * @return Access token lifetime in seconds
+     */
+    int tokenExpiresIn(final int defaultSeconds)
+    {
+        final Duration override = properties.getTokenExpiresIn();
+        return properties.getEnabled() && override != null ? (int) override.toSeconds() : defaultSeconds;
+    }
+
+    private static Duration sampleLatency(
+            final MockRsoSimulationProperties.Operation operation, final ThreadLocalRandom random)
+    {
+        final long jitterNanos = operation.getJitter().toNanos();
+        final Duration latency = operation.getLatency();
+        return jitterNanos > 0 ? latency.plusNanos(random.nextLong(jitterNanos + 1)) : latency;
+    }
+
+}
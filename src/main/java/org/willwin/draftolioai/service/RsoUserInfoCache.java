@@ -0,0 +1,370 @@
+package org.willwin.draftolioai.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.willwin.draftolioai.config.RsoProperties;
+import org.willwin.draftolioai.dto.RsoUserInfo;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded TTL cache in front of {@link RsoService#getUserInfo(String)}.
+ * <p>
+ * Entries are keyed by a SHA-256 fingerprint of the access token so raw tokens are never
+ * retained, and remember the subject so that all entries of a user can be dropped on
+ * logout. Tokens rejected by RSO are cached negatively for a shorter TTL so repeated
+ * lookups with an invalid token fail fast. A cache hit allocates only the fingerprint key.
+ * <p>
+ * Hit, miss, put and eviction counts are published through Micrometer under the
+ * standard {@code cache.*} meters with {@code cache=rsoUserInfo}.
+ */
+@Service
+public class RsoUserInfoCache implements MeterBinder
+{
+
+    private static final String CACHE_NAME = "rsoUserInfo";
+
+    private static final int SCRATCH_SIZE = 4096;
+
+    private static final ThreadLocal<Hasher> HASHER = ThreadLocal.withInitial(Hasher::new);
+
+    private final RsoService rsoService;
+
+    private final RsoProperties.UserInfoCache cacheProperties;
+
+    private final ConcurrentMap<Fingerprint, Entry> entries;
+
+    private final LongAdder hits;
+
+    private final LongAdder negativeHits;
+
+    private final LongAdder misses;
+
+    private final LongAdder puts;
+
+    private final LongAdder evictions;
+
+    public RsoUserInfoCache(final RsoService rsoService, final RsoProperties rsoProperties)
+    {
+        this.rsoService = rsoService;
+        this.cacheProperties = rsoProperties.getUserInfoCache();
+        this.entries = new ConcurrentHashMap<>();
+        this.hits = new LongAdder();
+        this.negativeHits = new LongAdder();
+        this.misses = new LongAdder();
+        this.puts = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    /**
+     * Get user information for an access token, calling RSO only on a cache miss.
+     *
+     * @param accessToken The access token
+     * @return User information including subject ID and region
+     * @throws IllegalArgumentException if access token is invalid, including cached rejections
+     */
+    public RsoUserInfo getUserInfo(final String accessToken)
+    {
+        if (accessToken == null || accessToken.isEmpty())
+        {
+            throw new IllegalArgumentException("Access token is required");
+        }
+
+        final Fingerprint fingerprint = fingerprint(accessToken);
+        final Entry entry = entries.get(fingerprint);
+        if (entry != null)
+        {
+            if (entry.expiresAtNanos - System.nanoTime() > 0)
+            {
+                if (entry.userInfo == null)
+                {
+                    negativeHits.increment();
+                    throw new IllegalArgumentException("Access token was rejected by RSO");
+                }
+                hits.increment();
+                return entry.userInfo;
+            }
+            if (entries.remove(fingerprint, entry))
+            {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        try
+        {
+            final RsoUserInfo userInfo = rsoService.getUserInfo(accessToken);
+            store(fingerprint, new Entry(userInfo, userInfo.getSub(), expiresAt(cacheProperties.getTtl().toNanos())));
+            return userInfo;
+        }
+        catch (IllegalArgumentException e)
+        {
+            if (isTokenRejection(e))
+            {
+                store(fingerprint, new Entry(null, null, expiresAt(cacheProperties.getNegativeTtl().toNanos())));
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Seed the cache with user information obtained elsewhere, e.g. from a verified ID token.
+     *
+     * @param accessToken The access token the user information belongs to
+     * @param userInfo    The user information
+     */
+    public void put(final String accessToken, final RsoUserInfo userInfo)
+    {
+        store(
+                fingerprint(accessToken),
+                new Entry(userInfo, userInfo.getSub(), expiresAt(cacheProperties.getTtl().toNanos()))
+        );
+    }
+
+    /**
+     * Drop the cached entry of an access token and every entry of its subject.
+     *
+     * @param accessToken The access token, may be null
+     * @param subject     The subject, may be null
+     */
+    public void evict(final String accessToken, final String subject)
+    {
+        if (accessToken != null && entries.remove(fingerprint(accessToken)) != null)
+        {
+            evictions.increment();
+        }
+        if (subject != null)
+        {
+            // Logout is rare compared to lookups, so a scan beats maintaining a second index
+            entries.values().removeIf(entry ->
+            {
+                final boolean matches = subject.equals(entry.subject);
+                if (matches)
+                {
+                    evictions.increment();
+                }
+                return matches;
+            });
+        }
+    }
+
+    /**
+     * @return Number of entries currently cached, including expired ones not yet evicted
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry)
+    {
+        new Metrics(this).bindTo(registry);
+    }
+
+    private void store(final Fingerprint fingerprint, final Entry entry)
+    {
+        if (entries.size() >= cacheProperties.getMaxSize() && !entries.containsKey(fingerprint))
+        {
+            makeRoom();
+        }
+        entries.put(fingerprint, entry);
+        puts.increment();
+    }
+
+    private void makeRoom()
+    {
+        final long now = System.nanoTime();
+        final int maxSize = cacheProperties.getMaxSize();
+
+        // Drop expired entries first, then arbitrary ones until a tenth of the capacity is free
+        entries.entrySet().removeIf(mapEntry ->
+        {
+            final boolean expired = mapEntry.getValue().expiresAtNanos - now <= 0;
+            if (expired)
+            {
+                evictions.increment();
+            }
+            return expired;
+        });
+
+        final int target = maxSize - Math.max(1, maxSize / 10);
+        final Iterator<Map.Entry<Fingerprint, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > target && iterator.hasNext())
+        {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long expiresAt(final long ttlNanos)
+    {
+        return System.nanoTime() + ttlNanos;
+    }
+
+    private static boolean isTokenRejection(final IllegalArgumentException e)
+    {
+        // Validation failures have no cause; only 4xx answers from RSO say the token itself is bad
+        return e.getCause() == null
+                || e.getCause() instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().is4xxClientError();
+    }
+
+    private static Fingerprint fingerprint(final String accessToken)
+    {
+        return HASHER.get().fingerprint(accessToken);
+    }
+
+    /**
+     * First 128 bits of the SHA-256 digest of an access token.
+     */
+    private record Fingerprint(long high, long low)
+    {
+
+    }
+
+    /**
+     * Cached lookup result; a null user info marks a rejected token.
+     */
+    private record Entry(RsoUserInfo userInfo, String subject, long expiresAtNanos)
+    {
+
+    }
+
+    /**
+     * Per-thread digest with reusable buffers so fingerprinting does not allocate.
+     */
+    private static final class Hasher
+    {
+
+        private final MessageDigest digest;
+
+        private final byte[] scratch = new byte[SCRATCH_SIZE];
+
+        private final byte[] output = new byte[32];
+
+        private Hasher()
+        {
+            try
+            {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            }
+            catch (NoSuchAlgorithmException e)
+            {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        private Fingerprint fingerprint(final String token)
+        {
+            final int length = token.length();
+            for (int offset = 0; offset < length; offset += SCRATCH_SIZE)
+            {
+                final int chunk = Math.min(SCRATCH_SIZE, length - offset);
+                for (int i = 0; i < chunk; i++)
+                {
+                    // Tokens are base64url/JWT text, so the low byte of each char is the full value
+                    scratch[i] = (byte) token.charAt(offset + i);
+                }
+                digest.update(scratch, 0, chunk);
+            }
+
+            try
+            {
+                digest.digest(output, 0, output.length);
+            }
+            catch (DigestException e)
+            {
+                throw new IllegalStateException("Failed to fingerprint access token", e);
+            }
+            return new Fingerprint(readLong(0), readLong(8));
+        }
+
+        private long readLong(final int offset)
+        {
+            long value = 0;
+            for (int i = 0; i < 8; i++)
+            {
+                value = (value << 8) | (output[offset + i] & 0xFFL);
+            }
+            return value;
+        }
+
+    }
+
+    /**
+     * Micrometer binding for the standard cache meters.
+     */
+    private static final class Metrics extends CacheMeterBinder<RsoUserInfoCache>
+    {
+
+        private Metrics(final RsoUserInfoCache cache)
+        {
+            super(cache, CACHE_NAME, Tags.empty());
+        }
+
+        @Override
+        protected Long size()
+        {
+            final RsoUserInfoCache cache = getCache();
+            return cache != null ? (long) cache.size() : null;
+        }
+
+        @Override
+        protected long hitCount()
+        {
+            final RsoUserInfoCache cache = getCache();
+            return cache != null ? cache.hits.sum() : 0;
+        }
+
+        @Override
+        protected Long missCount()
+        {
+            final RsoUserInfoCache cache = getCache();
+            return cache != null ? cache.misses.sum() : null;
+        }
+
+        @Override
+        protected Long evictionCount()
+        {
+            final RsoUserInfoCache cache = getCache();
+            return cache != null ? cache.evictions.sum() : null;
+        }
+
+        @Override
+        protected long putCount()
+        {
+            final RsoUserInfoCache cache = getCache();
+            return cache != null ? cache.puts.sum() : 0;
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(final MeterRegistry registry)
+        {
+            final RsoUserInfoCache cache = getCache();
+            if (cache != null)
+            {
+                FunctionCounter
+                        .builder("cache.negative.hits", cache, c -> c.negativeHits.sum())
+                        .tags("cache", CACHE_NAME)
+                        .description("Lookups answered from a cached token rejection")
+                        .register(registry);
+            }
+        }
+
+    }
+
+}
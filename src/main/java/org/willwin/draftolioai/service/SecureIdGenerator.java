@@ -0,0 +1,209 @@
+package org.willwin.draftolioai.service;
+
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Generator of unguessable identifiers: OAuth state parameters, session IDs and, for the
+ * drafting features, draft IDs and spectator links.
+ * <p>
+ * A single shared {@link SecureRandom} serializes every caller on its internal lock. This
+ * generator instead keeps a pool of independently seeded DRBG instances, a power of two
+ * at least the number of processors. A caller starts at the stripe picked by its thread
+ * ID and takes the first stripe whose lock is free, only waiting when all are busy, so
+ * concurrent requests rarely contend. Each stripe owns its random and output buffers;
+ * random bytes are base64url encoded straight into the output buffer after the prefix,
+ * and the only allocation per ID is the resulting string.
+ */
+@Service
+public class SecureIdGenerator
+{
+
+    /**
+     * Largest supported number of random bytes per ID
+     */
+    public static final int MAX_BYTES = 64;
+
+    private static final int MAX_PREFIX_LENGTH = 64;
+
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+
+    private final Stripe[] stripes;
+
+    private final int mask;
+
+    public SecureIdGenerator()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param concurrency Expected number of concurrent callers, rounded up to a power of two
+     */
+    SecureIdGenerator(final int concurrency)
+    {
+        final int size = Integer.highestOneBit(Math.max(2, concurrency) - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++)
+        {
+            stripes[i] = new Stripe(newDrbg());
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Generate a base64url encoded random identifier without padding.
+     *
+     * @param byteLength Number of random bytes, 16 or more for unguessable IDs
+     * @return The identifier, {@code ceil(byteLength * 4 / 3)} characters long
+     */
+    public String generate(final int byteLength)
+    {
+        return generate("", byteLength);
+    }
+
+    /**
+     * Generate a base64url encoded random identifier without padding after a fixed prefix.
+     *
+     * @param prefix     ASCII prefix, e.g. {@code "session_"}
+     * @param byteLength Number of random bytes, 16 or more for unguessable IDs
+     * @return The prefix followed by the encoded random bytes
+     * @throws IllegalArgumentException if the prefix or length exceed the supported maximum
+     */
+    public String generate(final String prefix, final int byteLength)
+    {
+        if (byteLength < 1 || byteLength > MAX_BYTES || prefix.length() > MAX_PREFIX_LENGTH)
+        {
+            throw new IllegalArgumentException("Unsupported ID length: " + prefix.length() + " + " + byteLength);
+        }
+
+        final Stripe stripe = acquire();
+        try
+        {
+            final byte[] random = stripe.random[byteLength];
+            stripe.drbg.nextBytes(random);
+
+            final byte[] output = stripe.output;
+            final int prefixLength = prefix.length();
+            for (int i = 0; i < prefixLength; i++)
+            {
+                output[i] = (byte) prefix.charAt(i);
+            }
+            final int length = encode(random, output, prefixLength);
+            return new String(output, 0, length, StandardCharsets.ISO_8859_1);
+        }
+        finally
+        {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of DRBG instances in the pool
+     */
+    public int getPoolSize()
+    {
+        return stripes.length;
+    }
+
+    private Stripe acquire()
+    {
+        final long threadId = Thread.currentThread().threadId();
+        final int home = (int) (threadId * 0x9E3779B97F4A7C15L >>> 32) & mask;
+        for (int i = 0; i <= mask; i++)
+        {
+            final Stripe stripe = stripes[(home + i) & mask];
+            if (stripe.lock.tryLock())
+            {
+                return stripe;
+            }
+        }
+        final Stripe stripe = stripes[home];
+        stripe.lock.lock();
+        return stripe;
+    }
+
+    /**
+     * Base64url encode without padding into a buffer.
+     *
+     * @param source Bytes to encode
+     * @param target Buffer receiving the characters
+     * @param offset Position of the first character in the buffer
+     * @return Position after the last character
+     */
+    private static int encode(final byte[] source, final byte[] target, final int offset)
+    {
+        int out = offset;
+        int in = 0;
+        final int whole = source.length - source.length % 3;
+        while (in < whole)
+        {
+            final int bits = (source[in++] & 0xFF) << 16 | (source[in++] & 0xFF) << 8 | source[in++] & 0xFF;
+            target[out++] = ALPHABET[bits >>> 18 & 0x3F];
+            target[out++] = ALPHABET[bits >>> 12 & 0x3F];
+            target[out++] = ALPHABET[bits >>> 6 & 0x3F];
+            target[out++] = ALPHABET[bits & 0x3F];
+        }
+        final int remaining = source.length - whole;
+        if (remaining > 0)
+        {
+            final int bits = (source[in] & 0xFF) << 16 | (remaining == 2 ? (source[in + 1] & 0xFF) << 8 : 0);
+            target[out++] = ALPHABET[bits >>> 18 & 0x3F];
+            target[out++] = ALPHABET[bits >>> 12 & 0x3F];
+            if (remaining == 2)
+            {
+                target[out++] = ALPHABET[bits >>> 6 & 0x3F];
+            }
+        }
+        return out;
+    }
+
+    private static SecureRandom newDrbg()
+    {
+        try
+        {
+            return SecureRandom.getInstance(
+                    "DRBG", DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, null));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("DRBG not available", e);
+        }
+    }
+
+    /**
+     * One DRBG with the buffers it writes into, guarded by its lock.
+     */
+    private static final class Stripe
+    {
+
+        private final ReentrantLock lock;
+
+        private final SecureRandom drbg;
+
+        // Indexed by byte length, since SecureRandom fills whole arrays
+        private final byte[][] random;
+
+        private final byte[] output;
+
+        private Stripe(final SecureRandom drbg)
+        {
+            this.lock = new ReentrantLock();
+            this.drbg = drbg;
+            this.random = new byte[MAX_BYTES + 1][];
+            for (int length = 1; length <= MAX_BYTES; length++)
+            {
+                random[length] = new byte[length];
+            }
+            this.output = new byte[MAX_PREFIX_LENGTH + (MAX_BYTES + 2) / 3 * 4];
+        }
+
+    }
+
+}
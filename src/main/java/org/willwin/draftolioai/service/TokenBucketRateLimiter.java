@@ -0,0 +1,149 @@
+package org.willwin.draftolioai.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket rate limiter keyed by string.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding its theoretical arrival time, the
+ * instant at which it would be full again (the generic cell rate algorithm, which admits
+ * exactly the requests a token bucket of the same capacity and refill rate admits). A
+ * request takes one CAS and no lock, and the bucket needs no background refill. Buckets
+ * are spread over several maps by key hash so that growth of one map does not stall
+ * requests for keys in the others.
+ */
+public class TokenBucketRateLimiter
+{
+
+    private static final long UNUSED = Long.MIN_VALUE;
+
+    private final long emissionIntervalNanos;
+
+    private final long burstNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final Map<String, AtomicLong>[] stripes;
+
+    private final int mask;
+
+    /**
+     * @param capacity        Bucket size
+     * @param refillPerSecond Tokens added per second
+     * @param stripes         Number of bucket maps, rounded up to a power of two
+     * @param nanoClock       Monotonic clock in nanoseconds
+     */
+    @SuppressWarnings("unchecked")
+    public TokenBucketRateLimiter(
+            final int capacity, final double refillPerSecond, final int stripes, final LongSupplier nanoClock)
+    {
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.nanoClock = nanoClock;
+
+        final int stripeCount = Integer.highestOneBit(Math.max(1, stripes) * 2 - 1);
+        this.stripes = new Map[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+        {
+            this.stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    /**
+     * Take one token for a key.
+     *
+     * @param key The bucket key
+     * @return 0 if the request is allowed, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(final String key)
+    {
+        final long now = nanoClock.getAsLong();
+        final Map<String, AtomicLong> stripe = stripe(key);
+        AtomicLong bucket = stripe.get(key);
+        if (bucket == null)
+        {
+            bucket = stripe.computeIfAbsent(key, k -> new AtomicLong(UNUSED));
+        }
+        while (true)
+        {
+            final long arrival = bucket.get();
+            final long next = (arrival == UNUSED || arrival - now < 0 ? now : arrival) + emissionIntervalNanos;
+            final long excess = next - now - burstNanos;
+            if (excess > 0)
+            {
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next))
+            {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Check whether a key has a token, without taking it.
+     *
+     * @param key The bucket key
+     * @return 0 if a token is available, otherwise the nanoseconds until one is
+     */
+    public long check(final String key)
+    {
+        final AtomicLong bucket = stripe(key).get(key);
+        if (bucket == null)
+        {
+            return 0;
+        }
+        final long now = nanoClock.getAsLong();
+        final long arrival = bucket.get();
+        final long next = (arrival == UNUSED || arrival - now < 0 ? now : arrival) + emissionIntervalNanos;
+        return Math.max(0, next - now - burstNanos);
+    }
+
+    /**
+     * Drop buckets that have been full for at least the idle time. A full bucket holds no
+     * state worth keeping, so a request racing with its removal is never limited wrongly.
+     *
+     * @param idleNanos Minimum time a bucket has been full
+     * @return Number of buckets removed
+     */
+    public int evictIdle(final long idleNanos)
+    {
+        final long now = nanoClock.getAsLong();
+        int removed = 0;
+        for (final Map<String, AtomicLong> stripe : stripes)
+        {
+            final int before = stripe.size();
+            stripe.values().removeIf(bucket ->
+            {
+                final long arrival = bucket.get();
+                return arrival == UNUSED || now - arrival >= idleNanos;
+            });
+            removed += before - stripe.size();
+        }
+        return removed;
+    }
+
+    /**
+     * @return Number of tracked buckets
+     */
+    public int size()
+    {
+        int size = 0;
+        for (final Map<String, AtomicLong> stripe : stripes)
+        {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Map<String, AtomicLong> stripe(final String key)
+    {
+        final int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+}
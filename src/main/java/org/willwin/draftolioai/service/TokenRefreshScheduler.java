@@ -0,0 +1,320 @@
+package org.willwin.draftolioai.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.willwin.draftolioai.config.RsoProperties;
+import org.willwin.draftolioai.dto.RsoTokenResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background scheduler that refreshes RSO access tokens before they expire.
+ * <p>
+ * Each authenticated session is tracked with the expiry reported by
+ * {@link RsoTokenResponse#getExpiresIn()}. A periodic sweep picks up sessions whose
+ * refresh time has passed and refreshes them in bounded batches, so that
+ * {@code /auth/refresh} never has to be called on the user request path. Refresh times
+ * are jittered to spread load, and failed refreshes are retried with exponential
+ * backoff up to {@link RsoProperties.Tokens#getMaxRefreshRetries()} times.
+ * <p>
+ * A session can be tracked again, after a login or {@code /auth/refresh}, while its
+ * background refresh is in flight. The outcome of such a superseded refresh is discarded,
+ * and listeners are told which refresh token a result stems from so they can check it
+ * against the tokens the session holds by then.
+ */
+@Slf4j
+@Service
+public class TokenRefreshScheduler implements HttpSessionListener
+{
+
+    private final RsoService rsoService;
+
+    private final RsoProperties.Tokens tokenProperties;
+
+    private final ConcurrentMap<String, TrackedSession> trackedSessions;
+
+    private final ScheduledExecutorService sweepExecutor;
+
+    private final ExecutorService refreshExecutor;
+
+    public TokenRefreshScheduler(final RsoService rsoService, final RsoProperties rsoProperties)
+    {
+        this.rsoService = rsoService;
+        this.tokenProperties = rsoProperties.getTokens();
+        this.trackedSessions = new ConcurrentHashMap<>();
+        this.sweepExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("token-refresh-sweep").daemon().factory());
+        this.refreshExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("token-refresh-", 0).factory());
+    }
+
+    /**
+     * Start the periodic refresh sweep.
+     */
+    @PostConstruct
+    public void start()
+    {
+        final long intervalMillis = tokenProperties.getRefreshSweepInterval().toMillis();
+        sweepExecutor.scheduleWithFixedDelay(this::sweepSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Token refresh scheduler started - sweep interval: {} ms", intervalMillis);
+    }
+
+    /**
+     * Stop the sweep and abandon any in-flight refreshes.
+     */
+    @PreDestroy
+    public void stop()
+    {
+        sweepExecutor.shutdownNow();
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Start (or restart) tracking the tokens of a session.
+     *
+     * @param sessionId The session identifier
+     * @param tokens    The tokens most recently issued for the session
+     * @param listener  Callback receiving refreshed tokens or the final failure
+     */
+    public void track(final String sessionId, final RsoTokenResponse tokens, final Listener listener)
+    {
+        if (tokens.getRefreshToken() == null || tokens.getExpiresIn() == null)
+        {
+            log.debug("Not tracking session {} - token response has no refresh token or expiry", sessionId);
+            return;
+        }
+
+        final TrackedSession trackedSession = new TrackedSession(sessionId, listener);
+        trackedSession.reschedule(tokens.getRefreshToken(), tokens.getExpiresIn());
+        trackedSessions.put(sessionId, trackedSession);
+    }
+
+    /**
+     * Stop tracking a session, e.g. on logout.
+     *
+     * @param sessionId The session identifier
+     */
+    public void untrack(final String sessionId)
+    {
+        trackedSessions.remove(sessionId);
+    }
+
+    /**
+     * @return Number of sessions currently tracked
+     */
+    public int getTrackedSessionCount()
+    {
+        return trackedSessions.size();
+    }
+
+    @Override
+    public void sessionDestroyed(final HttpSessionEvent event)
+    {
+        untrack(event.getSession().getId());
+    }
+
+    /**
+     * Refresh one batch of sessions whose refresh time has passed.
+     *
+     * @return Number of sessions refreshed (successfully or not) in this sweep
+     */
+    int sweep()
+    {
+        final long now = System.currentTimeMillis();
+        final int batchSize = tokenProperties.getRefreshBatchSize();
+        final List<Callable<Void>> batch = new ArrayList<>(Math.min(batchSize, trackedSessions.size()));
+
+        for (final TrackedSession trackedSession : trackedSessions.values())
+        {
+            if (batch.size() >= batchSize)
+            {
+                break;
+            }
+            if (trackedSession.refreshAtMillis <= now && trackedSession.inFlight.compareAndSet(false, true))
+            {
+                batch.add(() ->
+                {
+                    refresh(trackedSession);
+                    return null;
+                });
+            }
+        }
+
+        if (batch.isEmpty())
+        {
+            return 0;
+        }
+
+        try
+        {
+            refreshExecutor.invokeAll(batch);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        log.debug("Refreshed {} session token(s), {} tracked", batch.size(), trackedSessions.size());
+        return batch.size();
+    }
+
+    private void sweepSafely()
+    {
+        try
+        {
+            sweep();
+        }
+        catch (Exception e)
+        {
+            log.error("Token refresh sweep failed", e);
+        }
+    }
+
+    private void refresh(final TrackedSession trackedSession)
+    {
+        final String refreshedFrom = trackedSession.refreshToken;
+        try
+        {
+            final RsoTokenResponse tokens = rsoService.refreshAccessToken(refreshedFrom);
+            if (trackedSessions.get(trackedSession.sessionId) != trackedSession)
+            {
+                log.debug("Discarding superseded token refresh for session {}", trackedSession.sessionId);
+                return;
+            }
+            trackedSession.listener.onRefreshed(refreshedFrom, tokens);
+
+            final String refreshToken = tokens.getRefreshToken() != null ? tokens.getRefreshToken() : refreshedFrom;
+            trackedSession.attempts = 0;
+            trackedSession.reschedule(refreshToken, tokens.getExpiresIn() != null ? tokens.getExpiresIn() : 0);
+        }
+        catch (IllegalStateException e)
+        {
+            // Session was invalidated while the refresh was in flight
+            trackedSessions.remove(trackedSession.sessionId, trackedSession);
+        }
+        catch (Exception e)
+        {
+            trackedSession.attempts++;
+            if (trackedSession.attempts > tokenProperties.getMaxRefreshRetries())
+            {
+                log.warn(
+                        "Giving up refreshing tokens for session {} after {} attempts", trackedSession.sessionId,
+                        trackedSession.attempts
+                );
+                if (trackedSessions.remove(trackedSession.sessionId, trackedSession))
+                {
+                    notifyFailure(trackedSession, refreshedFrom);
+                }
+            }
+            else
+            {
+                final long backoffMillis = tokenProperties.getRefreshRetryBackoff().toMillis()
+                        << (trackedSession.attempts - 1);
+                trackedSession.refreshAtMillis = System.currentTimeMillis() + backoffMillis + jitter(backoffMillis / 2);
+                log.debug(
+                        "Token refresh attempt {} failed for session {} - retrying in {} ms", trackedSession.attempts,
+                        trackedSession.sessionId, backoffMillis
+                );
+            }
+        }
+        finally
+        {
+            trackedSession.inFlight.set(false);
+        }
+    }
+
+    private void notifyFailure(final TrackedSession trackedSession, final String refreshToken)
+    {
+        try
+        {
+            trackedSession.listener.onRefreshFailed(refreshToken);
+        }
+        catch (IllegalStateException e)
+        {
+            // Session already invalidated, nothing to clear
+        }
+    }
+
+    private static long jitter(final long boundMillis)
+    {
+        return boundMillis > 0 ? ThreadLocalRandom.current().nextLong(boundMillis) : 0;
+    }
+
+    /**
+     * Callback for the outcome of background refreshes of a session.
+     * <p>
+     * The session may have got newer tokens while a refresh was in flight, so implementations
+     * must only apply an outcome while the session still holds the refresh token it stems from.
+     */
+    public interface Listener
+    {
+
+        /**
+         * Called with the new tokens after a successful refresh.
+         *
+         * @param refreshedFrom The refresh token the tokens were obtained with
+         * @param tokens        The refreshed tokens
+         */
+        void onRefreshed(String refreshedFrom, RsoTokenResponse tokens);
+
+        /**
+         * Called once all refresh retries are exhausted. The session is no longer tracked.
+         *
+         * @param refreshToken The refresh token that could not be used
+         */
+        void onRefreshFailed(String refreshToken);
+
+    }
+
+    /**
+     * Refresh bookkeeping for a single session.
+     */
+    private final class TrackedSession
+    {
+
+        private final String sessionId;
+
+        private final Listener listener;
+
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+
+        private volatile String refreshToken;
+
+        private volatile long refreshAtMillis;
+
+        private volatile int attempts;
+
+        private TrackedSession(final String sessionId, final Listener listener)
+        {
+            this.sessionId = sessionId;
+            this.listener = listener;
+        }
+
+        private void reschedule(final String refreshToken, final int expiresInSeconds)
+        {
+            final long now = System.currentTimeMillis();
+            final long expiresAtMillis = now + TimeUnit.SECONDS.toMillis(expiresInSeconds);
+            final long refreshAt = expiresAtMillis - tokenProperties.getRefreshBuffer().toMillis()
+                    - jitter(tokenProperties.getRefreshJitter().toMillis());
+
+            this.refreshToken = refreshToken;
+            this.refreshAtMillis = Math.max(now, refreshAt);
+        }
+
+    }
+
+}
@@ -3,7 +3,7 @@ package org.willwin.draftolioai;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "draft.journal.enabled=false")
 class DraftolioAiApplicationTests
 {
 
@@ -0,0 +1,142 @@
+package org.willwin.draftolioai.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.willwin.draftolioai.config.AuthEventLogProperties;
+import org.willwin.draftolioai.service.AuthEventLogger;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging overhead per login on the request thread.
+ * <p>
+ * {@code synchronousInfoLines} replays the INFO lines a login used to write through the
+ * application logger; {@code asyncAuthEvents} records the structured events of a login
+ * instead. Both loggers write through a real Logback encoder into a discarding stream,
+ * so formatting and encoding costs are included but no I/O. With {@code eventsLevel=WARN}
+ * the login events are below the level of the events logger and are skipped outright.
+ * <p>
+ * Run with {@code main} from the IDE, or build the test classpath and invoke
+ * {@code org.openjdk.jmh.Main AuthEventLoggingBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AuthEventLoggingBenchmark
+{
+
+    private static final String STATE = "Zk3Q0b2m8Yw1nP4rT7vX9cE6hJ5kL2sA";
+
+    private static final String AUTH_URL = "https://auth.riotgames.com/authorize?redirect_uri="
+            + "http://localhost:8080/oauth2-callback&client_id=draftolio&response_type=code"
+            + "&scope=openid cpid offline_access&state=" + STATE;
+
+    @Param({ "INFO", "WARN" })
+    private String eventsLevel;
+
+    private org.slf4j.Logger applicationLog;
+
+    private AuthEventLogger authEventLogger;
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(AuthEventLoggingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        applicationLog = discardingLogger("benchmark.application", Level.INFO);
+        discardingLogger("org.willwin.draftolioai.auth.events", Level.toLevel(eventsLevel));
+
+        final AuthEventLogProperties properties = new AuthEventLogProperties();
+        properties.getSampleEvery().put("user-info-read", 100);
+        authEventLogger = new AuthEventLogger(properties);
+        authEventLogger.start();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        authEventLogger.stop();
+        System.out.println("Dropped auth events: " + authEventLogger.getDroppedCount());
+    }
+
+    @Benchmark
+    public void synchronousInfoLines()
+    {
+        applicationLog.info("[DEBUG_LOG] Initiating RSO login - redirect URL: {}", "/dashboard");
+        applicationLog.info(
+                "[DEBUG_LOG] Handling OAuth2 callback - code: {}, state: {}, error: {}", "code-1", STATE, null);
+        applicationLog.info("[DEBUG_LOG] Successfully exchanged authorization code for tokens");
+        applicationLog.info("[DEBUG_LOG] Successfully retrieved user info: sub={}, cpid={}", "user-1", "NA1");
+        applicationLog.info("[DEBUG_LOG] Successfully authenticated user with Spring Security: {}", "user-1");
+        applicationLog.info(
+                "[DEBUG_LOG] Successfully authenticated user: {} - redirecting to: {}", "user-1", AUTH_URL);
+    }
+
+    @Benchmark
+    public void asyncAuthEvents()
+    {
+        final long startNanos = System.nanoTime();
+        authEventLogger.success(AuthEventLogger.Type.LOGIN_STARTED, null, "session-1", startNanos);
+        authEventLogger.success(AuthEventLogger.Type.LOGIN_SUCCEEDED, "user-1", "session-1", startNanos);
+        authEventLogger.success(AuthEventLogger.Type.USER_INFO_READ, "user-1", "session-1", 0);
+    }
+
+    private static Logger discardingLogger(final String name, final Level level)
+    {
+        final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+        final PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{ISO8601} %-5level [%thread] %logger{36} - %msg%n");
+        encoder.start();
+
+        final OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+
+        final Logger logger = context.getLogger(name);
+        logger.detachAndStopAllAppenders();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        logger.setLevel(level);
+        return logger;
+    }
+
+}
@@ -0,0 +1,129 @@
+package org.willwin.draftolioai.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftStatus;
+import org.willwin.draftolioai.service.DraftCommandExecutor;
+import org.willwin.draftolioai.service.DraftState;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of draft commands across many concurrent drafts.
+ * <p>
+ * Each invocation submits one action to each of {@value #BATCH} random drafts out of
+ * {@code drafts} and waits for all of them, the way many captains act at once. Drafts
+ * that complete are replaced on their shard. Compare shard counts to see unrelated drafts
+ * proceed in parallel; {@code shards=1} behaves like one coarse lock over all drafts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DraftCommandExecutorBenchmark
+{
+
+    private static final int BATCH = 256;
+
+    @Param({ "1000", "10000" })
+    private int drafts;
+
+    @Param({ "1", "4", "8" })
+    private int shards;
+
+    private DraftCommandExecutor executor;
+
+    private String[] draftIds;
+
+    private DraftState[] states;
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(DraftCommandExecutorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        final DraftProperties properties = new DraftProperties();
+        properties.getExecutor().setShards(shards);
+        properties.getExecutor().setQueueCapacity(100_000);
+        executor = new DraftCommandExecutor(properties);
+
+        draftIds = new String[drafts];
+        states = new DraftState[drafts];
+        for (int i = 0; i < drafts; i++)
+        {
+            draftIds[i] = "draft_" + i;
+            states[i] = newDraft(draftIds[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        executor.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void submitActions()
+    {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[BATCH];
+        for (int i = 0; i < BATCH; i++)
+        {
+            final int draft = random.nextInt(drafts);
+            final int championId = random.nextInt(256);
+            futures[i] = executor.submit(draftIds[draft], () -> act(draft, championId));
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    private int act(final int draft, final int championId)
+    {
+        final DraftState state = states[draft];
+        final int picked = state.applyTimeout(championId);
+        if (state.getStatus() == DraftStatus.COMPLETED)
+        {
+            states[draft] = newDraft(draftIds[draft]);
+        }
+        return picked;
+    }
+
+    private static DraftState newDraft(final String draftId)
+    {
+        final DraftState state = new DraftState(draftId, DraftMode.TOURNAMENT, 256);
+        state.start();
+        return state;
+    }
+
+}
@@ -0,0 +1,145 @@
+package org.willwin.draftolioai.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.repository.DraftJournal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Events per second appended to the draft journal, per durability mode.
+ * <p>
+ * Each operation journals one pick or ban; every 20 actions a thread also creates and
+ * starts a new draft, the mix of a running draft. Sealed segments are compacted after
+ * each iteration so disk usage stays bounded. Set {@code draft.journal.benchmark.dir} to
+ * measure on a particular device; the default is a temporary directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DraftJournalBenchmark
+{
+
+    private static final int TURNS = 20;
+
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    @Param({ "SYNC", "BATCH", "ASYNC" })
+    private DraftProperties.Durability durability;
+
+    private Path directory;
+
+    private DraftJournal journal;
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(DraftJournalBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        final String base = System.getProperty("draft.journal.benchmark.dir");
+        directory = base == null
+                ? Files.createTempDirectory("draft-journal")
+                : Files.createTempDirectory(Path.of(base), "draft-journal");
+
+        final DraftProperties.Journal properties = new DraftProperties.Journal();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setDurability(durability);
+        properties.setSnapshotInterval(Duration.ofHours(1));
+        journal = new DraftJournal(properties, 256);
+        journal.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void compact()
+    {
+        journal.snapshot();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        journal.stop();
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            for (final Path path : files.sorted(Comparator.reverseOrder()).toList())
+            {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void appendAction(final Cursor cursor)
+    {
+        if (cursor.turn == 0)
+        {
+            cursor.draftId = "draft_" + cursor.threadId + "_" + cursor.drafts++;
+            journal.appendCreated(cursor.draftId, DraftMode.TOURNAMENT);
+            journal.appendStarted(cursor.draftId);
+        }
+        journal.appendAction(cursor.draftId, cursor.turn, cursor.turn);
+        cursor.turn = (cursor.turn + 1) % TURNS;
+    }
+
+    /**
+     * The draft each benchmark thread is currently journaling.
+     */
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+
+        private int threadId;
+
+        private long drafts;
+
+        private String draftId;
+
+        private int turn;
+
+        @Setup
+        public void setUp(final DraftJournalBenchmark benchmark)
+        {
+            threadId = benchmark.threadIds.getAndIncrement();
+        }
+
+    }
+
+}
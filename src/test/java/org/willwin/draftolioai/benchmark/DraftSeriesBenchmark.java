@@ -0,0 +1,107 @@
+package org.willwin.draftolioai.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.service.DraftActionResult;
+import org.willwin.draftolioai.service.DraftSeries;
+import org.willwin.draftolioai.service.DraftState;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of champion availability checks in the last game of a full fearless best of five.
+ * <p>
+ * {@code checkWithSeriesLocks} validates a random ban against the game, whose bitset
+ * already holds the champions of the four earlier games; {@code checkFromHistory} answers
+ * the same question by going over the actions of the earlier games, as a series without
+ * the incremental union would have to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DraftSeriesBenchmark
+{
+
+    private static final int CAPACITY = 256;
+
+    private static final int GAMES = 5;
+
+    private DraftState[] earlierGames;
+
+    private DraftState lastGame;
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(DraftSeriesBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        final DraftSeries series = new DraftSeries("series", DraftMode.FULL_FEARLESS, GAMES, CAPACITY);
+        earlierGames = new DraftState[GAMES - 1];
+        for (int game = 0; game < GAMES - 1; game++)
+        {
+            final DraftState draft = series.newGame("draft_" + game);
+            draft.start();
+            for (int turn = 0; turn < 20; turn++)
+            {
+                draft.apply(draft.getCurrentSide(), draft.getCurrentType(), (game * 20 + turn) * 3 % CAPACITY);
+            }
+            series.completeGame(draft);
+            earlierGames[game] = draft;
+        }
+        lastGame = series.newGame("draft_" + (GAMES - 1));
+        lastGame.start();
+    }
+
+    @Benchmark
+    public DraftActionResult checkWithSeriesLocks()
+    {
+        final int championId = ThreadLocalRandom.current().nextInt(CAPACITY);
+        return lastGame.check(lastGame.getCurrentSide(), DraftActionType.BAN, championId);
+    }
+
+    @Benchmark
+    public boolean checkFromHistory()
+    {
+        final int championId = ThreadLocalRandom.current().nextInt(CAPACITY);
+        for (final DraftState game : earlierGames)
+        {
+            for (int turn = 0; turn < game.getOrder().size(); turn++)
+            {
+                if (game.getChampionAt(turn) == championId)
+                {
+                    return false;
+                }
+            }
+        }
+        return lastGame.isAvailable(championId);
+    }
+
+}
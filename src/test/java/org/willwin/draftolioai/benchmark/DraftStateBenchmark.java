@@ -0,0 +1,94 @@
+package org.willwin.draftolioai.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.service.DraftActionResult;
+import org.willwin.draftolioai.service.DraftState;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of draft legality checks and of running whole drafts.
+ * <p>
+ * {@code checkAction} validates a random ban against one of 10,000 drafts in progress,
+ * the work done for every submitted action; {@code fullDraft} creates a draft and plays
+ * all 20 turns, so a single thread sustains one draft per reported duration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DraftStateBenchmark
+{
+
+    private static final int DRAFTS = 10_000;
+
+    private static final int CAPACITY = 256;
+
+    private DraftState[] drafts;
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(DraftStateBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        drafts = new DraftState[DRAFTS];
+        for (int i = 0; i < DRAFTS; i++)
+        {
+            drafts[i] = new DraftState("draft_" + i, DraftMode.TOURNAMENT, CAPACITY);
+            drafts[i].start();
+            for (int turn = 0; turn < 10; turn++)
+            {
+                drafts[i].applyTimeout(i + turn * 7);
+            }
+        }
+    }
+
+    @Benchmark
+    public DraftActionResult checkAction()
+    {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final DraftState draft = drafts[random.nextInt(DRAFTS)];
+        return draft.check(draft.getCurrentSide(), DraftActionType.PICK, random.nextInt(CAPACITY));
+    }
+
+    @Benchmark
+    public DraftState fullDraft()
+    {
+        final DraftState draft = new DraftState("draft", DraftMode.TOURNAMENT, CAPACITY);
+        draft.start();
+        for (int turn = 0; turn < 20; turn++)
+        {
+            draft.apply(draft.getCurrentSide(), draft.getCurrentType(), turn * 11);
+        }
+        return draft;
+    }
+
+}
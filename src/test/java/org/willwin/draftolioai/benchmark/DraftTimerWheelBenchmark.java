@@ -0,0 +1,148 @@
+package org.willwin.draftolioai.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.service.DraftCommandExecutor;
+import org.willwin.draftolioai.service.DraftTimerWheel;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cost of restarting a draft's turn timer, as every pick or ban does, on the timing wheel
+ * against a {@link ScheduledThreadPoolExecutor} that removes cancelled tasks from its heap.
+ * <p>
+ * Every draft has a running 60 second timer; each operation cancels the timer of the
+ * thread's next draft and schedules the one of its next turn. Each thread owns its own
+ * drafts, standing in for the draft's shard.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DraftTimerWheelBenchmark
+{
+
+    private static final Duration TURN = Duration.ofSeconds(60);
+
+    private static final Runnable EXPIRY = () ->
+    {
+    };
+
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    @Param({ "1000", "10000" })
+    private int drafts;
+
+    private DraftCommandExecutor executor;
+
+    private DraftTimerWheel timerWheel;
+
+    private ScheduledThreadPoolExecutor scheduler;
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(DraftTimerWheelBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        final DraftProperties properties = new DraftProperties();
+        executor = new DraftCommandExecutor(properties);
+        timerWheel = new DraftTimerWheel(executor, properties);
+        scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        scheduler.shutdownNow();
+        timerWheel.stop();
+        executor.stop();
+    }
+
+    @Benchmark
+    public void timerWheelNextTurn(final Cursor cursor)
+    {
+        timerWheel.schedule(cursor.next(), TURN, EXPIRY);
+    }
+
+    @Benchmark
+    public void scheduledExecutorNextTurn(final Cursor cursor)
+    {
+        final int draft = cursor.nextIndex();
+        cursor.futures[draft].cancel(false);
+        cursor.futures[draft] = scheduler.schedule(EXPIRY, TURN.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The drafts of one benchmark thread, each with a running timer.
+     */
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+
+        private String[] draftIds;
+
+        private ScheduledFuture<?>[] futures;
+
+        private int position;
+
+        @Setup
+        public void setUp(final DraftTimerWheelBenchmark benchmark)
+        {
+            final int threadId = benchmark.threadIds.getAndIncrement();
+            final int count = benchmark.drafts / 4;
+            draftIds = new String[count];
+            futures = new ScheduledFuture<?>[count];
+            for (int i = 0; i < count; i++)
+            {
+                draftIds[i] = "draft_" + threadId + "_" + i;
+                benchmark.timerWheel.schedule(draftIds[i], TURN, EXPIRY);
+                futures[i] = benchmark.scheduler.schedule(EXPIRY, TURN.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private int nextIndex()
+        {
+            position = position + 1 == draftIds.length ? 0 : position + 1;
+            return position;
+        }
+
+        private String next()
+        {
+            return draftIds[nextIndex()];
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.willwin.draftolioai.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftSide;
+import org.willwin.draftolioai.service.DraftBinaryFrames;
+import org.willwin.draftolioai.service.DraftFrames;
+import org.willwin.draftolioai.service.DraftState;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of the JSON and binary draft frames.
+ * <p>
+ * Frames are taken from a draft halfway through. JSON encoding includes the UTF-8
+ * conversion the container performs before the frame hits the wire; JSON decoding parses
+ * the frame into a tree and reads the fields a client needs, as a browser would. The
+ * frame sizes in bytes are printed on setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DraftWireFormatBenchmark
+{
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private DraftState state;
+
+    private byte[] jsonDelta;
+
+    private byte[] binaryDelta;
+
+    private byte[] jsonSnapshot;
+
+    private byte[] binarySnapshot;
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(DraftWireFormatBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        state = new DraftState("draft_AbCdEfGhIjKlMnOp", DraftMode.TOURNAMENT, 256);
+        state.start();
+        for (int turn = 0; turn < 10; turn++)
+        {
+            state.apply(state.getCurrentSide(), state.getCurrentType(), 100 + turn * 13);
+        }
+        jsonDelta = DraftFrames.delta(state).getBytes(StandardCharsets.UTF_8);
+        binaryDelta = DraftBinaryFrames.delta(state);
+        jsonSnapshot = DraftFrames.snapshot(state).getBytes(StandardCharsets.UTF_8);
+        binarySnapshot = DraftBinaryFrames.snapshot(state);
+        System.out.printf(
+                "%nBytes on the wire - delta: json %d, binary %d; snapshot: json %d, binary %d%n", jsonDelta.length,
+                binaryDelta.length, jsonSnapshot.length, binarySnapshot.length
+        );
+    }
+
+    @Benchmark
+    public byte[] encodeJsonDelta()
+    {
+        return DraftFrames.delta(state).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeBinaryDelta()
+    {
+        return DraftBinaryFrames.delta(state);
+    }
+
+    @Benchmark
+    public byte[] encodeJsonSnapshot()
+    {
+        return DraftFrames.snapshot(state).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeBinarySnapshot()
+    {
+        return DraftBinaryFrames.snapshot(state);
+    }
+
+    @Benchmark
+    public long decodeJsonDelta()
+    {
+        final JsonNode frame = jsonMapper.readTree(jsonDelta);
+        return frame.get("version").asLong() + frame.get("turn").asInt()
+                + frame.get("lastAction").get("championId").asInt();
+    }
+
+    @Benchmark
+    public long decodeBinaryDelta()
+    {
+        final DraftBinaryFrames.Frame frame = DraftBinaryFrames.decode(binaryDelta);
+        return frame.version() + frame.turn() + frame.champions()[0];
+    }
+
+    @Benchmark
+    public long decodeJsonSnapshot()
+    {
+        final JsonNode frame = jsonMapper.readTree(jsonSnapshot);
+        long sum = frame.get("version").asLong() + frame.get("turn").asInt();
+        for (final String group : new String[] { "picks", "bans" })
+        {
+            for (final DraftSide side : DraftSide.values())
+            {
+                final JsonNode champions = frame.get(group).get(side.name());
+                for (int slot = 0; slot < champions.size(); slot++)
+                {
+                    final JsonNode champion = champions.get(slot);
+                    sum += champion.isNull() ? -1 : champion.asInt();
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long decodeBinarySnapshot()
+    {
+        final DraftBinaryFrames.Frame frame = DraftBinaryFrames.decode(binarySnapshot);
+        long sum = frame.version() + frame.turn();
+        for (final int champion : frame.champions())
+        {
+            sum += champion;
+        }
+        return sum;
+    }
+
+}
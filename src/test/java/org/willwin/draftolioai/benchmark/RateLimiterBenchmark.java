@@ -0,0 +1,93 @@
+package org.willwin.draftolioai.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.willwin.draftolioai.config.RateLimitProperties;
+import org.willwin.draftolioai.service.AuthRateLimiter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request overhead of the authentication rate limiter.
+ * <p>
+ * {@code hotClient} hammers one IP and session from every thread, the worst case for
+ * CAS contention on a single bucket; {@code manyClients} spreads requests over 10,000
+ * client IPs, exercising the striped bucket maps; {@code unlimitedPath} is the cost for
+ * every other request, which only checks the path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark
+{
+
+    private static final int CLIENTS = 10_000;
+
+    private AuthRateLimiter authRateLimiter;
+
+    private String[] clientIps;
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(RateLimiterBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        // Limits high enough that every request takes the full admit path
+        final RateLimitProperties.Limit limit = new RateLimitProperties.Limit(1_000_000, 1_000_000_000.0);
+        final RateLimitProperties properties = new RateLimitProperties();
+        properties.getEndpoints().put("login", new RateLimitProperties.Endpoint("/auth/login", limit, limit));
+        authRateLimiter = new AuthRateLimiter(properties);
+
+        clientIps = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++)
+        {
+            clientIps[i] = "10." + (i >> 16 & 0xFF) + "." + (i >> 8 & 0xFF) + "." + (i & 0xFF);
+        }
+    }
+
+    @Benchmark
+    public long hotClient()
+    {
+        return authRateLimiter.tryAcquire("/auth/login", "10.0.0.1", () -> "session-1");
+    }
+
+    @Benchmark
+    public long manyClients()
+    {
+        final String clientIp = clientIps[ThreadLocalRandom.current().nextInt(CLIENTS)];
+        return authRateLimiter.tryAcquire("/auth/login", clientIp, () -> null);
+    }
+
+    @Benchmark
+    public boolean unlimitedPath()
+    {
+        return authRateLimiter.isLimited("/api/drafts");
+    }
+
+}
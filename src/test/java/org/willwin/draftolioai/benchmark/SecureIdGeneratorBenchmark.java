@@ -0,0 +1,77 @@
+package org.willwin.draftolioai.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.willwin.draftolioai.service.SecureIdGenerator;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contended cost of generating a 32 byte state parameter.
+ * <p>
+ * {@code sharedSecureRandom} is the previous approach: one {@link SecureRandom} shared by
+ * every thread, a fresh array per call and {@link Base64.Encoder#encodeToString}.
+ * {@code pooledDrbg} uses {@link SecureIdGenerator}. Run with more threads, e.g.
+ * {@code -t 16}, to see how each scales.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SecureIdGeneratorBenchmark
+{
+
+    private SecureRandom secureRandom;
+
+    private SecureIdGenerator idGenerator;
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(SecureIdGeneratorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        secureRandom = new SecureRandom();
+        idGenerator = new SecureIdGenerator();
+    }
+
+    @Benchmark
+    public String sharedSecureRandom()
+    {
+        final byte[] randomBytes = new byte[32];
+        secureRandom.nextBytes(randomBytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+    }
+
+    @Benchmark
+    public String pooledDrbg()
+    {
+        return idGenerator.generate(32);
+    }
+
+}
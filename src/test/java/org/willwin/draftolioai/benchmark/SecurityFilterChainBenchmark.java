@@ -0,0 +1,141 @@
+package org.willwin.draftolioai.benchmark;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.willwin.draftolioai.DraftolioAiApplication;
+import org.willwin.draftolioai.repository.AuthHttpSession;
+import org.willwin.draftolioai.repository.AuthSessionRepository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request security overhead of public, stateless routes.
+ * <p>
+ * Requests carrying a live session cookie are passed through the Spring Session filter
+ * and then either the full session-aware chain alone ({@code *FullChain}, the behaviour
+ * before the public fast path) or the complete security filter with the fast path
+ * ordered first ({@code *FastPath}). The full chain looks up the session and checks it
+ * against the concurrent session registry; the fast path does neither.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SecurityFilterChainBenchmark
+{
+
+    private static final FilterChain TERMINAL = (request, response) ->
+    { };
+
+    private ConfigurableApplicationContext context;
+
+    private Filter sessionFilter;
+
+    private Filter fullChain;
+
+    private Filter fastPath;
+
+    private Cookie sessionCookie;
+
+    public static void main(final String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(SecurityFilterChainBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        context = new SpringApplicationBuilder(DraftolioAiApplication.class)
+                .properties(
+                        "server.port=0", "auth.session.store=memory", "auth.session.registry.jdbc=false",
+                        "auth.rate-limit.enabled=false", "lol.assets.enabled=false", "draft.journal.enabled=false",
+                        "logging.level.root=WARN"
+                )
+                .run();
+
+        sessionFilter = context.getBean("springSessionRepositoryFilter", Filter.class);
+        fullChain = new FilterChainProxy(context.getBean("securityFilterChain", SecurityFilterChain.class));
+        fastPath = context.getBean("springSecurityFilterChain", Filter.class);
+
+        final AuthSessionRepository repository = context.getBean(AuthSessionRepository.class);
+        final AuthHttpSession session = repository.createSession();
+        repository.save(session);
+        sessionCookie = new Cookie(
+                "JSESSIONID", Base64.getEncoder().encodeToString(session.getId().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public int healthCheckFullChain() throws ServletException, IOException
+    {
+        return dispatch(fullChain, "/actuator/health");
+    }
+
+    @Benchmark
+    public int healthCheckFastPath() throws ServletException, IOException
+    {
+        return dispatch(fastPath, "/actuator/health");
+    }
+
+    @Benchmark
+    public int staticAssetFullChain() throws ServletException, IOException
+    {
+        return dispatch(fullChain, "/images/champions/Ahri.png");
+    }
+
+    @Benchmark
+    public int staticAssetFastPath() throws ServletException, IOException
+    {
+        return dispatch(fastPath, "/images/champions/Ahri.png");
+    }
+
+    private int dispatch(final Filter securityFilter, final String path) throws ServletException, IOException
+    {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setCookies(sessionCookie);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        sessionFilter.doFilter(request, response, (req, res) -> securityFilter.doFilter(req, res, TERMINAL));
+        return response.getStatus();
+    }
+
+}
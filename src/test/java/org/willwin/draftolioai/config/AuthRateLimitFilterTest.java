@@ -0,0 +1,84 @@
+package org.willwin.draftolioai.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.session.web.http.DefaultCookieSerializer;
+import org.willwin.draftolioai.service.AuthRateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for AuthRateLimitFilter.
+ */
+class AuthRateLimitFilterTest
+{
+
+    private final AtomicLong clock = new AtomicLong(Duration.ofHours(1).toNanos());
+
+    private AuthRateLimiter authRateLimiter;
+
+    private AuthRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp()
+    {
+        final RateLimitProperties properties = new RateLimitProperties();
+        properties.getEndpoints().put(
+                "login", new RateLimitProperties.Endpoint(
+                        "/auth/login", new RateLimitProperties.Limit(1, 1.0), new RateLimitProperties.Limit(1, 1.0)));
+        authRateLimiter = new AuthRateLimiter(properties, clock::get);
+        filter = new AuthRateLimitFilter(authRateLimiter, new DefaultCookieSerializer());
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        authRateLimiter.stop();
+    }
+
+    @Test
+    void testEncodedAndParameterizedPathsAreLimited() throws Exception
+    {
+        // Arrange - the only IP token goes to the plain path
+        assertEquals(HttpStatus.OK.value(), perform("/auth/login").getStatus());
+
+        // Act & Assert
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), perform("/auth/%6Cogin").getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), perform("/auth/login;x").getStatus());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), perform("/app/auth/login", "/app").getStatus());
+    }
+
+    @Test
+    void testOtherPathsAreNotLimited() throws Exception
+    {
+        // Arrange
+        perform("/auth/login");
+
+        // Act & Assert
+        assertEquals(HttpStatus.OK.value(), perform("/auth/status").getStatus());
+    }
+
+    private MockHttpServletResponse perform(final String uri) throws Exception
+    {
+        return perform(uri, "");
+    }
+
+    private MockHttpServletResponse perform(final String uri, final String contextPath) throws Exception
+    {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setContextPath(contextPath);
+        request.setRemoteAddr("10.0.0.1");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+}
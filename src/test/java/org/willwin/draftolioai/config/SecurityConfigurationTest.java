@@ -0,0 +1,76 @@
+package org.willwin.draftolioai.config;
+
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * MockMvc tests that the public, stateless routes of {@link SecurityConfiguration} are
+ * served without an HTTP session, through the session and security filters of the
+ * application.
+ */
+@SpringBootTest(
+        properties = {
+                "auth.session.store=memory", "auth.session.registry.jdbc=false", "lol.assets.enabled=false",
+                "draft.journal.enabled=false"
+        }
+)
+class SecurityConfigurationTest
+{
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    @Qualifier("springSessionRepositoryFilter")
+    private Filter sessionFilter;
+
+    @Autowired
+    @Qualifier("springSecurityFilterChain")
+    private Filter securityFilter;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp()
+    {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(sessionFilter, securityFilter).build();
+    }
+
+    @Test
+    void testPublicRoutesHaveNoSession() throws Exception
+    {
+        for (final String path : SecurityConfiguration.PUBLIC_STATELESS_PATHS)
+        {
+            // Act
+            final MvcResult result = mockMvc.perform(get(path.replace("**", "app.css"))).andReturn();
+
+            // Assert
+            assertNull(result.getRequest().getSession(false), path);
+            assertNull(result.getResponse().getHeader(HttpHeaders.SET_COOKIE), path);
+        }
+    }
+
+    @Test
+    void testLoginRouteCreatesSession() throws Exception
+    {
+        // Act
+        final MvcResult result = mockMvc.perform(get("/auth/login")).andReturn();
+
+        // Assert - the session-aware chain still handles everything else
+        assertNotNull(result.getRequest().getSession(false));
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.willwin.draftolioai.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.web.authentication.session.SessionAuthenticationStrategy;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.willwin.draftolioai.config.AuthEventLogProperties;
+import org.willwin.draftolioai.config.AuthSessionProperties;
+import org.willwin.draftolioai.dto.AuthSession;
+import org.willwin.draftolioai.repository.AuthSessionRepository;
+import org.willwin.draftolioai.service.AuthEventLogger;
+import org.willwin.draftolioai.service.AuthResponseCache;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * MockMvc tests of the conditional requests served by AuthController from the
+ * AuthResponseCache.
+ */
+class AuthControllerTest
+{
+
+    private MockMvc mockMvc;
+
+    private MockHttpSession session;
+
+    @BeforeEach
+    void setUp()
+    {
+        final AuthEventLogProperties eventLogProperties = new AuthEventLogProperties();
+        eventLogProperties.setEnabled(false);
+        final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        final AuthController controller = new AuthController(
+                null, null, null, null, beanFactory.getBeanProvider(AuthSessionRepository.class),
+                new AuthEventLogger(eventLogProperties),
+                beanFactory.getBeanProvider(SessionAuthenticationStrategy.class),
+                new AuthResponseCache(JsonMapper.builder().build(), new AuthSessionProperties())
+        );
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        // Tokens without an expiry are never refreshed, so no RSO service is needed
+        session = new MockHttpSession();
+        session.setAttribute(
+                AuthSession.SESSION_ATTRIBUTE, new AuthSession("user_1", "NA1", "access_1", "refresh_1", 0));
+    }
+
+    @Test
+    void testStatusWithMatchingETagIsNotModified() throws Exception
+    {
+        assertNotModifiedOnRevalidation("/auth/status");
+    }
+
+    @Test
+    void testCurrentUserWithMatchingETagIsNotModified() throws Exception
+    {
+        assertNotModifiedOnRevalidation("/auth/me");
+    }
+
+    @Test
+    void testStaleETagGetsFullResponse() throws Exception
+    {
+        // Act
+        final MockHttpServletResponse response = mockMvc
+                .perform(get("/auth/me").session(session).header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andReturn()
+                .getResponse();
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getContentAsByteArray().length > 0);
+    }
+
+    @Test
+    void testAnonymousStatusCreatesNoSession() throws Exception
+    {
+        // Act
+        final MvcResult result = mockMvc.perform(get("/auth/status")).andReturn();
+
+        // Assert
+        assertEquals(200, result.getResponse().getStatus());
+        assertTrue(result.getResponse().getContentAsString().contains("false"));
+        assertNull(result.getRequest().getSession(false));
+    }
+
+    private void assertNotModifiedOnRevalidation(final String path) throws Exception
+    {
+        // Arrange
+        final MockHttpServletResponse first = mockMvc.perform(get(path).session(session)).andReturn().getResponse();
+        assertEquals(200, first.getStatus());
+        assertTrue(first.getContentAsByteArray().length > 0);
+        final String eTag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        // Act
+        final MockHttpServletResponse revalidated = mockMvc
+                .perform(get(path).session(session).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andReturn()
+                .getResponse();
+
+        // Assert
+        assertEquals(304, revalidated.getStatus());
+        assertEquals(eTag, revalidated.getHeader(HttpHeaders.ETAG));
+        assertEquals(0, revalidated.getContentAsByteArray().length);
+    }
+
+}
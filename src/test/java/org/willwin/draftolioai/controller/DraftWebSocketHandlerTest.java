@@ -0,0 +1,63 @@
+package org.willwin.draftolioai.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.willwin.draftolioai.service.DraftBroadcaster;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the parsing of inbound messages by DraftWebSocketHandler.
+ */
+class DraftWebSocketHandlerTest
+{
+
+    private DraftBroadcaster broadcaster;
+
+    private WebSocketSession session;
+
+    private DraftWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp()
+    {
+        broadcaster = mock(DraftBroadcaster.class);
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session_1");
+        handler = new DraftWebSocketHandler(broadcaster, JsonMapper.builder().build());
+    }
+
+    @Test
+    void testClockSyncIsAnswered() throws Exception
+    {
+        // Act - field order and extra fields do not matter
+        handler.handleTextMessage(
+                session, new TextMessage("{ \"clientTime\": 1700000000123, \"seq\": 4, \"type\": \"clock_sync\" }"));
+
+        // Assert
+        verify(broadcaster).clockSync(eq(session), eq(1700000000123L), anyLong());
+    }
+
+    @Test
+    void testUnknownOrMalformedMessagesAreIgnored() throws Exception
+    {
+        // Act
+        handler.handleTextMessage(session, new TextMessage("{\"type\":\"pick\",\"clientTime\":1}"));
+        handler.handleTextMessage(session, new TextMessage("{\"type\":\"clock_sync\"}"));
+        handler.handleTextMessage(
+                session, new TextMessage("{\"note\":\"\\\"type\\\":\\\"clock_sync\\\",\\\"clientTime\\\":1\"}"));
+        handler.handleTextMessage(session, new TextMessage("{\"type\":\"clock_sync\",\"clientTime\":"));
+
+        // Assert
+        verify(broadcaster, never()).clockSync(eq(session), anyLong(), anyLong());
+    }
+
+}
@@ -0,0 +1,214 @@
+package org.willwin.draftolioai.loadtest;
+
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.service.DraftTurnOrder;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Simulation of the WebSocket messages sent for turn timers, comparing a
+ * {@code draft_timer_update} pushed every second to every connection of a running draft
+ * with absolute deadlines carried by the state updates.
+ * <p>
+ * A fixed number of tournament drafts run back to back in steady state. A tenth of the
+ * turns run out, the others end at a uniformly random time after 3 seconds, and a tenth
+ * of the drafts are paused once for a minute. Every connection of a draft receives a
+ * snapshot, each state update and {@code draft_completed}, in both models. With
+ * deadlines, each connection additionally runs a {@code clock_sync} handshake of five
+ * round trips and receives a correction when the draft is paused and when it is resumed.
+ * Turn durations are the defaults of {@link DraftProperties.Timer}.
+ * <p>
+ * Run with {@code main}: arguments are {@code [drafts] [connectionsPerDraft] [minutes]}.
+ */
+public class DraftTimerSyncSimulation
+{
+
+    private static final double TIMEOUT_RATE = 0.1;
+
+    private static final double MIN_TURN_SECONDS = 3;
+
+    private static final double PAUSE_RATE = 0.1;
+
+    private static final double PAUSE_SECONDS = 60;
+
+    private static final int CLOCK_SYNC_ROUNDS = 5;
+
+    private static final DraftTurnOrder ORDER = DraftTurnOrder.forMode(DraftMode.TOURNAMENT);
+
+    private final int drafts;
+
+    private final int connectionsPerDraft;
+
+    private final Duration duration;
+
+    private final double banSeconds;
+
+    private final double pickSeconds;
+
+    public DraftTimerSyncSimulation(final int drafts, final int connectionsPerDraft, final Duration duration)
+    {
+        final DraftProperties.Timer timer = new DraftProperties.Timer();
+        this.drafts = drafts;
+        this.connectionsPerDraft = connectionsPerDraft;
+        this.duration = duration;
+        this.banSeconds = timer.getBanDuration().toMillis() / 1000.0;
+        this.pickSeconds = timer.getPickDuration().toMillis() / 1000.0;
+    }
+
+    public static void main(final String[] args)
+    {
+        final int drafts = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        final int connections = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        final int minutes = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        System.out.println(new DraftTimerSyncSimulation(drafts, connections, Duration.ofMinutes(minutes)).run());
+    }
+
+    /**
+     * Simulate the configured window with a fixed seed.
+     *
+     * @return Messages of both models
+     */
+    public Report run()
+    {
+        final Random random = new Random(42);
+        final Window window = new Window(duration.toSeconds(), connectionsPerDraft);
+        for (int slot = 0; slot < drafts; slot++)
+        {
+            // The first draft of every slot started before the window opens
+            double time = -random.nextDouble() * 600;
+            while (time < window.end)
+            {
+                time = simulateDraft(random, window, time);
+            }
+        }
+        return new Report(
+                drafts, connectionsPerDraft, duration, window.stateFrames, window.timerTicks, window.corrections,
+                window.clockSyncs
+        );
+    }
+
+    // Returns the time the draft completed
+    private double simulateDraft(final Random random, final Window window, final double start)
+    {
+        window.stateFrames += window.count(start);
+        window.clockSyncs += 2L * CLOCK_SYNC_ROUNDS * window.count(start);
+        final int pausedTurn = random.nextDouble() < PAUSE_RATE ? random.nextInt(ORDER.size()) : -1;
+
+        double time = start;
+        for (int turn = 0; turn < ORDER.size(); turn++)
+        {
+            final double limit = ORDER.type(turn) == DraftActionType.BAN ? banSeconds : pickSeconds;
+            final double taken = random.nextDouble() < TIMEOUT_RATE
+                    ? limit
+                    : MIN_TURN_SECONDS + random.nextDouble() * (limit - MIN_TURN_SECONDS);
+            if (turn == pausedTurn)
+            {
+                final double pausedAt = time + random.nextDouble() * taken;
+                window.tick(time, pausedAt);
+                window.corrections += window.count(pausedAt) + window.count(pausedAt + PAUSE_SECONDS);
+                window.tick(pausedAt + PAUSE_SECONDS, time + taken + PAUSE_SECONDS);
+                time += taken + PAUSE_SECONDS;
+            }
+            else
+            {
+                window.tick(time, time + taken);
+                time += taken;
+            }
+            window.stateFrames += window.count(time);
+        }
+        window.stateFrames += window.count(time);
+        return time;
+    }
+
+    /**
+     * Message counts of the simulated window.
+     */
+    private static final class Window
+    {
+
+        private final double end;
+
+        private final int connections;
+
+        private long stateFrames;
+
+        private long timerTicks;
+
+        private long corrections;
+
+        private long clockSyncs;
+
+        private Window(final double end, final int connections)
+        {
+            this.end = end;
+            this.connections = connections;
+        }
+
+        // Messages of one event to every connection, if it falls in the window
+        private long count(final double time)
+        {
+            return time >= 0 && time < end ? connections : 0;
+        }
+
+        // Per-second updates of a running turn clock
+        private void tick(final double from, final double to)
+        {
+            for (double second = from + 1; second <= to; second++)
+            {
+                timerTicks += count(second);
+            }
+        }
+
+    }
+
+    /**
+     * Messages per second of both models.
+     */
+    public record Report(
+            int drafts, int connectionsPerDraft, Duration duration, long stateFrames, long timerTicks,
+            long corrections, long clockSyncs)
+    {
+
+        /**
+         * @return Messages per second with a {@code draft_timer_update} every second
+         */
+        public double perSecondTimerRate()
+        {
+            return (stateFrames + timerTicks) / (double) duration.toSeconds();
+        }
+
+        /**
+         * @return Messages per second with deadlines, corrections and clock sync handshakes
+         */
+        public double deadlineRate()
+        {
+            return (stateFrames + corrections + clockSyncs) / (double) duration.toSeconds();
+        }
+
+        /**
+         * @return Share of messages saved by deadlines
+         */
+        public double reduction()
+        {
+            return 1 - deadlineRate() / perSecondTimerRate();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format(
+                    "drafts=%d connections/draft=%d window=%ds per-second timer: %.0f msg/s (%.0f timer); "
+                            + "deadlines: %.0f msg/s (%.1f corrections, %.1f clock sync); reduction=%.1f%%",
+                    drafts, connectionsPerDraft, duration.toSeconds(), perSecondTimerRate(),
+                    timerTicks / (double) duration.toSeconds(), deadlineRate(),
+                    corrections / (double) duration.toSeconds(), clockSyncs / (double) duration.toSeconds(),
+                    reduction() * 100
+            );
+        }
+
+    }
+
+}
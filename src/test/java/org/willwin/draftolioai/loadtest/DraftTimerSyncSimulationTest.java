@@ -0,0 +1,30 @@
+package org.willwin.draftolioai.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the turn timer message simulation at 1,000 drafts.
+ */
+class DraftTimerSyncSimulationTest
+{
+
+    @Test
+    void testDeadlinesCutTimerMessagesAtThousandDrafts()
+    {
+        // Arrange
+        final DraftTimerSyncSimulation simulation = new DraftTimerSyncSimulation(1000, 10, Duration.ofHours(1));
+
+        // Act
+        final DraftTimerSyncSimulation.Report report = simulation.run();
+        System.out.println("[DEBUG_LOG] Timer sync simulation: " + report);
+
+        // Assert - every running draft costs one message per connection per second without deadlines
+        assertTrue(report.perSecondTimerRate() > 1000 * 10 * 0.9, report.toString());
+        assertTrue(report.reduction() > 0.9, report.toString());
+    }
+
+}
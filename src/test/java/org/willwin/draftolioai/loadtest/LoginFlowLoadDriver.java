@@ -0,0 +1,229 @@
+package org.willwin.draftolioai.loadtest;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load driver for the real RSO login flow.
+ * <p>
+ * Each virtual user runs on its own virtual thread with its own cookie jar and repeats
+ * {@code GET /auth/login} → {@code GET /authorize} on RSO → {@code GET /oauth2-callback}
+ * → {@code GET /auth/me}, starting every login with an empty cookie jar. Redirects are
+ * followed by hand so every hop is checked. The latency of a login is the time for the
+ * whole sequence.
+ * <p>
+ * Run against a live application with {@code main}, pointed at {@link StubRsoServer}:
+ * arguments are {@code <appBaseUrl> [virtualUsers] [loginsPerUser]}.
+ */
+public class LoginFlowLoadDriver
+{
+
+    private static final Pattern AUTHORIZATION_URL = Pattern.compile("\"authorizationUrl\"\\s*:\\s*\"([^\"]+)\"");
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String appBaseUrl;
+
+    private final int virtualUsers;
+
+    private final int loginsPerUser;
+
+    public LoginFlowLoadDriver(final String appBaseUrl, final int virtualUsers, final int loginsPerUser)
+    {
+        this.appBaseUrl = appBaseUrl;
+        this.virtualUsers = virtualUsers;
+        this.loginsPerUser = loginsPerUser;
+    }
+
+    public static void main(final String[] args) throws Exception
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: LoginFlowLoadDriver <appBaseUrl> [virtualUsers] [loginsPerUser]");
+            System.exit(1);
+        }
+        final int users = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        final int logins = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        // Warm up once with a tenth of the load, then measure
+        new LoginFlowLoadDriver(args[0], users, Math.max(1, logins / 10)).run();
+        System.out.println(new LoginFlowLoadDriver(args[0], users, logins).run());
+    }
+
+    /**
+     * Run all virtual users to completion.
+     *
+     * @return Throughput and latency of the run
+     */
+    public Report run() throws InterruptedException
+    {
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Future<long[]>> results = new ArrayList<>(virtualUsers);
+        final long startNanos = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            for (int user = 0; user < virtualUsers; user++)
+            {
+                results.add(executor.submit(() -> runUser(failures)));
+            }
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+
+        final List<long[]> perUser = new ArrayList<>(virtualUsers);
+        for (final Future<long[]> result : results)
+        {
+            try
+            {
+                perUser.add(result.get());
+            }
+            catch (Exception e)
+            {
+                throw new IllegalStateException("Virtual user failed", e);
+            }
+        }
+        return Report.of(perUser, failures.get(), elapsedNanos);
+    }
+
+    private long[] runUser(final AtomicInteger failures)
+    {
+        final CookieManager cookies = new CookieManager();
+        final long[] latencies = new long[loginsPerUser];
+        int completed = 0;
+        try (HttpClient client = HttpClient
+                .newBuilder()
+                .cookieHandler(cookies)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build())
+        {
+            for (int i = 0; i < loginsPerUser; i++)
+            {
+                cookies.getCookieStore().removeAll();
+                final long startNanos = System.nanoTime();
+                try
+                {
+                    login(client);
+                    latencies[completed++] = System.nanoTime() - startNanos;
+                }
+                catch (IOException | IllegalStateException e)
+                {
+                    failures.incrementAndGet();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(latencies, completed);
+    }
+
+    private void login(final HttpClient client) throws IOException, InterruptedException
+    {
+        final HttpResponse<String> login = send(client, appBaseUrl + "/auth/login?redirect=/", 200);
+        final Matcher matcher = AUTHORIZATION_URL.matcher(login.body());
+        if (!matcher.find())
+        {
+            throw new IllegalStateException("No authorization URL in login response");
+        }
+
+        final HttpResponse<String> authorize = send(client, matcher.group(1), 302);
+        final HttpResponse<String> callback = send(client, location(authorize), 302);
+        if (location(callback).contains("error="))
+        {
+            throw new IllegalStateException("Callback failed: " + location(callback));
+        }
+
+        send(client, appBaseUrl + "/auth/me", 200);
+    }
+
+    private static HttpResponse<String> send(final HttpClient client, final String url, final int expectedStatus)
+            throws IOException, InterruptedException
+    {
+        // The authorization URL is not fully encoded, the scope contains spaces
+        final HttpRequest request = HttpRequest
+                .newBuilder(URI.create(url.replace(" ", "%20")))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+        final HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus)
+        {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + " from " + url);
+        }
+        return response;
+    }
+
+    private static String location(final HttpResponse<?> response)
+    {
+        return response
+                .headers()
+                .firstValue("Location")
+                .orElseThrow(() -> new IllegalStateException("Redirect without Location"));
+    }
+
+    /**
+     * Result of a load run
+     *
+     * @param logins        Number of completed logins
+     * @param failures      Number of failed logins
+     * @param elapsed       Wall-clock duration of the run
+     * @param loginsPerSec  Completed logins per second
+     * @param p50           Median login latency
+     * @param p95           95th percentile login latency
+     * @param p99           99th percentile login latency
+     * @param max           Slowest login
+     */
+    public record Report(
+            int logins, int failures, Duration elapsed, double loginsPerSec, Duration p50, Duration p95,
+            Duration p99, Duration max)
+    {
+
+        static Report of(final List<long[]> perUser, final int failures, final long elapsedNanos)
+        {
+            final long[] all = perUser.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Report(
+                    all.length, failures, Duration.ofNanos(elapsedNanos), all.length * 1e9 / elapsedNanos,
+                    percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99),
+                    all.length > 0 ? Duration.ofNanos(all[all.length - 1]) : Duration.ZERO
+            );
+        }
+
+        private static Duration percentile(final long[] sorted, final double percentile)
+        {
+            if (sorted.length == 0)
+            {
+                return Duration.ZERO;
+            }
+            final int index = Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1);
+            return Duration.ofNanos(sorted[index]);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format(
+                    "logins=%d failures=%d elapsed=%dms throughput=%.1f/s p50=%.1fms p95=%.1fms p99=%.1fms "
+                            + "max=%.1fms", logins, failures, elapsed.toMillis(), loginsPerSec,
+                    p50.toNanos() / 1e6, p95.toNanos() / 1e6, p99.toNanos() / 1e6, max.toNanos() / 1e6
+            );
+        }
+
+    }
+
+}
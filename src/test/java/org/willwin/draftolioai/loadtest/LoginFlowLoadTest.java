@@ -0,0 +1,71 @@
+package org.willwin.draftolioai.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the full RSO login flow against the stub RSO server with a small load, checking
+ * that the harness works end to end. Larger runs use {@link LoginFlowLoadDriver#main}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+class LoginFlowLoadTest
+{
+
+    private static final String CLIENT_ID = "load_test_client";
+
+    private static final StubRsoServer STUB_RSO = new StubRsoServer(CLIENT_ID).start(0);
+
+    private static int appPort;
+
+    @DynamicPropertySource
+    static void rsoProperties(final DynamicPropertyRegistry registry) throws IOException
+    {
+        try (ServerSocket socket = new ServerSocket(0))
+        {
+            appPort = socket.getLocalPort();
+        }
+        registry.add("server.port", () -> appPort);
+        registry.add("rso.mock-enabled", () -> false);
+        registry.add("rso.client.client-id", () -> CLIENT_ID);
+        registry.add("rso.client.redirect-uri", () -> "http://127.0.0.1:" + appPort + "/oauth2-callback");
+        registry.add("rso.endpoints.base-url", STUB_RSO::getBaseUrl);
+        // Every virtual user connects from 127.0.0.1
+        registry.add("auth.rate-limit.enabled", () -> false);
+        registry.add("draft.journal.enabled", () -> false);
+    }
+
+    @AfterAll
+    static void stopStub()
+    {
+        STUB_RSO.close();
+    }
+
+    @Test
+    void testLoginFlowUnderLoad() throws InterruptedException
+    {
+        // Arrange
+        final LoginFlowLoadDriver driver = new LoginFlowLoadDriver("http://127.0.0.1:" + appPort, 8, 5);
+
+        // Act
+        final LoginFlowLoadDriver.Report report = driver.run();
+        System.out.println("[DEBUG_LOG] Login load test: " + report);
+
+        // Assert
+        assertEquals(0, report.failures());
+        assertEquals(40, report.logins());
+        assertTrue(report.loginsPerSec() > 0);
+        assertEquals(40, STUB_RSO.getRequestCount("/token"));
+        // ID tokens are verified locally, so userinfo is never needed
+        assertEquals(0, STUB_RSO.getRequestCount("/userinfo"));
+    }
+
+}
@@ -0,0 +1,321 @@
+package org.willwin.draftolioai.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for Riot Sign-On, for capacity testing the login flow.
+ * <p>
+ * Serves {@code /authorize}, {@code /token}, {@code /userinfo} and {@code /jwks.json} from an
+ * embedded Reactor Netty server. {@code /authorize} redirects straight back to the
+ * {@code redirect_uri} with a fresh single-use code for a new user; ID tokens are signed
+ * with a key generated at start-up and published through the JWKS, with the server's
+ * base URL as issuer. Point the application at it with {@code rso.mock-enabled=false} and
+ * {@code rso.endpoints.base-url} set to {@link #getBaseUrl()}.
+ * <p>
+ * An artificial latency can be added to the token and userinfo endpoints; it is applied
+ * with a timer, so the server itself never blocks. The same endpoints can be made to fail
+ * with a given status, to exercise the client's circuit breaker.
+ */
+public class StubRsoServer implements AutoCloseable
+{
+
+    private static final int TOKEN_LIFETIME_SECONDS = 3600;
+
+    private final String clientId;
+
+    private final RSAKey signingKey;
+
+    private final String jwks;
+
+    private final Map<String, String> subjectsByCode;
+
+    private final Map<String, String> subjectsByRefreshToken;
+
+    private final Map<String, String> subjectsByAccessToken;
+
+    private final AtomicInteger userSequence;
+
+    private final Map<String, AtomicLong> requestCounts;
+
+    private volatile Duration latency;
+
+    private volatile HttpResponseStatus failureStatus;
+
+    private DisposableServer server;
+
+    public StubRsoServer(final String clientId)
+    {
+        this.clientId = clientId;
+        try
+        {
+            this.signingKey = new RSAKeyGenerator(2048).keyID("stub-key").generate();
+        }
+        catch (JOSEException e)
+        {
+            throw new IllegalStateException("Failed to generate stub signing key", e);
+        }
+        this.jwks = new JWKSet(signingKey.toPublicJWK()).toString();
+        this.subjectsByCode = new ConcurrentHashMap<>();
+        this.subjectsByRefreshToken = new ConcurrentHashMap<>();
+        this.subjectsByAccessToken = new ConcurrentHashMap<>();
+        this.userSequence = new AtomicInteger();
+        this.requestCounts = new ConcurrentHashMap<>();
+        this.latency = Duration.ZERO;
+    }
+
+    /**
+     * Run the stub standalone, e.g. to load test a separately started application.
+     * <p>
+     * Arguments: {@code [port] [clientId]}
+     */
+    public static void main(final String[] args) throws InterruptedException
+    {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        final String clientId = args.length > 1 ? args[1] : "your_client_id_here";
+        try (StubRsoServer stub = new StubRsoServer(clientId))
+        {
+            stub.start(port);
+            System.out.println("Stub RSO listening on " + stub.getBaseUrl());
+            Thread.currentThread().join();
+        }
+    }
+
+    /**
+     * Start listening on 127.0.0.1.
+     *
+     * @param port The port, or 0 for an ephemeral port
+     * @return This server
+     */
+    public StubRsoServer start(final int port)
+    {
+        server = HttpServer
+                .create()
+                .host("127.0.0.1")
+                .port(port)
+                .route(routes -> routes
+                        .get("/authorize", this::authorize)
+                        .post("/token", this::token)
+                        .get("/userinfo", this::userInfo)
+                        .get("/jwks.json", (request, response) -> json(response, "/jwks.json", jwks)))
+                .bindNow();
+        return this;
+    }
+
+    @Override
+    public void close()
+    {
+        if (server != null)
+        {
+            server.disposeNow();
+        }
+    }
+
+    /**
+     * @return Base URL, also used as the ID token issuer
+     */
+    public String getBaseUrl()
+    {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    /**
+     * @param latency Delay added to every token and userinfo response
+     */
+    public void setLatency(final Duration latency)
+    {
+        this.latency = latency;
+    }
+
+    /**
+     * @param failureStatus Status answered, after the latency, to every token and userinfo
+     *                      request instead of serving it; null to serve normally
+     */
+    public void setFailureStatus(final HttpResponseStatus failureStatus)
+    {
+        this.failureStatus = failureStatus;
+    }
+
+    /**
+     * @param path The endpoint path
+     * @return Number of requests served on the path
+     */
+    public long getRequestCount(final String path)
+    {
+        final AtomicLong count = requestCounts.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    private Mono<Void> authorize(final HttpServerRequest request, final HttpServerResponse response)
+    {
+        count("/authorize");
+        final Map<String, List<String>> params = new QueryStringDecoder(request.uri()).parameters();
+        final String redirectUri = first(params, "redirect_uri");
+        final String state = first(params, "state");
+        if (redirectUri == null || state == null || !clientId.equals(first(params, "client_id")))
+        {
+            return response.status(HttpResponseStatus.BAD_REQUEST).send();
+        }
+
+        final String code = UUID.randomUUID().toString();
+        subjectsByCode.put(code, "stub-user-" + userSequence.incrementAndGet());
+        return response
+                .status(HttpResponseStatus.FOUND)
+                .header(
+                        HttpHeaderNames.LOCATION,
+                        redirectUri + "?code=" + code + "&state=" + URLEncoder.encode(state, StandardCharsets.UTF_8)
+                )
+                .send();
+    }
+
+    private Mono<Void> token(final HttpServerRequest request, final HttpServerResponse response)
+    {
+        count("/token");
+        return request
+                .receive()
+                .aggregate()
+                .asString(StandardCharsets.UTF_8)
+                .defaultIfEmpty("")
+                .delayElement(latency)
+                .flatMap(body ->
+                {
+                    final HttpResponseStatus failure = failureStatus;
+                    if (failure != null)
+                    {
+                        return response.status(failure).send();
+                    }
+                    final Map<String, List<String>> form = new QueryStringDecoder(body, false).parameters();
+                    final String subject = switch (String.valueOf(first(form, "grant_type")))
+                    {
+                        // Codes are single-use, as with the real RSO
+                        case "authorization_code" -> subjectsByCode.remove(String.valueOf(first(form, "code")));
+                        case "refresh_token" -> subjectsByRefreshToken.remove(
+                                String.valueOf(first(form, "refresh_token")));
+                        default -> null;
+                    };
+                    if (subject == null)
+                    {
+                        return response
+                                .status(HttpResponseStatus.BAD_REQUEST)
+                                .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                                .sendString(Mono.just("{\"error\":\"invalid_grant\"}"))
+                                .then();
+                    }
+                    return response
+                            .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                            .sendString(Mono.just(issueTokens(subject)))
+                            .then();
+                });
+    }
+
+    private Mono<Void> userInfo(final HttpServerRequest request, final HttpServerResponse response)
+    {
+        // Counted on arrival, so a hedged duplicate is seen even if the client cancels it
+        count("/userinfo");
+        final HttpResponseStatus failure = failureStatus;
+        if (failure != null)
+        {
+            return Mono.delay(latency).then(response.status(failure).send());
+        }
+        final String authorization = request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION);
+        final String subject = authorization != null && authorization.startsWith("Bearer ")
+                ? subjectsByAccessToken.get(authorization.substring("Bearer ".length()))
+                : null;
+        if (subject == null)
+        {
+            return response.status(HttpResponseStatus.UNAUTHORIZED).send();
+        }
+        return Mono
+                .delay(latency)
+                .then(send(response, "{\"sub\":\"" + subject + "\",\"cpid\":\"NA1\"}"));
+    }
+
+    private String issueTokens(final String subject)
+    {
+        final String accessToken = "stub-access-" + UUID.randomUUID();
+        final String refreshToken = "stub-refresh-" + UUID.randomUUID();
+        subjectsByAccessToken.put(accessToken, subject);
+        subjectsByRefreshToken.put(refreshToken, subject);
+
+        return "{\"scope\":\"openid cpid offline_access\",\"expires_in\":" + TOKEN_LIFETIME_SECONDS
+                + ",\"token_type\":\"Bearer\",\"refresh_token\":\"" + refreshToken + "\",\"id_token\":\""
+                + idToken(subject) + "\",\"sub_sid\":\"stub-sid-" + subject + "\",\"access_token\":\""
+                + accessToken + "\"}";
+    }
+
+    private String idToken(final String subject)
+    {
+        final JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(getBaseUrl())
+                .audience(clientId)
+                .subject(subject)
+                .claim("cpid", "NA1")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plusSeconds(TOKEN_LIFETIME_SECONDS)))
+                .build();
+        final SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims);
+        try
+        {
+            jwt.sign(new RSASSASigner(signingKey));
+        }
+        catch (JOSEException e)
+        {
+            throw new IllegalStateException("Failed to sign stub ID token", e);
+        }
+        return jwt.serialize();
+    }
+
+    private Mono<Void> json(final HttpServerResponse response, final String path, final String body)
+    {
+        count(path);
+        return send(response, body);
+    }
+
+    private static Mono<Void> send(final HttpServerResponse response, final String body)
+    {
+        return response
+                .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                .sendString(Mono.just(body))
+                .then();
+    }
+
+    private void count(final String path)
+    {
+        requestCounts.computeIfAbsent(path, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static String first(final Map<String, List<String>> params, final String name)
+    {
+        final List<String> values = params.get(name);
+        return values == null || values.isEmpty() ? null : values.getFirst();
+    }
+
+}
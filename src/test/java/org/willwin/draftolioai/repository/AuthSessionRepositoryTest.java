@@ -0,0 +1,290 @@
+package org.willwin.draftolioai.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.events.SessionDeletedEvent;
+import org.willwin.draftolioai.config.AuthSessionProperties;
+import org.willwin.draftolioai.dto.AuthSession;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for AuthSessionRepository and its write-behind JDBC store.
+ * <p>
+ * Uses an in-memory H2 database; flushes are triggered directly so the tests do not
+ * depend on the background timer.
+ */
+class AuthSessionRepositoryTest
+{
+
+    private AuthSessionProperties properties;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private JdbcSessionStore store;
+
+    private AuthSessionRepository repository;
+
+    @BeforeEach
+    void setUp()
+    {
+        properties = new AuthSessionProperties();
+        properties.setStore(AuthSessionProperties.Store.JDBC);
+        properties.getJdbc().setFlushInterval(Duration.ofHours(1));
+
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        store = new JdbcSessionStore(jdbcTemplate, properties.getJdbc());
+        repository = new AuthSessionRepository(properties, store, eventPublisher);
+        repository.start();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        repository.stop();
+    }
+
+    @Test
+    void testSaveIsBufferedUntilFlush()
+    {
+        // Arrange
+        final AuthHttpSession session = repository.createSession();
+        session.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession("access_1"));
+
+        // Act
+        repository.save(session);
+
+        // Assert - nothing reaches the database before the flush
+        assertEquals(0, countRows());
+        assertEquals(1, store.getPendingCount());
+
+        store.flush();
+        assertEquals(1, countRows());
+        assertEquals(0, store.getPendingCount());
+    }
+
+    @Test
+    void testSessionSurvivesRestart()
+    {
+        // Arrange
+        final AuthHttpSession session = repository.createSession();
+        session.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession("access_1"));
+        session.setAttribute("theme", "dark");
+        repository.save(session);
+        repository.stop();
+
+        // Act - a fresh repository on the same database, as after a redeploy
+        final AuthSessionRepository restarted = new AuthSessionRepository(
+                properties, new JdbcSessionStore(jdbcTemplate, properties.getJdbc()), eventPublisher);
+        final AuthHttpSession loaded = restarted.findById(session.getId());
+
+        // Assert
+        assertNotNull(loaded);
+        final AuthSession authSession = loaded.getAttribute(AuthSession.SESSION_ATTRIBUTE);
+        assertEquals("user-sub", authSession.getSubject());
+        assertEquals("access_1", authSession.getAccessToken());
+        assertEquals("dark", loaded.getAttribute("theme"));
+
+        // The security context is derived from the record rather than stored
+        final SecurityContext securityContext = loaded.getAttribute(
+                HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        assertEquals("user-sub", securityContext.getAuthentication().getPrincipal());
+    }
+
+    @Test
+    void testBackgroundRefreshIsNotOverwrittenByReadOnlyRequest()
+    {
+        // Arrange
+        final AuthHttpSession created = repository.createSession();
+        created.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession("access_1"));
+        repository.save(created);
+
+        // A request loads the session, then tokens are refreshed in the background
+        final AuthHttpSession requestCopy = repository.findById(created.getId());
+        repository.updateAuthSession(
+                created.getId(), authSession -> new AuthSession(
+                        authSession.getSubject(), authSession.getCpid(), "access_2",
+                        authSession.getRefreshToken(), 0
+                ));
+
+        // Act - the request ends without touching the auth session
+        repository.save(requestCopy);
+
+        // Assert
+        final AuthSession stored = repository.findById(created.getId()).getAttribute(AuthSession.SESSION_ATTRIBUTE);
+        assertEquals("access_2", stored.getAccessToken());
+    }
+
+    @Test
+    void testReadOnlyRequestDoesNotRewriteWithinTouchInterval()
+    {
+        // Arrange
+        final AuthHttpSession created = repository.createSession();
+        created.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession("access_1"));
+        repository.save(created);
+        store.flush();
+
+        // Act
+        final AuthHttpSession requestCopy = repository.findById(created.getId());
+        requestCopy.getAttribute(AuthSession.SESSION_ATTRIBUTE);
+        repository.save(requestCopy);
+
+        // Assert
+        assertEquals(0, store.getPendingCount());
+    }
+
+    @Test
+    void testFrequentReadOnlyRequestsStillMoveExpiryForward()
+    {
+        // Arrange
+        final AuthHttpSession created = repository.createSession();
+        created.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession("access_1"));
+        repository.save(created);
+        store.flush();
+        final long initialExpiry = storedExpiry(created.getId());
+
+        // Act - requests 40 seconds apart, each within the one minute touch interval of the previous one
+        for (int i = 1; i <= 5; i++)
+        {
+            final AuthHttpSession requestCopy = repository.findById(created.getId());
+            requestCopy.setLastAccessedTime(created.getLastAccessedTime().plusSeconds(40L * i));
+            repository.save(requestCopy);
+            store.flush();
+        }
+
+        // Assert - written at least every touch interval, so the row lags by at most that much
+        final long touchMillis = properties.getJdbc().getTouchInterval().toMillis();
+        assertTrue(storedExpiry(created.getId()) >= initialExpiry + Duration.ofSeconds(200).toMillis() - touchMillis);
+    }
+
+    @Test
+    void testDeletePublishesEventAndRemovesRow()
+    {
+        // Arrange
+        final AuthHttpSession session = repository.createSession();
+        session.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession("access_1"));
+        repository.save(session);
+        store.flush();
+
+        // Act
+        repository.deleteById(session.getId());
+        store.flush();
+
+        // Assert
+        assertNull(repository.findById(session.getId()));
+        assertEquals(0, countRows());
+        verify(eventPublisher).publishEvent(any(SessionDeletedEvent.class));
+    }
+
+    @Test
+    void testUnstorableSessionsDoNotHoldUpOthers()
+    {
+        // Arrange - one attribute fails to serialize, another exceeds the data column
+        final AuthHttpSession unserializable = repository.createSession();
+        unserializable.setAttribute("holder", new LockHolder());
+        repository.save(unserializable);
+        final AuthHttpSession oversized = repository.createSession();
+        oversized.setAttribute("notes", "x".repeat(20_000));
+        repository.save(oversized);
+        final AuthHttpSession healthy = repository.createSession();
+        healthy.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession("access_1"));
+        repository.save(healthy);
+
+        // Act
+        store.flush();
+
+        // Assert
+        assertEquals(1, countRows());
+        assertTrue(storedExpiry(healthy.getId()) > 0);
+        assertEquals(0, store.getPendingCount());
+    }
+
+    @Test
+    void testFailingWriteIsDroppedAfterMaxAttempts()
+    {
+        // Arrange
+        properties.getJdbc().setMaxAttempts(2);
+        final AuthHttpSession session = repository.createSession();
+        session.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession("access_1"));
+        repository.save(session);
+        jdbcTemplate.execute("ALTER TABLE AUTH_SESSION RENAME TO AUTH_SESSION_OFFLINE");
+
+        // Act
+        store.flush();
+        assertEquals(1, store.getPendingCount());
+        store.flush();
+
+        // Assert - the dropped write no longer fails every later flush
+        assertEquals(0, store.getPendingCount());
+        jdbcTemplate.execute("ALTER TABLE AUTH_SESSION_OFFLINE RENAME TO AUTH_SESSION");
+        final AuthHttpSession later = repository.createSession();
+        later.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession("access_2"));
+        repository.save(later);
+        store.flush();
+        assertEquals(1, countRows());
+    }
+
+    @Test
+    void testCodecRoundTripWithoutAuthSession()
+    {
+        // Arrange
+        final AuthHttpSession session = new AuthHttpSession(Duration.ofMinutes(30));
+
+        // Act
+        final AuthHttpSession decoded = AuthSessionCodec.decode(session.getId(), AuthSessionCodec.encode(session));
+
+        // Assert
+        assertNull(decoded.getAttribute(AuthSession.SESSION_ATTRIBUTE));
+        assertNull(decoded.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY));
+        assertEquals(session.getCreationTime().toEpochMilli(), decoded.getCreationTime().toEpochMilli());
+        assertEquals(Duration.ofMinutes(30), decoded.getMaxInactiveInterval());
+    }
+
+    private long storedExpiry(final String id)
+    {
+        return jdbcTemplate.queryForObject(
+                "SELECT EXPIRY_TIME FROM AUTH_SESSION WHERE SESSION_ID = ?", Long.class, id);
+    }
+
+    private int countRows()
+    {
+        final Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM AUTH_SESSION", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Serializable, but with a field that is not.
+     */
+    private static final class LockHolder implements Serializable
+    {
+
+        private final Object lock = new Object();
+
+    }
+
+    private static AuthSession authSession(final String accessToken)
+    {
+        return new AuthSession("user-sub", "NA1", accessToken, "refresh_1", System.currentTimeMillis() + 600_000);
+    }
+
+}
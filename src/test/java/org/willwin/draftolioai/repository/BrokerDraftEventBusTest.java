@@ -0,0 +1,249 @@
+package org.willwin.draftolioai.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftEvent;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for BrokerDraftEventBus against an embedded DraftEventBroker.
+ */
+class BrokerDraftEventBusTest
+{
+
+    private static final String SECRET = "broker_secret";
+
+    private DraftEventBroker broker;
+
+    private BrokerDraftEventBus owner;
+
+    private BrokerDraftEventBus watcher;
+
+    @BeforeEach
+    void setUp() throws Exception
+    {
+        broker = new DraftEventBroker("127.0.0.1", 0, SECRET, 10_000);
+        broker.start();
+        owner = connect();
+        watcher = connect();
+        await(() -> owner.isConnected() && watcher.isConnected() && broker.getConnectionCount() == 2);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        owner.stop();
+        watcher.stop();
+        broker.stop();
+    }
+
+    @Test
+    void testEventsArriveBatchedInSequenceOrder() throws Exception
+    {
+        // Arrange
+        final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        watcher.subscribe(
+                "draft_1", events ->
+                {
+                    batchSizes.add(events.size());
+                    events.forEach(event -> sequences.add(event.sequence()));
+                }
+        );
+        awaitSubscription();
+
+        // Act
+        for (long sequence = 0; sequence < 1000; sequence++)
+        {
+            owner.publish(new DraftEvent("draft_1", sequence, new byte[] { 2, 1, (byte) sequence }));
+        }
+
+        // Assert
+        await(() -> sequences.size() == 1000);
+        for (int i = 0; i < sequences.size(); i++)
+        {
+            assertEquals(i, sequences.get(i));
+        }
+        assertTrue(batchSizes.size() < 1000, "Expected batches, got " + batchSizes.size() + " deliveries");
+    }
+
+    @Test
+    void testOnlySubscribedDraftsAreReceived() throws Exception
+    {
+        // Arrange
+        final List<String> draftIds = Collections.synchronizedList(new ArrayList<>());
+        watcher.subscribe("draft_1", events -> events.forEach(event -> draftIds.add(event.draftId())));
+        awaitSubscription();
+
+        // Act
+        owner.publish(new DraftEvent("draft_2", 0, new byte[] { 1 }));
+        owner.flush();
+        owner.publish(new DraftEvent("draft_1", 0, new byte[] { 1 }));
+        owner.flush();
+
+        // Assert - batches are relayed in order, so draft_2 would have arrived first
+        await(() -> !draftIds.isEmpty());
+        assertEquals(List.of("draft_1"), draftIds);
+    }
+
+    @Test
+    void testSnapshotRequestReachesOtherNodes() throws Exception
+    {
+        // Arrange
+        final List<String> requested = Collections.synchronizedList(new ArrayList<>());
+        owner.onSnapshotRequest(requested::add);
+
+        // Act
+        watcher.requestSnapshot("draft_1");
+
+        // Assert
+        await(() -> !requested.isEmpty());
+        assertEquals(List.of("draft_1"), requested);
+    }
+
+    @Test
+    void testNodeWithoutSecretIsRejected() throws Exception
+    {
+        // Arrange
+        final List<String> requested = Collections.synchronizedList(new ArrayList<>());
+        watcher.onSnapshotRequest(requested::add);
+
+        try (Socket intruder = new Socket("127.0.0.1", broker.getPort()))
+        {
+            // Act
+            final DataOutputStream out = new DataOutputStream(intruder.getOutputStream());
+            DraftEventBroker.writeMessage(out, DraftEventBroker.encodeHello("wrong_secret"));
+            DraftEventBroker.writeMessage(out, DraftEventBroker.encode(DraftEventBroker.SNAPSHOT_REQUEST, "draft_1"));
+            out.flush();
+
+            // Assert - the broker hangs up without relaying anything
+            final DataInputStream in = new DataInputStream(intruder.getInputStream());
+            assertThrows(IOException.class, () -> DraftEventBroker.readMessage(in));
+        }
+        owner.requestSnapshot("draft_sync");
+        await(() -> requested.contains("draft_sync"));
+        assertEquals(List.of("draft_sync"), requested);
+        assertEquals(2, broker.getConnectionCount());
+    }
+
+    @Test
+    void testBrokerBeyondLoopbackRequiresSecret()
+    {
+        // Arrange
+        final DraftEventBroker exposed = new DraftEventBroker("0.0.0.0", 0, null, 10);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, exposed::start);
+    }
+
+    @Test
+    void testBadMessagesAndListenersDoNotDropTheConnection() throws Exception
+    {
+        // Arrange - the first listener fails every batch
+        final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        watcher.subscribe(
+                "draft_1", events ->
+                {
+                    throw new IllegalStateException("listener failure");
+                }
+        );
+        watcher.subscribe("draft_1", events -> events.forEach(event -> sequences.add(event.sequence())));
+        awaitSubscription();
+
+        // Act - an empty batch, then a valid one on the same connection
+        try (Socket node = new Socket("127.0.0.1", broker.getPort()))
+        {
+            final DataOutputStream out = new DataOutputStream(node.getOutputStream());
+            DraftEventBroker.writeMessage(out, DraftEventBroker.encodeHello(SECRET));
+            DraftEventBroker.writeMessage(out, DraftEventBroker.encodeBatch("draft_1", List.of()));
+            final DraftEvent event = new DraftEvent("draft_1", 0, new byte[] { 1 });
+            DraftEventBroker.writeMessage(out, DraftEventBroker.encodeBatch("draft_1", List.of(event)));
+            out.flush();
+
+            // Assert
+            await(() -> !sequences.isEmpty());
+        }
+        assertEquals(List.of(0L), sequences);
+        assertTrue(watcher.isConnected());
+    }
+
+    @Test
+    void testSubscriptionIsNotDroppedWithAFullQueue() throws Exception
+    {
+        // Arrange - a watcher whose connection queue holds a single batch
+        watcher.stop();
+        watcher = connect(1);
+        await(() -> watcher.isConnected() && broker.getConnectionCount() == 2);
+        final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+
+        // Act - subscribe in the middle of a flood of batches
+        for (long sequence = 0; sequence < 200_000; sequence++)
+        {
+            if (sequence == 100_000)
+            {
+                watcher.subscribe("draft_1", events -> events.forEach(event -> sequences.add(event.sequence())));
+            }
+            watcher.publish(new DraftEvent("draft_flood", sequence, new byte[] { 1 }));
+        }
+        awaitSubscription();
+        owner.publish(new DraftEvent("draft_1", 0, new byte[] { 1 }));
+        owner.flush();
+
+        // Assert
+        await(() -> !sequences.isEmpty());
+        assertEquals(List.of(0L), sequences);
+        assertTrue(watcher.getDroppedBatchCount() > 0);
+    }
+
+    private BrokerDraftEventBus connect()
+    {
+        return connect(10_000);
+    }
+
+    private BrokerDraftEventBus connect(final int outboundQueueCapacity)
+    {
+        final DraftProperties.EventBus properties = new DraftProperties.EventBus();
+        properties.setBrokerPort(broker.getPort());
+        properties.setBrokerSecret(SECRET);
+        properties.setBatchSize(16);
+        properties.setOutboundQueueCapacity(outboundQueueCapacity);
+        final BrokerDraftEventBus bus = new BrokerDraftEventBus(properties);
+        bus.start();
+        return bus;
+    }
+
+    // Subscriptions travel on the watcher's connection; a round trip through the broker orders them first
+    private void awaitSubscription() throws InterruptedException
+    {
+        final List<String> requested = Collections.synchronizedList(new ArrayList<>());
+        owner.onSnapshotRequest(requested::add);
+        watcher.requestSnapshot("draft_sync");
+        await(() -> requested.contains("draft_sync"));
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException
+    {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline)
+        {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+}
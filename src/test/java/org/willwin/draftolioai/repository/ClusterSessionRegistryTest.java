@@ -0,0 +1,223 @@
+package org.willwin.draftolioai.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.web.authentication.session.ConcurrentSessionControlAuthenticationStrategy;
+import org.springframework.security.web.authentication.session.RegisterSessionAuthenticationStrategy;
+import org.springframework.session.MapSession;
+import org.springframework.session.events.SessionDeletedEvent;
+import org.willwin.draftolioai.config.AuthSessionProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ClusterSessionRegistry.
+ * <p>
+ * Two registries sharing one in-memory H2 database stand in for two nodes; syncs are
+ * triggered directly so the tests do not depend on the background timer.
+ */
+class ClusterSessionRegistryTest
+{
+
+    private AuthSessionProperties properties;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ClusterSessionRegistry nodeA;
+
+    private ClusterSessionRegistry nodeB;
+
+    @BeforeEach
+    void setUp()
+    {
+        properties = new AuthSessionProperties();
+        properties.getRegistry().setJdbc(true);
+        properties.getRegistry().setSyncInterval(Duration.ofHours(1));
+
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        nodeA = new ClusterSessionRegistry(properties, jdbcTemplate);
+        nodeB = new ClusterSessionRegistry(properties, jdbcTemplate);
+        nodeA.start();
+        nodeB.start();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        nodeA.stop();
+        nodeB.stop();
+    }
+
+    @Test
+    void testLoginOnOtherNodeExpiresSessionAfterSync()
+    {
+        // Arrange
+        login(nodeA, "session_a", "user_1");
+
+        // Act
+        login(nodeB, "session_b", "user_1");
+
+        // Assert - node A still serves its cached state until the next sync
+        assertFalse(nodeA.getSessionInformation("session_a").isExpired());
+
+        nodeA.sync();
+        assertTrue(nodeA.getSessionInformation("session_a").isExpired());
+        assertFalse(nodeB.getSessionInformation("session_b").isExpired());
+        assertEquals(1, nodeA.getAllSessions("user_1", false).size());
+    }
+
+    @Test
+    void testSessionOfOtherNodeIsLoadedOnLookup()
+    {
+        // Arrange
+        nodeA.registerNewSession("session_a", "user_1");
+
+        // Act
+        final SessionInformation information = nodeB.getSessionInformation("session_a");
+
+        // Assert
+        assertNotNull(information);
+        assertEquals("user_1", information.getPrincipal());
+        assertEquals(1, nodeB.getLocalSessionCount());
+    }
+
+    @Test
+    void testUnknownSessionIsRememberedForSyncInterval()
+    {
+        // Arrange
+        assertNull(nodeB.getSessionInformation("session_a"));
+        nodeA.registerNewSession("session_a", "user_1");
+
+        // Act
+        final SessionInformation information = nodeB.getSessionInformation("session_a");
+
+        // Assert - the miss is remembered for one sync interval
+        assertNull(information);
+        assertNotNull(nodeA.getSessionInformation("session_a"));
+    }
+
+    @Test
+    void testLastRequestIsWrittenOnSync()
+    {
+        // Arrange
+        nodeA.registerNewSession("session_a", "user_1");
+        jdbcTemplate.update("UPDATE AUTH_SESSION_REGISTRY SET LAST_REQUEST = 0");
+
+        // Act
+        nodeA.refreshLastRequest("session_a");
+
+        // Assert
+        assertEquals(0L, lastRequest("session_a"));
+        nodeA.sync();
+        assertTrue(lastRequest("session_a") > 0);
+    }
+
+    @Test
+    void testStaleRegistrationsAreDeletedOnSync()
+    {
+        // Arrange
+        nodeA.registerNewSession("session_a", "user_1");
+        jdbcTemplate.update("UPDATE AUTH_SESSION_REGISTRY SET LAST_REQUEST = 0");
+
+        // Act
+        nodeB.sync();
+
+        // Assert
+        assertTrue(nodeB.getAllSessions("user_1", true).isEmpty());
+    }
+
+    @Test
+    void testStaleCachedSessionsAreEvictedOnSync()
+    {
+        // Arrange - node B caches a stale session of node A and a live one
+        nodeA.registerNewSession("session_a", "user_1");
+        jdbcTemplate.update("UPDATE AUTH_SESSION_REGISTRY SET LAST_REQUEST = 0");
+        nodeA.registerNewSession("session_b", "user_2");
+        assertNotNull(nodeB.getSessionInformation("session_a"));
+        assertNotNull(nodeB.getSessionInformation("session_b"));
+        assertEquals(2, nodeB.getLocalSessionCount());
+
+        // Act
+        nodeB.sync();
+
+        // Assert
+        assertEquals(1, nodeB.getLocalSessionCount());
+        assertNull(nodeB.getSessionInformation("session_a"));
+        assertNotNull(nodeB.getSessionInformation("session_b"));
+    }
+
+    @Test
+    void testDestroyedSessionIsRemovedFromAllNodes()
+    {
+        // Arrange
+        final MapSession session = new MapSession("session_a");
+        nodeA.registerNewSession("session_a", "user_1");
+
+        // Act
+        nodeA.onApplicationEvent(new SessionDeletedEvent(this, session));
+
+        // Assert
+        assertNull(nodeA.getSessionInformation("session_a"));
+        assertTrue(nodeB.getAllSessions("user_1", true).isEmpty());
+    }
+
+    @Test
+    void testLocalRegistryTracksSessionsPerPrincipal()
+    {
+        // Arrange
+        final ClusterSessionRegistry local = new ClusterSessionRegistry(new AuthSessionProperties(), null);
+        local.start();
+
+        // Act
+        local.registerNewSession("session_1", "user_1");
+        local.registerNewSession("session_2", "user_1");
+        local.registerNewSession("session_3", "user_2");
+        local.getSessionInformation("session_1").expireNow();
+        local.removeSessionInformation("session_3");
+
+        // Assert
+        final List<SessionInformation> sessions = local.getAllSessions("user_1", false);
+        assertEquals(1, sessions.size());
+        assertEquals("session_2", sessions.getFirst().getSessionId());
+        assertEquals(2, local.getAllSessions("user_1", true).size());
+        assertEquals(List.of("user_1"), local.getAllPrincipals());
+        local.stop();
+    }
+
+    private void login(final ClusterSessionRegistry registry, final String sessionId, final String principal)
+    {
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(new MockHttpSession(null, sessionId));
+        final UsernamePasswordAuthenticationToken authentication =
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, List.of());
+
+        new ConcurrentSessionControlAuthenticationStrategy(registry).onAuthentication(
+                authentication, request, new MockHttpServletResponse());
+        new RegisterSessionAuthenticationStrategy(registry).onAuthentication(
+                authentication, request, new MockHttpServletResponse());
+    }
+
+    private long lastRequest(final String sessionId)
+    {
+        return jdbcTemplate.queryForObject(
+                "SELECT LAST_REQUEST FROM AUTH_SESSION_REGISTRY WHERE SESSION_ID = ?", Long.class, sessionId);
+    }
+
+}
@@ -0,0 +1,153 @@
+package org.willwin.draftolioai.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.config.AuthSessionProperties;
+import org.willwin.draftolioai.dto.AuthSession;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for CookieSessionRepository.
+ */
+class CookieSessionRepositoryTest
+{
+
+    private AuthSessionProperties properties;
+
+    private CookieSessionRepository repository;
+
+    @BeforeEach
+    void setUp()
+    {
+        properties = new AuthSessionProperties();
+        properties.setStore(AuthSessionProperties.Store.COOKIE);
+        properties.getCookie().getKeys().put("k1", newKey());
+        properties.getCookie().setActiveKeyId("k1");
+        repository = new CookieSessionRepository(properties);
+    }
+
+    @Test
+    void testSealedSessionRoundTrip()
+    {
+        // Arrange
+        final AuthHttpSession session = repository.createSession();
+        session.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession());
+
+        // Act
+        repository.save(session);
+        final AuthHttpSession loaded = repository.findById(session.getId());
+
+        // Assert
+        assertNotNull(loaded);
+        final AuthSession authSession = loaded.getAttribute(AuthSession.SESSION_ATTRIBUTE);
+        assertEquals("user-sub", authSession.getSubject());
+        assertEquals("access_1", authSession.getAccessToken());
+    }
+
+    @Test
+    void testTamperedCookieIsRejected()
+    {
+        // Arrange
+        final AuthHttpSession session = repository.createSession();
+        session.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession());
+        repository.save(session);
+        final char[] cookie = session.getId().toCharArray();
+        final int middle = cookie.length / 2;
+        cookie[middle] = cookie[middle] == 'A' ? 'B' : 'A';
+
+        // Act & Assert
+        assertNull(repository.findById(new String(cookie)));
+        assertNull(repository.findById("not-a-sealed-session"));
+    }
+
+    @Test
+    void testKeyRotationKeepsExistingCookiesReadable()
+    {
+        // Arrange - seal with the old key, then rotate to a new one
+        final AuthHttpSession session = repository.createSession();
+        session.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession());
+        repository.save(session);
+        final String oldCookie = session.getId();
+
+        properties.getCookie().getKeys().put("k2", newKey());
+        properties.getCookie().setActiveKeyId("k2");
+        final CookieSessionRepository rotated = new CookieSessionRepository(properties);
+
+        // Act
+        final AuthHttpSession loaded = rotated.findById(oldCookie);
+        loaded.setAttribute("theme", "dark");
+        rotated.save(loaded);
+
+        // Assert - old cookie still readable, reissued cookie unreadable without the new key
+        assertNotNull(loaded);
+        assertNotEquals(oldCookie, loaded.getId());
+        assertNotNull(rotated.findById(loaded.getId()));
+        assertNull(repository.findById(loaded.getId()));
+    }
+
+    @Test
+    void testReadOnlyRequestKeepsCookie()
+    {
+        // Arrange
+        final AuthHttpSession session = repository.createSession();
+        session.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession());
+        repository.save(session);
+
+        // Act
+        final AuthHttpSession loaded = repository.findById(session.getId());
+        loaded.getAttribute(AuthSession.SESSION_ATTRIBUTE);
+        repository.save(loaded);
+
+        // Assert
+        assertEquals(session.getId(), loaded.getId());
+    }
+
+    @Test
+    void testChangedSessionIdIsResealed()
+    {
+        // Arrange
+        final AuthHttpSession session = repository.createSession();
+        session.setAttribute(AuthSession.SESSION_ATTRIBUTE, authSession());
+        repository.save(session);
+        final AuthHttpSession loaded = repository.findById(session.getId());
+
+        // Act
+        loaded.changeSessionId();
+        repository.save(loaded);
+
+        // Assert - a new sealed cookie that still carries the session
+        assertNotEquals(session.getId(), loaded.getId());
+        final AuthHttpSession reloaded = repository.findById(loaded.getId());
+        assertNotNull(reloaded);
+        final AuthSession authSession = reloaded.getAttribute(AuthSession.SESSION_ATTRIBUTE);
+        assertEquals("user-sub", authSession.getSubject());
+    }
+
+    @Test
+    void testMissingActiveKeyFailsFast()
+    {
+        properties.getCookie().setActiveKeyId("missing");
+        assertThrows(IllegalStateException.class, () -> new CookieSessionRepository(properties));
+    }
+
+    private static AuthSession authSession()
+    {
+        return new AuthSession("user-sub", "NA1", "access_1", "refresh_1", System.currentTimeMillis() + 600_000);
+    }
+
+    private static String newKey()
+    {
+        final byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+}
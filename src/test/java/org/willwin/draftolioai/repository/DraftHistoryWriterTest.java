@@ -0,0 +1,296 @@
+package org.willwin.draftolioai.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftSide;
+import org.willwin.draftolioai.service.DraftState;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for DraftHistoryWriter.
+ * <p>
+ * Uses an in-memory H2 database; flushes are triggered directly so the tests do not
+ * depend on the background timer.
+ */
+class DraftHistoryWriterTest
+{
+
+    private DraftProperties.History properties;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private DraftHistoryWriter writer;
+
+    @BeforeEach
+    void setUp()
+    {
+        properties = new DraftProperties.History();
+        properties.setBatchSize(3);
+        properties.setFlushInterval(Duration.ofHours(1));
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        writer = new DraftHistoryWriter(properties, jdbcTemplate);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        writer.stop();
+    }
+
+    @Test
+    void testActionsAreQueuedUntilFlush()
+    {
+        // Arrange
+        final DraftState draft = startDraft("draft_1");
+
+        // Act
+        play(draft, 2);
+
+        // Assert - nothing reaches the database before the flush
+        assertEquals(0, count("DRAFT_HISTORY"));
+        assertEquals(2, writer.getPendingCount());
+        assertTrue(writer.getLagNanos() > 0);
+
+        writer.flush();
+        assertEquals(2, count("DRAFT_HISTORY"));
+        assertEquals(2, count("DRAFT_BAN"));
+        assertEquals(0, writer.getPendingCount());
+        assertEquals(0, writer.getLagNanos());
+    }
+
+    @Test
+    void testDraftIsWrittenInTurnOrder()
+    {
+        // Arrange
+        final DraftState draft = startDraft("draft_1");
+        play(draft, draft.getOrder().size());
+
+        // Act
+        writer.flush();
+
+        // Assert
+        final List<Integer> champions = jdbcTemplate.queryForList(
+                "SELECT CHAMPION_ID FROM DRAFT_HISTORY WHERE DRAFT_ID = ? ORDER BY TURN", Integer.class, "draft_1");
+        assertEquals(20, champions.size());
+        for (int turn = 0; turn < champions.size(); turn++)
+        {
+            assertEquals(draft.getChampionAt(turn), champions.get(turn));
+        }
+        assertEquals(10, count("DRAFT_PICK"));
+        assertEquals(10, count("DRAFT_BAN"));
+        assertEquals(
+                draft.getPick(DraftSide.RED, 4),
+                jdbcTemplate.queryForObject(
+                        "SELECT CHAMPION_ID FROM DRAFT_PICK WHERE TEAM = 'RED' AND PICK_ORDER = 4", Integer.class)
+        );
+    }
+
+    @Test
+    void testFailedBatchIsRetriedBeforeLaterActions()
+    {
+        // Arrange - without the ban table the first batch fails and its history rows roll back
+        final DraftState draft = startDraft("draft_1");
+        jdbcTemplate.execute("ALTER TABLE DRAFT_BAN RENAME TO DRAFT_BAN_OFFLINE");
+        play(draft, 4);
+
+        // Act
+        assertThrows(DataAccessException.class, writer::flush);
+        assertEquals(0, count("DRAFT_HISTORY"));
+        play(draft, 8);
+        jdbcTemplate.execute("ALTER TABLE DRAFT_BAN_OFFLINE RENAME TO DRAFT_BAN");
+        writer.flush();
+
+        // Assert
+        assertEquals(12, count("DRAFT_HISTORY"));
+        assertEquals(6, count("DRAFT_BAN"));
+        assertEquals(6, count("DRAFT_PICK"));
+    }
+
+    @Test
+    void testActionFailingMaxAttemptsIsDeadLettered()
+    {
+        // Arrange - a row already taken by turn 1 fails every batch holding it; no early flush interferes
+        properties.setBatchSize(10);
+        properties.setMaxAttempts(2);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        writer.bindTo(registry);
+        jdbcTemplate.update(
+                "INSERT INTO DRAFT_HISTORY (DRAFT_ID, TURN, ACTION, TEAM, ACTED_AT) VALUES (?, ?, ?, ?, ?)", "draft_1",
+                1, "BAN", "RED", 0
+        );
+        play(startDraft("draft_1"), 3);
+
+        // Act
+        assertThrows(DataAccessException.class, writer::flush);
+        writer.flush();
+
+        // Assert - only the conflicting action is dropped, the others of its batch are written
+        assertEquals(3, count("DRAFT_HISTORY"));
+        assertEquals(2, count("DRAFT_BAN"));
+        assertEquals(0, writer.getPendingCount());
+        assertEquals(1, registry.get("draft.history.actions.dead-lettered").functionCounter().count());
+        assertEquals(2, registry.get("draft.history.actions.written").functionCounter().count());
+    }
+
+    @Test
+    void testSkippedPickIsWritten()
+    {
+        // Arrange - the bans of the first phase, then a pick that found no available champion
+        final DraftState draft = startDraft("draft_1");
+        play(draft, 6);
+        assertEquals(DraftActionType.PICK, draft.getCurrentType());
+        draft.replay(DraftState.NONE);
+        writer.record(draft, 6);
+
+        // Act
+        writer.flush();
+
+        // Assert
+        assertEquals(1, count("DRAFT_PICK"));
+        assertNull(jdbcTemplate.queryForObject("SELECT CHAMPION_ID FROM DRAFT_PICK", Integer.class));
+    }
+
+    @Test
+    void testFullQueueOverflowsInTurnOrder()
+    {
+        // Arrange - room for fewer actions than a draft has, and a database that is down
+        properties.setQueueCapacity(2);
+        final DraftHistoryWriter small = new DraftHistoryWriter(properties, jdbcTemplate);
+        small.start();
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        small.bindTo(registry);
+        jdbcTemplate.execute(
+                "ALTER TABLE DRAFT_HISTORY ADD COLUMN WRITE_ORDER BIGINT GENERATED BY DEFAULT AS IDENTITY");
+        jdbcTemplate.execute("ALTER TABLE DRAFT_BAN RENAME TO DRAFT_BAN_OFFLINE");
+        final DraftState first = startDraft("draft_1");
+        final DraftState second = startDraft("draft_2");
+
+        // Act - recording does not wait for the database
+        for (int i = 0; i < 10; i++)
+        {
+            play(first, 2, small);
+            play(second, 2, small);
+        }
+        assertEquals(40, small.getPendingCount());
+        jdbcTemplate.execute("ALTER TABLE DRAFT_BAN_OFFLINE RENAME TO DRAFT_BAN");
+        small.stop();
+
+        // Assert
+        assertEquals(40, count("DRAFT_HISTORY"));
+        assertEquals(0, small.getPendingCount());
+        assertEquals(0, registry.get("draft.history.actions.dropped").functionCounter().count());
+        for (final String draftId : List.of("draft_1", "draft_2"))
+        {
+            final List<Integer> turns = jdbcTemplate.queryForList(
+                    "SELECT TURN FROM DRAFT_HISTORY WHERE DRAFT_ID = ? ORDER BY WRITE_ORDER", Integer.class, draftId);
+            for (int turn = 0; turn < turns.size(); turn++)
+            {
+                assertEquals(turn, turns.get(turn), draftId);
+            }
+        }
+    }
+
+    @Test
+    void testFullOverflowDrops()
+    {
+        // Arrange
+        properties.setQueueCapacity(1);
+        properties.setOverflowCapacity(2);
+        final DraftHistoryWriter small = new DraftHistoryWriter(properties, jdbcTemplate);
+        small.start();
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        small.bindTo(registry);
+        jdbcTemplate.execute("ALTER TABLE DRAFT_BAN RENAME TO DRAFT_BAN_OFFLINE");
+
+        // Act - nothing can be written, so at most the batch in flight, the queue and the overflow are held
+        play(startDraft("draft_1"), 10, small);
+        jdbcTemplate.execute("ALTER TABLE DRAFT_BAN_OFFLINE RENAME TO DRAFT_BAN");
+        small.stop();
+
+        // Assert
+        final double dropped = registry.get("draft.history.actions.dropped").functionCounter().count();
+        assertTrue(dropped > 0);
+        assertEquals(10, count("DRAFT_HISTORY") + (int) dropped);
+    }
+
+    @Test
+    void testStopFlushesQueuedActions()
+    {
+        // Arrange
+        play(startDraft("draft_1"), 5);
+        play(startDraft("draft_2"), 7);
+
+        // Act
+        writer.stop();
+
+        // Assert
+        assertEquals(12, count("DRAFT_HISTORY"));
+        assertEquals(0, writer.getPendingCount());
+    }
+
+    @Test
+    void testDisabledWriterDoesNothing()
+    {
+        // Arrange
+        properties.setEnabled(false);
+        final DraftHistoryWriter disabled = new DraftHistoryWriter(properties, null);
+        disabled.start();
+
+        // Act
+        play(startDraft("draft_1"), 3, disabled);
+        disabled.stop();
+
+        // Assert
+        assertEquals(0, disabled.getPendingCount());
+        assertEquals(0, count("DRAFT_HISTORY"));
+    }
+
+    private static DraftState startDraft(final String draftId)
+    {
+        final DraftState draft = new DraftState(draftId, DraftMode.TOURNAMENT, 256);
+        draft.start();
+        return draft;
+    }
+
+    private void play(final DraftState draft, final int turns)
+    {
+        play(draft, turns, writer);
+    }
+
+    /**
+     * Apply and record the given number of turns, picking and banning consecutive champions.
+     */
+    private static void play(final DraftState draft, final int turns, final DraftHistoryWriter target)
+    {
+        for (int i = 0; i < turns; i++)
+        {
+            final int turn = draft.getTurn();
+            draft.apply(draft.getCurrentSide(), draft.getCurrentType(), turn + 10);
+            target.record(draft, turn);
+        }
+    }
+
+    private int count(final String table)
+    {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+}
@@ -0,0 +1,380 @@
+package org.willwin.draftolioai.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftSide;
+import org.willwin.draftolioai.dto.DraftStatus;
+import org.willwin.draftolioai.service.DraftSeries;
+import org.willwin.draftolioai.service.DraftState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for DraftJournal.
+ */
+class DraftJournalTest
+{
+
+    @TempDir
+    Path directory;
+
+    private final List<DraftJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void tearDown()
+    {
+        journals.forEach(DraftJournal::close);
+    }
+
+    @ParameterizedTest
+    @EnumSource(DraftProperties.Durability.class)
+    void testRecoversDraftsAfterRestart(final DraftProperties.Durability durability)
+    {
+        // Arrange
+        final DraftJournal journal = open(durability, 64 * 1024);
+        final DraftState draft = new DraftState("draft_a", DraftMode.TOURNAMENT, 256);
+        journal.appendCreated("draft_a", DraftMode.TOURNAMENT);
+        journal.appendStarted("draft_a");
+        draft.start();
+        applyTurns(journal, draft, 7);
+        journal.appendCreated("draft_b", DraftMode.FEARLESS);
+
+        // Act
+        journal.stop();
+        final Map<String, DraftState> recovered = recover(open(durability, 64 * 1024));
+
+        // Assert
+        assertEquals(2, recovered.size());
+        assertSameDraft(draft, recovered.get("draft_a"));
+        assertEquals(DraftStatus.CREATED, recovered.get("draft_b").getStatus());
+        assertEquals(DraftMode.FEARLESS, recovered.get("draft_b").getMode());
+    }
+
+    @Test
+    void testRecoversFromSegmentsAfterCrash()
+    {
+        // Arrange - close without the final snapshot, as after a process crash
+        final DraftJournal journal = open(DraftProperties.Durability.ASYNC, 64 * 1024);
+        final DraftState draft = new DraftState("draft_a", DraftMode.TOURNAMENT, 256);
+        journal.appendCreated("draft_a", DraftMode.TOURNAMENT);
+        journal.appendStarted("draft_a");
+        draft.start();
+        applyTurns(journal, draft, 12);
+        journal.close();
+
+        // Act
+        final DraftJournal reopened = open(DraftProperties.Durability.ASYNC, 64 * 1024);
+        final Map<String, DraftState> recovered = recover(reopened);
+
+        // Assert
+        assertSameDraft(draft, recovered.get("draft_a"));
+        assertEquals(journal.getLastSequence(), reopened.getLastSequence());
+    }
+
+    @Test
+    void testSnapshotCompactsSegmentsAndDropsFinishedDrafts() throws IOException
+    {
+        // Arrange - segments small enough to roll many times
+        final DraftJournal journal = open(DraftProperties.Durability.BATCH, 4096);
+        final DraftState openDraft = new DraftState("draft_open", DraftMode.TOURNAMENT, 256);
+        journal.appendCreated("draft_open", DraftMode.TOURNAMENT);
+        journal.appendStarted("draft_open");
+        openDraft.start();
+        applyTurns(journal, openDraft, 3);
+        for (int i = 0; i < 100; i++)
+        {
+            final String draftId = "draft_" + i;
+            final DraftState finished = new DraftState(draftId, DraftMode.TOURNAMENT, 256);
+            journal.appendCreated(draftId, DraftMode.TOURNAMENT);
+            journal.appendStarted(draftId);
+            finished.start();
+            applyTurns(journal, finished, finished.getOrder().size());
+        }
+        journal.appendCreated("draft_removed", DraftMode.TOURNAMENT);
+        journal.appendRemoved("draft_removed");
+        assertTrue(segments().size() > 1);
+
+        // Act
+        journal.snapshot();
+        journal.close();
+        final Map<String, DraftState> recovered = recover(open(DraftProperties.Durability.BATCH, 4096));
+
+        // Assert
+        assertEquals(1, segments().size());
+        assertTrue(Files.exists(directory.resolve("snapshot.dat")));
+        assertEquals(1, recovered.size());
+        assertSameDraft(openDraft, recovered.get("draft_open"));
+    }
+
+    @Test
+    void testSnapshotConcurrentWithRollingKeepsLaterEvents()
+    {
+        // Arrange - segments roll every few drafts while snapshots are taken
+        final DraftJournal journal = open(DraftProperties.Durability.ASYNC, 1024);
+        final List<DraftState> drafts = new ArrayList<>();
+        final CompletableFuture<Void> appender = CompletableFuture.runAsync(() ->
+        {
+            for (int i = 0; i < 2000; i++)
+            {
+                final String draftId = "draft_" + i;
+                final DraftState draft = new DraftState(draftId, DraftMode.TOURNAMENT, 256);
+                journal.appendCreated(draftId, DraftMode.TOURNAMENT);
+                journal.appendStarted(draftId);
+                draft.start();
+                applyTurns(journal, draft, 3);
+                drafts.add(draft);
+            }
+        });
+
+        // Act
+        while (!appender.isDone())
+        {
+            journal.snapshot();
+        }
+        appender.join();
+        journal.close();
+        final Map<String, DraftState> recovered = recover(open(DraftProperties.Durability.ASYNC, 1024));
+
+        // Assert - no event appended during a snapshot was folded away
+        assertEquals(drafts.size(), recovered.size());
+        for (final DraftState draft : drafts)
+        {
+            assertSameDraft(draft, recovered.get(draft.getDraftId()));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    void testRecoversSeriesWithLockedChampions(final boolean snapshot)
+    {
+        // Arrange - the first game completed, the second in progress
+        final DraftJournal journal = open(DraftProperties.Durability.BATCH, 4096);
+        final DraftSeries series = new DraftSeries("series_a", DraftMode.FEARLESS, 3, 256);
+        journal.appendSeriesCreated("series_a", DraftMode.FEARLESS, 3);
+        final DraftState first = startGame(journal, series, "draft_1");
+        applyTurns(journal, first, first.getOrder().size(), 10);
+        series.completeGame(first);
+        final DraftState second = startGame(journal, series, "draft_2");
+        applyTurns(journal, second, 8, 40);
+
+        // Act
+        if (snapshot)
+        {
+            journal.snapshot();
+        }
+        journal.close();
+        final DraftJournal reopened = open(DraftProperties.Durability.BATCH, 4096);
+        final List<DraftSeries> recoveredSeries = List.copyOf(reopened.takeRecoveredSeries());
+        final Map<String, DraftState> recovered = recover(reopened);
+
+        // Assert
+        assertEquals(1, recoveredSeries.size());
+        final DraftSeries recoveredSeriesA = recoveredSeries.getFirst();
+        assertEquals("series_a", recoveredSeriesA.getSeriesId());
+        assertEquals(List.of("draft_1", "draft_2"), recoveredSeriesA.getGames());
+        assertEquals(1, recoveredSeriesA.getCompletedGames());
+        assertEquals(10, recoveredSeriesA.getLockedCount());
+        assertArrayEquals(series.getLocked(), recoveredSeriesA.getLocked());
+        assertEquals(1, recovered.size());
+        assertEquals("series_a", recovered.get("draft_2").getSeriesId());
+        assertSameDraft(second, recovered.get("draft_2"));
+    }
+
+    @Test
+    void testFinishedAndRemovedSeriesAreNotRecovered()
+    {
+        // Arrange
+        final DraftJournal journal = open(DraftProperties.Durability.BATCH, 64 * 1024);
+        final DraftSeries finished = new DraftSeries("series_finished", DraftMode.FULL_FEARLESS, 1, 256);
+        journal.appendSeriesCreated("series_finished", DraftMode.FULL_FEARLESS, 1);
+        final DraftState game = startGame(journal, finished, "draft_1");
+        applyTurns(journal, game, game.getOrder().size());
+        journal.appendSeriesCreated("series_ended", DraftMode.FEARLESS, 5);
+        journal.appendSeriesRemoved("series_ended");
+        journal.appendSeriesCreated("series_open", DraftMode.FEARLESS, 5);
+
+        // Act
+        journal.stop();
+        final DraftJournal reopened = open(DraftProperties.Durability.BATCH, 64 * 1024);
+
+        // Assert
+        final List<DraftSeries> recovered = List.copyOf(reopened.takeRecoveredSeries());
+        assertEquals(1, recovered.size());
+        assertEquals("series_open", recovered.getFirst().getSeriesId());
+        assertTrue(recover(reopened).isEmpty());
+    }
+
+    @Test
+    void testTornRecordEndsReplay() throws IOException
+    {
+        // Arrange
+        final DraftJournal journal = open(DraftProperties.Durability.SYNC, 64 * 1024);
+        journal.appendCreated("draft_a", DraftMode.TOURNAMENT);
+        journal.appendStarted("draft_a");
+        journal.appendAction("draft_a", 0, 42);
+        journal.close();
+        final Path segment = segments().getFirst();
+        final int lastRecord = lastRecordPosition(segment);
+
+        // Act - corrupt one payload byte of the last record
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE))
+        {
+            channel.write(ByteBuffer.wrap(new byte[] { 0x7f }), lastRecord + 20);
+        }
+        final Map<String, DraftState> recovered = recover(open(DraftProperties.Durability.SYNC, 64 * 1024));
+
+        // Assert
+        final DraftState draft = recovered.get("draft_a");
+        assertEquals(DraftStatus.IN_PROGRESS, draft.getStatus());
+        assertEquals(0, draft.getTurn());
+        assertTrue(draft.isAvailable(42));
+    }
+
+    @Test
+    void testDisabledJournalDoesNothing() throws IOException
+    {
+        // Arrange
+        final DraftProperties.Journal properties = properties(DraftProperties.Durability.SYNC, 4096);
+        properties.setEnabled(false);
+        final DraftJournal journal = new DraftJournal(properties, 256);
+
+        // Act
+        journal.start();
+        journal.appendCreated("draft_a", DraftMode.TOURNAMENT);
+        journal.stop();
+
+        // Assert
+        assertTrue(journal.takeRecoveredDrafts().isEmpty());
+        try (Stream<Path> files = Files.list(directory))
+        {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+
+    private DraftJournal open(final DraftProperties.Durability durability, final int segmentSize)
+    {
+        final DraftJournal journal = new DraftJournal(properties(durability, segmentSize), 256);
+        journals.add(journal);
+        journal.start();
+        return journal;
+    }
+
+    private DraftProperties.Journal properties(final DraftProperties.Durability durability, final int segmentSize)
+    {
+        final DraftProperties.Journal properties = new DraftProperties.Journal();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setDurability(durability);
+        properties.setSegmentSize(segmentSize);
+        properties.setSnapshotInterval(Duration.ofHours(1));
+        return properties;
+    }
+
+    private static Map<String, DraftState> recover(final DraftJournal journal)
+    {
+        return journal
+                .takeRecoveredDrafts()
+                .stream()
+                .collect(Collectors.toMap(DraftState::getDraftId, Function.identity()));
+    }
+
+    /**
+     * Apply and journal the given number of turns, picking and banning consecutive champions.
+     */
+    private static void applyTurns(final DraftJournal journal, final DraftState draft, final int turns)
+    {
+        applyTurns(journal, draft, turns, 10);
+    }
+
+    /**
+     * Apply and journal the given number of turns, picking and banning consecutive champions
+     * from {@code firstChampion} on.
+     */
+    private static void applyTurns(
+            final DraftJournal journal, final DraftState draft, final int turns, final int firstChampion)
+    {
+        for (int i = 0; i < turns; i++)
+        {
+            final int turn = draft.getTurn();
+            final DraftSide side = draft.getCurrentSide();
+            final DraftActionType type = draft.getCurrentType();
+            journal.appendAction(draft.getDraftId(), turn, turn + firstChampion);
+            draft.apply(side, type, turn + firstChampion);
+        }
+    }
+
+    /**
+     * Create, journal and start the next game of a series.
+     */
+    private static DraftState startGame(final DraftJournal journal, final DraftSeries series, final String draftId)
+    {
+        final DraftState game = series.newGame(draftId);
+        journal.appendCreated(draftId, series.getMode());
+        journal.appendSeriesGame(series.getSeriesId(), draftId);
+        journal.appendStarted(draftId);
+        game.start();
+        return game;
+    }
+
+    private static void assertSameDraft(final DraftState expected, final DraftState actual)
+    {
+        assertEquals(expected.getMode(), actual.getMode());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getTurn(), actual.getTurn());
+        for (int turn = 0; turn < expected.getTurn(); turn++)
+        {
+            assertEquals(expected.getChampionAt(turn), actual.getChampionAt(turn));
+        }
+        for (int championId = 0; championId < expected.getChampionCapacity(); championId++)
+        {
+            assertEquals(expected.isAvailable(championId), actual.isAvailable(championId));
+        }
+    }
+
+    private List<Path> segments() throws IOException
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return files.filter(path -> path.getFileName().toString().startsWith("segment-")).sorted().toList();
+        }
+    }
+
+    private static int lastRecordPosition(final Path segment) throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int position = 0;
+        int last = 0;
+        while (buffer.getInt(position) > 0)
+        {
+            last = position;
+            position += 16 + buffer.getInt(position);
+        }
+        return last;
+    }
+
+}
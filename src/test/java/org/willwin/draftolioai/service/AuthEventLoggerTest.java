@@ -0,0 +1,139 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+import org.willwin.draftolioai.config.AuthEventLogProperties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for AuthEventLogger.
+ */
+class AuthEventLoggerTest
+{
+
+    private Logger eventLog;
+
+    private AuthEventLogProperties properties;
+
+    @BeforeEach
+    void setUp()
+    {
+        eventLog = mock(Logger.class);
+        when(eventLog.isInfoEnabled()).thenReturn(true);
+        when(eventLog.isWarnEnabled()).thenReturn(true);
+        properties = new AuthEventLogProperties();
+        properties.setBufferSize(16);
+    }
+
+    @Test
+    void testEventsAreWrittenAsStructuredLines()
+    {
+        // Arrange
+        final AuthEventLogger logger = new AuthEventLogger(properties, eventLog);
+
+        // Act
+        logger.success(AuthEventLogger.Type.LOGIN_SUCCEEDED, "user-1", "session-1", System.nanoTime());
+        logger.failure(AuthEventLogger.Type.LOGIN_FAILED, "session-2", new IllegalStateException("boom"), 0);
+        final int written = logger.drain();
+
+        // Assert
+        assertEquals(2, written);
+        final ArgumentCaptor<String> info = ArgumentCaptor.forClass(String.class);
+        verify(eventLog).info(info.capture());
+        assertTrue(info.getValue().startsWith("event=login-succeeded outcome=success ts="));
+        assertTrue(info.getValue().contains(" subject=user-1"));
+        assertTrue(info.getValue().contains(" session=" + Integer.toHexString("session-1".hashCode())));
+        assertTrue(info.getValue().contains(" duration_ms="));
+        assertFalse(info.getValue().contains("session-1"));
+
+        final ArgumentCaptor<String> warn = ArgumentCaptor.forClass(String.class);
+        verify(eventLog).warn(warn.capture());
+        assertTrue(warn.getValue().startsWith("event=login-failed outcome=failure"));
+        assertTrue(warn.getValue().endsWith(" error=IllegalStateException"));
+    }
+
+    @Test
+    void testDisabledLevelSkipsEvent()
+    {
+        // Arrange
+        when(eventLog.isInfoEnabled()).thenReturn(false);
+        final AuthEventLogger logger = new AuthEventLogger(properties, eventLog);
+
+        // Act
+        logger.success(AuthEventLogger.Type.STATUS_CHECKED, "user-1", "session-1", 0);
+
+        // Assert
+        assertEquals(0, logger.drain());
+        verify(eventLog, never()).info(anyString());
+    }
+
+    @Test
+    void testHighVolumeEventsAreSampled()
+    {
+        // Arrange
+        properties.setBufferSize(4096);
+        properties.getSampleEvery().put("status-checked", 10);
+        final AuthEventLogger logger = new AuthEventLogger(properties, eventLog);
+
+        // Act
+        for (int i = 0; i < 2_000; i++)
+        {
+            logger.success(AuthEventLogger.Type.STATUS_CHECKED, "user-1", "session-1", 0);
+        }
+        final int written = logger.drain();
+
+        // Assert - one in ten on average, with a generous margin for randomness
+        assertTrue(written > 100 && written < 350, "written: " + written);
+        final ArgumentCaptor<String> info = ArgumentCaptor.forClass(String.class);
+        verify(eventLog, times(written)).info(info.capture());
+        assertTrue(info.getValue().endsWith(" sample=10"));
+    }
+
+    @Test
+    void testFullBufferDropsEvents()
+    {
+        // Arrange
+        final AuthEventLogger logger = new AuthEventLogger(properties, eventLog);
+
+        // Act
+        for (int i = 0; i < 20; i++)
+        {
+            logger.success(AuthEventLogger.Type.LOGOUT, "user-" + i, null, 0);
+        }
+
+        // Assert
+        assertEquals(4, logger.getDroppedCount());
+        assertEquals(16, logger.drain());
+
+        // Drained slots are reused
+        logger.success(AuthEventLogger.Type.LOGOUT, "user-again", null, 0);
+        assertEquals(1, logger.drain());
+    }
+
+    @Test
+    void testStopWritesBufferedEvents()
+    {
+        // Arrange
+        final AuthEventLogger logger = new AuthEventLogger(properties, eventLog);
+        logger.start();
+
+        // Act
+        logger.success(AuthEventLogger.Type.TOKEN_REFRESHED, "user-1", "session-1", 0);
+        logger.stop();
+
+        // Assert
+        verify(eventLog).info(anyString());
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.config.RateLimitProperties;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for AuthRateLimiter.
+ */
+class AuthRateLimiterTest
+{
+
+    private static final String PATH = "/auth/login";
+
+    private final AtomicLong clock = new AtomicLong(Duration.ofHours(1).toNanos());
+
+    private AuthRateLimiter authRateLimiter;
+
+    @BeforeEach
+    void setUp()
+    {
+        final RateLimitProperties properties = new RateLimitProperties();
+        properties.getEndpoints().put(
+                "login", new RateLimitProperties.Endpoint(
+                        PATH, new RateLimitProperties.Limit(3, 1.0), new RateLimitProperties.Limit(1, 1.0)));
+        authRateLimiter = new AuthRateLimiter(properties, clock::get);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        authRateLimiter.stop();
+    }
+
+    @Test
+    void testSessionRejectionKeepsIpToken()
+    {
+        // Arrange
+        assertEquals(0, authRateLimiter.tryAcquire(PATH, "10.0.0.1", () -> "session-1"));
+
+        // Act - the session bucket is empty, so the IP bucket must keep its tokens
+        for (int i = 0; i < 5; i++)
+        {
+            assertTrue(authRateLimiter.tryAcquire(PATH, "10.0.0.1", () -> "session-1") > 0);
+        }
+
+        // Assert - two of the three IP tokens are left
+        assertEquals(0, authRateLimiter.tryAcquire(PATH, "10.0.0.1", () -> "session-2"));
+        assertEquals(0, authRateLimiter.tryAcquire(PATH, "10.0.0.1", () -> "session-3"));
+        assertTrue(authRateLimiter.tryAcquire(PATH, "10.0.0.1", () -> "session-4") > 0);
+    }
+
+    @Test
+    void testSessionIsNotResolvedWhenIpIsLimited()
+    {
+        // Arrange
+        final AtomicInteger lookups = new AtomicInteger();
+        for (int i = 0; i < 3; i++)
+        {
+            authRateLimiter.tryAcquire(PATH, "10.0.0.1", () -> null);
+        }
+
+        // Act
+        final long wait = authRateLimiter.tryAcquire(PATH, "10.0.0.1", () ->
+        {
+            lookups.incrementAndGet();
+            return "session-1";
+        });
+
+        // Assert
+        assertTrue(wait > 0);
+        assertEquals(0, lookups.get());
+    }
+
+}
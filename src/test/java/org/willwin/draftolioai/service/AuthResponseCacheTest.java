@@ -0,0 +1,165 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.config.AuthSessionProperties;
+import org.willwin.draftolioai.dto.AuthSession;
+import org.willwin.draftolioai.dto.AuthStatusResponse;
+import org.willwin.draftolioai.dto.RsoUserInfo;
+import org.willwin.draftolioai.dto.UserResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for AuthResponseCache.
+ */
+class AuthResponseCacheTest
+{
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private AuthSessionProperties properties;
+
+    private AuthResponseCache cache;
+
+    @BeforeEach
+    void setUp()
+    {
+        properties = new AuthSessionProperties();
+        cache = new AuthResponseCache(jsonMapper, properties);
+    }
+
+    @Test
+    void testPayloadsAreSerializedResponseDtos()
+    {
+        // Arrange
+        final AuthSession authSession = authSession("user_1", "NA1");
+
+        // Act
+        final AuthResponseCache.Payload status = cache.getStatus(authSession);
+        final AuthResponseCache.Payload user = cache.getUser(authSession);
+
+        // Assert
+        assertEquals(
+                new AuthStatusResponse(true, new RsoUserInfo("user_1", "NA1")),
+                jsonMapper.readValue(status.body(), AuthStatusResponse.class)
+        );
+        assertEquals(
+                new UserResponse("user_1", "user_1#NA1", "user_1", "NA1", null, null),
+                jsonMapper.readValue(user.body(), UserResponse.class)
+        );
+        assertEquals(34, status.eTag().length());
+    }
+
+    @Test
+    void testPayloadIsReusedWhileIdentityIsUnchanged()
+    {
+        // Arrange
+        final AuthResponseCache.Payload first = cache.getUser(authSession("user_1", "NA1"));
+
+        // Act - refreshed tokens do not change the payload
+        final AuthSession refreshed = authSession("user_1", "NA1");
+        refreshed.setAccessToken("access_2");
+        final AuthResponseCache.Payload second = cache.getUser(refreshed);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testChangedIdentityIsRenderedAgain()
+    {
+        // Arrange
+        final AuthResponseCache.Payload first = cache.getUser(authSession("user_1", "NA1"));
+
+        // Act
+        final AuthResponseCache.Payload second = cache.getUser(authSession("user_2", "EUW1"));
+
+        // Assert
+        assertNotEquals(first.eTag(), second.eTag());
+        assertEquals("user_2#EUW1", jsonMapper.readValue(second.body(), UserResponse.class).getRiotTag());
+    }
+
+    @Test
+    void testETagIsDerivedFromContent()
+    {
+        // Act
+        final AuthResponseCache.Payload first = cache.getStatus(authSession("user_1", "NA1"));
+        final AuthResponseCache.Payload second = new AuthResponseCache(jsonMapper, properties).getStatus(
+                authSession("user_1", "NA1"));
+
+        // Assert - the same user gets the same ETag on any node
+        assertEquals(first.eTag(), second.eTag());
+    }
+
+    @Test
+    void testUnauthenticatedSession()
+    {
+        // Arrange
+        final AuthSession cleared = authSession("user_1", "NA1");
+        cleared.setAccessToken(null);
+
+        // Act & Assert
+        assertEquals(
+                new AuthStatusResponse(false, null),
+                jsonMapper.readValue(cache.getStatus(null).body(), AuthStatusResponse.class)
+        );
+        assertNull(cache.getUser(null));
+        assertNull(cache.getUser(cleared));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedUserIsDropped()
+    {
+        // Arrange
+        properties.getResponseCache().setMaxSize(2);
+        cache = new AuthResponseCache(jsonMapper, properties);
+        final AuthResponseCache.Payload first = cache.getUser(authSession("user_1", "NA1"));
+        cache.getUser(authSession("user_2", "NA1"));
+
+        // Act - user_1 is used again, so user_2 is the one to go
+        assertSame(first, cache.getUser(authSession("user_1", "NA1")));
+        cache.getUser(authSession("user_3", "NA1"));
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertSame(first, cache.getUser(authSession("user_1", "NA1")));
+    }
+
+    @Test
+    void testSessionsOfAUserShareTheEntry()
+    {
+        // Act - a resealed cookie session or a second device of the same user
+        final AuthResponseCache.Payload first = cache.getStatus(authSession("user_1", "NA1"));
+        final AuthResponseCache.Payload second = cache.getStatus(authSession("user_1", "NA1"));
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testValuesAreEscaped()
+    {
+        // Act
+        final AuthResponseCache.Payload status = cache.getStatus(authSession("a\"b\\c\n", "NA1"));
+
+        // Assert
+        assertEquals(
+                "a\"b\\c\n",
+                jsonMapper.readValue(status.body(), AuthStatusResponse.class).getUserInfo().getSub()
+        );
+    }
+
+    private static AuthSession authSession(final String subject, final String cpid)
+    {
+        return new AuthSession(subject, cpid, "access_1", "refresh_1", 0);
+    }
+
+}
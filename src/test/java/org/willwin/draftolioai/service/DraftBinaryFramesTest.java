@@ -0,0 +1,148 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftStatus;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for DraftBinaryFrames.
+ */
+class DraftBinaryFramesTest
+{
+
+    private DraftState state;
+
+    @BeforeEach
+    void setUp()
+    {
+        state = new DraftState("draft_1", DraftMode.FEARLESS, 256);
+        state.start();
+    }
+
+    @Test
+    void testSnapshotRoundTrip()
+    {
+        // Arrange - a skipped ban and a champion ID above the single-byte varint range
+        state.applyTimeout(0);
+        state.apply(state.getCurrentSide(), state.getCurrentType(), 200);
+        state.apply(state.getCurrentSide(), state.getCurrentType(), 3);
+
+        // Act
+        final DraftBinaryFrames.Frame frame = DraftBinaryFrames.decode(DraftBinaryFrames.snapshot(state));
+
+        // Assert
+        assertEquals(DraftBinaryFrames.SNAPSHOT, frame.type());
+        assertEquals(state.getVersion(), frame.version());
+        assertEquals("draft_1", frame.draftId());
+        assertEquals(DraftMode.FEARLESS, frame.mode());
+        assertEquals(DraftStatus.IN_PROGRESS, frame.status());
+        assertEquals(3, frame.turn());
+        assertArrayEquals(new int[] { DraftState.NONE, 200, 3 }, frame.champions());
+    }
+
+    @Test
+    void testDeltaRoundTrip()
+    {
+        // Arrange
+        state.apply(state.getCurrentSide(), state.getCurrentType(), 130);
+
+        // Act
+        final byte[] encoded = DraftBinaryFrames.delta(state);
+        final DraftBinaryFrames.Frame frame = DraftBinaryFrames.decode(encoded);
+
+        // Assert
+        assertEquals(DraftBinaryFrames.DELTA, frame.type());
+        assertEquals(2, frame.version());
+        assertEquals(DraftStatus.IN_PROGRESS, frame.status());
+        assertEquals(1, frame.turn());
+        assertArrayEquals(new int[] { 130 }, frame.champions());
+        assertEquals(0, frame.turnDeadline());
+        assertEquals(7, encoded.length);
+    }
+
+    @Test
+    void testTurnClockRoundTrip()
+    {
+        // Arrange
+        final long deadline = 1_754_128_890_123L;
+        state.startClock(deadline);
+        final DraftBinaryFrames.Frame running = DraftBinaryFrames.decode(DraftBinaryFrames.snapshot(state));
+
+        // Act
+        state.pauseClock(28_000);
+        final DraftBinaryFrames.Frame paused = DraftBinaryFrames.decode(DraftBinaryFrames.timerUpdate(state));
+
+        // Assert
+        assertEquals(deadline, running.turnDeadline());
+        assertEquals(-1, running.pausedRemaining());
+        assertEquals(DraftBinaryFrames.TIMER_UPDATE, paused.type());
+        assertEquals(state.getVersion(), paused.version());
+        assertEquals(0, paused.turn());
+        assertEquals(0, paused.turnDeadline());
+        assertEquals(28_000, paused.pausedRemaining());
+    }
+
+    @Test
+    void testCompletedRoundTrip()
+    {
+        // Arrange
+        for (int turn = 0; turn < 20; turn++)
+        {
+            state.apply(state.getCurrentSide(), state.getCurrentType(), turn * 10);
+        }
+
+        // Act
+        final DraftBinaryFrames.Frame frame = DraftBinaryFrames.decode(DraftBinaryFrames.completed(state));
+
+        // Assert
+        assertEquals(DraftBinaryFrames.COMPLETED, frame.type());
+        assertEquals(21, frame.version());
+        assertEquals(20, frame.turn());
+        for (int turn = 0; turn < 20; turn++)
+        {
+            assertEquals(turn * 10, frame.champions()[turn]);
+        }
+    }
+
+    @Test
+    void testSmallerThanJson()
+    {
+        // Arrange
+        for (int turn = 0; turn < 10; turn++)
+        {
+            state.apply(state.getCurrentSide(), state.getCurrentType(), turn + 100);
+        }
+
+        // Act
+        final int binaryDelta = DraftBinaryFrames.delta(state).length;
+        final int jsonDelta = DraftFrames.delta(state).getBytes(StandardCharsets.UTF_8).length;
+        final int binarySnapshot = DraftBinaryFrames.snapshot(state).length;
+        final int jsonSnapshot = DraftFrames.snapshot(state).getBytes(StandardCharsets.UTF_8).length;
+
+        // Assert
+        assertTrue(binaryDelta * 20 < jsonDelta, binaryDelta + " vs " + jsonDelta);
+        assertTrue(binarySnapshot * 5 < jsonSnapshot, binarySnapshot + " vs " + jsonSnapshot);
+    }
+
+    @Test
+    void testTruncatedFrameIsRejected()
+    {
+        // Arrange
+        final byte[] encoded = DraftBinaryFrames.snapshot(state);
+        final byte[] truncated = new byte[encoded.length - 3];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> DraftBinaryFrames.decode(truncated));
+        assertThrows(IllegalArgumentException.class, () -> DraftBinaryFrames.decode(new byte[] { 9, 0 }));
+    }
+
+}
@@ -0,0 +1,526 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftEvent;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftStatus;
+import org.willwin.draftolioai.dto.DraftWireFormat;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for DraftBroadcaster.
+ */
+class DraftBroadcasterTest
+{
+
+    private DraftProperties properties;
+
+    private DraftEngine draftEngine;
+
+    private DraftCommandExecutor executor;
+
+    private DraftBroadcaster broadcaster;
+
+    // Drops the next published event when set
+    private AtomicBoolean dropNext;
+
+    // Fails the next published event when set
+    private AtomicBoolean failNext;
+
+    // A second node sharing the event bus, without drafts of its own
+    private DraftCommandExecutor remoteExecutor;
+
+    private DraftBroadcaster remoteBroadcaster;
+
+    @BeforeEach
+    void setUp()
+    {
+        properties = new DraftProperties();
+        properties.getExecutor().setShards(2);
+        properties.getBroadcast().setOutboundQueueCapacity(4);
+        properties.getEventBus().setSnapshotTimeout(Duration.ofMillis(200));
+        dropNext = new AtomicBoolean();
+        failNext = new AtomicBoolean();
+        final DraftEventBus eventBus = new InProcessDraftEventBus()
+        {
+            @Override
+            public void publish(final DraftEvent event)
+            {
+                if (failNext.getAndSet(false))
+                {
+                    throw new IllegalStateException("Event bus down");
+                }
+                if (!dropNext.getAndSet(false))
+                {
+                    super.publish(event);
+                }
+            }
+        };
+        draftEngine = new DraftEngine(properties, new SecureIdGenerator());
+        executor = new DraftCommandExecutor(properties);
+        broadcaster = new DraftBroadcaster(draftEngine, executor, eventBus, properties);
+        remoteExecutor = new DraftCommandExecutor(properties);
+        remoteBroadcaster = new DraftBroadcaster(
+                new DraftEngine(properties, new SecureIdGenerator()), remoteExecutor, eventBus, properties);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        broadcaster.stop();
+        executor.stop();
+        remoteBroadcaster.stop();
+        remoteExecutor.stop();
+    }
+
+    @Test
+    void testSnapshotThenDeltas() throws Exception
+    {
+        // Arrange
+        final DraftState state = startedDraft("draft_1");
+        final List<WebSocketMessage<?>> frames = Collections.synchronizedList(new ArrayList<>());
+        broadcaster.subscribe("draft_1", session("s1", frames, null), DraftWireFormat.JSON);
+
+        // Act
+        takeTurns(state, 2);
+
+        // Assert
+        awaitFrames(frames, 3);
+        final String snapshot = payload(frames.get(0));
+        assertTrue(snapshot.startsWith("{\"type\":\"draft_state_update\",\"draftId\":\"draft_1\",\"version\":1,"));
+        assertTrue(snapshot.contains("\"snapshot\":true"));
+        assertTrue(snapshot.contains("\"bans\":{\"BLUE\":[null,null,null,null,null]"));
+        final String delta = payload(frames.get(2));
+        assertTrue(delta.contains("\"version\":3"));
+        assertTrue(delta.contains("\"currentTurn\":{\"team\":\"BLUE\",\"type\":\"BAN\",\"order\":2}"));
+        assertTrue(delta.contains("\"lastAction\":{\"turn\":1,\"type\":\"BAN\",\"team\":\"RED\",\"championId\":1}"));
+        assertEquals(1, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void testFramesAreEncodedOnceForAllSubscribers() throws Exception
+    {
+        // Arrange
+        final DraftState state = startedDraft("draft_1");
+        final List<WebSocketMessage<?>> first = Collections.synchronizedList(new ArrayList<>());
+        final List<WebSocketMessage<?>> second = Collections.synchronizedList(new ArrayList<>());
+        broadcaster.subscribe("draft_1", session("s1", first, null), DraftWireFormat.JSON);
+        broadcaster.subscribe("draft_1", session("s2", second, null), DraftWireFormat.JSON);
+
+        // Act
+        takeTurns(state, 1);
+
+        // Assert
+        awaitFrames(first, 2);
+        awaitFrames(second, 2);
+        assertSame(first.get(1), second.get(1));
+    }
+
+    @Test
+    void testBinarySubscribersShareEncodedBytes() throws Exception
+    {
+        // Arrange
+        final DraftState state = startedDraft("draft_1");
+        final List<WebSocketMessage<?>> json = Collections.synchronizedList(new ArrayList<>());
+        final List<WebSocketMessage<?>> first = Collections.synchronizedList(new ArrayList<>());
+        final List<WebSocketMessage<?>> second = Collections.synchronizedList(new ArrayList<>());
+        broadcaster.subscribe("draft_1", session("json", json, null), DraftWireFormat.JSON);
+        broadcaster.subscribe("draft_1", session("binary1", first, null), DraftWireFormat.BINARY);
+        broadcaster.subscribe("draft_1", session("binary2", second, null), DraftWireFormat.BINARY);
+
+        // Act
+        takeTurns(state, 1);
+
+        // Assert
+        awaitFrames(json, 2);
+        awaitFrames(first, 2);
+        awaitFrames(second, 2);
+        assertTrue(payload(json.get(1)).startsWith("{\"type\":\"draft_state_update\""));
+        final ByteBuffer firstDelta = (ByteBuffer) first.get(1).getPayload();
+        final ByteBuffer secondDelta = (ByteBuffer) second.get(1).getPayload();
+        assertSame(firstDelta.array(), secondDelta.array());
+        final ByteBuffer snapshotFrame = (ByteBuffer) first.get(0).getPayload();
+        final DraftBinaryFrames.Frame snapshot = DraftBinaryFrames.decode(snapshotFrame.array());
+        assertEquals(DraftBinaryFrames.SNAPSHOT, snapshot.type());
+        assertEquals("draft_1", snapshot.draftId());
+        final DraftBinaryFrames.Frame delta = DraftBinaryFrames.decode(firstDelta.array());
+        assertEquals(DraftBinaryFrames.DELTA, delta.type());
+        assertEquals(2, delta.version());
+        assertEquals(DraftStatus.IN_PROGRESS, delta.status());
+        assertEquals(1, delta.turn());
+        assertEquals(0, delta.champions()[0]);
+    }
+
+    @Test
+    void testSlowSubscriberIsResyncedWithoutHoldingUpOthers() throws Exception
+    {
+        // Arrange - the slow connection blocks on its first write
+        final DraftState state = startedDraft("draft_1");
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<WebSocketMessage<?>> fast = Collections.synchronizedList(new ArrayList<>());
+        final List<WebSocketMessage<?>> slow = Collections.synchronizedList(new ArrayList<>());
+        broadcaster.subscribe("draft_1", session("slow", slow, release), DraftWireFormat.JSON);
+        broadcaster.subscribe("draft_1", session("fast", fast, null), DraftWireFormat.JSON);
+
+        // Act
+        takeTurns(state, 12);
+        awaitFrames(fast, 13);
+        release.countDown();
+
+        // Assert - the slow connection gets a snapshot of the latest version instead of every delta
+        awaitFrames(slow, 2);
+        final long version = executor.submit("draft_1", state::getVersion).get(5, TimeUnit.SECONDS);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!payload(slow.getLast()).contains("\"version\":" + version + ",") && System.nanoTime() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertTrue(payload(slow.getLast()).contains("\"version\":" + version + ","));
+        assertTrue(slow.stream().filter(frame -> payload(frame).contains("\"snapshot\":true")).count() >= 2);
+        assertTrue(slow.size() < fast.size());
+    }
+
+    @Test
+    void testOverloadedShardClosesLaggingSubscriber() throws Exception
+    {
+        // Arrange - the slow connection blocks on its snapshot, then its shard rejects the resync
+        final DraftState state = startedDraft("draft_1");
+        final DraftCommandExecutor overloadedExecutor = spy(executor);
+        final DraftBroadcaster overloaded = new DraftBroadcaster(
+                draftEngine, overloadedExecutor, new InProcessDraftEventBus(), properties);
+        final CountDownLatch release = new CountDownLatch(1);
+        final WebSocketSession slow = session("slow", Collections.synchronizedList(new ArrayList<>()), release);
+        try
+        {
+            overloaded.subscribe("draft_1", slow, DraftWireFormat.JSON);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (overloaded.getSubscriberCount() == 0 && System.nanoTime() < deadline)
+            {
+                Thread.sleep(5);
+            }
+            doThrow(new RejectedExecutionException("Shard overloaded"))
+                    .when(overloadedExecutor)
+                    .execute(anyString(), any(Runnable.class));
+
+            // Act
+            for (int i = 0; i < 8; i++)
+            {
+                executor.submit(
+                        "draft_1", () ->
+                        {
+                            state.apply(state.getCurrentSide(), state.getCurrentType(), state.getTurn());
+                            overloaded.publish(state);
+                            return true;
+                        }
+                ).get(5, TimeUnit.SECONDS);
+            }
+
+            // Assert
+            verify(slow, timeout(5000)).close(
+                    argThat(status -> status.getCode() == CloseStatus.SERVICE_OVERLOAD.getCode()));
+        }
+        finally
+        {
+            release.countDown();
+            overloaded.stop();
+        }
+    }
+
+    @Test
+    void testFailedPublishDoesNotFailTheChange() throws Exception
+    {
+        // Arrange
+        final DraftState state = startedDraft("draft_1");
+        final List<WebSocketMessage<?>> frames = Collections.synchronizedList(new ArrayList<>());
+        broadcaster.subscribe("draft_1", session("s1", frames, null), DraftWireFormat.JSON);
+        awaitFrames(frames, 1);
+        failNext.set(true);
+
+        // Act - takeTurns fails if publish throws on the shard
+        takeTurns(state, 2);
+
+        // Assert - the next change reaches the subscriber
+        awaitFrames(frames, 2);
+        assertTrue(payload(frames.getLast()).contains("\"version\":3"));
+    }
+
+    @Test
+    void testCompletedDraftIsAnnounced() throws Exception
+    {
+        // Arrange
+        final DraftState state = startedDraft("draft_1");
+        final List<WebSocketMessage<?>> frames = Collections.synchronizedList(new ArrayList<>());
+        broadcaster.subscribe("draft_1", session("s1", frames, null), DraftWireFormat.JSON);
+        awaitFrames(frames, 1);
+        for (int turn = 0; turn < 19; turn++)
+        {
+            takeTurns(state, 1);
+            awaitFrames(frames, turn + 2);
+        }
+
+        // Act
+        takeTurns(state, 1);
+
+        // Assert
+        awaitFrames(frames, 22);
+        assertTrue(payload(frames.get(20)).contains("\"status\":\"COMPLETED\""));
+        assertTrue(payload(frames.get(21)).startsWith("{\"type\":\"draft_completed\""));
+    }
+
+    @Test
+    void testTimerUpdateCarriesPausedClock() throws Exception
+    {
+        // Arrange
+        final DraftState state = startedDraft("draft_1");
+        final List<WebSocketMessage<?>> frames = Collections.synchronizedList(new ArrayList<>());
+        broadcaster.subscribe("draft_1", session("s1", frames, null), DraftWireFormat.JSON);
+        awaitFrames(frames, 1);
+
+        // Act
+        executor.submit(
+                "draft_1", () ->
+                {
+                    state.pauseClock(28_000);
+                    broadcaster.publishTimer(state);
+                    return true;
+                }
+        ).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        awaitFrames(frames, 2);
+        assertEquals(
+                "{\"type\":\"draft_timer_update\",\"draftId\":\"draft_1\",\"version\":1,\"turn\":0,"
+                        + "\"timerEndTime\":null,\"timerPaused\":true,\"remainingMillis\":28000}",
+                payload(frames.get(1))
+        );
+    }
+
+    @Test
+    void testClockSyncReplyIsStampedWhenSent() throws Exception
+    {
+        // Arrange
+        startedDraft("draft_1");
+        final List<WebSocketMessage<?>> frames = Collections.synchronizedList(new ArrayList<>());
+        final WebSocketSession session = session("s1", frames, null);
+        broadcaster.subscribe("draft_1", session, DraftWireFormat.BINARY);
+        awaitFrames(frames, 1);
+        final long receiveTime = System.currentTimeMillis();
+
+        // Act
+        final boolean accepted = broadcaster.clockSync(session, 123, receiveTime);
+
+        // Assert
+        assertTrue(accepted);
+        awaitFrames(frames, 2);
+        final String reply = payload(frames.get(1));
+        assertTrue(reply.startsWith(
+                "{\"type\":\"clock_sync\",\"clientTime\":123,\"serverReceiveTime\":" + receiveTime + ","));
+        final long sendTime = Long.parseLong(reply.substring(reply.lastIndexOf(':') + 1, reply.length() - 1));
+        assertTrue(sendTime >= receiveTime);
+        assertFalse(broadcaster.clockSync(session("s2", frames, null), 123, receiveTime));
+    }
+
+    @Test
+    void testUnknownDraftClosesConnection() throws Exception
+    {
+        // Arrange
+        final WebSocketSession session = session("s1", new ArrayList<>(), null);
+
+        // Act
+        broadcaster.subscribe("draft_missing", session, DraftWireFormat.JSON);
+
+        // Assert
+        verify(session, timeout(5000)).close(
+                argThat(status -> status.getCode() == CloseStatus.POLICY_VIOLATION.getCode()));
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void testRemoteNodeServesDraftOfAnotherNode() throws Exception
+    {
+        // Arrange
+        final DraftState state = startedDraft("draft_1");
+        final List<WebSocketMessage<?>> local = Collections.synchronizedList(new ArrayList<>());
+        final List<WebSocketMessage<?>> remote = Collections.synchronizedList(new ArrayList<>());
+        final List<WebSocketMessage<?>> remoteBinary = Collections.synchronizedList(new ArrayList<>());
+        broadcaster.subscribe("draft_1", session("local", local, null), DraftWireFormat.JSON);
+        remoteBroadcaster.subscribe("draft_1", session("remote", remote, null), DraftWireFormat.JSON);
+        remoteBroadcaster.subscribe("draft_1", session("binary", remoteBinary, null), DraftWireFormat.BINARY);
+        awaitFrames(remote, 1);
+        awaitFrames(remoteBinary, 1);
+
+        // Act
+        takeTurns(state, 3);
+
+        // Assert - the replica yields the same frames as the draft itself
+        awaitFrames(local, 4);
+        awaitFrames(remote, 4);
+        awaitFrames(remoteBinary, 4);
+        assertEquals(payload(local.get(0)), payload(remote.get(0)));
+        for (int i = 1; i < 4; i++)
+        {
+            assertEquals(payload(local.get(i)), payload(remote.get(i)));
+        }
+        final DraftBinaryFrames.Frame delta = DraftBinaryFrames.decode(
+                ((ByteBuffer) remoteBinary.get(3).getPayload()).array());
+        assertEquals(4, delta.version());
+        assertEquals(3, delta.turn());
+        assertEquals(1, remoteBroadcaster.getReplicaCount());
+        assertEquals(0, broadcaster.getReplicaCount());
+    }
+
+    @Test
+    void testLostEventResyncsRemoteSubscribers() throws Exception
+    {
+        // Arrange
+        final DraftState state = startedDraft("draft_1");
+        final List<WebSocketMessage<?>> remote = Collections.synchronizedList(new ArrayList<>());
+        remoteBroadcaster.subscribe("draft_1", session("remote", remote, null), DraftWireFormat.JSON);
+        awaitFrames(remote, 1);
+
+        // Act
+        dropNext.set(true);
+        takeTurns(state, 2);
+
+        // Assert - the gap is repaired with a snapshot of the latest version
+        awaitFrames(remote, 2);
+        assertTrue(payload(remote.get(1)).contains(""snapshot":true"));
+        assertTrue(payload(remote.get(1)).contains("\"version\":3,"));
+        takeTurns(state, 1);
+        awaitFrames(remote, 3);
+        assertTrue(payload(remote.get(2)).contains("\"version\":4,"));
+    }
+
+    @Test
+    void testRemoteUnsubscribeStopsWatchingDraft() throws Exception
+    {
+        // Arrange
+        startedDraft("draft_1");
+        final List<WebSocketMessage<?>> remote = Collections.synchronizedList(new ArrayList<>());
+        final WebSocketSession session = session("remote", remote, null);
+        remoteBroadcaster.subscribe("draft_1", session, DraftWireFormat.JSON);
+        awaitFrames(remote, 1);
+
+        // Act
+        remoteBroadcaster.unsubscribe("draft_1", session);
+        remoteExecutor.submit("draft_1", () -> true).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(0, remoteBroadcaster.getReplicaCount());
+        assertEquals(0, remoteBroadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void testUnsubscribe() throws Exception
+    {
+        // Arrange
+        startedDraft("draft_1");
+        final WebSocketSession session = session("s1", new ArrayList<>(), null);
+        broadcaster.subscribe("draft_1", session, DraftWireFormat.JSON);
+
+        // Act
+        broadcaster.unsubscribe("draft_1", session);
+        executor.submit("draft_1", () -> true).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    private DraftState startedDraft(final String draftId) throws Exception
+    {
+        final DraftState state = draftEngine.create(draftId, DraftMode.TOURNAMENT);
+        executor.submit(draftId, state::start).get(5, TimeUnit.SECONDS);
+        return state;
+    }
+
+    /**
+     * Take turns on the draft's shard, picking and banning the champion with the turn's index.
+     */
+    private void takeTurns(final DraftState state, final int turns) throws Exception
+    {
+        for (int i = 0; i < turns; i++)
+        {
+            executor.submit(
+                    state.getDraftId(), () ->
+                    {
+                        final int turn = state.getTurn();
+                        state.apply(state.getCurrentSide(), state.getCurrentType(), turn);
+                        broadcaster.publish(state);
+                        return turn;
+                    }
+            ).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static WebSocketSession session(
+            final String id, final List<WebSocketMessage<?>> frames, final CountDownLatch firstSendLatch)
+    {
+        final WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        try
+        {
+            doAnswer(invocation ->
+            {
+                if (firstSendLatch != null && frames.isEmpty())
+                {
+                    firstSendLatch.await(5, TimeUnit.SECONDS);
+                }
+                frames.add(invocation.getArgument(0));
+                return null;
+            }).when(session).sendMessage(any());
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException(e);
+        }
+        return session;
+    }
+
+    private static void awaitFrames(final List<WebSocketMessage<?>> frames, final int count)
+            throws InterruptedException
+    {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (frames.size() < count && System.nanoTime() < deadline)
+        {
+            Thread.sleep(5);
+        }
+        assertTrue(frames.size() >= count, "Expected " + count + " frames, got " + frames.size());
+    }
+
+    private static String payload(final WebSocketMessage<?> frame)
+    {
+        return (String) frame.getPayload();
+    }
+
+}
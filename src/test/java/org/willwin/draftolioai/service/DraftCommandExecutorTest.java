@@ -0,0 +1,223 @@
+package org.willwin.draftolioai.service;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.config.DraftProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for DraftCommandExecutor.
+ */
+class DraftCommandExecutorTest
+{
+
+    private DraftProperties properties;
+
+    private DraftCommandExecutor executor;
+
+    @BeforeEach
+    void setUp()
+    {
+        properties = new DraftProperties();
+        properties.getExecutor().setShards(4);
+        executor = new DraftCommandExecutor(properties);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        executor.stop();
+    }
+
+    @Test
+    void testCommandsOfADraftRunInOrderOnOneThread() throws Exception
+    {
+        // Arrange
+        final List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+
+        // Act
+        CompletableFuture<Boolean> last = null;
+        for (int i = 0; i < 1000; i++)
+        {
+            final int value = i;
+            last = executor.submit(
+                    "draft_1", () ->
+                    {
+                        threads.add(Thread.currentThread());
+                        return applied.add(value);
+                    }
+            );
+        }
+        last.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        for (int i = 0; i < 1000; i++)
+        {
+            assertEquals(i, applied.get(i));
+        }
+        assertEquals(1, threads.stream().distinct().count());
+        assertTrue(threads.getFirst().getName().startsWith("draft-shard-"));
+    }
+
+    @Test
+    void testUnsynchronizedStateIsConsistentUnderConcurrentSubmitters() throws Exception
+    {
+        // Arrange - plain counters, only ever touched on their draft's shard
+        final int drafts = 64;
+        final long[] counters = new long[drafts];
+
+        // Act
+        try (ExecutorService submitters = Executors.newFixedThreadPool(8))
+        {
+            for (int thread = 0; thread < 8; thread++)
+            {
+                submitters.submit(() ->
+                {
+                    for (int i = 0; i < 10_000; i++)
+                    {
+                        final int draft = i % drafts;
+                        executor.execute("draft_" + draft, () -> counters[draft]++);
+                    }
+                });
+            }
+        }
+        for (int draft = 0; draft < drafts; draft++)
+        {
+            final int index = draft;
+            executor.submit("draft_" + draft, () -> counters[index]).get(5, TimeUnit.SECONDS);
+        }
+
+        // Assert
+        for (int draft = 0; draft < drafts; draft++)
+        {
+            assertEquals(8 * 10_000 / drafts, counters[draft]);
+        }
+    }
+
+    @Test
+    void testFailureCompletesFuture()
+    {
+        // Act
+        final CompletableFuture<Object> future = executor.submit(
+                "draft_1", () ->
+                {
+                    throw new IllegalArgumentException("Unknown draft: draft_1");
+                }
+        );
+
+        // Assert
+        final ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    @Test
+    void testErrorCompletesFutureAndShardKeepsRunning() throws Exception
+    {
+        // Act
+        final CompletableFuture<Object> failed = executor.submit(
+                "draft_1", () ->
+                {
+                    throw new AssertionError("boom");
+                }
+        );
+        executor.execute(
+                "draft_1", () ->
+                {
+                    throw new StackOverflowError();
+                }
+        );
+        final CompletableFuture<String> next = executor.submit("draft_1", () -> "ok");
+
+        // Assert
+        final ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, e.getCause());
+        assertEquals("ok", next.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSubmitAfterStopIsRejected()
+    {
+        // Arrange
+        executor.stop();
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> executor.execute("draft_1", () -> { }));
+    }
+
+    @Test
+    void testFullShardRejects() throws Exception
+    {
+        // Arrange
+        executor.stop();
+        properties.getExecutor().setShards(1);
+        properties.getExecutor().setQueueCapacity(2);
+        executor = new DraftCommandExecutor(properties);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(
+                "draft_1", () ->
+                {
+                    blocked.countDown();
+                    awaitQuietly(release);
+                }
+        );
+        blocked.await(5, TimeUnit.SECONDS);
+
+        // Act
+        executor.execute("draft_1", () -> { });
+        executor.execute("draft_1", () -> { });
+
+        // Assert
+        assertThrows(RejectedExecutionException.class, () -> executor.execute("draft_1", () -> { }));
+        release.countDown();
+    }
+
+    @Test
+    void testMetricsPerShard() throws Exception
+    {
+        // Arrange
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        executor.bindTo(registry);
+
+        // Act
+        executor.submit("draft_1", () -> true).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        final String shard = Integer.toString(executor.shardOf("draft_1"));
+        assertEquals(4, registry.find("draft.executor.queue.depth").gauges().size());
+        final FunctionTimer latency = registry.get("draft.executor.latency").tag("shard", shard).functionTimer();
+        assertEquals(1, latency.count());
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftSide;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for DraftSeries and its locked champions.
+ */
+class DraftSeriesTest
+{
+
+    private static final int CAPACITY = 200;
+
+    @Test
+    void testFearlessBestOfThreeLocksPicksOnly()
+    {
+        // Arrange
+        final DraftSeries series = new DraftSeries("series_1", DraftMode.FEARLESS, 3, CAPACITY);
+        final DraftState first = series.newGame("draft_1");
+        play(first, 10);
+
+        // Act
+        series.completeGame(first);
+        final DraftState second = series.newGame("draft_2");
+        second.start();
+
+        // Assert
+        assertEquals(10, series.getLockedCount());
+        for (int turn = 0; turn < first.getOrder().size(); turn++)
+        {
+            final boolean pick = first.getOrder().type(turn) == DraftActionType.PICK;
+            assertEquals(pick, series.isLocked(first.getChampionAt(turn)));
+            assertEquals(!pick, second.isAvailable(first.getChampionAt(turn)));
+        }
+        final int lockedPick = first.getPick(DraftSide.BLUE, 0);
+        final int freeBan = first.getBan(DraftSide.BLUE, 0);
+        assertEquals(DraftActionResult.UNAVAILABLE, second.check(DraftSide.BLUE, DraftActionType.BAN, lockedPick));
+        assertEquals(DraftActionResult.APPLIED, second.apply(DraftSide.BLUE, DraftActionType.BAN, freeBan));
+        assertEquals("series_1", second.getSeriesId());
+    }
+
+    @Test
+    void testFullFearlessBestOfFiveLocksPicksAndBans()
+    {
+        // Arrange
+        final DraftSeries series = new DraftSeries("series_1", DraftMode.FULL_FEARLESS, 5, CAPACITY);
+
+        // Act - each game plays 20 champions the earlier games left available
+        for (int game = 0; game < 5; game++)
+        {
+            final DraftState draft = series.newGame("draft_" + game);
+            for (int championId = 0; championId < CAPACITY; championId++)
+            {
+                assertEquals(championId >= game * 20, draft.isAvailable(championId));
+            }
+            play(draft, game * 20);
+            series.completeGame(draft);
+            assertEquals((game + 1) * 20, series.getLockedCount());
+        }
+
+        // Assert
+        assertTrue(series.isFinished());
+        assertFalse(series.hasGameInProgress());
+        assertEquals(5, series.getGames().size());
+        assertThrows(IllegalStateException.class, () -> series.newGame("draft_5"));
+    }
+
+    @Test
+    void testNextGameRequiresCompletedGame()
+    {
+        // Arrange
+        final DraftSeries series = new DraftSeries("series_1", DraftMode.FEARLESS, 3, CAPACITY);
+        final DraftState first = series.newGame("draft_1");
+        first.start();
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> series.newGame("draft_2"));
+        assertThrows(IllegalArgumentException.class, () -> series.completeGame(first));
+        assertTrue(series.isGameInProgress("draft_1"));
+        assertEquals(0, series.getLockedCount());
+    }
+
+    @Test
+    void testUnsupportedSeriesRejected()
+    {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new DraftSeries("series_1", DraftMode.TOURNAMENT, 3, CAPACITY)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new DraftSeries("series_1", DraftMode.FEARLESS, 2, CAPACITY)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new DraftSeries("series_1", DraftMode.FEARLESS, 9, CAPACITY)
+        );
+    }
+
+    @Test
+    void testRestoredSeriesKeepsLockedChampions()
+    {
+        // Arrange
+        final DraftSeries series = new DraftSeries("series_1", DraftMode.FEARLESS, 5, CAPACITY);
+        final DraftState first = series.newGame("draft_1");
+        play(first, 50);
+        series.completeGame(first);
+
+        // Act
+        final DraftSeries restored = DraftSeries.restore(
+                "series_1", DraftMode.FEARLESS, 5, CAPACITY, series.getGames(), series.getCompletedGames(),
+                series.getLocked()
+        );
+        final DraftState second = restored.newGame("draft_2");
+
+        // Assert
+        assertEquals(List.of("draft_1", "draft_2"), restored.getGames());
+        assertEquals(series.getLockedCount(), restored.getLockedCount());
+        for (int slot = 0; slot < 5; slot++)
+        {
+            assertFalse(second.isAvailable(first.getPick(DraftSide.BLUE, slot)));
+            assertFalse(second.isAvailable(first.getPick(DraftSide.RED, slot)));
+        }
+    }
+
+    /**
+     * Start the game and play all of its turns with consecutive champions.
+     */
+    private static void play(final DraftState game, final int firstChampion)
+    {
+        game.start();
+        for (int turn = 0; turn < game.getOrder().size(); turn++)
+        {
+            assertEquals(
+                    DraftActionResult.APPLIED,
+                    game.apply(game.getCurrentSide(), game.getCurrentType(), firstChampion + turn)
+            );
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.config.DraftProperties;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.repository.DraftHistoryWriter;
+import org.willwin.draftolioai.repository.DraftJournal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for DraftService, without journal and history.
+ */
+class DraftServiceTest
+{
+
+    private DraftEngine draftEngine;
+
+    private DraftCommandExecutor executor;
+
+    private DraftTimerWheel timerWheel;
+
+    private DraftBroadcaster broadcaster;
+
+    private DraftService service;
+
+    @BeforeEach
+    void setUp()
+    {
+        final DraftProperties properties = new DraftProperties();
+        properties.getExecutor().setShards(2);
+        properties.getHistory().setEnabled(false);
+        draftEngine = new DraftEngine(properties, new SecureIdGenerator());
+        executor = new DraftCommandExecutor(properties);
+        timerWheel = new DraftTimerWheel(executor, properties);
+        broadcaster = new DraftBroadcaster(draftEngine, executor, new InProcessDraftEventBus(), properties);
+        service = new DraftService(
+                draftEngine, executor, new DraftJournal(properties.getJournal(), properties.getChampionCapacity()),
+                new DraftHistoryWriter(properties.getHistory(), null), broadcaster, timerWheel, properties
+        );
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        timerWheel.stop();
+        broadcaster.stop();
+        executor.stop();
+    }
+
+    @Test
+    void testCompletedDraftIsEvicted() throws Exception
+    {
+        // Arrange
+        final String draftId = service.createDraft(DraftMode.TOURNAMENT);
+        assertTrue(service.startDraft(draftId).get(5, TimeUnit.SECONDS));
+
+        // Act
+        play(draftId, 10);
+
+        // Assert - the command completing the draft also evicted it
+        assertNull(draftEngine.get(draftId));
+        assertEquals(0, draftEngine.size());
+    }
+
+    @Test
+    void testCompletedSeriesGameIsEvictedAfterHandOver() throws Exception
+    {
+        // Arrange
+        final String seriesId = service.createSeries(DraftMode.FEARLESS, 3);
+        final String gameId = service.createSeriesGame(seriesId).get(5, TimeUnit.SECONDS);
+        assertTrue(service.startDraft(gameId).get(5, TimeUnit.SECONDS));
+
+        // Act
+        play(gameId, 10);
+
+        // Assert - the series took over the picks before the game was dropped
+        await(() -> draftEngine.get(gameId) == null);
+        assertEquals(10, draftEngine.getSeries(seriesId).getLockedCount());
+        assertNotNull(service.createSeriesGame(seriesId).get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Submit every turn of a started draft, with consecutive champions from {@code firstChampion} on.
+     */
+    private void play(final String draftId, final int firstChampion) throws Exception
+    {
+        final DraftTurnOrder order = draftEngine.get(draftId).getOrder();
+        for (int turn = 0; turn < order.size(); turn++)
+        {
+            assertEquals(
+                    DraftActionResult.APPLIED,
+                    service
+                            .submitAction(draftId, order.side(turn), order.type(turn), turn + firstChampion)
+                            .get(5, TimeUnit.SECONDS)
+            );
+        }
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException
+    {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline)
+        {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+}
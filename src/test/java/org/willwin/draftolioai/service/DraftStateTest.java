@@ -0,0 +1,229 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.dto.DraftActionType;
+import org.willwin.draftolioai.dto.DraftMode;
+import org.willwin.draftolioai.dto.DraftPhase;
+import org.willwin.draftolioai.dto.DraftSide;
+import org.willwin.draftolioai.dto.DraftStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for DraftState and the standard DraftTurnOrder.
+ */
+class DraftStateTest
+{
+
+    private static final int CAPACITY = 200;
+
+    private DraftState state;
+
+    @BeforeEach
+    void setUp()
+    {
+        state = new DraftState("draft_1", DraftMode.TOURNAMENT, CAPACITY);
+    }
+
+    @Test
+    void testStandardTurnOrder()
+    {
+        // Arrange
+        final DraftTurnOrder order = DraftTurnOrder.forMode(DraftMode.TOURNAMENT);
+        final StringBuilder sequence = new StringBuilder();
+
+        // Act
+        for (int turn = 0; turn < order.size(); turn++)
+        {
+            sequence.append(order.side(turn) == DraftSide.BLUE ? 'B' : 'R');
+            sequence.append(order.type(turn) == DraftActionType.PICK ? 'P' : 'X');
+        }
+
+        // Assert
+        assertEquals(20, order.size());
+        assertEquals("BXRXBXRXBXRX" + "BPRPRPBPBPRP" + "RXBXRXBX" + "RPBPBPRP", sequence.toString());
+        assertEquals(DraftPhase.BAN_PHASE_1, order.phase(5));
+        assertEquals(DraftPhase.PICK_PHASE_1, order.phase(6));
+        assertEquals(DraftPhase.BAN_PHASE_2, order.phase(12));
+        assertEquals(DraftPhase.PICK_PHASE_2, order.phase(19));
+        assertEquals(4, order.slot(19));
+    }
+
+    @Test
+    void testFullDraftCompletes()
+    {
+        // Arrange
+        final DraftTurnOrder order = state.getOrder();
+        state.start();
+
+        // Act
+        for (int turn = 0; turn < order.size(); turn++)
+        {
+            assertEquals(
+                    DraftActionResult.APPLIED,
+                    state.apply(state.getCurrentSide(), state.getCurrentType(), turn + 10)
+            );
+        }
+
+        // Assert
+        assertEquals(DraftStatus.COMPLETED, state.getStatus());
+        assertEquals(21, state.getVersion());
+        assertNull(state.getCurrentSide());
+        assertEquals(10, state.getBan(DraftSide.BLUE, 0));
+        assertEquals(16, state.getPick(DraftSide.BLUE, 0));
+        assertEquals(29, state.getPick(DraftSide.RED, 4));
+        for (int turn = 0; turn < order.size(); turn++)
+        {
+            assertEquals(turn + 10, state.getChampionAt(turn));
+            assertFalse(state.isAvailable(turn + 10));
+        }
+    }
+
+    @Test
+    void testIllegalActionsAreRejected()
+    {
+        // Act & Assert
+        assertEquals(DraftActionResult.NOT_IN_PROGRESS, state.apply(DraftSide.BLUE, DraftActionType.BAN, 1));
+
+        state.start();
+        assertEquals(DraftActionResult.NOT_YOUR_TURN, state.apply(DraftSide.RED, DraftActionType.BAN, 1));
+        assertEquals(DraftActionResult.WRONG_ACTION, state.apply(DraftSide.BLUE, DraftActionType.PICK, 1));
+        assertEquals(DraftActionResult.UNKNOWN_CHAMPION, state.apply(DraftSide.BLUE, DraftActionType.BAN, -1));
+        assertEquals(
+                DraftActionResult.UNKNOWN_CHAMPION, state.apply(DraftSide.BLUE, DraftActionType.BAN, CAPACITY));
+
+        assertEquals(DraftActionResult.APPLIED, state.apply(DraftSide.BLUE, DraftActionType.BAN, 1));
+        assertEquals(DraftActionResult.UNAVAILABLE, state.apply(DraftSide.RED, DraftActionType.BAN, 1));
+
+        // Rejections leave the draft untouched
+        assertEquals(1, state.getTurn());
+        assertEquals(2, state.getVersion());
+    }
+
+    @Test
+    void testTimeoutSkipsBanAndPicksNextAvailable()
+    {
+        // Arrange
+        state.start();
+        for (int turn = 0; turn < 6; turn++)
+        {
+            state.apply(state.getCurrentSide(), DraftActionType.BAN, 60 + turn);
+        }
+
+        // Act
+        final int picked = state.applyTimeout(62);
+        state.apply(DraftSide.RED, DraftActionType.PICK, CAPACITY - 1);
+        final int wrapped = state.applyTimeout(CAPACITY - 1);
+
+        // Assert - 62 to 65 were banned, the search wraps past the end of the catalog
+        assertEquals(66, picked);
+        assertEquals(0, wrapped);
+        assertEquals(DraftActionType.PICK, state.getCurrentType());
+    }
+
+    @Test
+    void testTimeoutOfBanIsSkipped()
+    {
+        // Arrange
+        state.start();
+
+        // Act
+        final int banned = state.applyTimeout(5);
+
+        // Assert
+        assertEquals(DraftState.NONE, banned);
+        assertEquals(DraftState.NONE, state.getBan(DraftSide.BLUE, 0));
+        assertTrue(state.isAvailable(5));
+        assertEquals(DraftSide.RED, state.getCurrentSide());
+    }
+
+    @Test
+    void testChooseOnTimeoutDoesNotApply()
+    {
+        // Arrange
+        state.start();
+        for (int turn = 0; turn < 6; turn++)
+        {
+            state.apply(state.getCurrentSide(), DraftActionType.BAN, turn);
+        }
+
+        // Act
+        final int chosen = state.chooseOnTimeout(0);
+
+        // Assert
+        assertEquals(6, chosen);
+        assertEquals(6, state.getTurn());
+        assertTrue(state.isAvailable(6));
+    }
+
+    @Test
+    void testReplayMatchesApply()
+    {
+        // Arrange
+        final DraftState applied = new DraftState("draft_2", DraftMode.TOURNAMENT, CAPACITY);
+        applied.start();
+        state.start();
+
+        // Act
+        for (int turn = 0; turn < 20; turn++)
+        {
+            final int championId = turn % 3 == 0 ? DraftState.NONE : turn;
+            if (championId == DraftState.NONE)
+            {
+                applied.applyTimeout(0);
+            }
+            else
+            {
+                applied.apply(applied.getCurrentSide(), applied.getCurrentType(), championId);
+            }
+            state.replay(applied.getChampionAt(turn));
+        }
+
+        // Assert
+        assertEquals(DraftStatus.COMPLETED, state.getStatus());
+        assertEquals(applied.getVersion(), state.getVersion());
+        for (int turn = 0; turn < 20; turn++)
+        {
+            assertEquals(applied.getChampionAt(turn), state.getChampionAt(turn));
+        }
+        for (int championId = 0; championId < CAPACITY; championId++)
+        {
+            assertEquals(applied.isAvailable(championId), state.isAvailable(championId));
+        }
+    }
+
+    @Test
+    void testTimeoutRequiresRunningDraft()
+    {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> state.applyTimeout(0));
+        assertTrue(state.start());
+        assertFalse(state.start());
+    }
+
+    @Test
+    void testActionTakesTurnOffTheClock()
+    {
+        // Arrange
+        state.start();
+        state.startClock(1_000L);
+        final long version = state.getVersion();
+
+        // Act
+        state.pauseClock(400);
+        final long pausedRemaining = state.getPausedRemaining();
+        state.apply(DraftSide.BLUE, DraftActionType.BAN, 1);
+
+        // Assert
+        assertEquals(400, pausedRemaining);
+        assertEquals(0, state.getTurnDeadline());
+        assertEquals(-1, state.getPausedRemaining());
+        assertEquals(version + 1, state.getVersion());
+    }
+
+}
@@ -0,0 +1,222 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.config.DraftProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for DraftTimerWheel.
+ */
+class DraftTimerWheelTest
+{
+
+    private DraftCommandExecutor executor;
+
+    private DraftTimerWheel timerWheel;
+
+    @BeforeEach
+    void setUp()
+    {
+        // 1 ms ticks over 16 slots, so timers of a few hundred milliseconds go through the higher wheels
+        final DraftProperties properties = new DraftProperties();
+        properties.getExecutor().setShards(2);
+        properties.getTimer().setTickDuration(Duration.ofMillis(1));
+        properties.getTimer().setWheelSize(16);
+        executor = new DraftCommandExecutor(properties);
+        timerWheel = new DraftTimerWheel(executor, properties);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        timerWheel.stop();
+        executor.stop();
+    }
+
+    @Test
+    void testTimerExpiresOnDraftShard() throws Exception
+    {
+        // Arrange
+        final CountDownLatch fired = new CountDownLatch(1);
+        final AtomicBoolean onShard = new AtomicBoolean();
+        final long scheduledAt = System.nanoTime();
+
+        // Act
+        onShard("draft_1", () -> timerWheel.schedule("draft_1", Duration.ofMillis(30), () ->
+        {
+            onShard.set(executor.isOnShard("draft_1"));
+            fired.countDown();
+        }));
+
+        // Assert
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - scheduledAt >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertTrue(onShard.get());
+        assertEquals(0, timerWheel.getActiveCount());
+    }
+
+    @Test
+    void testTimersInHigherWheelsDoNotExpireEarly() throws Exception
+    {
+        // Arrange - 16 ms, 256 ms and 4 s are the spans of the first three wheels
+        final long[] delaysMillis = { 5, 40, 300, 600 };
+        final CountDownLatch fired = new CountDownLatch(delaysMillis.length);
+        final List<String> early = Collections.synchronizedList(new ArrayList<>());
+        final long scheduledAt = System.nanoTime();
+
+        // Act
+        for (final long delay : delaysMillis)
+        {
+            final String draftId = "draft_" + delay;
+            onShard(draftId, () -> timerWheel.schedule(draftId, Duration.ofMillis(delay), () ->
+            {
+                if (System.nanoTime() - scheduledAt < TimeUnit.MILLISECONDS.toNanos(delay))
+                {
+                    early.add(draftId);
+                }
+                fired.countDown();
+            }));
+        }
+
+        // Assert
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(early.isEmpty(), "Expired early: " + early);
+    }
+
+    @Test
+    void testManyTimersAllExpire() throws Exception
+    {
+        // Arrange
+        final int drafts = 5000;
+        final CountDownLatch fired = new CountDownLatch(drafts);
+
+        // Act
+        for (int i = 0; i < drafts; i++)
+        {
+            final String draftId = "draft_" + i;
+            final long delay = i % 200;
+            onShard(draftId, () -> timerWheel.schedule(draftId, Duration.ofMillis(delay), fired::countDown));
+        }
+
+        // Assert
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCancelledTimerDoesNotFire() throws Exception
+    {
+        // Arrange
+        final AtomicBoolean fired = new AtomicBoolean();
+        onShard("draft_1", () -> timerWheel.schedule("draft_1", Duration.ofMillis(50), () -> fired.set(true)));
+
+        // Act
+        final boolean cancelled = onShard("draft_1", () -> timerWheel.cancel("draft_1"));
+        Thread.sleep(150);
+
+        // Assert
+        assertTrue(cancelled);
+        assertFalse(fired.get());
+        assertNull(timerWheel.getRemaining("draft_1"));
+    }
+
+    @Test
+    void testScheduleReplacesPreviousTimer() throws Exception
+    {
+        // Arrange
+        final List<String> fired = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch second = new CountDownLatch(1);
+        onShard("draft_1", () -> timerWheel.schedule("draft_1", Duration.ofMillis(20), () -> fired.add("turn 0")));
+
+        // Act
+        onShard("draft_1", () -> timerWheel.schedule("draft_1", Duration.ofMillis(60), () ->
+        {
+            fired.add("turn 1");
+            second.countDown();
+        }));
+
+        // Assert
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(List.of("turn 1"), fired);
+    }
+
+    @Test
+    void testPausedDraftKeepsRemainingTime() throws Exception
+    {
+        // Arrange
+        final CountDownLatch fired = new CountDownLatch(1);
+        final AtomicLong resumedAt = new AtomicLong();
+        final AtomicLong firedAt = new AtomicLong();
+        onShard("draft_1", () -> timerWheel.schedule("draft_1", Duration.ofMillis(200), () ->
+        {
+            firedAt.set(System.nanoTime());
+            fired.countDown();
+        }));
+        Thread.sleep(50);
+
+        // Act
+        assertTrue(onShard("draft_1", () -> timerWheel.pause("draft_1")));
+        final Duration remaining = timerWheel.getRemaining("draft_1");
+        Thread.sleep(300);
+        final boolean firedWhilePaused = fired.getCount() == 0;
+        resumedAt.set(System.nanoTime());
+        assertTrue(onShard("draft_1", () -> timerWheel.resume("draft_1")));
+
+        // Assert
+        assertFalse(firedWhilePaused);
+        assertTrue(remaining.compareTo(Duration.ofMillis(200)) < 0);
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(firedAt.get() - resumedAt.get() >= remaining.toNanos() - TimeUnit.MILLISECONDS.toNanos(5));
+        assertFalse(timerWheel.isPaused("draft_1"));
+    }
+
+    @Test
+    void testTimerScheduledWhilePausedStartsOnResume() throws Exception
+    {
+        // Arrange
+        final CountDownLatch fired = new CountDownLatch(1);
+        onShard("draft_1", () -> timerWheel.schedule("draft_1", Duration.ofMillis(100), () -> { }));
+        onShard("draft_1", () -> timerWheel.pause("draft_1"));
+
+        // Act - the next turn starts while the clock is stopped
+        onShard("draft_1", () -> timerWheel.schedule("draft_1", Duration.ofMillis(20), fired::countDown));
+        Thread.sleep(100);
+
+        // Assert
+        assertEquals(1, fired.getCount());
+        assertEquals(Duration.ofMillis(20), timerWheel.getRemaining("draft_1"));
+        onShard("draft_1", () -> timerWheel.resume("draft_1"));
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+    }
+
+    private void onShard(final String draftId, final Runnable command) throws Exception
+    {
+        onShard(draftId, () ->
+        {
+            command.run();
+            return true;
+        });
+    }
+
+    private <T> T onShard(final String draftId, final Supplier<T> command) throws Exception
+    {
+        return executor.submit(draftId, command).get(5, TimeUnit.SECONDS);
+    }
+
+}
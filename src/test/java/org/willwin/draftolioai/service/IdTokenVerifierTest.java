@@ -0,0 +1,208 @@
+package org.willwin.draftolioai.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.config.RsoProperties;
+import org.willwin.draftolioai.dto.RsoUserInfo;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for IdTokenVerifier.
+ */
+class IdTokenVerifierTest
+{
+
+    private static final String ISSUER = "https://auth.riotgames.com";
+
+    private static final String CLIENT_ID = "test_client_id";
+
+    private RSAKey signingKey;
+
+    private AtomicReference<String> jwks;
+
+    private AtomicInteger jwksFetches;
+
+    private IdTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws JOSEException
+    {
+        final RsoProperties rsoProperties = new RsoProperties(
+                false, new RsoProperties.Client(
+                CLIENT_ID, "test_client_secret", "http://localhost:8080/oauth2-callback",
+                "openid cpid offline_access"
+        ), new RsoProperties.Endpoints(ISSUER, "/authorize", "/token", "/userinfo", "/jwks.json"),
+                new RsoProperties.Tokens(
+                        Duration.ofMinutes(5), 3, Duration.ofSeconds(10), Duration.ofSeconds(5), 50,
+                        Duration.ofSeconds(30), Duration.ofSeconds(2), Duration.ofHours(1), Duration.ofMinutes(1),
+                        Duration.ofSeconds(60), new RsoProperties.Resilience()
+                ), new RsoProperties.UserInfoCache()
+        );
+
+        signingKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        jwks = new AtomicReference<>(new JWKSet(signingKey.toPublicJWK()).toString());
+        jwksFetches = new AtomicInteger();
+        verifier = new IdTokenVerifier(
+                rsoProperties, () ->
+        {
+            jwksFetches.incrementAndGet();
+            return jwks.get();
+        }
+        );
+    }
+
+    @Test
+    void testVerifyValidToken() throws JOSEException
+    {
+        // Arrange
+        final String idToken = sign(signingKey, claims(ISSUER, CLIENT_ID, Instant.now().plusSeconds(300)));
+
+        // Act
+        final Optional<RsoUserInfo> userInfo = verifier.verify(idToken);
+
+        // Assert
+        assertTrue(userInfo.isPresent());
+        assertEquals("user-sub", userInfo.get().getSub());
+        assertEquals("NA1", userInfo.get().getCpid());
+    }
+
+    @Test
+    void testJwksIsCachedBetweenVerifications() throws JOSEException
+    {
+        // Arrange
+        final String idToken = sign(signingKey, claims(ISSUER, CLIENT_ID, Instant.now().plusSeconds(300)));
+
+        // Act
+        verifier.verify(idToken);
+        verifier.verify(idToken);
+        verifier.verify(idToken);
+
+        // Assert
+        assertEquals(1, jwksFetches.get());
+    }
+
+    @Test
+    void testRejectsExpiredWrongIssuerAndWrongAudience() throws JOSEException
+    {
+        assertFalse(verifier
+                .verify(sign(signingKey, claims(ISSUER, CLIENT_ID, Instant.now().minusSeconds(600))))
+                .isPresent());
+        assertFalse(verifier
+                .verify(sign(signingKey, claims("https://evil.example", CLIENT_ID, Instant.now().plusSeconds(300))))
+                .isPresent());
+        assertFalse(verifier
+                .verify(sign(signingKey, claims(ISSUER, "other_client", Instant.now().plusSeconds(300))))
+                .isPresent());
+    }
+
+    @Test
+    void testTimeClaimsAreCheckedWithClockSkew() throws JOSEException
+    {
+        // Arrange - the default skew is 60 seconds
+        final Instant now = Instant.now();
+        final Instant expiresAt = now.plusSeconds(300);
+
+        // Act & Assert
+        assertTrue(verifier
+                .verify(sign(signingKey, timedClaims(now.plusSeconds(30), now.plusSeconds(30), expiresAt)))
+                .isPresent());
+        assertFalse(verifier
+                .verify(sign(signingKey, timedClaims(now, now.plusSeconds(120), expiresAt)))
+                .isPresent());
+        assertFalse(verifier
+                .verify(sign(signingKey, timedClaims(now.plusSeconds(120), null, expiresAt)))
+                .isPresent());
+        assertFalse(verifier
+                .verify(sign(signingKey, timedClaims(null, null, expiresAt)))
+                .isPresent());
+    }
+
+    @Test
+    void testRejectsTokenSignedByUnknownKey() throws JOSEException
+    {
+        // Arrange - same key ID, different key material
+        final RSAKey forgedKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+
+        // Act & Assert
+        assertFalse(verifier
+                .verify(sign(forgedKey, claims(ISSUER, CLIENT_ID, Instant.now().plusSeconds(300))))
+                .isPresent());
+    }
+
+    @Test
+    void testUnknownKeyIdRefetchesJwksWithRateLimit() throws JOSEException
+    {
+        // Arrange - prime the cache with the original key
+        verifier.verify(sign(signingKey, claims(ISSUER, CLIENT_ID, Instant.now().plusSeconds(300))));
+
+        // RSO rotates to a new key
+        final RSAKey rotatedKey = new RSAKeyGenerator(2048).keyID("key-2").generate();
+        jwks.set(new JWKSet(rotatedKey.toPublicJWK()).toString());
+        final String rotatedToken = sign(rotatedKey, claims(ISSUER, CLIENT_ID, Instant.now().plusSeconds(300)));
+
+        // Act - the rate limit blocks the refetch right after the initial fetch
+        final Optional<RsoUserInfo> result = verifier.verify(rotatedToken);
+
+        // Assert
+        assertFalse(result.isPresent());
+        assertEquals(1, jwksFetches.get());
+    }
+
+    @Test
+    void testRejectsNonJwtTokens()
+    {
+        assertFalse(verifier.verify("mock_id_token_12345").isPresent());
+        assertFalse(verifier.verify(null).isPresent());
+        assertEquals(0, jwksFetches.get());
+    }
+
+    private static JWTClaimsSet claims(final String issuer, final String audience, final Instant expiresAt)
+    {
+        return new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .audience(audience)
+                .subject("user-sub")
+                .claim("cpid", "NA1")
+                .issueTime(new Date())
+                .expirationTime(Date.from(expiresAt))
+                .build();
+    }
+
+    private static JWTClaimsSet timedClaims(final Instant issuedAt, final Instant notBefore, final Instant expiresAt)
+    {
+        return new JWTClaimsSet.Builder(claims(ISSUER, CLIENT_ID, expiresAt))
+                .issueTime(issuedAt == null ? null : Date.from(issuedAt))
+                .notBeforeTime(notBefore == null ? null : Date.from(notBefore))
+                .build();
+    }
+
+    private static String sign(final RSAKey key, final JWTClaimsSet claims) throws JOSEException
+    {
+        final SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                claims
+        );
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+}
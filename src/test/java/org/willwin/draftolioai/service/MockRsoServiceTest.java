@@ -2,6 +2,7 @@ package org.willwin.draftolioai.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.config.MockRsoSimulationProperties;
 import org.willwin.draftolioai.config.RsoProperties;
 import org.willwin.draftolioai.dto.AuthenticationState;
 import org.willwin.draftolioai.dto.RsoTokenResponse;
@@ -37,7 +38,11 @@ class MockRsoServiceTest
                 ), new RsoProperties.Endpoints(
                 "https://auth.riotgames.com", "/authorize", "/token", "/userinfo",
                 "/jwks.json"
-        ), new RsoProperties.Tokens(Duration.ofMinutes(5), 3, Duration.ofSeconds(10))
+        ), new RsoProperties.Tokens(
+                Duration.ofMinutes(5), 3, Duration.ofSeconds(10), Duration.ofSeconds(5), 50,
+                Duration.ofSeconds(30), Duration.ofSeconds(2), Duration.ofHours(1), Duration.ofSeconds(30),
+                Duration.ofSeconds(60), new RsoProperties.Resilience()
+        ), new RsoProperties.UserInfoCache()
         );
 
         mockRsoService = new MockRsoService(rsoProperties);
@@ -131,6 +136,48 @@ class MockRsoServiceTest
         System.out.println("[DEBUG_LOG] Successfully retrieved user info: " + userInfo);
     }
 
+    @Test
+    void testSimulatedLatencyAndExpiryOverride()
+    {
+        System.out.println("[DEBUG_LOG] Testing simulated latency and token expiry override");
+
+        final MockRsoSimulationProperties simulation = new MockRsoSimulationProperties();
+        simulation.setEnabled(true);
+        simulation.setTokenExpiresIn(Duration.ofMinutes(2));
+        simulation.getTokenRefresh().setLatency(Duration.ofMillis(150));
+        final MockRsoService simulatedService = new MockRsoService(rsoProperties, simulation);
+
+        final long start = System.nanoTime();
+        final RsoTokenResponse tokenResponse = simulatedService.refreshAccessToken("mock_refresh_token_12345");
+        final long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(elapsedMillis >= 150, "elapsed: " + elapsedMillis);
+        assertEquals(120, tokenResponse.getExpiresIn());
+        assertEquals(120, simulatedService.createDirectLoginTokens().getExpiresIn());
+    }
+
+    @Test
+    void testSimulatedFailures()
+    {
+        System.out.println("[DEBUG_LOG] Testing simulated failures and slow tail timeouts");
+
+        final MockRsoSimulationProperties simulation = new MockRsoSimulationProperties();
+        simulation.setEnabled(true);
+        simulation.getUserInfo().setErrorRate(1.0);
+        simulation.getTokenRefresh().setSlowTailRate(1.0);
+        simulation.getTokenRefresh().setSlowTailLatency(Duration.ofMillis(500));
+        rsoProperties.getTokens().setRequestTimeout(Duration.ofMillis(100));
+        final MockRsoService simulatedService = new MockRsoService(rsoProperties, simulation);
+
+        assertThrows(
+                IllegalArgumentException.class, () -> simulatedService.getUserInfo("mock_access_token_12345"));
+        final IllegalArgumentException timeout = assertThrows(
+                IllegalArgumentException.class,
+                () -> simulatedService.refreshAccessToken("mock_refresh_token_12345")
+        );
+        assertTrue(timeout.getMessage().contains("timed out"));
+    }
+
     @Test
     void testStateValidation()
     {
@@ -0,0 +1,121 @@
+package org.willwin.draftolioai.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.willwin.draftolioai.config.HttpClientProperties;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for OutboundHttpClients against a local HTTP server.
+ */
+class OutboundHttpClientsTest
+{
+
+    private HttpServer server;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OutboundHttpClients clients;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/versions.json", exchange -> respond(exchange, "[\"15.1.1\"]"));
+        server.createContext("/slow", exchange ->
+        {
+            try
+            {
+                Thread.sleep(1_000);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, "late");
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+
+        final HttpClientProperties properties = new HttpClientProperties();
+        properties.getDataDragon().setResponseTimeout(Duration.ofMillis(200));
+        clients = new OutboundHttpClients(properties);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        clients.close();
+        server.stop(0);
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void testRestTemplateUsesPooledClient()
+    {
+        // Act
+        final String body = clients
+                .restTemplate(OutboundHttpClients.Profile.DATA_DRAGON)
+                .getForObject(baseUrl + "/versions.json", String.class);
+
+        // Assert
+        assertEquals("[\"15.1.1\"]", body);
+        assertNotNull(Metrics.globalRegistry
+                .find("reactor.netty.connection.provider.total.connections")
+                .tag("name", "data-dragon")
+                .gauge());
+    }
+
+    @Test
+    void testResponseTimeoutIsApplied()
+    {
+        assertThrows(
+                ResourceAccessException.class, () -> clients
+                        .restTemplate(OutboundHttpClients.Profile.DATA_DRAGON)
+                        .getForObject(baseUrl + "/slow", String.class)
+        );
+    }
+
+    @Test
+    void testWebClientBuildersAreIndependent()
+    {
+        assertNotSame(
+                clients.webClientBuilder(OutboundHttpClients.Profile.RSO),
+                clients.webClientBuilder(OutboundHttpClients.Profile.RSO)
+        );
+    }
+
+    private static void respond(final HttpExchange exchange, final String body)
+            throws IOException
+    {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package org.willwin.draftolioai.service;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.willwin.draftolioai.config.RsoProperties;
+import org.willwin.draftolioai.dto.RsoTokenResponse;
+import org.willwin.draftolioai.dto.RsoUserInfo;
+import org.willwin.draftolioai.loadtest.StubRsoServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests RealRsoService's hedging and circuit breaking over real HTTP, against the stub RSO
+ * server with injected latency and failures.
+ */
+class RealRsoServiceTest
+{
+
+    private static final String CLIENT_ID = "rso_test_client";
+
+    private static final String REDIRECT_URI = "http://127.0.0.1:1/oauth2-callback";
+
+    private StubRsoServer stub;
+
+    private RsoProperties rsoProperties;
+
+    @BeforeEach
+    void setUp()
+    {
+        stub = new StubRsoServer(CLIENT_ID).start(0);
+
+        final RsoProperties.Client client = new RsoProperties.Client();
+        client.setClientId(CLIENT_ID);
+        client.setClientSecret("secret");
+        client.setRedirectUri(REDIRECT_URI);
+        client.setScopes("openid cpid offline_access");
+
+        final RsoProperties.Endpoints endpoints = new RsoProperties.Endpoints();
+        endpoints.setBaseUrl(stub.getBaseUrl());
+        endpoints.setAuthorizationPath("/authorize");
+        endpoints.setTokenPath("/token");
+        endpoints.setUserInfoPath("/userinfo");
+        endpoints.setJwksPath("/jwks.json");
+
+        final RsoProperties.Tokens tokens = new RsoProperties.Tokens();
+        tokens.setRequestTimeout(Duration.ofSeconds(5));
+        final RsoProperties.Resilience resilience = tokens.getResilience();
+        resilience.setFailureRateThreshold(50);
+        resilience.setSlidingWindowSize(4);
+        resilience.setMinimumCalls(4);
+        resilience.setOpenDuration(Duration.ofMinutes(1));
+        resilience.setHedgeMinDelay(Duration.ofMillis(20));
+
+        rsoProperties = new RsoProperties();
+        rsoProperties.setMockEnabled(false);
+        rsoProperties.setClient(client);
+        rsoProperties.setEndpoints(endpoints);
+        rsoProperties.setTokens(tokens);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        stub.close();
+    }
+
+    @Test
+    void testSlowUserInfoIsHedged() throws Exception
+    {
+        // Arrange - the median of the first five calls sets the hedge delay; the cold first
+        // calls are outliers, so the delay comes from the warm ones and is the 20 ms minimum
+        final RsoProperties.Resilience resilience = rsoProperties.getTokens().getResilience();
+        resilience.setHedgeMinSamples(5);
+        resilience.setHedgePercentile(0.5);
+        final RealRsoService rsoService = newService();
+        final String accessToken = login(rsoService).getAccessToken();
+        for (int i = 0; i < 4; i++)
+        {
+            rsoService.getUserInfo(accessToken);
+        }
+        assertEquals(4, stub.getRequestCount("/userinfo"));
+
+        // Act
+        stub.setLatency(Duration.ofMillis(500));
+        final RsoUserInfo userInfo = rsoService.getUserInfo(accessToken);
+
+        // Assert - the duplicate went out while the first request was still waiting
+        assertNotNull(userInfo.getSub());
+        assertEquals(6, stub.getRequestCount("/userinfo"));
+    }
+
+    @Test
+    void testServerErrorsOpenCircuit() throws Exception
+    {
+        // Arrange
+        rsoProperties.getTokens().getResilience().setHedgeEnabled(false);
+        final RealRsoService rsoService = newService();
+        final String accessToken = login(rsoService).getAccessToken();
+        stub.setFailureStatus(HttpResponseStatus.SERVICE_UNAVAILABLE);
+
+        // Act
+        IllegalArgumentException lastFailure = null;
+        for (int i = 0; i < 6; i++)
+        {
+            lastFailure = assertThrows(IllegalArgumentException.class, () -> rsoService.getUserInfo(accessToken));
+        }
+
+        // Assert - with the successful token exchange in the window, the third 503 opens the
+        // circuit and the remaining calls never reach RSO
+        assertEquals(3, stub.getRequestCount("/userinfo"));
+        assertInstanceOf(RsoCallGuard.RsoUnavailableException.class, lastFailure.getCause());
+
+        stub.setFailureStatus(null);
+        assertThrows(IllegalArgumentException.class, () -> rsoService.getUserInfo(accessToken));
+        assertEquals(3, stub.getRequestCount("/userinfo"));
+    }
+
+    private RealRsoService newService()
+    {
+        return new RealRsoService(rsoProperties, WebClient.builder(), new SecureIdGenerator());
+    }
+
+    /**
+     * Follow the stub's authorization redirect and exchange the code it issues.
+     */
+    private RsoTokenResponse login(final RealRsoService rsoService) throws IOException, InterruptedException
+    {
+        final String authorizationUrl = rsoService.generateAuthorizationUrl("/");
+        final HttpResponse<Void> redirect;
+        try (HttpClient httpClient = HttpClient.newHttpClient())
+        {
+            redirect = httpClient.send(
+                    HttpRequest.newBuilder(URI.create(authorizationUrl.replace(" ", "%20"))).build(),
+                    HttpResponse.BodyHandlers.discarding()
+            );
+        }
+        assertEquals(302, redirect.statusCode());
+
+        final String location = redirect.headers().firstValue("Location").orElseThrow();
+        final Map<String, String> params = Stream
+                .of(URI.create(location).getQuery().split("&"))
+                .map(param -> param.split("=", 2))
+                .collect(Collectors.toMap(param -> param[0], param -> param[1]));
+        final RsoTokenResponse tokens = rsoService.exchangeCodeForTokens(params.get("code"), params.get("state"));
+        assertTrue(tokens.getAccessToken().startsWith("stub-access-"));
+        return tokens;
+    }
+
+}
@@ -0,0 +1,254 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.willwin.draftolioai.config.RsoProperties;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for RsoCallGuard.
+ */
+class RsoCallGuardTest
+{
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private RsoProperties.Tokens tokens;
+
+    @BeforeEach
+    void setUp()
+    {
+        tokens = new RsoProperties.Tokens();
+        tokens.setRequestTimeout(Duration.ofSeconds(2));
+        final RsoProperties.Resilience resilience = tokens.getResilience();
+        resilience.setFailureRateThreshold(50);
+        resilience.setSlidingWindowSize(4);
+        resilience.setMinimumCalls(4);
+        resilience.setOpenDuration(Duration.ofSeconds(30));
+        resilience.setHalfOpenProbes(1);
+        resilience.setHedgeMinSamples(1);
+        resilience.setHedgeMinDelay(Duration.ofMillis(20));
+    }
+
+    @Test
+    void testCircuitOpensAndRecovers()
+    {
+        // Arrange
+        final RsoCallGuard guard = new RsoCallGuard(tokens, clock::get);
+        final AtomicInteger attempts = new AtomicInteger();
+        for (int i = 0; i < 4; i++)
+        {
+            assertThrows(
+                    WebClientResponseException.class, () -> guard.execute(
+                            "test", () -> failWith(HttpStatus.SERVICE_UNAVAILABLE, attempts), false)
+            );
+        }
+
+        // Act / Assert - open circuit rejects without calling RSO
+        assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitState());
+        assertThrows(
+                RsoCallGuard.RsoUnavailableException.class,
+                () -> guard.execute("test", () -> failWith(HttpStatus.SERVICE_UNAVAILABLE, attempts), false)
+        );
+        assertEquals(4, attempts.get());
+
+        // Act / Assert - a successful probe after the open duration closes it
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertEquals("ok", guard.execute("test", () -> Mono.just("ok"), false));
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitState());
+    }
+
+    @Test
+    void testClientErrorsDoNotOpenCircuit()
+    {
+        // Arrange
+        final RsoCallGuard guard = new RsoCallGuard(tokens, clock::get);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        // Act
+        for (int i = 0; i < 6; i++)
+        {
+            assertThrows(
+                    WebClientResponseException.class,
+                    () -> guard.execute("test", () -> failWith(HttpStatus.BAD_REQUEST, attempts), false)
+            );
+        }
+
+        // Assert
+        assertEquals(6, attempts.get());
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitState());
+    }
+
+    @Test
+    void testSlowCallIsHedged()
+    {
+        // Arrange
+        final RsoCallGuard guard = new RsoCallGuard(tokens, System::nanoTime);
+        assertNull(guard.getHedgeDelay("test"));
+        guard.execute("test", () -> Mono.just("warmup"), true);
+        assertNotNull(guard.getHedgeDelay("test"));
+
+        final AtomicInteger attempts = new AtomicInteger();
+
+        // Act - the first attempt hangs, the hedged duplicate answers
+        final long start = System.nanoTime();
+        final String result = guard.execute(
+                "test", () -> attempts.incrementAndGet() == 1
+                        ? Mono.<String>never()
+                        : Mono.just("hedged"), true
+        );
+
+        // Assert
+        assertEquals("hedged", result);
+        assertEquals(2, attempts.get());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(1).toNanos());
+    }
+
+    @Test
+    void testLatencyWindowsArePerOperation()
+    {
+        // Arrange
+        final RsoCallGuard guard = new RsoCallGuard(tokens, clock::get);
+
+        // Act - a slow non-hedged call and a fast hedged call of another operation
+        guard.execute("token exchange", () -> Mono.fromSupplier(() ->
+        {
+            clock.addAndGet(Duration.ofSeconds(1).toNanos());
+            return "tokens";
+        }), false);
+        guard.execute("user info", () -> Mono.fromSupplier(() ->
+        {
+            clock.addAndGet(Duration.ofMillis(50).toNanos());
+            return "user";
+        }), true);
+
+        // Assert
+        assertNull(guard.getHedgeDelay("token exchange"));
+        assertEquals(Duration.ofMillis(50), guard.getHedgeDelay("user info"));
+    }
+
+    @Test
+    void testBulkheadRejectionGivesBackHalfOpenProbe() throws Exception
+    {
+        // Arrange - open the circuit, then occupy the only bulkhead slot with the first of two probes
+        tokens.getResilience().setHalfOpenProbes(2);
+        tokens.getResilience().setMaxConcurrentCalls(1);
+        tokens.getResilience().setMaxWait(Duration.ZERO);
+        final RsoCallGuard guard = new RsoCallGuard(tokens, clock::get);
+        final AtomicInteger attempts = new AtomicInteger();
+        for (int i = 0; i < 4; i++)
+        {
+            assertThrows(
+                    WebClientResponseException.class, () -> guard.execute(
+                            "test", () -> failWith(HttpStatus.SERVICE_UNAVAILABLE, attempts), false)
+            );
+        }
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor())
+        {
+            final Future<String> probe = executor.submit(() -> guard.execute(
+                    "test", () -> Mono.fromCallable(() ->
+                    {
+                        started.countDown();
+                        release.await();
+                        return "probe";
+                    }), false
+            ));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act - the second probe gets permission but no bulkhead slot
+            assertThrows(
+                    RsoCallGuard.RsoUnavailableException.class,
+                    () -> guard.execute("test", () -> Mono.just("rejected"), false)
+            );
+            release.countDown();
+            assertEquals("probe", probe.get(5, TimeUnit.SECONDS));
+        }
+
+        // Assert - its probe slot was given back, so another probe can close the circuit
+        assertEquals("second probe", guard.execute("test", () -> Mono.just("second probe"), false));
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitState());
+    }
+
+    @Test
+    void testNonIdempotentCallIsNotHedged()
+    {
+        // Arrange
+        tokens.setRequestTimeout(Duration.ofMillis(200));
+        final RsoCallGuard guard = new RsoCallGuard(tokens, System::nanoTime);
+        guard.execute("test", () -> Mono.just("warmup"), false);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        // Act / Assert
+        assertThrows(
+                RuntimeException.class, () -> guard.execute(
+                        "test", () -> Mono.<String>never().doOnSubscribe(s -> attempts.incrementAndGet()), false)
+        );
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void testBulkheadRejectsExcessConcurrentCalls() throws Exception
+    {
+        // Arrange
+        tokens.getResilience().setMaxConcurrentCalls(1);
+        tokens.getResilience().setMaxWait(Duration.ZERO);
+        final RsoCallGuard guard = new RsoCallGuard(tokens, clock::get);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor())
+        {
+            final Future<String> inFlight = executor.submit(() -> guard.execute(
+                    "test", () -> Mono.fromCallable(() ->
+                    {
+                        started.countDown();
+                        release.await();
+                        return "first";
+                    }), false
+            ));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act / Assert
+            assertThrows(
+                    RsoCallGuard.RsoUnavailableException.class,
+                    () -> guard.execute("test", () -> Mono.just("second"), false)
+            );
+            release.countDown();
+            assertEquals("first", inFlight.get(5, TimeUnit.SECONDS));
+            assertEquals("third", guard.execute("test", () -> Mono.just("third"), false));
+        }
+    }
+
+    private static Mono<String> failWith(final HttpStatus status, final AtomicInteger attempts)
+    {
+        return Mono.defer(() ->
+        {
+            attempts.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(
+                    status, status.getReasonPhrase(), new HttpHeaders(), new byte[0], null, null));
+        });
+    }
+
+}
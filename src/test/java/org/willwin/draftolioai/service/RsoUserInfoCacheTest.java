@@ -0,0 +1,150 @@
+package org.willwin.draftolioai.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.config.RsoProperties;
+import org.willwin.draftolioai.dto.RsoUserInfo;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for RsoUserInfoCache.
+ */
+class RsoUserInfoCacheTest
+{
+
+    private RsoService rsoService;
+
+    private RsoProperties.UserInfoCache cacheProperties;
+
+    private RsoUserInfoCache cache;
+
+    @BeforeEach
+    void setUp()
+    {
+        rsoService = mock(RsoService.class);
+        cacheProperties = new RsoProperties.UserInfoCache(100, Duration.ofMinutes(5), Duration.ofSeconds(30));
+
+        final RsoProperties rsoProperties = new RsoProperties();
+        rsoProperties.setUserInfoCache(cacheProperties);
+        cache = new RsoUserInfoCache(rsoService, rsoProperties);
+    }
+
+    @Test
+    void testSecondLookupIsServedFromCache()
+    {
+        // Arrange
+        final RsoUserInfo userInfo = new RsoUserInfo("user-1", "NA1");
+        when(rsoService.getUserInfo("token-1")).thenReturn(userInfo);
+
+        // Act
+        final RsoUserInfo first = cache.getUserInfo("token-1");
+        final RsoUserInfo second = cache.getUserInfo("token-1");
+
+        // Assert
+        assertSame(userInfo, first);
+        assertSame(userInfo, second);
+        verify(rsoService, times(1)).getUserInfo("token-1");
+    }
+
+    @Test
+    void testRejectedTokenIsCachedNegatively()
+    {
+        // Arrange
+        when(rsoService.getUserInfo("bad-token")).thenThrow(new IllegalArgumentException("Invalid access token"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> cache.getUserInfo("bad-token"));
+        assertThrows(IllegalArgumentException.class, () -> cache.getUserInfo("bad-token"));
+        verify(rsoService, times(1)).getUserInfo("bad-token");
+    }
+
+    @Test
+    void testTransientFailureIsNotCached()
+    {
+        // Arrange - RealRsoService wraps timeouts with a cause
+        when(rsoService.getUserInfo("token-1")).thenThrow(
+                new IllegalArgumentException("User info retrieval failed", new RuntimeException("timeout")));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> cache.getUserInfo("token-1"));
+        assertThrows(IllegalArgumentException.class, () -> cache.getUserInfo("token-1"));
+        verify(rsoService, times(2)).getUserInfo("token-1");
+    }
+
+    @Test
+    void testExpiredEntryIsReloaded()
+    {
+        // Arrange
+        cacheProperties.setTtl(Duration.ZERO);
+        when(rsoService.getUserInfo("token-1")).thenReturn(new RsoUserInfo("user-1", "NA1"));
+
+        // Act
+        cache.getUserInfo("token-1");
+        cache.getUserInfo("token-1");
+
+        // Assert
+        verify(rsoService, times(2)).getUserInfo("token-1");
+    }
+
+    @Test
+    void testEvictBySubjectClearsAllTokensOfUser()
+    {
+        // Arrange
+        cache.put("token-1", new RsoUserInfo("user-1", "NA1"));
+        cache.put("token-2", new RsoUserInfo("user-1", "NA1"));
+        cache.put("token-3", new RsoUserInfo("user-2", "EUW1"));
+
+        // Act
+        cache.evict("token-1", "user-1");
+
+        // Assert
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testSizeIsBounded()
+    {
+        // Arrange
+        cacheProperties.setMaxSize(10);
+
+        // Act
+        for (int i = 0; i < 50; i++)
+        {
+            cache.put("token-" + i, new RsoUserInfo("user-" + i, "NA1"));
+        }
+
+        // Assert
+        assertTrue(cache.size() <= 10);
+    }
+
+    @Test
+    void testMetricsArePublished()
+    {
+        // Arrange
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        when(rsoService.getUserInfo("token-1")).thenReturn(new RsoUserInfo("user-1", "NA1"));
+
+        // Act
+        cache.getUserInfo("token-1");
+        cache.getUserInfo("token-1");
+
+        // Assert
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "rsoUserInfo").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "rsoUserInfo").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for SecureIdGenerator.
+ */
+class SecureIdGeneratorTest
+{
+
+    @Test
+    void testIdsAreUnpaddedBase64Url()
+    {
+        // Arrange
+        final SecureIdGenerator generator = new SecureIdGenerator(4);
+
+        for (int length = 1; length <= SecureIdGenerator.MAX_BYTES; length++)
+        {
+            // Act
+            final String id = generator.generate(length);
+
+            // Assert - decodes back to the requested number of bytes
+            assertEquals((length * 4 + 2) / 3, id.length());
+            assertTrue(id.matches("[A-Za-z0-9_-]+"), id);
+            assertEquals(length, Base64.getUrlDecoder().decode(id).length);
+        }
+    }
+
+    @Test
+    void testPrefixIsKept()
+    {
+        // Arrange
+        final SecureIdGenerator generator = new SecureIdGenerator(4);
+
+        // Act
+        final String id = generator.generate("session_", 16);
+
+        // Assert
+        assertTrue(id.startsWith("session_"));
+        assertEquals(16, Base64.getUrlDecoder().decode(id.substring("session_".length())).length);
+    }
+
+    @Test
+    void testPoolSizeIsPowerOfTwo()
+    {
+        // Act & Assert
+        assertEquals(2, new SecureIdGenerator(1).getPoolSize());
+        assertEquals(8, new SecureIdGenerator(5).getPoolSize());
+        assertEquals(8, new SecureIdGenerator(8).getPoolSize());
+    }
+
+    @Test
+    void testUnsupportedLengthIsRejected()
+    {
+        // Arrange
+        final SecureIdGenerator generator = new SecureIdGenerator(2);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(0));
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(SecureIdGenerator.MAX_BYTES + 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.generate("x".repeat(65), 16));
+    }
+
+    @Test
+    void testConcurrentIdsAreUnique()
+    {
+        // Arrange
+        final SecureIdGenerator generator = new SecureIdGenerator(2);
+        final Set<String> ids = ConcurrentHashMap.newKeySet();
+
+        // Act - far more callers than stripes
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            for (int task = 0; task < 64; task++)
+            {
+                executor.submit(() ->
+                {
+                    for (int i = 0; i < 500; i++)
+                    {
+                        ids.add(generator.generate("draft_", 16));
+                    }
+                });
+            }
+        }
+
+        // Assert
+        assertEquals(64 * 500, ids.size());
+    }
+
+}
@@ -0,0 +1,120 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for TokenBucketRateLimiter.
+ */
+class TokenBucketRateLimiterTest
+{
+
+    private final AtomicLong clock = new AtomicLong(Duration.ofHours(1).toNanos());
+
+    @Test
+    void testBurstUpToCapacityThenRejects()
+    {
+        // Arrange
+        final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 1.0, 4, clock::get);
+
+        // Act / Assert
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+        final long wait = limiter.tryAcquire("client");
+        assertEquals(Duration.ofSeconds(1).toNanos(), wait);
+
+        // Other keys have their own bucket
+        assertEquals(0, limiter.tryAcquire("other"));
+    }
+
+    @Test
+    void testCheckDoesNotTakeToken()
+    {
+        // Arrange
+        final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1.0, 4, clock::get);
+
+        // Act / Assert - an unknown key has a token and gets no bucket
+        assertEquals(0, limiter.check("client"));
+        assertEquals(0, limiter.size());
+        assertEquals(0, limiter.check("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(Duration.ofSeconds(1).toNanos(), limiter.check("client"));
+        assertEquals(limiter.check("client"), limiter.tryAcquire("client"));
+    }
+
+    @Test
+    void testTokensRefillOverTime()
+    {
+        // Arrange
+        final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 2.0, 4, clock::get);
+        limiter.tryAcquire("client");
+        limiter.tryAcquire("client");
+        assertTrue(limiter.tryAcquire("client") > 0);
+
+        // Act - half a second refills one token at 2 per second
+        clock.addAndGet(Duration.ofMillis(500).toNanos());
+
+        // Assert
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("client") > 0);
+
+        // A long pause refills to capacity, not beyond
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("client") > 0);
+    }
+
+    @Test
+    void testIdleBucketsAreEvicted()
+    {
+        // Arrange
+        final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(5, 1.0, 4, clock::get);
+        limiter.tryAcquire("idle");
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        limiter.tryAcquire("active");
+
+        // Act
+        final int removed = limiter.evictIdle(Duration.ofMinutes(1).toNanos());
+
+        // Assert
+        assertEquals(1, removed);
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void testConcurrentRequestsNeverExceedCapacity() throws InterruptedException
+    {
+        // Arrange - the clock does not move, so exactly the capacity is admitted
+        final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, 1.0, 4, clock::get);
+        final AtomicInteger admitted = new AtomicInteger();
+
+        // Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(8))
+        {
+            for (int i = 0; i < 1_000; i++)
+            {
+                executor.submit(() ->
+                {
+                    if (limiter.tryAcquire("shared") == 0)
+                    {
+                        admitted.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        // Assert
+        assertEquals(100, admitted.get());
+    }
+
+}
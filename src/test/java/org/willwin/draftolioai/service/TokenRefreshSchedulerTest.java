@@ -0,0 +1,196 @@
+package org.willwin.draftolioai.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.willwin.draftolioai.config.RsoProperties;
+import org.willwin.draftolioai.dto.RsoTokenResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for TokenRefreshScheduler.
+ * <p>
+ * Sweeps are triggered directly so the tests do not depend on the background timer.
+ */
+class TokenRefreshSchedulerTest
+{
+
+    private RsoProperties rsoProperties;
+
+    private TokenRefreshScheduler scheduler;
+
+    @BeforeEach
+    void setUp()
+    {
+        rsoProperties = new RsoProperties(
+                true, new RsoProperties.Client(
+                "test_client_id", "test_client_secret", "http://localhost:8080/oauth2-callback",
+                "openid cpid offline_access"
+        ), new RsoProperties.Endpoints(
+                "https://auth.riotgames.com", "/authorize", "/token", "/userinfo",
+                "/jwks.json"
+        ), new RsoProperties.Tokens(
+                Duration.ofMinutes(5), 2, Duration.ofSeconds(10), Duration.ofSeconds(5), 50,
+                Duration.ofSeconds(30), Duration.ZERO, Duration.ofHours(1), Duration.ofSeconds(30),
+                Duration.ofSeconds(60), new RsoProperties.Resilience()
+        ), new RsoProperties.UserInfoCache()
+        );
+
+        scheduler = new TokenRefreshScheduler(new MockRsoService(rsoProperties), rsoProperties);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        scheduler.stop();
+    }
+
+    @Test
+    void testRefreshesTokensInsideRefreshBuffer()
+    {
+        // Arrange - expiry inside the 5 minute refresh buffer makes the session due immediately
+        final RecordingListener listener = new RecordingListener();
+        scheduler.track("session-1", tokens("mock_refresh_token_1", 60), listener);
+
+        // Act
+        final int refreshed = scheduler.sweep();
+
+        // Assert
+        assertEquals(1, refreshed);
+        assertEquals(1, listener.refreshed.size());
+        assertTrue(listener.refreshed.getFirst().getAccessToken().startsWith("mock_access_token_"));
+        assertEquals(1, scheduler.getTrackedSessionCount());
+    }
+
+    @Test
+    void testDoesNotRefreshTokensOutsideRefreshBuffer()
+    {
+        // Arrange - one hour of validity is well outside buffer plus jitter
+        final RecordingListener listener = new RecordingListener();
+        scheduler.track("session-1", tokens("mock_refresh_token_1", 3600), listener);
+
+        // Act
+        final int refreshed = scheduler.sweep();
+
+        // Assert
+        assertEquals(0, refreshed);
+        assertTrue(listener.refreshed.isEmpty());
+    }
+
+    @Test
+    void testGivesUpAfterMaxRefreshRetries()
+    {
+        // Arrange - the mock service rejects refresh tokens without the mock prefix
+        final RecordingListener listener = new RecordingListener();
+        scheduler.track("session-1", tokens("invalid_refresh_token", 0), listener);
+
+        // Act - initial attempt plus two retries with zero backoff
+        for (int i = 0; i < 3; i++)
+        {
+            scheduler.sweep();
+        }
+
+        // Assert
+        assertEquals(1, listener.failures.get());
+        assertEquals(0, scheduler.getTrackedSessionCount());
+        assertEquals(0, scheduler.sweep());
+    }
+
+    @Test
+    void testRespectsBatchSize()
+    {
+        // Arrange
+        rsoProperties.getTokens().setRefreshBatchSize(2);
+        for (int i = 0; i < 5; i++)
+        {
+            scheduler.track("session-" + i, tokens("mock_refresh_token_" + i, 0), new RecordingListener());
+        }
+
+        // Act & Assert
+        assertEquals(2, scheduler.sweep());
+    }
+
+    @Test
+    void testUntrackStopsRefresh()
+    {
+        // Arrange
+        final RecordingListener listener = new RecordingListener();
+        scheduler.track("session-1", tokens("mock_refresh_token_1", 0), listener);
+
+        // Act
+        scheduler.untrack("session-1");
+
+        // Assert
+        assertEquals(0, scheduler.sweep());
+        assertTrue(listener.refreshed.isEmpty());
+    }
+
+    @Test
+    void testRefreshSupersededByNewTokensIsDiscarded()
+    {
+        // Arrange - a login tracks the session again while its refresh is in flight
+        final RecordingListener stale = new RecordingListener();
+        final RecordingListener current = new RecordingListener();
+        final RsoService rsoService = new MockRsoService(rsoProperties)
+        {
+            @Override
+            public RsoTokenResponse refreshAccessToken(final String refreshToken)
+            {
+                if (refreshToken.equals("mock_refresh_token_1"))
+                {
+                    scheduler.track("session-1", tokens("mock_refresh_token_2", 3600), current);
+                }
+                return super.refreshAccessToken(refreshToken);
+            }
+        };
+        scheduler.stop();
+        scheduler = new TokenRefreshScheduler(rsoService, rsoProperties);
+        scheduler.track("session-1", tokens("mock_refresh_token_1", 0), stale);
+
+        // Act
+        scheduler.sweep();
+
+        // Assert - the stale result is dropped and the new tokens stay tracked
+        assertTrue(stale.refreshed.isEmpty());
+        assertTrue(current.refreshed.isEmpty());
+        assertEquals(1, scheduler.getTrackedSessionCount());
+        assertEquals(0, scheduler.sweep());
+    }
+
+    private static RsoTokenResponse tokens(final String refreshToken, final int expiresIn)
+    {
+        return new RsoTokenResponse(
+                "openid cpid offline_access", expiresIn, "Bearer", refreshToken, null, null,
+                "mock_access_token_0"
+        );
+    }
+
+    private static class RecordingListener implements TokenRefreshScheduler.Listener
+    {
+
+        private final List<RsoTokenResponse> refreshed = new ArrayList<>();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public synchronized void onRefreshed(final String refreshedFrom, final RsoTokenResponse tokens)
+        {
+            refreshed.add(tokens);
+        }
+
+        @Override
+        public void onRefreshFailed(final String refreshToken)
+        {
+            failures.incrementAndGet();
+        }
+
+    }
+
+}